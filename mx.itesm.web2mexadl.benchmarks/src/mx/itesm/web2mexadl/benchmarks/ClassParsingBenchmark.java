@@ -0,0 +1,172 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the analysis of a single class file: the bytecode parsing done by
+ * the DependencyVisitor, and the separation of internal and external
+ * dependencies. The class files are kept in memory, so no I/O is measured.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class ClassParsingBenchmark {
+
+    /**
+     * Number of class files cycled through by the benchmarks.
+     */
+    private static final int CLASSES_COUNT = 1024;
+
+    /**
+     * Number of internal dependencies of each class.
+     */
+    @Param({ "4", "16", "64" })
+    public int fanOut;
+
+    /**
+     * Contents of the generated class files.
+     */
+    private byte[][] classFiles;
+
+    /**
+     * Names of the generated classes.
+     */
+    private String[] classNames;
+
+    /**
+     * Names of the generated classes, as expected by the DependencyAnalyzer.
+     */
+    private List<String> internalClasses;
+
+    /**
+     * Dependencies found in the generated classes, as (class, dependency)
+     * pairs.
+     */
+    private String[][] dependencies;
+
+    /**
+     * Index of the next class to analyze.
+     */
+    private int index;
+
+    /**
+     * Generate the class files to analyze.
+     * 
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        List<String[]> dependencyPairs;
+        CorpusGenerator generator;
+
+        generator = new CorpusGenerator(ScanningBenchmark.SEED, ClassParsingBenchmark.CLASSES_COUNT, 16,
+                this.fanOut);
+        this.classFiles = new byte[ClassParsingBenchmark.CLASSES_COUNT][];
+        this.classNames = new String[ClassParsingBenchmark.CLASSES_COUNT];
+        this.internalClasses = new ArrayList<String>(ClassParsingBenchmark.CLASSES_COUNT);
+        dependencyPairs = new ArrayList<String[]>();
+        for (int i = 0; i < ClassParsingBenchmark.CLASSES_COUNT; i++) {
+            this.classFiles[i] = generator.getClassFile(i);
+            this.classNames[i] = generator.getClassName(i);
+            this.internalClasses.add(this.classNames[i]);
+
+            for (String dependency : DependencyAnalyzer.getClassUnsortedDependencies(new ByteArrayInputStream(
+                    this.classFiles[i]))) {
+                dependencyPairs.add(new String[] { this.classNames[i], dependency });
+            }
+        }
+        this.dependencies = dependencyPairs.toArray(new String[dependencyPairs.size()][]);
+    }
+
+    /**
+     * Parse a class file, without sorting its dependencies.
+     * 
+     * @return Class' dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public Set<String> parseClass() throws IOException {
+        this.index = (this.index + 1) % ClassParsingBenchmark.CLASSES_COUNT;
+        return DependencyAnalyzer.getClassUnsortedDependencies(new ByteArrayInputStream(this.classFiles[this.index]));
+    }
+
+    /**
+     * Parse a class file, and group its dependencies in internal and external.
+     * 
+     * @return Class' dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public ClassDependencies analyzeClass() throws IOException {
+        this.index = (this.index + 1) % ClassParsingBenchmark.CLASSES_COUNT;
+        return DependencyAnalyzer.getClassSortedDependencies(this.classNames[this.index], new ByteArrayInputStream(
+                this.classFiles[this.index]), this.internalClasses, "");
+    }
+
+    /**
+     * Check all the dependencies found in the generated classes.
+     * 
+     * @return Number of valid dependencies.
+     */
+    @Benchmark
+    public int validateDependencies() {
+        int returnValue;
+
+        returnValue = 0;
+        for (String[] dependency : this.dependencies) {
+            if (DependenciesUtil.isValidDependency(dependency[0], dependency[1])) {
+                returnValue++;
+            }
+        }
+
+        return returnValue;
+    }
+}
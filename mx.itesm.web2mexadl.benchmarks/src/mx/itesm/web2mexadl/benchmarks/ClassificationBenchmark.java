@@ -0,0 +1,266 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+import mx.itesm.web2mexadl.util.FeatureExtractor;
+import mx.itesm.web2mexadl.util.Util;
+import net.sf.javaml.core.Dataset;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the phases that follow the dependency analysis: feature
+ * extraction, MVC classification, package grouping and classification, and
+ * clustering. The classes dependencies are generated directly, without class
+ * files. Besides the time per operation, the <em>classes</em> counter reports
+ * the time per analyzed class.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ClassificationBenchmark {
+
+    /**
+     * Number of classes to analyze.
+     */
+    @Param({ "1000", "10000", "100000" })
+    public int classesCount;
+
+    /**
+     * Dependencies of the generated classes.
+     */
+    private List<ClassDependencies> dependencies;
+
+    /**
+     * Valid file types, used to group the classes into packages.
+     */
+    private String[] typeValues;
+
+    /**
+     * Classes grouped by package.
+     */
+    private Map<String, Set<String>> internalPackages;
+
+    /**
+     * MVC classification of each class.
+     */
+    private Map<String, Layer> classification;
+
+    /**
+     * Classes contained in each cluster.
+     */
+    private Dataset[] clusters;
+
+    /**
+     * Parent logger of the analyzers, kept so that its level isn't lost.
+     */
+    private Logger logger;
+
+    /**
+     * Analyzed classes counter, used to report the time per class.
+     * 
+     * @author jccastrejon
+     * 
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ClassesCounter {
+
+        /**
+         * Number of analyzed classes.
+         */
+        public long classes;
+
+        /**
+         * Reset the counter before each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.classes = 0;
+        }
+    }
+
+    /**
+     * Generate the classes dependencies, and the input of each phase.
+     */
+    @Setup
+    public void setUp() {
+        // The analyzers log a line per class
+        this.logger = Logger.getLogger("mx.itesm.web2mexadl");
+        this.logger.setLevel(java.util.logging.Level.WARNING);
+
+        this.dependencies = new CorpusGenerator(ScanningBenchmark.SEED, this.classesCount, Math.max(1,
+                this.classesCount / 50), 8).getClassesDependencies();
+        this.typeValues = Util.getPropertyValues(Util.Variable.Type.getVariableName());
+        this.internalPackages = DependenciesUtil.getInternalPackages(this.dependencies, this.typeValues);
+        this.classification = MvcAnalyzer.classifyClasses(this.dependencies);
+        this.clusters = ClusterAnalyzer.generateClusters(this.dependencies);
+    }
+
+    /**
+     * Extract the Uncertainty model variables of each class.
+     * 
+     * @param counter
+     *            Analyzed classes counter.
+     * @return Sum of the extracted values.
+     */
+    @Benchmark
+    public int extractFeatures(final ClassesCounter counter) {
+        int returnValue;
+        FeatureExtractor featureExtractor;
+
+        returnValue = 0;
+        featureExtractor = new FeatureExtractor();
+        for (ClassDependencies classDependencies : this.dependencies) {
+            classDependencies.setFeatures(null, 0);
+            for (byte feature : featureExtractor.getFeatures(classDependencies)) {
+                returnValue += feature;
+            }
+        }
+
+        counter.classes += this.dependencies.size();
+        return returnValue;
+    }
+
+    /**
+     * Extract the variables of each class, and classify it into one of the
+     * MVC layers.
+     * 
+     * @param counter
+     *            Analyzed classes counter.
+     * @return Classification of each class.
+     */
+    @Benchmark
+    public Map<String, Layer> classifyClasses(final ClassesCounter counter) {
+        for (ClassDependencies classDependencies : this.dependencies) {
+            classDependencies.setFeatures(null, 0);
+        }
+
+        counter.classes += this.dependencies.size();
+        return MvcAnalyzer.classifyClasses(this.dependencies);
+    }
+
+    /**
+     * Group the classes by package.
+     * 
+     * @param counter
+     *            Analyzed classes counter.
+     * @return Classes grouped by package.
+     */
+    @Benchmark
+    public Map<String, Set<String>> groupPackages(final ClassesCounter counter) {
+        counter.classes += this.dependencies.size();
+        return DependenciesUtil.getInternalPackages(this.dependencies, this.typeValues);
+    }
+
+    /**
+     * Classify the packages into the MVC layers, and look for invalid
+     * relations between the classes.
+     * 
+     * @param counter
+     *            Analyzed classes counter.
+     * @return Classification of each class, including the invalid classes.
+     */
+    @Benchmark
+    public Map<String, Layer> checkArchitecture(final ClassesCounter counter) {
+        Map<String, Layer> returnValue;
+        Map<String, Layer> packagesClassification;
+
+        returnValue = new HashMap<String, Layer>(this.classification);
+        packagesClassification = MvcAnalyzer.classifyPackages(this.internalPackages, returnValue,
+                new StringBuilder(), new StringBuilder(), new StringBuilder());
+        MvcAnalyzer.checkRelations(this.dependencies, returnValue, packagesClassification);
+
+        counter.classes += this.dependencies.size();
+        return returnValue;
+    }
+
+    /**
+     * Cluster the classes with EM. Each operation takes several seconds on the
+     * largest inputs, so it's measured as single shots.
+     * 
+     * @param counter
+     *            Analyzed classes counter.
+     * @return Classes contained in each cluster.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public Dataset[] generateClusters(final ClassesCounter counter) {
+        for (ClassDependencies classDependencies : this.dependencies) {
+            classDependencies.setFeatures(null, 0);
+        }
+
+        counter.classes += this.dependencies.size();
+        return ClusterAnalyzer.generateClusters(this.dependencies);
+    }
+
+    /**
+     * Assign each class and package to a cluster.
+     * 
+     * @param counter
+     *            Analyzed classes counter.
+     * @return Cluster assigned to each class.
+     */
+    @Benchmark
+    public Map<String, Cluster> classifyClusterPackages(final ClassesCounter counter) {
+        StringBuilder[] implementationPackages;
+
+        implementationPackages = new StringBuilder[this.clusters.length];
+        for (int i = 0; i < implementationPackages.length; i++) {
+            implementationPackages[i] = new StringBuilder();
+        }
+
+        counter.classes += this.dependencies.size();
+        return ClusterAnalyzer.classifyPackages(this.clusters, this.internalPackages, implementationPackages);
+    }
+}
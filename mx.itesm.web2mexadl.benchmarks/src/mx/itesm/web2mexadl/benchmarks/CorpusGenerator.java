@@ -0,0 +1,741 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.util.Util;
+
+import org.apache.commons.io.FileUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates synthetic web applications to be used as input for the benchmarks
+ * and scaling runs, either as a directory of classes or as a WAR file. Each
+ * class references other generated classes (mostly in its own package)
+ * through fields and method calls, and may use the classes of the external
+ * APIs recognized by the classifier. Web pages and configuration files can be
+ * added, as well as JAR files in <em>WEB-INF/lib</em>.
+ * <p>
+ * The generated contents depend only on the seed and the generator
+ * parameters, and each file is generated as it's written, so the same corpus
+ * is produced on every run regardless of its size.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class CorpusGenerator {
+
+    /**
+     * Package that contains the generated classes.
+     */
+    public static final String BASE_PACKAGE = "mx/itesm/generated";
+
+    /**
+     * Probability that an internal dependency belongs to the same package as
+     * the class referencing it.
+     */
+    private static final double PACKAGE_LOCALITY = 0.7;
+
+    /**
+     * Number of classes in each third-party library.
+     */
+    private static final int THIRD_PARTY_CLASSES = 100;
+
+    /**
+     * Modification time of the JAR entries, January 1st 2011.
+     */
+    private static final long ENTRIES_TIME = 1293840000000L;
+
+    /**
+     * Seed used to generate the corpus.
+     */
+    private long seed;
+
+    /**
+     * Number of classes to generate.
+     */
+    private int classesCount;
+
+    /**
+     * Number of packages among which the classes are distributed.
+     */
+    private int packagesCount;
+
+    /**
+     * Number of internal dependencies of each class.
+     */
+    private int fanOut;
+
+    /**
+     * Probability that a class uses one of the external APIs.
+     */
+    private double frameworkUsage;
+
+    /**
+     * Number of web pages and configuration files to generate.
+     */
+    private int resourcesCount;
+
+    /**
+     * Number of JAR files, part of the same project, in which the classes not
+     * placed in <em>WEB-INF/classes</em> are distributed.
+     */
+    private int librariesCount;
+
+    /**
+     * Number of third-party JAR files placed in <em>WEB-INF/lib</em>.
+     */
+    private int thirdPartyLibrariesCount;
+
+    /**
+     * Internal names of the generated classes.
+     */
+    private String[] classNames;
+
+    /**
+     * Internal names of the external API classes, one per API package.
+     */
+    private String[] externalClasses;
+
+    /**
+     * Full constructor. The generated classes don't use any resources or
+     * third-party libraries, the classes are split between
+     * <em>WEB-INF/classes</em> and one project JAR, and half of them use an
+     * external API.
+     * 
+     * @param seed
+     *            Seed used to generate the corpus.
+     * @param classesCount
+     *            Number of classes to generate.
+     * @param packagesCount
+     *            Number of packages among which the classes are distributed.
+     * @param fanOut
+     *            Number of internal dependencies of each class.
+     */
+    public CorpusGenerator(final long seed, final int classesCount, final int packagesCount, final int fanOut) {
+        String[] suffixes;
+        String[] externalApis;
+        List<String> externalClasses;
+
+        if ((classesCount <= 0) || (packagesCount <= 0) || (fanOut < 0)) {
+            throw new IllegalArgumentException("Invalid generator parameters: " + classesCount + ", "
+                    + packagesCount + ", " + fanOut);
+        }
+
+        this.seed = seed;
+        this.classesCount = classesCount;
+        this.packagesCount = packagesCount;
+        this.fanOut = fanOut;
+        this.frameworkUsage = 0.5;
+        this.librariesCount = 1;
+
+        // Class names ending with the suffixes known by the classifier
+        suffixes = Util.getPropertyValues(Util.Variable.Suffix.getVariableName());
+        this.classNames = new String[classesCount];
+        for (int i = 0; i < classesCount; i++) {
+            this.classNames[i] = CorpusGenerator.BASE_PACKAGE + "/module" + (i % packagesCount) + "/Class" + i
+                    + CorpusGenerator.getSimpleName(suffixes[i % suffixes.length]);
+        }
+
+        // A class for each package of the external APIs known by the
+        // classifier
+        externalClasses = new ArrayList<String>();
+        externalApis = Util.getPropertyValues(Util.Variable.ExternalAPI.getVariableName());
+        for (String externalApi : externalApis) {
+            if (!externalApi.equals("none")) {
+                for (String externalPackage : Util.getPropertyValues("externalApi." + externalApi + ".packages")) {
+                    externalClasses.add(externalPackage.replace('.', '/') + "/"
+                            + CorpusGenerator.getSimpleName(externalPackage.substring(externalPackage
+                                    .lastIndexOf('.') + 1)) + "Support");
+                }
+            }
+        }
+        this.externalClasses = externalClasses.toArray(new String[externalClasses.size()]);
+    }
+
+    /**
+     * Generate a synthetic web application.
+     * 
+     * @param args
+     *            Generator options, as described in the usage message.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void main(final String[] args) throws IOException {
+        long seed;
+        int fanOut;
+        File output;
+        String option;
+        int classesCount;
+        int packagesCount;
+        int resourcesCount;
+        int librariesCount;
+        String outputType;
+        double frameworkUsage;
+        CorpusGenerator generator;
+        int thirdPartyLibrariesCount;
+
+        seed = 0;
+        fanOut = 8;
+        output = null;
+        outputType = null;
+        classesCount = 1000;
+        packagesCount = -1;
+        resourcesCount = 0;
+        librariesCount = 1;
+        frameworkUsage = 0.5;
+        thirdPartyLibrariesCount = 0;
+        for (int i = 0; i < args.length; i++) {
+            option = args[i];
+            if ((i + 1) >= args.length) {
+                CorpusGenerator.exitWithUsage("Missing value for option: " + option);
+            }
+
+            if (option.equals("-seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (option.equals("-classes")) {
+                classesCount = Integer.parseInt(args[++i]);
+            } else if (option.equals("-packages")) {
+                packagesCount = Integer.parseInt(args[++i]);
+            } else if (option.equals("-fanOut")) {
+                fanOut = Integer.parseInt(args[++i]);
+            } else if (option.equals("-frameworkUsage")) {
+                frameworkUsage = Double.parseDouble(args[++i]);
+            } else if (option.equals("-resources")) {
+                resourcesCount = Integer.parseInt(args[++i]);
+            } else if (option.equals("-libraries")) {
+                librariesCount = Integer.parseInt(args[++i]);
+            } else if (option.equals("-thirdPartyLibraries")) {
+                thirdPartyLibrariesCount = Integer.parseInt(args[++i]);
+            } else if (option.equals("-war") || option.equals("-directory") || option.equals("-jar")) {
+                outputType = option;
+                output = new File(args[++i]);
+            } else {
+                CorpusGenerator.exitWithUsage("Unknown option: " + option);
+            }
+        }
+
+        if (output == null) {
+            CorpusGenerator.exitWithUsage("No output specified");
+        }
+
+        // By default, 50 classes per package
+        if (packagesCount <= 0) {
+            packagesCount = Math.max(1, classesCount / 50);
+        }
+
+        generator = new CorpusGenerator(seed, classesCount, packagesCount, fanOut);
+        generator.setFrameworkUsage(frameworkUsage);
+        generator.setResourcesCount(resourcesCount);
+        generator.setLibrariesCount(librariesCount);
+        generator.setThirdPartyLibrariesCount(thirdPartyLibrariesCount);
+        if (outputType.equals("-war")) {
+            generator.writeWar(output);
+        } else if (outputType.equals("-jar")) {
+            generator.writeJar(output);
+        } else {
+            generator.writeDirectory(output);
+        }
+
+        System.out.println("Generated " + classesCount + " classes in " + packagesCount + " packages, "
+                + resourcesCount + " resources: " + output.getAbsolutePath());
+    }
+
+    /**
+     * Print the generator usage and exit.
+     * 
+     * @param message
+     *            Error message.
+     */
+    private static void exitWithUsage(final String message) {
+        System.err.println(message);
+        System.err.println("Usage: CorpusGenerator [-seed n] [-classes n] [-packages n] [-fanOut n] "
+                + "[-frameworkUsage p] [-resources n] [-libraries n] [-thirdPartyLibraries n] "
+                + "(-war file | -jar file | -directory dir)");
+        System.exit(1);
+    }
+
+    /**
+     * Get the name of the specified class, using '.' as package separator.
+     * 
+     * @param index
+     *            Class index.
+     * @return Class name.
+     */
+    public String getClassName(final int index) {
+        return this.classNames[index].replace('/', '.');
+    }
+
+    /**
+     * Generate the contents of the specified class file.
+     * 
+     * @param index
+     *            Class index.
+     * @return Class file contents.
+     */
+    public byte[] getClassFile(final int index) {
+        String[] interfaces;
+        MethodVisitor method;
+        ClassWriter classWriter;
+        String[][] dependencies;
+
+        dependencies = this.getDependencies(index);
+        classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        if (dependencies[1].length > 0) {
+            interfaces = new String[] { "java/io/Serializable", dependencies[1][0] };
+        } else {
+            interfaces = new String[] { "java/io/Serializable" };
+        }
+        classWriter.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC + Opcodes.ACC_SUPER, this.classNames[index], null,
+                "java/lang/Object", interfaces);
+
+        // Fields
+        for (int i = 0; i < dependencies[0].length; i++) {
+            classWriter.visitField(Opcodes.ACC_PRIVATE, "field" + i, "L" + dependencies[0][i] + ";", null, null)
+                    .visitEnd();
+        }
+
+        // Constructor
+        method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        method.visitInsn(Opcodes.RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        // Method calling each dependency
+        method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "execute", "()Ljava/lang/String;", null,
+                new String[] { "java/io/IOException" });
+        method.visitCode();
+        for (int i = 0; i < dependencies[0].length; i++) {
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitFieldInsn(Opcodes.GETFIELD, this.classNames[index], "field" + i, "L" + dependencies[0][i]
+                    + ";");
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, dependencies[0][i], "execute", "()Ljava/lang/String;");
+            method.visitInsn(Opcodes.POP);
+        }
+        method.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+        method.visitInsn(Opcodes.DUP);
+        method.visitLdcInsn(this.classNames[index]);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>",
+                "(Ljava/lang/String;)V");
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString",
+                "()Ljava/lang/String;");
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Get the dependencies of the generated classes and resources, as they
+     * would be found by the DependencyAnalyzer in a directory, but without
+     * generating the files.
+     * 
+     * @return Dependencies for each generated class and resource.
+     */
+    public List<ClassDependencies> getClassesDependencies() {
+        String[][] dependencies;
+        List<String> externalDependencies;
+        Set<String> internalDependencies;
+        List<ClassDependencies> returnValue;
+
+        returnValue = new ArrayList<ClassDependencies>(this.classesCount + this.resourcesCount);
+        for (int i = 0; i < this.classesCount; i++) {
+            dependencies = this.getDependencies(i);
+            internalDependencies = new HashSet<String>();
+            for (String dependency : dependencies[0]) {
+                if (DependenciesUtil.isValidDependency(this.classNames[i], dependency)) {
+                    internalDependencies.add(dependency.replace('/', '.'));
+                }
+            }
+
+            externalDependencies = new ArrayList<String>(dependencies[1].length);
+            for (String dependency : dependencies[1]) {
+                if (DependenciesUtil.isValidDependency(this.classNames[i], dependency)) {
+                    externalDependencies.add(dependency.replace('/', '.'));
+                }
+            }
+
+            returnValue.add(new ClassDependencies(this.getClassName(i), new ArrayList<String>(internalDependencies),
+                    externalDependencies));
+        }
+
+        for (int i = 0; i < this.resourcesCount; i++) {
+            returnValue.add(new ClassDependencies(this.getResourceName(i), null, null));
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Write the generated classes and resources into the specified directory,
+     * following the packages structure.
+     * 
+     * @param directory
+     *            Root directory.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public void writeDirectory(final File directory) throws IOException {
+        for (int i = 0; i < this.classesCount; i++) {
+            FileUtils.writeByteArrayToFile(new File(directory, this.classNames[i] + ".class"), this.getClassFile(i));
+        }
+
+        for (int i = 0; i < this.resourcesCount; i++) {
+            FileUtils.writeStringToFile(new File(directory, this.getResourceName(i)), this.getResource(i), "UTF-8");
+        }
+    }
+
+    /**
+     * Write the generated classes and resources into the specified JAR file.
+     * 
+     * @param jarFile
+     *            JAR file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public void writeJar(final File jarFile) throws IOException {
+        JarOutputStream outputStream;
+
+        outputStream = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(jarFile), 65536));
+        try {
+            this.writeClasses(outputStream, "", 0, this.classesCount);
+            for (int i = 0; i < this.resourcesCount; i++) {
+                outputStream.putNextEntry(CorpusGenerator.getJarEntry(this.getResourceName(i)));
+                outputStream.write(this.getResource(i).getBytes("UTF-8"));
+                outputStream.closeEntry();
+            }
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Write the generated classes and resources into the specified WAR file.
+     * Half of the classes are placed in the <em>WEB-INF/classes</em>
+     * directory, and the other half in the project JAR files in
+     * <em>WEB-INF/lib</em>, named after the WAR family so that they're
+     * considered part of the same project. Web pages are placed in
+     * <em>WEB-INF/views</em> and configuration files in <em>WEB-INF</em>.
+     * 
+     * @param warFile
+     *            WAR file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public void writeWar(final File warFile) throws IOException {
+        int from;
+        int middle;
+        String warName;
+        String resourceName;
+        JarOutputStream warStream;
+
+        middle = (this.librariesCount > 0) ? this.classesCount / 2 : this.classesCount;
+        warName = DependenciesUtil.getWarFamilyNameFromPath(warFile.getAbsolutePath());
+        warStream = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(warFile), 65536));
+        try {
+            // Resources
+            for (int i = 0; i < this.resourcesCount; i++) {
+                resourceName = this.getResourceName(i);
+                if (resourceName.endsWith(".jsp")) {
+                    resourceName = "WEB-INF/views" + resourceName.substring(resourceName.lastIndexOf('/'));
+                } else {
+                    resourceName = "WEB-INF" + resourceName.substring(resourceName.lastIndexOf('/'));
+                }
+
+                warStream.putNextEntry(CorpusGenerator.getJarEntry(resourceName));
+                warStream.write(this.getResource(i).getBytes("UTF-8"));
+                warStream.closeEntry();
+            }
+
+            // Classes
+            this.writeClasses(warStream, "WEB-INF/classes/", 0, middle);
+
+            // Project libraries, written directly into the WAR stream
+            for (int i = 0; i < this.librariesCount; i++) {
+                from = middle + (int) ((long) (this.classesCount - middle) * i / this.librariesCount);
+                warStream.putNextEntry(CorpusGenerator.getJarEntry("WEB-INF/lib/" + warName + "-module" + i
+                        + ".jar"));
+                this.writeNestedJar(warStream, from,
+                        middle + (int) ((long) (this.classesCount - middle) * (i + 1) / this.librariesCount));
+                warStream.closeEntry();
+            }
+
+            // Third-party libraries
+            for (int i = 0; i < this.thirdPartyLibrariesCount; i++) {
+                warStream.putNextEntry(CorpusGenerator.getJarEntry("WEB-INF/lib/thirdparty" + i + "-1.0.jar"));
+                this.writeThirdPartyJar(warStream, i);
+                warStream.closeEntry();
+            }
+        } finally {
+            warStream.close();
+        }
+    }
+
+    /**
+     * Get the internal names of the classes referenced by the specified class.
+     * Each class has its own random sequence, so that the classes can be
+     * generated in any order.
+     * 
+     * @param index
+     *            Class index.
+     * @return Internal dependencies in the first position, and external
+     *         dependencies in the second one.
+     */
+    private String[][] getDependencies(final int index) {
+        int dependency;
+        Random random;
+        String[][] returnValue;
+
+        random = new Random(this.seed * 31 + index);
+        returnValue = new String[2][];
+        returnValue[0] = new String[this.fanOut];
+        for (int i = 0; i < this.fanOut; i++) {
+            // Classes in the same package have the same index modulo the
+            // number of packages
+            if ((this.classesCount > this.packagesCount) && (random.nextDouble() < CorpusGenerator.PACKAGE_LOCALITY)) {
+                dependency = random.nextInt((this.classesCount - 1 - (index % this.packagesCount))
+                        / this.packagesCount + 1)
+                        * this.packagesCount + (index % this.packagesCount);
+            } else {
+                dependency = random.nextInt(this.classesCount);
+            }
+
+            returnValue[0][i] = this.classNames[dependency];
+        }
+
+        if (random.nextDouble() < this.frameworkUsage) {
+            returnValue[1] = new String[] { this.externalClasses[random.nextInt(this.externalClasses.length)] };
+        } else {
+            returnValue[1] = new String[0];
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the path of the specified resource, relative to the root directory.
+     * One of each four resources is a configuration file, the rest are web
+     * pages.
+     * 
+     * @param index
+     *            Resource index.
+     * @return Resource path.
+     */
+    private String getResourceName(final int index) {
+        String returnValue;
+
+        returnValue = CorpusGenerator.BASE_PACKAGE + "/module" + (index % this.packagesCount);
+        if ((index % 4) == 3) {
+            returnValue += "/config" + index + ".xml";
+        } else {
+            returnValue += "/page" + index + ".jsp";
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Generate the contents of the specified resource.
+     * 
+     * @param index
+     *            Resource index.
+     * @return Resource contents.
+     */
+    private String getResource(final int index) {
+        String returnValue;
+        String className;
+
+        className = this.getClassName(index % this.classesCount);
+        if ((index % 4) == 3) {
+            returnValue = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<beans>\n\t<bean id=\"bean" + index
+                    + "\" class=\"" + className + "\"/>\n</beans>\n";
+        } else {
+            returnValue = "<%@ page contentType=\"text/html\" import=\"" + className + "\" %>\n<html>\n<body>\n"
+                    + "\t<h1>Page " + index + "</h1>\n</body>\n</html>\n";
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Write the specified range of generated classes as entries of a JAR
+     * stream.
+     * 
+     * @param outputStream
+     *            JAR stream.
+     * @param prefix
+     *            Prefix of the entries names.
+     * @param from
+     *            Index of the first class, inclusive.
+     * @param to
+     *            Index of the last class, exclusive.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private void writeClasses(final JarOutputStream outputStream, final String prefix, final int from, final int to)
+            throws IOException {
+        for (int i = from; i < to; i++) {
+            outputStream.putNextEntry(CorpusGenerator.getJarEntry(prefix + this.classNames[i] + ".class"));
+            outputStream.write(this.getClassFile(i));
+            outputStream.closeEntry();
+        }
+    }
+
+    /**
+     * Write a JAR file, containing the specified range of generated classes,
+     * into the current entry of the specified stream. The stream isn't closed.
+     * 
+     * @param outputStream
+     *            Stream positioned at the JAR file entry.
+     * @param from
+     *            Index of the first class, inclusive.
+     * @param to
+     *            Index of the last class, exclusive.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private void writeNestedJar(final JarOutputStream outputStream, final int from, final int to)
+            throws IOException {
+        JarOutputStream jarStream;
+
+        jarStream = new JarOutputStream(outputStream);
+        this.writeClasses(jarStream, "", from, to);
+        jarStream.finish();
+    }
+
+    /**
+     * Write a third-party JAR file, whose classes don't depend on the
+     * generated ones, into the current entry of the specified stream. The
+     * stream isn't closed.
+     * 
+     * @param outputStream
+     *            Stream positioned at the JAR file entry.
+     * @param library
+     *            Library index.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private void writeThirdPartyJar(final JarOutputStream outputStream, final int library) throws IOException {
+        String className;
+        JarOutputStream jarStream;
+        ClassWriter classWriter;
+
+        jarStream = new JarOutputStream(outputStream);
+        for (int i = 0; i < CorpusGenerator.THIRD_PARTY_CLASSES; i++) {
+            className = "org/thirdparty/library" + library + "/Type" + i;
+            classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            classWriter.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC + Opcodes.ACC_SUPER, className, null,
+                    "java/lang/Object", null);
+            classWriter.visitEnd();
+
+            jarStream.putNextEntry(CorpusGenerator.getJarEntry(className + ".class"));
+            jarStream.write(classWriter.toByteArray());
+            jarStream.closeEntry();
+        }
+        jarStream.finish();
+    }
+
+    /**
+     * Get a JAR entry with the specified name, and a fixed modification time
+     * so that the generated files are identical on every run.
+     * 
+     * @param name
+     *            Entry name.
+     * @return JAR entry.
+     */
+    private static JarEntry getJarEntry(final String name) {
+        JarEntry returnValue;
+
+        returnValue = new JarEntry(name);
+        returnValue.setTime(CorpusGenerator.ENTRIES_TIME);
+        return returnValue;
+    }
+
+    /**
+     * Get a Java simple name from the specified lower case word.
+     * 
+     * @param word
+     *            Lower case word.
+     * @return Capitalized word, or an empty String if the word is
+     *         <em>none</em>.
+     */
+    private static String getSimpleName(final String word) {
+        String returnValue;
+
+        if (word.equals("none")) {
+            returnValue = "";
+        } else {
+            returnValue = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * @param frameworkUsage
+     *            the frameworkUsage to set
+     */
+    public void setFrameworkUsage(final double frameworkUsage) {
+        this.frameworkUsage = frameworkUsage;
+    }
+
+    /**
+     * @param resourcesCount
+     *            the resourcesCount to set
+     */
+    public void setResourcesCount(final int resourcesCount) {
+        this.resourcesCount = resourcesCount;
+    }
+
+    /**
+     * @param librariesCount
+     *            the librariesCount to set
+     */
+    public void setLibrariesCount(final int librariesCount) {
+        this.librariesCount = librariesCount;
+    }
+
+    /**
+     * @param thirdPartyLibrariesCount
+     *            the thirdPartyLibrariesCount to set
+     */
+    public void setThirdPartyLibrariesCount(final int thirdPartyLibrariesCount) {
+        this.thirdPartyLibrariesCount = thirdPartyLibrariesCount;
+    }
+}
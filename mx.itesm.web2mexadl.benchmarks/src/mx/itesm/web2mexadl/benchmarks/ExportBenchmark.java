@@ -0,0 +1,284 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.benchmarks;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.cluster.ClusterExportCommand;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+import mx.itesm.web2mexadl.mvc.MvcExportCommand;
+import mx.itesm.web2mexadl.util.Util;
+
+import org.apache.commons.io.FileUtils;
+import org.jdom.JDOMException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the export of the analysis results: the MexADL architecture
+ * documents of the MVC and Cluster analysis, and the dot description of the
+ * classes dependencies. The external dot process isn't executed. The packages
+ * are assigned to the clusters in turns, so that every cluster of the
+ * template is used up to the clustersCount parameter.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-Djava.awt.headless=true" })
+public class ExportBenchmark {
+
+    /**
+     * Number of classes generated in each package.
+     */
+    private static final int CLASSES_PER_PACKAGE = 20;
+
+    /**
+     * Number of packages to export.
+     */
+    @Param({ "10", "100", "1000" })
+    public int packagesCount;
+
+    /**
+     * Number of clusters to export, the cluster template supports up to 10.
+     */
+    @Param({ "2", "5", "10" })
+    public int clustersCount;
+
+    /**
+     * Temporary directory where the exported files are written.
+     */
+    private File outputDirectory;
+
+    /**
+     * Dot file.
+     */
+    private File dotFile;
+
+    /**
+     * Dependencies of the generated classes.
+     */
+    private List<ClassDependencies> dependencies;
+
+    /**
+     * Classes grouped by package.
+     */
+    private Map<String, Set<String>> internalPackages;
+
+    /**
+     * MVC classification of each class.
+     */
+    private Map<String, Layer> layers;
+
+    /**
+     * Implementation packages of the model layer.
+     */
+    private String modelPackages;
+
+    /**
+     * Implementation packages of the controller layer.
+     */
+    private String controllerPackages;
+
+    /**
+     * Implementation packages of the view layer.
+     */
+    private String viewPackages;
+
+    /**
+     * Cluster assigned to each class.
+     */
+    private Map<String, Cluster> clusters;
+
+    /**
+     * Implementation packages of each cluster.
+     */
+    private StringBuilder[] clustersPackages;
+
+    /**
+     * Generate the classes dependencies, and classify them both into MVC
+     * layers and into clusters.
+     * 
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        int packageIndex;
+        Cluster[] clustersArray;
+        List<String> packageNames;
+        StringBuilder viewBuilder;
+        StringBuilder modelBuilder;
+        StringBuilder controllerBuilder;
+
+        this.outputDirectory = File.createTempFile("web2mexadl-benchmarks", "");
+        if ((!this.outputDirectory.delete()) || (!this.outputDirectory.mkdir())) {
+            throw new IOException("Unable to create directory: " + this.outputDirectory);
+        }
+        this.dotFile = new File(this.outputDirectory, "architecture.dot");
+
+        this.dependencies = new CorpusGenerator(ScanningBenchmark.SEED, this.packagesCount
+                * ExportBenchmark.CLASSES_PER_PACKAGE, this.packagesCount, 8).getClassesDependencies();
+        this.internalPackages = DependenciesUtil.getInternalPackages(this.dependencies,
+                Util.getPropertyValues(Util.Variable.Type.getVariableName()));
+
+        // MVC
+        viewBuilder = new StringBuilder();
+        modelBuilder = new StringBuilder();
+        controllerBuilder = new StringBuilder();
+        this.layers = MvcAnalyzer.classifyClasses(this.dependencies);
+        MvcAnalyzer.classifyPackages(this.internalPackages, this.layers, modelBuilder, controllerBuilder,
+                viewBuilder);
+        this.modelPackages = modelBuilder.toString();
+        this.controllerPackages = controllerBuilder.toString();
+        this.viewPackages = viewBuilder.toString();
+
+        // Clusters
+        clustersArray = new Cluster[this.clustersCount];
+        this.clustersPackages = new StringBuilder[this.clustersCount];
+        for (int i = 0; i < this.clustersCount; i++) {
+            clustersArray[i] = new Cluster("Cluster_" + i, Color.HSBtoRGB((float) i / this.clustersCount, 0.5f,
+                    0.9f));
+            this.clustersPackages[i] = new StringBuilder();
+        }
+
+        packageIndex = 0;
+        packageNames = new ArrayList<String>(this.internalPackages.keySet());
+        Collections.sort(packageNames);
+        this.clusters = new HashMap<String, Cluster>(this.dependencies.size());
+        for (String packageName : packageNames) {
+            Util.addImplementationPackage(this.clustersPackages[packageIndex % this.clustersCount], packageName);
+            for (String className : this.internalPackages.get(packageName)) {
+                this.clusters.put(className, clustersArray[packageIndex % this.clustersCount]);
+            }
+            packageIndex++;
+        }
+    }
+
+    /**
+     * Delete the exported files.
+     * 
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.outputDirectory);
+    }
+
+    /**
+     * Export the MVC architecture document.
+     * 
+     * @return Size of the exported document.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public long exportMvcToMexADL() throws IOException {
+        MvcAnalyzer.exportToMexADL(this.outputDirectory, this.modelPackages, this.controllerPackages,
+                this.viewPackages);
+        return new File(this.outputDirectory, "mvcArchitecture.xml").length();
+    }
+
+    /**
+     * Export the Cluster architecture document.
+     * 
+     * @return Size of the exported document.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     * @throws JDOMException
+     *             If the architecture template can't be parsed.
+     */
+    @Benchmark
+    public long exportClustersToMexADL() throws IOException, JDOMException {
+        ClusterAnalyzer.exportToMexADL(this.outputDirectory, this.clustersPackages);
+        return new File(this.outputDirectory, "clusteredArchitecture.xml").length();
+    }
+
+    /**
+     * Export the dependencies, colored by MVC layer, as a dot description.
+     * 
+     * @return Size of the dot file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public long exportMvcToDot() throws IOException {
+        DependenciesUtil.exportDependenciesToDot(this.dependencies, false, false, this.dotFile,
+                this.internalPackages, new MvcExportCommand(this.layers));
+        return this.dotFile.length();
+    }
+
+    /**
+     * Export the dependencies, colored by cluster, as a dot description.
+     * 
+     * @return Size of the dot file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public long exportClustersToDot() throws IOException {
+        DependenciesUtil.exportDependenciesToDot(this.dependencies, false, false, this.dotFile,
+                this.internalPackages, new ClusterExportCommand(this.clusters));
+        return this.dotFile.length();
+    }
+
+    /**
+     * Export the dependencies, including the external ones and leaving out
+     * the redundant internal ones, as a dot description.
+     * 
+     * @return Size of the dot file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public long exportSimplifiedToDot() throws IOException {
+        DependenciesUtil.exportDependenciesToDot(this.dependencies, true, true, this.dotFile,
+                this.internalPackages, new MvcExportCommand(this.layers));
+        return this.dotFile.length();
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipFile;
+
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.cluster.ClusterExportCommand;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+import mx.itesm.web2mexadl.mvc.MvcExportCommand;
+import mx.itesm.web2mexadl.util.Util;
+import net.sf.javaml.core.Dataset;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+/**
+ * End-to-end scaling benchmark. Generates web applications of increasing size
+ * and runs the MVC and Cluster analysis on them, both as a WAR file and as a
+ * classes directory. The analysis is executed phase by phase (listing,
+ * parsing, package grouping, classification or clustering, MexADL export, dot
+ * generation and rendering), and then once more through the analyzers entry
+ * point.
+ * <p>
+ * For each phase a line of JSON is written with the wall time, the CPU time,
+ * the bytes allocated and the peak heap usage, so that the results of
+ * different versions of the library can be compared.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ScalingBenchmark {
+
+    /**
+     * Label written in each result, identifying the library version.
+     */
+    private String label;
+
+    /**
+     * Writer where the results are written.
+     */
+    private PrintWriter output;
+
+    /**
+     * Heap memory pools, used to get the peak heap usage.
+     */
+    private List<MemoryPoolMXBean> heapPools;
+
+    /**
+     * Threads bean, used to get the CPU time and allocated bytes.
+     */
+    private ThreadMXBean threadBean;
+
+    /**
+     * Description of the current analysis, written in each result.
+     */
+    private String analysis;
+
+    /**
+     * Wall time when the current phase started.
+     */
+    private long phaseWallTime;
+
+    /**
+     * CPU time when the current phase started.
+     */
+    private long phaseCpuTime;
+
+    /**
+     * Allocated bytes when the current phase started.
+     */
+    private long phaseAllocatedBytes;
+
+    /**
+     * Full constructor.
+     * 
+     * @param label
+     *            Label written in each result, identifying the library
+     *            version.
+     * @param output
+     *            Writer where the results are written.
+     */
+    public ScalingBenchmark(final String label, final PrintWriter output) {
+        this.label = label;
+        this.output = output;
+        this.threadBean = ManagementFactory.getThreadMXBean();
+        this.heapPools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                this.heapPools.add(pool);
+            }
+        }
+    }
+
+    /**
+     * Run the scaling benchmark.
+     * 
+     * @param args
+     *            Benchmark options, as described in the usage message.
+     * @throws Exception
+     *             If an Exception occurs during the analysis.
+     */
+    public static void main(final String[] args) throws Exception {
+        int runs;
+        long seed;
+        int[] sizes;
+        String label;
+        File warFile;
+        Logger logger;
+        String option;
+        String[] inputs;
+        String[] values;
+        File workDirectory;
+        String[] analyzers;
+        File classesDirectory;
+        PrintWriter output;
+        File outputDirectory;
+        CorpusGenerator generator;
+        ScalingBenchmark benchmark;
+
+        runs = 1;
+        seed = ScanningBenchmark.SEED;
+        label = "";
+        sizes = new int[] { 1000, 10000, 100000 };
+        inputs = new String[] { "war", "directory" };
+        analyzers = new String[] { "mvc", "cluster" };
+        workDirectory = new File(System.getProperty("java.io.tmpdir"), "web2mexadl-scaling");
+        output = new PrintWriter(new OutputStreamWriter(System.out, "UTF-8"), true);
+        for (int i = 0; i < args.length; i++) {
+            option = args[i];
+            if ((i + 1) >= args.length) {
+                ScalingBenchmark.exitWithUsage("Missing value for option: " + option);
+            }
+
+            if (option.equals("-sizes")) {
+                values = args[++i].split(",");
+                sizes = new int[values.length];
+                for (int j = 0; j < sizes.length; j++) {
+                    sizes[j] = Integer.parseInt(values[j].trim());
+                }
+            } else if (option.equals("-inputs")) {
+                inputs = args[++i].split(",");
+            } else if (option.equals("-analyzers")) {
+                analyzers = args[++i].split(",");
+            } else if (option.equals("-runs")) {
+                runs = Integer.parseInt(args[++i]);
+            } else if (option.equals("-seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (option.equals("-label")) {
+                label = args[++i];
+            } else if (option.equals("-workDirectory")) {
+                workDirectory = new File(args[++i]);
+            } else if (option.equals("-output")) {
+                output = new PrintWriter(new OutputStreamWriter(new FileOutputStream(args[++i]), "UTF-8"), true);
+            } else {
+                ScalingBenchmark.exitWithUsage("Unknown option: " + option);
+            }
+        }
+
+        // The analyzers log a line per class
+        logger = Logger.getLogger("mx.itesm.web2mexadl");
+        logger.setLevel(Level.WARNING);
+
+        benchmark = new ScalingBenchmark(label, output);
+        try {
+            for (int size : sizes) {
+                // Input files
+                FileUtils.deleteDirectory(workDirectory);
+                generator = new CorpusGenerator(seed, size, Math.max(1, size / 50), 8);
+                generator.setResourcesCount(size / 20);
+                warFile = new File(workDirectory, "generated.war");
+                classesDirectory = new File(workDirectory, "classes");
+                outputDirectory = new File(workDirectory, "output");
+                outputDirectory.mkdirs();
+                generator.writeWar(warFile);
+                generator.writeDirectory(classesDirectory);
+
+                for (int run = 1; run <= runs; run++) {
+                    for (String input : inputs) {
+                        for (String analyzer : analyzers) {
+                            benchmark.analysis = "\"input\":\"" + input + "\",\"analyzer\":\"" + analyzer
+                                    + "\",\"classes\":" + size + ",\"run\":" + run;
+                            benchmark.runAnalysis(input.equals("war") ? warFile : classesDirectory,
+                                    analyzer.equals("mvc"), outputDirectory);
+                        }
+                    }
+                }
+            }
+        } finally {
+            output.close();
+            FileUtils.deleteDirectory(workDirectory);
+        }
+    }
+
+    /**
+     * Print the benchmark usage and exit.
+     * 
+     * @param message
+     *            Error message.
+     */
+    private static void exitWithUsage(final String message) {
+        System.err.println(message);
+        System.err.println("Usage: ScalingBenchmark [-sizes n,n,...] [-inputs war,directory] "
+                + "[-analyzers mvc,cluster] [-runs n] [-seed n] [-label text] [-workDirectory dir] "
+                + "[-output file]");
+        System.exit(1);
+    }
+
+    /**
+     * Analyze the specified input phase by phase, and then through the
+     * analyzer entry point.
+     * 
+     * @param input
+     *            WAR file or classes directory.
+     * @param mvc
+     *            Should the MVC analysis be executed, if not, the Cluster
+     *            analysis is executed.
+     * @param outputDirectory
+     *            Directory where to write the analysis results.
+     * @throws Exception
+     *             If an Exception occurs during the analysis.
+     */
+    private void runAnalysis(final File input, final boolean mvc, final File outputDirectory) throws Exception {
+        int entries;
+        ZipFile zipFile;
+        File dotFile;
+        File imageFile;
+        Dataset[] clusters;
+        StringBuilder viewPackages;
+        StringBuilder modelPackages;
+        Map<String, Layer> layers;
+        StringBuilder controllerPackages;
+        Map<String, Cluster> clustersMap;
+        Enumeration<?> zipEntries;
+        StringBuilder[] implementationPackages;
+        List<ClassDependencies> dependencies;
+        Map<String, Set<String>> internalPackages;
+
+        dotFile = new File(outputDirectory, "architecture.dot");
+        imageFile = new File(outputDirectory, "architecture.svg");
+
+        // Listing
+        this.startPhase();
+        if (input.isDirectory()) {
+            entries = DependenciesUtil.getClassesInDirectory(input, input, new MvcDependencyCommand()).size();
+        } else {
+            entries = 0;
+            zipFile = new ZipFile(input);
+            try {
+                zipEntries = zipFile.entries();
+                while (zipEntries.hasMoreElements()) {
+                    zipEntries.nextElement();
+                    entries++;
+                }
+            } finally {
+                zipFile.close();
+            }
+        }
+        this.endPhase("listing", entries);
+
+        // Parsing, this includes the listing done by the DependencyAnalyzer
+        this.startPhase();
+        if (input.isDirectory()) {
+            dependencies = DependencyAnalyzer.getDirectoryDependencies(input.getAbsolutePath(),
+                    new MvcDependencyCommand());
+        } else {
+            dependencies = DependencyAnalyzer.getWarDependencies(input.getAbsolutePath(), new MvcDependencyCommand());
+        }
+        this.endPhase("parsing", dependencies.size());
+
+        // Package grouping
+        this.startPhase();
+        for (ClassDependencies dependency : dependencies) {
+            dependency.setClassName(dependency.getClassName().replace("WEB-INF.classes.", ""));
+            dependency.setPackageName(dependency.getPackageName().replace("WEB-INF.classes.", ""));
+        }
+        internalPackages = DependenciesUtil.getInternalPackages(dependencies,
+                Util.getPropertyValues(Util.Variable.Type.getVariableName()));
+        this.endPhase("grouping", internalPackages.size());
+
+        if (mvc) {
+            // Classification
+            this.startPhase();
+            viewPackages = new StringBuilder();
+            modelPackages = new StringBuilder();
+            controllerPackages = new StringBuilder();
+            layers = MvcAnalyzer.classifyClasses(dependencies);
+            MvcAnalyzer.checkRelations(dependencies, layers, MvcAnalyzer.classifyPackages(internalPackages, layers,
+                    modelPackages, controllerPackages, viewPackages));
+            this.endPhase("classification", layers.size());
+
+            // MexADL export
+            this.startPhase();
+            MvcAnalyzer.exportToMexADL(outputDirectory, modelPackages.toString(), controllerPackages.toString(),
+                    viewPackages.toString());
+            this.endPhase("export", internalPackages.size());
+
+            // Dot generation
+            this.startPhase();
+            DependenciesUtil.exportDependenciesToDot(dependencies, false, false, dotFile, internalPackages,
+                    new MvcExportCommand(layers));
+            this.endPhase("dot", dotFile.length());
+        } else {
+            // Clustering
+            this.startPhase();
+            clusters = ClusterAnalyzer.generateClusters(dependencies);
+            implementationPackages = new StringBuilder[clusters.length];
+            for (int i = 0; i < implementationPackages.length; i++) {
+                implementationPackages[i] = new StringBuilder();
+            }
+            clustersMap = ClusterAnalyzer.classifyPackages(clusters, internalPackages, implementationPackages);
+            this.endPhase("clustering", clusters.length);
+
+            // MexADL export
+            this.startPhase();
+            ClusterAnalyzer.exportToMexADL(outputDirectory, implementationPackages);
+            this.endPhase("export", internalPackages.size());
+
+            // Dot generation
+            this.startPhase();
+            DependenciesUtil.exportDependenciesToDot(dependencies, false, false, dotFile, internalPackages,
+                    new ClusterExportCommand(clustersMap));
+            this.endPhase("dot", dotFile.length());
+        }
+
+        // Rendering
+        this.startPhase();
+        DependenciesUtil.renderDotFile(dotFile, imageFile);
+        this.endPhase("rendering", imageFile.length());
+
+        // Whole analysis, through the analyzers entry point
+        dependencies = null;
+        this.startPhase();
+        if (mvc) {
+            if (input.isDirectory()) {
+                layers = MvcAnalyzer.classifyClassesInDirectory(input, false, imageFile);
+            } else {
+                layers = MvcAnalyzer.classifyClassesinWar(input, false, imageFile);
+            }
+            this.endPhase("total", layers.size());
+        } else {
+            if (input.isDirectory()) {
+                clustersMap = ClusterAnalyzer.classifyClassesInDirectory(input, false, imageFile);
+            } else {
+                clustersMap = ClusterAnalyzer.classifyClassesInWar(input, false, imageFile);
+            }
+            this.endPhase("total", clustersMap.size());
+        }
+    }
+
+    /**
+     * Start measuring a phase. A garbage collection is requested first, so
+     * that the peak heap usage reflects only the memory used by the phase.
+     */
+    private void startPhase() {
+        System.gc();
+        for (MemoryPoolMXBean pool : this.heapPools) {
+            pool.resetPeakUsage();
+        }
+
+        this.phaseAllocatedBytes = this.getAllocatedBytes();
+        this.phaseCpuTime = this.threadBean.getCurrentThreadCpuTime();
+        this.phaseWallTime = System.nanoTime();
+    }
+
+    /**
+     * Finish measuring a phase, and write its results.
+     * 
+     * @param phase
+     *            Phase name.
+     * @param items
+     *            Number of items produced by the phase.
+     */
+    private void endPhase(final String phase, final long items) {
+        long wallTime;
+        long cpuTime;
+        long peakHeap;
+        long allocatedBytes;
+
+        wallTime = System.nanoTime() - this.phaseWallTime;
+        cpuTime = this.threadBean.getCurrentThreadCpuTime() - this.phaseCpuTime;
+        allocatedBytes = this.getAllocatedBytes();
+        if (allocatedBytes >= 0) {
+            allocatedBytes -= this.phaseAllocatedBytes;
+        }
+
+        // Sum of the peak usage of each heap pool
+        peakHeap = 0;
+        for (MemoryPoolMXBean pool : this.heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        this.output.println("{\"label\":\"" + StringEscapeUtils.escapeJava(this.label) + "\"," + this.analysis
+                + ",\"phase\":\"" + phase + "\",\"items\":" + items + ",\"wallMillis\":" + (wallTime / 1000000.0)
+                + ",\"cpuMillis\":" + (cpuTime / 1000000.0) + ",\"allocatedBytes\":" + allocatedBytes
+                + ",\"peakHeapBytes\":" + peakHeap + "}");
+    }
+
+    /**
+     * Get the bytes allocated so far by the current thread, if supported by
+     * the JVM.
+     * 
+     * @return Allocated bytes, or -1 if not supported.
+     */
+    private long getAllocatedBytes() {
+        long returnValue;
+
+        returnValue = -1;
+        if (this.threadBean instanceof com.sun.management.ThreadMXBean) {
+            returnValue = ((com.sun.management.ThreadMXBean) this.threadBean).getThreadAllocatedBytes(Thread
+                    .currentThread().getId());
+        }
+
+        return returnValue;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.DependencyStore;
+import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the dependency analysis of whole directories, JAR and WAR files.
+ * The input files are generated once per trial in a temporary directory, and
+ * are kept in the page cache while measuring.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ScanningBenchmark {
+
+    /**
+     * Seed used to generate the class files of all the benchmarks.
+     */
+    public static final long SEED = 20111031L;
+
+    /**
+     * Number of classes to analyze.
+     */
+    @Param({ "1000", "10000" })
+    public int classesCount;
+
+    /**
+     * Number of internal dependencies of each class.
+     */
+    @Param({ "8" })
+    public int fanOut;
+
+    /**
+     * Temporary directory containing the generated files.
+     */
+    private File rootDirectory;
+
+    /**
+     * Directory containing the generated classes.
+     */
+    private File classesDirectory;
+
+    /**
+     * JAR file containing the generated classes.
+     */
+    private File jarFile;
+
+    /**
+     * WAR file containing the generated classes.
+     */
+    private File warFile;
+
+    /**
+     * Generate the directory, JAR and WAR to analyze.
+     * 
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        CorpusGenerator generator;
+
+        this.rootDirectory = File.createTempFile("web2mexadl-benchmarks", "");
+        if ((!this.rootDirectory.delete()) || (!this.rootDirectory.mkdir())) {
+            throw new IOException("Unable to create directory: " + this.rootDirectory);
+        }
+
+        generator = new CorpusGenerator(ScanningBenchmark.SEED, this.classesCount,
+                Math.max(1, this.classesCount / 50), this.fanOut);
+        this.classesDirectory = new File(this.rootDirectory, "classes");
+        this.jarFile = new File(this.rootDirectory, "generated.jar");
+        this.warFile = new File(this.rootDirectory, "generated.war");
+        generator.writeDirectory(this.classesDirectory);
+        generator.writeJar(this.jarFile);
+        generator.writeWar(this.warFile);
+    }
+
+    /**
+     * Delete the generated files.
+     * 
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.rootDirectory);
+    }
+
+    /**
+     * Analyze the classes directory.
+     * 
+     * @return Classes dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public List<ClassDependencies> scanDirectory() throws IOException {
+        return DependencyAnalyzer.getDirectoryDependencies(this.classesDirectory.getAbsolutePath(),
+                new MvcDependencyCommand());
+    }
+
+    /**
+     * Analyze the classes directory, writing the dependencies into an
+     * off-heap store.
+     * 
+     * @return Number of classes in the store.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public int scanDirectoryIntoStore() throws IOException {
+        int returnValue;
+        DependencyStore store;
+
+        store = new DependencyStore();
+        try {
+            DependencyAnalyzer.getDirectoryDependencies(this.classesDirectory.getAbsolutePath(), store,
+                    new MvcDependencyCommand());
+            returnValue = store.size();
+        } finally {
+            store.close();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Analyze the JAR file.
+     * 
+     * @return Classes dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public List<ClassDependencies> scanJar() throws IOException {
+        return DependencyAnalyzer.getJarDependencies(this.jarFile.getAbsolutePath(), new MvcDependencyCommand());
+    }
+
+    /**
+     * Analyze the WAR file, including its nested JAR file.
+     * 
+     * @return Classes dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    @Benchmark
+    public List<ClassDependencies> scanWar() throws IOException {
+        return DependencyAnalyzer.getWarDependencies(this.warFile.getAbsolutePath(), new MvcDependencyCommand());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Analysis of a JAR or WAR file, including the parsing of its classes.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@Name("mx.itesm.web2mexadl.Archive")
+@Label("Archive Analysis")
+@Category({ "Web2MexADL", "Scanning" })
+@Description("Analysis of a JAR or WAR file")
+public class ArchiveEvent extends Event {
+
+    /**
+     * Path to the archive.
+     */
+    @Label("Path")
+    String path;
+
+    /**
+     * Number of classes and resources found in the archive.
+     */
+    @Label("Entries")
+    int entriesCount;
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Parsing of a class file. Only the classes that take longer than the event
+ * threshold are recorded, since a web application can have thousands of
+ * them.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@Name("mx.itesm.web2mexadl.ClassParsed")
+@Label("Class Parsed")
+@Category({ "Web2MexADL", "Scanning" })
+@Description("Parsing of a class file, to recover its dependencies")
+@Threshold("1 ms")
+public class ClassParsedEvent extends Event {
+
+    /**
+     * Internal name of the parsed class.
+     */
+    @Label("Class Name")
+    String className;
+
+    /**
+     * Size of the class file.
+     */
+    @Label("Size")
+    @DataAmount
+    int bytes;
+}
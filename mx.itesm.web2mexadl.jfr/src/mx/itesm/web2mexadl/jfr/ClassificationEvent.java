@@ -0,0 +1,44 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * MVC classification of a group of classes with the Uncertainty model.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@Name("mx.itesm.web2mexadl.Classification")
+@Label("MVC Classification")
+@Category({ "Web2MexADL", "Classification" })
+@Description("Classification of a group of classes into MVC layers")
+public class ClassificationEvent extends Event {
+
+    /**
+     * Number of classified classes.
+     */
+    @Label("Classes")
+    int classesCount;
+}
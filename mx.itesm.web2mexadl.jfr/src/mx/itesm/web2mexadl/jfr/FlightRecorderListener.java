@@ -0,0 +1,158 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.jfr;
+
+import mx.itesm.web2mexadl.metrics.AnalysisListener;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+
+/**
+ * Analysis listener that emits Java Flight Recorder events for each step of
+ * the analysis. It's registered through the java.util.ServiceLoader
+ * mechanism, so it's enough to add this library to the class path. The
+ * events are only recorded while a recording is active, for example when the
+ * JVM is started with -XX:StartFlightRecording.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class FlightRecorderListener implements AnalysisListener {
+
+    /**
+     * Events of the phases currently running in each thread, indexed by the
+     * phase ordinal.
+     */
+    private ThreadLocal<PhaseEvent[]> phaseEvents;
+
+    /**
+     * Default constructor.
+     */
+    public FlightRecorderListener() {
+        this.phaseEvents = new ThreadLocal<PhaseEvent[]>() {
+            @Override
+            protected PhaseEvent[] initialValue() {
+                return new PhaseEvent[AnalysisPhase.values().length];
+            }
+        };
+    }
+
+    @Override
+    public void phaseStarted(final AnalysisPhase phase) {
+        PhaseEvent event;
+
+        event = new PhaseEvent();
+        event.phase = phase.toString();
+        event.begin();
+        this.phaseEvents.get()[phase.ordinal()] = event;
+    }
+
+    @Override
+    public void phaseFinished(final AnalysisPhase phase) {
+        PhaseEvent event;
+        PhaseEvent[] events;
+
+        events = this.phaseEvents.get();
+        event = events[phase.ordinal()];
+        if (event != null) {
+            events[phase.ordinal()] = null;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object archiveStarted(final String path) {
+        ArchiveEvent returnValue;
+
+        returnValue = new ArchiveEvent();
+        returnValue.path = path;
+        returnValue.begin();
+
+        return returnValue;
+    }
+
+    @Override
+    public void archiveFinished(final Object context, final int entriesCount) {
+        ArchiveEvent event;
+
+        event = (ArchiveEvent) context;
+        event.entriesCount = entriesCount;
+        event.commit();
+    }
+
+    @Override
+    public Object classStarted() {
+        ClassParsedEvent returnValue;
+
+        returnValue = new ClassParsedEvent();
+        returnValue.begin();
+
+        return returnValue;
+    }
+
+    @Override
+    public void classFinished(final Object context, final String className, final int bytes) {
+        ClassParsedEvent event;
+
+        event = (ClassParsedEvent) context;
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = className;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object classificationStarted() {
+        ClassificationEvent returnValue;
+
+        returnValue = new ClassificationEvent();
+        returnValue.begin();
+
+        return returnValue;
+    }
+
+    @Override
+    public void classificationFinished(final Object context, final int classesCount) {
+        ClassificationEvent event;
+
+        event = (ClassificationEvent) context;
+        event.classesCount = classesCount;
+        event.commit();
+    }
+
+    @Override
+    public Object clusteringStarted() {
+        ClusteringEvent returnValue;
+
+        returnValue = new ClusteringEvent();
+        returnValue.begin();
+
+        return returnValue;
+    }
+
+    @Override
+    public void clusteringFinished(final Object context, final int classesCount, final int clustersCount) {
+        ClusteringEvent event;
+
+        event = (ClusteringEvent) context;
+        event.classesCount = classesCount;
+        event.clustersCount = clustersCount;
+        event.commit();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Phase of an architecture analysis, see
+ * {@link mx.itesm.web2mexadl.metrics.AnalysisPhase}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+@Name("mx.itesm.web2mexadl.Phase")
+@Label("Analysis Phase")
+@Category("Web2MexADL")
+@Description("Phase of an architecture analysis: scanning, grouping, classification, clustering, export, dot "
+        + "generation or rendering")
+public class PhaseEvent extends Event {
+
+    /**
+     * Phase name.
+     */
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,162 @@
+package mx.itesm.web2mexadl.plugin.builder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import mx.itesm.web2mexadl.mvc.IncrementalMvcAnalyzer;
+import mx.itesm.web2mexadl.plugin.Activator;
+import mx.itesm.web2mexadl.plugin.jobs.IncrementalMvcAnalysisJob;
+import mx.itesm.web2mexadl.plugin.jobs.ProgressMonitorAdapter;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Project builder that keeps the MVC architecture description of a project
+ * current. The MVC model of the project is kept in memory, and on each build
+ * only the class files changed in the bin directory are parsed and classified
+ * again. The architecture description is then exported by a background job.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ArchitectureBuilder extends IncrementalProjectBuilder {
+
+    /**
+     * Builder identifier, as declared in the plugin.xml file.
+     */
+    public static final String BUILDER_ID = Activator.PLUGIN_ID + ".architectureBuilder";
+
+    /**
+     * Project folder containing the generated classes.
+     */
+    private static final String CLASSES_FOLDER = "bin";
+
+    /**
+     * Time to wait before exporting the architecture description, in
+     * milliseconds, so that consecutive builds are exported only once.
+     */
+    private static final long EXPORT_DELAY = 500;
+
+    /**
+     * MVC architecture model of the project, null if it hasn't been built.
+     */
+    private IncrementalMvcAnalyzer analyzer;
+
+    /**
+     * Last scheduled export job.
+     */
+    private Job exportJob;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected IProject[] build(final int kind, final Map args, final IProgressMonitor monitor) throws CoreException {
+        IFolder classesFolder;
+        IResourceDelta delta;
+        final List<File> changedFiles;
+        final List<File> removedFiles;
+        ProgressMonitorAdapter progressMonitor;
+
+        classesFolder = this.getProject().getFolder(ArchitectureBuilder.CLASSES_FOLDER);
+        if ((!classesFolder.exists()) || (classesFolder.getLocation() == null)) {
+            return null;
+        }
+
+        delta = null;
+        if (kind != IncrementalProjectBuilder.FULL_BUILD) {
+            delta = this.getDelta(this.getProject());
+        }
+
+        try {
+            if ((this.analyzer == null) || (this.analyzer.isEmpty()) || (delta == null)) {
+                this.cancelExport();
+                progressMonitor = new ProgressMonitorAdapter(monitor, "Analyzing " + this.getProject().getName()
+                        + " architecture");
+                this.analyzer = new IncrementalMvcAnalyzer(classesFolder.getLocation().toFile());
+                this.analyzer.analyze(progressMonitor);
+            } else {
+                // Changes in the classes folder
+                delta = delta.findMember(classesFolder.getProjectRelativePath());
+                if (delta == null) {
+                    return null;
+                }
+
+                changedFiles = new ArrayList<File>();
+                removedFiles = new ArrayList<File>();
+                delta.accept(new IResourceDeltaVisitor() {
+                    public boolean visit(final IResourceDelta resourceDelta) {
+                        IResource resource;
+
+                        resource = resourceDelta.getResource();
+                        if ((resource.getType() == IResource.FILE) && (resource.getLocation() != null)) {
+                            if (resourceDelta.getKind() == IResourceDelta.REMOVED) {
+                                removedFiles.add(resource.getLocation().toFile());
+                            } else if ((resourceDelta.getKind() == IResourceDelta.ADDED)
+                                    || ((resourceDelta.getFlags() & IResourceDelta.CONTENT) != 0)) {
+                                changedFiles.add(resource.getLocation().toFile());
+                            }
+                        }
+
+                        return true;
+                    }
+                });
+
+                if (changedFiles.isEmpty() && removedFiles.isEmpty()) {
+                    return null;
+                }
+
+                this.cancelExport();
+                progressMonitor = new ProgressMonitorAdapter(monitor, "Updating " + this.getProject().getName()
+                        + " architecture");
+                this.analyzer.update(changedFiles, removedFiles, progressMonitor);
+            }
+        } catch (CancellationException e) {
+            // The model is discarded, and built again on the next build
+            throw new OperationCanceledException();
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+                    "An error occurred while updating the architecture description of " + this.getProject().getName()
+                            + ": " + e.getMessage(), e));
+        } finally {
+            monitor.done();
+        }
+
+        // Export the updated model
+        this.exportJob = new IncrementalMvcAnalysisJob(this.getProject(), this.analyzer);
+        this.exportJob.schedule(ArchitectureBuilder.EXPORT_DELAY);
+
+        return null;
+    }
+
+    @Override
+    protected void clean(final IProgressMonitor monitor) throws CoreException {
+        this.cancelExport();
+        this.analyzer = null;
+    }
+
+    /**
+     * Cancel the last scheduled export job, since the model is about to
+     * change. If the job is already running, it stops once it notices the
+     * cancellation.
+     */
+    private void cancelExport() {
+        if (this.exportJob != null) {
+            this.exportJob.cancel();
+            this.exportJob = null;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package mx.itesm.web2mexadl.plugin.jobs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+import mx.itesm.web2mexadl.plugin.Activator;
+
+import org.apache.commons.lang3.text.WordUtils;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.MultiRule;
+
+/**
+ * Job responsible for generating the architecture description of a project or
+ * WAR file. The jobs belong to the {@link #FAMILY} family, and at most
+ * {@link #MAX_CONCURRENT_JOBS} of them analyze at the same time; the rest wait
+ * for the first running job to finish. Two jobs only run one after the other
+ * if they generate the same files.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public abstract class AnalysisJob extends Job {
+
+    /**
+     * Family of the analysis jobs.
+     */
+    public static final Object FAMILY = Activator.PLUGIN_ID + ".analysis";
+
+    /**
+     * Maximum number of analysis jobs running at the same time.
+     */
+    public static final int MAX_CONCURRENT_JOBS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Flag that indicates whether or not the external dependencies are shown in
+     * the output results.
+     */
+    private final static boolean INCLUDE_EXTERNAL_DEPENDENCIES = false;
+
+    /**
+     * Time, in milliseconds, between the checks for cancellation of a job
+     * waiting for a running analysis to finish.
+     */
+    private final static long WAIT_INTERVAL = 500;
+
+    /**
+     * Permits of the analyses running at the same time.
+     */
+    private static Semaphore runningJobs = new Semaphore(AnalysisJob.MAX_CONCURRENT_JOBS, true);
+
+    /**
+     * Project or WAR file to analyze.
+     */
+    private IResource resource;
+
+    /**
+     * Location of the analyzed resource.
+     */
+    private File resourceFile;
+
+    /**
+     * Directory where the results are generated: the project directory, or
+     * the directory of the WAR file.
+     */
+    private File outputDirectory;
+
+    /**
+     * Full constructor.
+     * 
+     * @param resource
+     *            Project or WAR file to analyze, must have a local location.
+     */
+    public AnalysisJob(final IResource resource) {
+        super("Generating " + resource.getName() + " architecture description");
+        this.resource = resource;
+        this.resourceFile = new File(resource.getLocation().toOSString());
+        this.outputDirectory = this.resourceFile.getParentFile();
+        if (resource instanceof IProject) {
+            this.outputDirectory = this.resourceFile;
+        }
+
+        this.setUser(true);
+        this.setRule(new AnalysisRule(this.getOutputFiles()));
+    }
+
+    @Override
+    public boolean belongsTo(final Object family) {
+        return AnalysisJob.FAMILY.equals(family);
+    }
+
+    /**
+     * Get the resource analyzed by this job.
+     * 
+     * @return Project or WAR file.
+     */
+    public IResource getResource() {
+        return this.resource;
+    }
+
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        File imageFile;
+        File analyzedFile;
+        IStatus returnValue;
+
+        // Only generated classes in the bin directory of projects
+        analyzedFile = this.resourceFile;
+        if (this.resource instanceof IProject) {
+            analyzedFile = new File(this.resourceFile, "bin");
+        }
+
+        imageFile = this.getImageFile(this.getOutputPrefix());
+        if (!AnalysisJob.acquirePermit(monitor)) {
+            monitor.done();
+            return Status.CANCEL_STATUS;
+        }
+
+        try {
+            this.analyze(analyzedFile, AnalysisJob.INCLUDE_EXTERNAL_DEPENDENCIES, imageFile,
+                    new ProgressMonitorAdapter(monitor, this.getName()));
+            returnValue = Status.OK_STATUS;
+        } catch (CancellationException e) {
+            returnValue = Status.CANCEL_STATUS;
+        } catch (Exception e) {
+            returnValue = new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+                    "An error occurred while generating the architecture description of " + this.resource.getName()
+                            + ": " + e.getMessage(), e);
+        } finally {
+            AnalysisJob.runningJobs.release();
+            monitor.done();
+        }
+
+        this.refreshOutput(this.getOutputFiles());
+        return returnValue;
+    }
+
+    /**
+     * Wait until less than {@link #MAX_CONCURRENT_JOBS} analyses are running,
+     * or the job is canceled.
+     * 
+     * @param monitor
+     *            Progress monitor of the job.
+     * @return <em>true</em> if the job can start its analysis, <em>false</em>
+     *         if it was canceled while waiting.
+     */
+    private static boolean acquirePermit(final IProgressMonitor monitor) {
+        boolean returnValue;
+
+        returnValue = false;
+        monitor.subTask("Waiting for other analyses to finish");
+        try {
+            while (!returnValue && !monitor.isCanceled()) {
+                returnValue = AnalysisJob.runningJobs.tryAcquire(AnalysisJob.WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the SVG file generated with the specified prefix.
+     * 
+     * @param prefix
+     *            File prefix.
+     * @return SVG file.
+     */
+    protected File getImageFile(final String prefix) {
+        return new File(this.outputDirectory, prefix + WordUtils.capitalize(this.resource.getName()) + ".svg");
+    }
+
+    /**
+     * Get the directory where the results are generated.
+     * 
+     * @return Output directory.
+     */
+    protected File getOutputDirectory() {
+        return this.outputDirectory;
+    }
+
+    /**
+     * Get the files generated by this job: the MexADL architecture file and
+     * the SVG file.
+     * 
+     * @return Generated files.
+     */
+    protected File[] getOutputFiles() {
+        return new File[] { new File(this.outputDirectory, this.getArchitectureFileName()),
+                this.getImageFile(this.getOutputPrefix()) };
+    }
+
+    /**
+     * Refresh the workspace resources of the specified generated files, if
+     * they're located inside the workspace.
+     * 
+     * @param files
+     *            Generated files.
+     */
+    private void refreshOutput(final File... files) {
+        IFile workspaceFile;
+        IWorkspaceRoot root;
+        WorkspaceJob refreshJob;
+        ISchedulingRule refreshRule;
+        final List<IFile> workspaceFiles;
+        IResourceRuleFactory ruleFactory;
+
+        refreshRule = null;
+        root = ResourcesPlugin.getWorkspace().getRoot();
+        ruleFactory = ResourcesPlugin.getWorkspace().getRuleFactory();
+        workspaceFiles = new ArrayList<IFile>(files.length);
+        for (File file : files) {
+            workspaceFile = root.getFileForLocation(new Path(file.getAbsolutePath()));
+            if (workspaceFile != null) {
+                workspaceFiles.add(workspaceFile);
+                refreshRule = MultiRule.combine(refreshRule, ruleFactory.refreshRule(workspaceFile));
+            }
+        }
+
+        // The refresh needs a workspace rule, not contained by the rule of
+        // this job, so it's done by a separate job
+        if (!workspaceFiles.isEmpty()) {
+            refreshJob = new WorkspaceJob("Refreshing " + this.resource.getName()
+                    + " architecture description") {
+                @Override
+                public IStatus runInWorkspace(final IProgressMonitor monitor) throws CoreException {
+                    for (IFile file : workspaceFiles) {
+                        file.refreshLocal(IResource.DEPTH_ZERO, monitor);
+                    }
+
+                    return Status.OK_STATUS;
+                }
+            };
+            refreshJob.setRule(refreshRule);
+            refreshJob.setSystem(true);
+            refreshJob.schedule();
+        }
+    }
+
+    /**
+     * Prefix of the generated SVG file.
+     * 
+     * @return File prefix.
+     */
+    protected abstract String getOutputPrefix();
+
+    /**
+     * Name of the generated MexADL architecture file.
+     * 
+     * @return File name.
+     */
+    protected abstract String getArchitectureFileName();
+
+    /**
+     * Generate the architecture description of the specified classes
+     * directory or WAR file.
+     * 
+     * @param file
+     *            Classes directory or WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param imageFile
+     *            SVG file to generate.
+     * @param monitor
+     *            Analysis monitor.
+     * @throws Exception
+     *             If an Exception occurs during the analysis.
+     */
+    protected abstract void analyze(File file, boolean includeExternal, File imageFile, AnalysisMonitor monitor)
+            throws Exception;
+
+    /**
+     * Scheduling rule of the analysis jobs. Two jobs conflict if they generate
+     * at least one file in common, like the MexADL architecture file of two
+     * WAR files in the same directory.
+     */
+    private static class AnalysisRule implements ISchedulingRule {
+
+        /**
+         * Files generated by the job.
+         */
+        private Set<File> outputFiles;
+
+        /**
+         * Full constructor.
+         * 
+         * @param outputFiles
+         *            Files generated by the job.
+         */
+        public AnalysisRule(final File... outputFiles) {
+            this.outputFiles = new HashSet<File>(outputFiles.length);
+            for (File outputFile : outputFiles) {
+                try {
+                    this.outputFiles.add(outputFile.getCanonicalFile());
+                } catch (IOException e) {
+                    this.outputFiles.add(outputFile.getAbsoluteFile());
+                }
+            }
+        }
+
+        @Override
+        public boolean contains(final ISchedulingRule rule) {
+            return rule == this;
+        }
+
+        @Override
+        public boolean isConflicting(final ISchedulingRule rule) {
+            boolean returnValue;
+
+            returnValue = false;
+            if (rule instanceof AnalysisRule) {
+                returnValue = !Collections.disjoint(((AnalysisRule) rule).outputFiles, this.outputFiles);
+            }
+
+            return returnValue;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package mx.itesm.web2mexadl.plugin.jobs;
+
+import java.io.File;
+
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Job responsible for generating an architecture view based on a Clustered distribution.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ClusterAnalysisJob extends AnalysisJob {
+
+    /**
+     * Full constructor.
+     * 
+     * @param resource
+     *            Project or WAR file to analyze, must have a local location.
+     */
+    public ClusterAnalysisJob(final IResource resource) {
+        super(resource);
+    }
+
+    @Override
+    protected String getOutputPrefix() {
+        return "clustered";
+    }
+
+    @Override
+    protected String getArchitectureFileName() {
+        return "clusteredArchitecture.xml";
+    }
+
+    @Override
+    protected void analyze(final File file, final boolean includeExternal, final File imageFile,
+            final AnalysisMonitor monitor) throws Exception {
+        if (file.isDirectory()) {
+            ClusterAnalyzer.classifyClassesInDirectory(file, includeExternal, imageFile, monitor);
+        } else {
+            ClusterAnalyzer.classifyClassesInWar(file, includeExternal, imageFile, monitor);
+        }
+    }
+}
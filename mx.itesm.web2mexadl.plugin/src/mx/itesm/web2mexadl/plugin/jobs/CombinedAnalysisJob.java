@@ -0,0 +1,76 @@
+package mx.itesm.web2mexadl.plugin.jobs;
+
+import java.io.File;
+
+import mx.itesm.web2mexadl.combined.CombinedAnalyzer;
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Job responsible for generating both the MVC and the Clustered architecture
+ * views, scanning the project or WAR file only once.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class CombinedAnalysisJob extends AnalysisJob {
+
+    /**
+     * Prefix of the generated Clustered SVG file.
+     */
+    private static final String CLUSTER_OUTPUT_PREFIX = "clustered";
+
+    /**
+     * Name of the generated Clustered MexADL architecture file.
+     */
+    private static final String CLUSTER_ARCHITECTURE_FILE_NAME = "clusteredArchitecture.xml";
+
+    /**
+     * Full constructor.
+     * 
+     * @param resource
+     *            Project or WAR file to analyze, must have a local location.
+     */
+    public CombinedAnalysisJob(final IResource resource) {
+        super(resource);
+    }
+
+    @Override
+    protected String getOutputPrefix() {
+        return "mvc";
+    }
+
+    @Override
+    protected String getArchitectureFileName() {
+        return "mvcArchitecture.xml";
+    }
+
+    @Override
+    protected File[] getOutputFiles() {
+        File[] mvcFiles;
+        File[] returnValue;
+
+        mvcFiles = super.getOutputFiles();
+        returnValue = new File[mvcFiles.length + 2];
+        System.arraycopy(mvcFiles, 0, returnValue, 0, mvcFiles.length);
+        returnValue[mvcFiles.length] = new File(this.getOutputDirectory(),
+                CombinedAnalysisJob.CLUSTER_ARCHITECTURE_FILE_NAME);
+        returnValue[mvcFiles.length + 1] = this.getImageFile(CombinedAnalysisJob.CLUSTER_OUTPUT_PREFIX);
+
+        return returnValue;
+    }
+
+    @Override
+    protected void analyze(final File file, final boolean includeExternal, final File imageFile,
+            final AnalysisMonitor monitor) throws Exception {
+        File clusterImageFile;
+
+        clusterImageFile = this.getImageFile(CombinedAnalysisJob.CLUSTER_OUTPUT_PREFIX);
+        if (file.isDirectory()) {
+            new CombinedAnalyzer().analyzeDirectory(file, includeExternal, imageFile, clusterImageFile, monitor);
+        } else {
+            new CombinedAnalyzer().analyzeWar(file, includeExternal, imageFile, clusterImageFile, monitor, null);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package mx.itesm.web2mexadl.plugin.jobs;
+
+import java.io.File;
+
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+import mx.itesm.web2mexadl.mvc.IncrementalMvcAnalyzer;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Job responsible for exporting the MVC architecture model kept by the
+ * architecture builder of a project. The model is already up to date, so the
+ * job only generates the MexADL document and the SVG file, in the background.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class IncrementalMvcAnalysisJob extends AnalysisJob {
+
+    /**
+     * MVC architecture model of the project.
+     */
+    private IncrementalMvcAnalyzer analyzer;
+
+    /**
+     * Full constructor.
+     * 
+     * @param project
+     *            Analyzed project, must have a local location.
+     * @param analyzer
+     *            MVC architecture model of the project.
+     */
+    public IncrementalMvcAnalysisJob(final IProject project, final IncrementalMvcAnalyzer analyzer) {
+        super(project);
+        this.analyzer = analyzer;
+        this.setUser(false);
+    }
+
+    @Override
+    protected String getOutputPrefix() {
+        return "mvc";
+    }
+
+    @Override
+    protected String getArchitectureFileName() {
+        return "mvcArchitecture.xml";
+    }
+
+    @Override
+    protected void analyze(final File file, final boolean includeExternal, final File imageFile,
+            final AnalysisMonitor monitor) throws Exception {
+        this.analyzer.export(includeExternal, imageFile, monitor);
+    }
+}
@@ -0,0 +1,47 @@
+package mx.itesm.web2mexadl.plugin.jobs;
+
+import java.io.File;
+
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Job responsible for generating an architecture view based on the MVC pattern.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class MvcAnalysisJob extends AnalysisJob {
+
+    /**
+     * Full constructor.
+     * 
+     * @param resource
+     *            Project or WAR file to analyze, must have a local location.
+     */
+    public MvcAnalysisJob(final IResource resource) {
+        super(resource);
+    }
+
+    @Override
+    protected String getOutputPrefix() {
+        return "mvc";
+    }
+
+    @Override
+    protected String getArchitectureFileName() {
+        return "mvcArchitecture.xml";
+    }
+
+    @Override
+    protected void analyze(final File file, final boolean includeExternal, final File imageFile,
+            final AnalysisMonitor monitor) throws Exception {
+        if (file.isDirectory()) {
+            MvcAnalyzer.classifyClassesInDirectory(file, includeExternal, imageFile, monitor);
+        } else {
+            MvcAnalyzer.classifyClassesinWar(file, includeExternal, imageFile, monitor);
+        }
+    }
+}
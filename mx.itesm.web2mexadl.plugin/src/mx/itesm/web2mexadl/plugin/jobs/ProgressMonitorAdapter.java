@@ -0,0 +1,121 @@
+package mx.itesm.web2mexadl.plugin.jobs;
+
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Adapter that reports the progress of an analysis to an Eclipse progress
+ * monitor, and cancels the analysis when the monitor is canceled. Most of the
+ * work is assigned to the scanning phase, in proportion to the entries
+ * analyzed so far, and the rest is split evenly between the following phases.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ProgressMonitorAdapter implements AnalysisMonitor {
+
+    /**
+     * Total units of work reported to the progress monitor.
+     */
+    private static final int TOTAL_WORK = 1000;
+
+    /**
+     * Units of work assigned to the scanning phase.
+     */
+    private static final int SCANNING_WORK = 700;
+
+    /**
+     * Units of work assigned to each phase after the scanning.
+     */
+    private static final int PHASE_WORK = 60;
+
+    /**
+     * Number of analyzed entries between each update of the sub task.
+     */
+    private static final int SUB_TASK_ENTRIES = 100;
+
+    /**
+     * Eclipse progress monitor.
+     */
+    private IProgressMonitor monitor;
+
+    /**
+     * Number of entries discovered so far.
+     */
+    private int entriesDiscovered;
+
+    /**
+     * Number of entries analyzed so far.
+     */
+    private int entriesAnalyzed;
+
+    /**
+     * Units of work already reported.
+     */
+    private int workReported;
+
+    /**
+     * Full constructor.
+     * 
+     * @param monitor
+     *            Eclipse progress monitor.
+     * @param taskName
+     *            Name of the analysis task.
+     */
+    public ProgressMonitorAdapter(final IProgressMonitor monitor, final String taskName) {
+        this.monitor = monitor;
+        this.monitor.beginTask(taskName, ProgressMonitorAdapter.TOTAL_WORK);
+    }
+
+    @Override
+    public void phaseStarted(final AnalysisPhase phase) {
+        this.monitor.subTask(phase.toString());
+        if (phase != AnalysisPhase.Scanning) {
+            this.reportWork(Math.max(this.workReported, ProgressMonitorAdapter.SCANNING_WORK)
+                    + ProgressMonitorAdapter.PHASE_WORK);
+        }
+    }
+
+    @Override
+    public void entriesDiscovered(final int entriesCount) {
+        this.entriesDiscovered += entriesCount;
+    }
+
+    @Override
+    public void entryAnalyzed(final String entryName) {
+        this.entriesAnalyzed++;
+        if ((this.entriesAnalyzed % ProgressMonitorAdapter.SUB_TASK_ENTRIES) == 0) {
+            this.monitor.subTask(AnalysisPhase.Scanning + " (" + this.entriesAnalyzed + " of "
+                    + this.entriesDiscovered + " entries)");
+        }
+
+        if (this.entriesDiscovered > 0) {
+            this.reportWork((int) (((long) ProgressMonitorAdapter.SCANNING_WORK * this.entriesAnalyzed)
+                    / this.entriesDiscovered));
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return this.monitor.isCanceled();
+    }
+
+    /**
+     * Report the work done up to the specified units. Since new entries may be
+     * discovered while scanning, the work is never reported backwards.
+     * 
+     * @param work
+     *            Units of work done since the start of the analysis.
+     */
+    private void reportWork(final int work) {
+        int limitedWork;
+
+        limitedWork = Math.min(work, ProgressMonitorAdapter.TOTAL_WORK);
+        if (limitedWork > this.workReported) {
+            this.monitor.worked(limitedWork - this.workReported);
+            this.workReported = limitedWork;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package mx.itesm.web2mexadl.plugin.popup.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mx.itesm.web2mexadl.plugin.jobs.AnalysisJob;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IActionDelegate;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+
+/**
+ * Action responsible for scheduling an analysis job for each one of the
+ * selected projects or WAR files. The user is informed once all the jobs
+ * finish, the errors are reported by each job.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public abstract class AnalysisAction implements IObjectActionDelegate {
+
+    /**
+     * Window that manages this action.
+     */
+    private Shell shell;
+
+    /**
+     * Current selected resources.
+     */
+    private IStructuredSelection selection;
+
+    /**
+     * @see IObjectActionDelegate#setActivePart(IAction, IWorkbenchPart)
+     */
+    public void setActivePart(final IAction action, final IWorkbenchPart targetPart) {
+        this.shell = targetPart.getSite().getShell();
+    }
+
+    /**
+     * @see IActionDelegate#run(IAction)
+     */
+    public void run(final IAction action) {
+        IResource resource;
+        List<AnalysisJob> jobs;
+        ResultsListener resultsListener;
+
+        jobs = new ArrayList<AnalysisJob>();
+        if (this.selection != null) {
+            for (Object element : this.selection.toArray()) {
+                if (element instanceof IResource) {
+                    resource = (IResource) element;
+                    if (resource.getLocation() != null) {
+                        jobs.add(this.createJob(resource));
+                    }
+                }
+            }
+        }
+
+        resultsListener = new ResultsListener(jobs.size());
+        for (AnalysisJob job : jobs) {
+            job.addJobChangeListener(resultsListener);
+            job.schedule();
+        }
+    }
+
+    /**
+     * @see IActionDelegate#selectionChanged(IAction, ISelection)
+     */
+    public void selectionChanged(final IAction action, final ISelection selection) {
+        this.selection = null;
+        if (selection instanceof IStructuredSelection) {
+            this.selection = (IStructuredSelection) selection;
+        }
+    }
+
+    /**
+     * Create the job that analyzes the specified resource.
+     * 
+     * @param resource
+     *            Project or WAR file.
+     * @return Analysis job.
+     */
+    protected abstract AnalysisJob createJob(IResource resource);
+
+    /**
+     * Message shown to the user once the architecture descriptions are
+     * successfully generated.
+     * 
+     * @return Success message.
+     */
+    protected abstract String getSuccessMessage();
+
+    /**
+     * Listener that informs the user once all the jobs scheduled by a single
+     * execution of the action finish.
+     */
+    private class ResultsListener extends JobChangeAdapter {
+
+        /**
+         * Number of jobs that haven't finished.
+         */
+        private int pendingJobs;
+
+        /**
+         * Names of the successfully analyzed resources.
+         */
+        private List<String> analyzedResources;
+
+        /**
+         * Full constructor.
+         * 
+         * @param jobsCount
+         *            Number of scheduled jobs.
+         */
+        public ResultsListener(final int jobsCount) {
+            this.pendingJobs = jobsCount;
+            this.analyzedResources = new ArrayList<String>(jobsCount);
+        }
+
+        @Override
+        public void done(final IJobChangeEvent event) {
+            final String message;
+
+            synchronized (this) {
+                if (event.getResult().getSeverity() == IStatus.OK) {
+                    this.analyzedResources.add(((AnalysisJob) event.getJob()).getResource().getName());
+                }
+
+                if ((--this.pendingJobs > 0) || (this.analyzedResources.isEmpty())) {
+                    return;
+                }
+                message = AnalysisAction.this.getSuccessMessage() + "\n" + this.analyzedResources;
+            }
+
+            // Display result of execution to the user
+            Display.getDefault().asyncExec(new Runnable() {
+                public void run() {
+                    MessageDialog.openInformation(AnalysisAction.this.shell, "Web2MexADL", message);
+                }
+            });
+        }
+    }
+}
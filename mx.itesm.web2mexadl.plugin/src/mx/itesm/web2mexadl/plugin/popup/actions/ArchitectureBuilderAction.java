@@ -0,0 +1,111 @@
+package mx.itesm.web2mexadl.plugin.popup.actions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mx.itesm.web2mexadl.plugin.builder.ArchitectureBuilder;
+
+import org.eclipse.core.resources.ICommand;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IActionDelegate;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+
+/**
+ * Action responsible for adding the architecture builder to the selected
+ * projects, or removing it from the projects that already have it.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ArchitectureBuilderAction implements IObjectActionDelegate {
+
+    /**
+     * Window that manages this action.
+     */
+    private Shell shell;
+
+    /**
+     * Current selected projects.
+     */
+    private IStructuredSelection selection;
+
+    /**
+     * @see IObjectActionDelegate#setActivePart(IAction, IWorkbenchPart)
+     */
+    public void setActivePart(final IAction action, final IWorkbenchPart targetPart) {
+        this.shell = targetPart.getSite().getShell();
+    }
+
+    /**
+     * @see IActionDelegate#run(IAction)
+     */
+    public void run(final IAction action) {
+        if (this.selection != null) {
+            for (Object element : this.selection.toArray()) {
+                if (element instanceof IProject) {
+                    try {
+                        this.toggleBuilder((IProject) element);
+                    } catch (CoreException e) {
+                        MessageDialog.openError(this.shell, "Web2MexADL",
+                                "An error occurred while configuring the architecture builder: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @see IActionDelegate#selectionChanged(IAction, ISelection)
+     */
+    public void selectionChanged(final IAction action, final ISelection selection) {
+        this.selection = null;
+        if (selection instanceof IStructuredSelection) {
+            this.selection = (IStructuredSelection) selection;
+        }
+    }
+
+    /**
+     * Add the architecture builder to the specified project, after its other
+     * builders, or remove it if it's already present.
+     * 
+     * @param project
+     *            Project to configure.
+     * @throws CoreException
+     *             If the project description can't be updated.
+     */
+    private void toggleBuilder(final IProject project) throws CoreException {
+        ICommand command;
+        boolean builderFound;
+        List<ICommand> commands;
+        IProjectDescription description;
+
+        builderFound = false;
+        description = project.getDescription();
+        commands = new ArrayList<ICommand>(Arrays.asList(description.getBuildSpec()));
+        for (int i = 0; i < commands.size(); i++) {
+            if (ArchitectureBuilder.BUILDER_ID.equals(commands.get(i).getBuilderName())) {
+                commands.remove(i);
+                builderFound = true;
+                break;
+            }
+        }
+
+        if (!builderFound) {
+            command = description.newCommand();
+            command.setBuilderName(ArchitectureBuilder.BUILDER_ID);
+            commands.add(command);
+        }
+
+        description.setBuildSpec(commands.toArray(new ICommand[commands.size()]));
+        project.setDescription(description, null);
+    }
+}
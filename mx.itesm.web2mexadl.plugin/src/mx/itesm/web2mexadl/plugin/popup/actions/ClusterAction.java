@@ -1,24 +1,9 @@
 package mx.itesm.web2mexadl.plugin.popup.actions;
 
-import java.io.File;
+import mx.itesm.web2mexadl.plugin.jobs.AnalysisJob;
+import mx.itesm.web2mexadl.plugin.jobs.ClusterAnalysisJob;
 
-import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
-
-import org.apache.commons.lang3.text.WordUtils;
-import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.jface.action.IAction;
-import org.eclipse.jface.dialogs.MessageDialog;
-import org.eclipse.jface.viewers.ISelection;
-import org.eclipse.jface.viewers.IStructuredSelection;
-import org.eclipse.swt.widgets.Display;
-import org.eclipse.swt.widgets.Shell;
-import org.eclipse.ui.IActionDelegate;
-import org.eclipse.ui.IObjectActionDelegate;
-import org.eclipse.ui.IWorkbenchPart;
-import org.eclipse.ui.internal.PluginAction;
 
 /**
  * Action responsible for generating an architecture view based on a Clustered
@@ -27,110 +12,15 @@ import org.eclipse.ui.internal.PluginAction;
  * @author jccastrejon
  * 
  */
-@SuppressWarnings("restriction")
-public class ClusterAction implements IObjectActionDelegate, Runnable {
-
-    /**
-     * Window that manages this action.
-     */
-    private Shell shell;
-
-    /**
-     * Reference to the current selected resource.
-     */
-    private IResource resource;
-
-    /**
-     * Flag that indicates whether or not the external dependencies are shown in
-     * the output results.
-     */
-    private final static boolean INCLUDE_EXTERNAL_DEPENDENCIES = false;
-
-    /**
-     * @see IObjectActionDelegate#setActivePart(IAction, IWorkbenchPart)
-     */
-    public void setActivePart(final IAction action, final IWorkbenchPart targetPart) {
-        shell = targetPart.getSite().getShell();
-    }
-
-    /**
-     * @see IActionDelegate#run(IAction)
-     */
-    public void run(final IAction action) {
-        this.resource = (((IResource) ((IStructuredSelection) ((PluginAction) action).getSelection()).getFirstElement()));
-        new Thread(this).start();
-    }
+public class ClusterAction extends AnalysisAction {
 
-    /**
-     * @see IActionDelegate#selectionChanged(IAction, ISelection)
-     */
-    public void selectionChanged(final IAction action, final ISelection selection) {
+    @Override
+    protected AnalysisJob createJob(final IResource resource) {
+        return new ClusterAnalysisJob(resource);
     }
 
     @Override
-    public void run() {
-        File imageFile;
-        File resourceFile;
-        String exceptionMessage;
-        boolean classificationCompleted;
-
-        exceptionMessage = null;
-        classificationCompleted = false;
-        if (this.resource.getLocation() != null) {
-            resourceFile = new File(this.resource.getLocation().toOSString());
-            imageFile = new File(resourceFile.getParentFile().getAbsolutePath() + "/clustered"
-                    + WordUtils.capitalize(this.resource.getName()) + ".svg");
-            // Classify
-            try {
-                if (this.resource instanceof IProject) {
-                    // Only generated classes in the bin directory
-                    ClusterAnalyzer.classifyClassesInDirectory(new File(resourceFile, "bin"),
-                            ClusterAction.INCLUDE_EXTERNAL_DEPENDENCIES, imageFile);
-                } else if (this.resource instanceof IFile) {
-                    ClusterAnalyzer.classifyClassesInWar(resourceFile, ClusterAction.INCLUDE_EXTERNAL_DEPENDENCIES,
-                            imageFile);
-                }
-            } catch (Exception e) {
-                exceptionMessage = e.getMessage();
-                classificationCompleted = false;
-            }
-
-            // Successful execution
-            classificationCompleted = true;
-        }
-
-        // Display result of execution to the user
-        final boolean classificationCompletedParam = classificationCompleted;
-        final String exceptionMessageParam = exceptionMessage;
-        Display.getDefault().syncExec(new Runnable() {
-            public void run() {
-                if (!classificationCompletedParam) {
-                    MessageDialog
-                            .openInformation(shell, "Cluster Classifier",
-                                    "An error occurred while generating the architecture description: "
-                                            + exceptionMessageParam);
-                } else {
-                    this.refreshWorkspace();
-                    MessageDialog
-                            .openInformation(shell, "Web2MexADL", "Clustered architecture successfully generated!");
-                }
-            }
-
-            /**
-             * 
-             */
-            private void refreshWorkspace() {
-                IProject[] projects;
-
-                projects = ResourcesPlugin.getWorkspace().getRoot().getProjects();
-                for (IProject project : projects) {
-                    try {
-                        project.refreshLocal(IProject.DEPTH_INFINITE, null);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
-        });
+    protected String getSuccessMessage() {
+        return "Clustered architecture successfully generated!";
     }
 }
@@ -0,0 +1,26 @@
+package mx.itesm.web2mexadl.plugin.popup.actions;
+
+import mx.itesm.web2mexadl.plugin.jobs.AnalysisJob;
+import mx.itesm.web2mexadl.plugin.jobs.CombinedAnalysisJob;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Action responsible for generating both the MVC and the Clustered
+ * architecture views in a single analysis.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class CombinedAction extends AnalysisAction {
+
+    @Override
+    protected AnalysisJob createJob(final IResource resource) {
+        return new CombinedAnalysisJob(resource);
+    }
+
+    @Override
+    protected String getSuccessMessage() {
+        return "MVC and Clustered architectures successfully generated!";
+    }
+}
@@ -0,0 +1,804 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.batch;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.GraphExporter;
+import mx.itesm.web2mexadl.dependencies.JarDependencyCache;
+import mx.itesm.web2mexadl.dependencies.SymbolTable;
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+import mx.itesm.web2mexadl.util.Util;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Headless runner that analyzes many WAR files and classes directories
+ * concurrently. Each analysis of an artifact (MVC or Cluster) is executed as a
+ * separate task, and at most {@link #threads} of them run at the same time.
+ * The results of each artifact are written into their own directory:
+ * <em>&lt;output&gt;/&lt;artifact&gt;/mvc</em> and
+ * <em>&lt;output&gt;/&lt;artifact&gt;/cluster</em>, each one containing the
+ * SVG image and the MexADL architecture file, and, if requested, the
+ * dependencies graph along with the classification of each class, as
+ * <em>graph.graphml</em> and <em>graph.ndjson</em>, see {@link GraphExporter}.
+ * <p>
+ * The tasks can be run by virtual threads when the JVM supports them (Java
+ * 21 or later), the number of concurrent analyses is bounded in the same way.
+ * <p>
+ * The names found by the scans of a batch are interned in a single
+ * {@link SymbolTable}, shared by all of its analyses, so the names referenced
+ * by many artifacts, such as the framework classes, are kept only once.
+ * <p>
+ * In portfolio mode, the JAR files embedded in the WAR files are analyzed only
+ * once per content, and their dependencies are reused by every WAR file that
+ * embeds them, see {@link JarDependencyCache}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class BatchAnalyzer {
+
+    /**
+     * Class logger.
+     */
+    private static Logger logger = Logger.getLogger(BatchAnalyzer.class.getName());
+
+    /**
+     * Name of the MVC analyzer.
+     */
+    public static final String MVC_ANALYZER = "mvc";
+
+    /**
+     * Name of the Cluster analyzer.
+     */
+    public static final String CLUSTER_ANALYZER = "cluster";
+
+    /**
+     * Name of the GraphML file generated by each analysis.
+     */
+    public static final String GRAPHML_FILE = "graph.graphml";
+
+    /**
+     * Name of the newline-delimited JSON file generated by each analysis.
+     */
+    public static final String JSON_FILE = "graph.ndjson";
+
+    /**
+     * Directory where the results of each artifact are generated.
+     */
+    private File outputDirectory;
+
+    /**
+     * Names of the analyzers to execute on each artifact.
+     */
+    private String[] analyzers;
+
+    /**
+     * Maximum number of analyses running at the same time.
+     */
+    private int threads;
+
+    /**
+     * Should the analyses be run by virtual threads, if available.
+     */
+    private boolean virtualThreads;
+
+    /**
+     * Should the external dependencies be exported.
+     */
+    private boolean includeExternal;
+
+    /**
+     * Should the redundant internal dependencies be left out of the SVG
+     * files.
+     */
+    private boolean simplifyGraph;
+
+    /**
+     * Analyzer used by the MVC analyses of the batch.
+     */
+    private MvcAnalyzer mvcAnalyzer;
+
+    /**
+     * Should the dependencies graph be exported to GraphML.
+     */
+    private boolean exportGraphML;
+
+    /**
+     * Should the dependencies graph be exported to newline-delimited JSON.
+     */
+    private boolean exportJson;
+
+    /**
+     * Stream where a line is written as each analysis finishes, may be null.
+     */
+    private PrintStream progress;
+
+    /**
+     * Cache of the dependencies of the JAR files embedded in the WAR files,
+     * null if the portfolio mode isn't enabled.
+     */
+    private JarDependencyCache jarCache;
+
+    /**
+     * Full constructor.
+     * 
+     * @param outputDirectory
+     *            Directory where the results of each artifact are generated.
+     * @param analyzers
+     *            Names of the analyzers to execute on each artifact, see
+     *            {@link #MVC_ANALYZER} and {@link #CLUSTER_ANALYZER}.
+     * @param threads
+     *            Maximum number of analyses running at the same time.
+     * @param virtualThreads
+     *            Should the analyses be run by virtual threads, if available.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out of the
+     *            SVG files.
+     * @param exportGraphML
+     *            Should the dependencies graph be exported to GraphML.
+     * @param exportJson
+     *            Should the dependencies graph be exported to newline-delimited
+     *            JSON.
+     * @param progress
+     *            Stream where a line is written as each analysis finishes,
+     *            may be null.
+     * @param jarCache
+     *            Cache of the dependencies of the JAR files embedded in the
+     *            WAR files, may be null if the portfolio mode isn't enabled.
+     */
+    public BatchAnalyzer(final File outputDirectory, final String[] analyzers, final int threads,
+            final boolean virtualThreads, final boolean includeExternal, final boolean simplifyGraph,
+            final boolean exportGraphML, final boolean exportJson, final PrintStream progress,
+            final JarDependencyCache jarCache) {
+        for (String analyzer : analyzers) {
+            if (!analyzer.equals(BatchAnalyzer.MVC_ANALYZER) && !analyzer.equals(BatchAnalyzer.CLUSTER_ANALYZER)) {
+                throw new IllegalArgumentException("Unknown analyzer: " + analyzer);
+            }
+        }
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+
+        this.outputDirectory = outputDirectory;
+        this.analyzers = analyzers;
+        this.threads = threads;
+        this.virtualThreads = virtualThreads;
+        this.includeExternal = includeExternal;
+        this.simplifyGraph = simplifyGraph;
+        this.mvcAnalyzer = new MvcAnalyzer(simplifyGraph);
+        this.exportGraphML = exportGraphML;
+        this.exportJson = exportJson;
+        this.progress = progress;
+        this.jarCache = jarCache;
+    }
+
+    /**
+     * Run the batch analysis.
+     * 
+     * @param args
+     *            Inputs and options, as described in the usage message.
+     * @throws Exception
+     *             If the inputs can't be read.
+     */
+    public static void main(final String[] args) throws Exception {
+        int threads;
+        Logger logger;
+        String option;
+        String[] analyzers;
+        List<File> inputs;
+        File outputDirectory;
+        BatchAnalyzer batchAnalyzer;
+        boolean portfolio;
+        File cacheDirectory;
+        boolean exportJson;
+        boolean simplifyGraph;
+        boolean exportGraphML;
+        boolean virtualThreads;
+        boolean includeExternal;
+        JarDependencyCache jarCache;
+        List<File> artifacts;
+        List<BatchResult> results;
+
+        threads = Runtime.getRuntime().availableProcessors();
+        virtualThreads = false;
+        includeExternal = false;
+        simplifyGraph = false;
+        exportGraphML = false;
+        exportJson = false;
+        portfolio = false;
+        cacheDirectory = null;
+        analyzers = new String[] { BatchAnalyzer.MVC_ANALYZER, BatchAnalyzer.CLUSTER_ANALYZER };
+        outputDirectory = new File("web2mexadl-results");
+        inputs = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            option = args[i];
+            if (!option.startsWith("-")) {
+                inputs.add(new File(option));
+                continue;
+            }
+
+            if ((i + 1) >= args.length) {
+                BatchAnalyzer.exitWithUsage("Missing value for option: " + option);
+            }
+
+            if (option.equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (option.equals("-virtualThreads")) {
+                virtualThreads = Boolean.parseBoolean(args[++i]);
+            } else if (option.equals("-analyzers")) {
+                analyzers = args[++i].split(",");
+                for (int j = 0; j < analyzers.length; j++) {
+                    analyzers[j] = analyzers[j].trim();
+                }
+            } else if (option.equals("-includeExternal")) {
+                includeExternal = Boolean.parseBoolean(args[++i]);
+            } else if (option.equals("-simplifyGraph")) {
+                simplifyGraph = Boolean.parseBoolean(args[++i]);
+            } else if (option.equals("-graphml")) {
+                exportGraphML = Boolean.parseBoolean(args[++i]);
+            } else if (option.equals("-json")) {
+                exportJson = Boolean.parseBoolean(args[++i]);
+            } else if (option.equals("-output")) {
+                outputDirectory = new File(args[++i]);
+            } else if (option.equals("-portfolio")) {
+                portfolio = Boolean.parseBoolean(args[++i]);
+            } else if (option.equals("-jarCache")) {
+                cacheDirectory = new File(args[++i]);
+                portfolio = true;
+            } else {
+                BatchAnalyzer.exitWithUsage("Unknown option: " + option);
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            BatchAnalyzer.exitWithUsage("No WAR files or classes directories specified");
+        }
+
+        // The analyzers log a line per class
+        logger = Logger.getLogger("mx.itesm.web2mexadl");
+        logger.setLevel(Level.WARNING);
+
+        jarCache = null;
+        if (portfolio) {
+            jarCache = new JarDependencyCache(cacheDirectory);
+        }
+
+        batchAnalyzer = null;
+        try {
+            batchAnalyzer = new BatchAnalyzer(outputDirectory, analyzers, threads, virtualThreads, includeExternal,
+                    simplifyGraph, exportGraphML, exportJson, System.err, jarCache);
+        } catch (IllegalArgumentException e) {
+            BatchAnalyzer.exitWithUsage(e.getMessage());
+        }
+
+        artifacts = null;
+        try {
+            artifacts = BatchAnalyzer.getArtifacts(inputs);
+        } catch (FileNotFoundException e) {
+            BatchAnalyzer.exitWithUsage(e.getMessage());
+        }
+
+        results = batchAnalyzer.analyze(artifacts);
+        BatchAnalyzer.printSummary(results, System.out);
+        if (jarCache != null) {
+            System.out.println("Embedded JAR files: " + jarCache.getMisses() + " analyzed, " + jarCache.getHits()
+                    + " reused");
+        }
+        for (BatchResult result : results) {
+            if (!result.isSuccessful()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Print the usage and exit.
+     * 
+     * @param message
+     *            Error message.
+     */
+    private static void exitWithUsage(final String message) {
+        System.err.println(message);
+        System.err.println("Usage: BatchAnalyzer [-threads n] [-virtualThreads true|false] "
+                + "[-analyzers mvc,cluster] [-includeExternal true|false] [-simplifyGraph true|false] "
+                + "[-graphml true|false] [-json true|false] [-output dir] [-portfolio true|false] "
+                + "[-jarCache dir] input...");
+        System.err.println("Each input is a WAR file, a classes directory, a directory containing WAR files, "
+                + "or a text file listing one input per line.");
+        System.exit(1);
+    }
+
+    /**
+     * Get the artifacts to analyze from the specified inputs. Directories
+     * containing WAR files are expanded into their WAR files, and the rest of
+     * the directories are considered classes directories. Inputs that aren't
+     * directories nor WAR files are read as lists of inputs, one per line,
+     * ignoring empty lines and lines starting with #. Relative paths in a list
+     * are resolved against the list directory.
+     * 
+     * @param inputs
+     *            WAR files, classes directories, directories containing WAR
+     *            files, or lists of inputs.
+     * @return WAR files and classes directories.
+     * @throws IOException
+     *             If an input doesn't exist or a list can't be read.
+     */
+    public static List<File> getArtifacts(final List<File> inputs) throws IOException {
+        List<File> returnValue;
+
+        returnValue = new ArrayList<File>();
+        for (File input : inputs) {
+            BatchAnalyzer.addArtifacts(input, returnValue);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Add the artifacts of the specified input, see
+     * {@link #getArtifacts(List)}.
+     * 
+     * @param input
+     *            WAR file, classes directory, directory containing WAR files,
+     *            or list of inputs.
+     * @param artifacts
+     *            WAR files and classes directories found so far.
+     * @throws IOException
+     *             If the input doesn't exist or a list can't be read.
+     */
+    private static void addArtifacts(final File input, final List<File> artifacts) throws IOException {
+        File entry;
+        File[] warFiles;
+        String trimmedLine;
+
+        if (input.isDirectory()) {
+            warFiles = input.listFiles(new FileFilter() {
+                @Override
+                public boolean accept(final File file) {
+                    return file.isFile() && BatchAnalyzer.isWarFile(file);
+                }
+            });
+
+            if ((warFiles != null) && (warFiles.length > 0)) {
+                Arrays.sort(warFiles);
+                artifacts.addAll(Arrays.asList(warFiles));
+            } else {
+                artifacts.add(input);
+            }
+        } else if (!input.isFile()) {
+            throw new FileNotFoundException("Input not found: " + input);
+        } else if (BatchAnalyzer.isWarFile(input)) {
+            artifacts.add(input);
+        } else {
+            for (String line : FileUtils.readLines(input, "UTF-8")) {
+                trimmedLine = line.trim();
+                if ((trimmedLine.length() > 0) && (!trimmedLine.startsWith("#"))) {
+                    entry = new File(trimmedLine);
+                    if (!entry.isAbsolute()) {
+                        entry = new File(input.getAbsoluteFile().getParentFile(), trimmedLine);
+                    }
+
+                    BatchAnalyzer.addArtifacts(entry, artifacts);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a unique name for each of the specified artifacts, made of the file
+     * name without the .war extension. Artifacts with the name of a previous
+     * one get the first numeric suffix that isn't already taken, so
+     * <em>app.war</em>, <em>app</em> and <em>app-2.war</em> are named
+     * <em>app</em>, <em>app-2</em> and <em>app-2-2</em>. Names are compared
+     * ignoring case, since they're used as directory names.
+     * 
+     * @param artifacts
+     *            WAR files and classes directories.
+     * @return Artifacts names, in the same order as the artifacts.
+     */
+    public static List<String> getArtifactNames(final List<File> artifacts) {
+        String name;
+        int suffix;
+        String uniqueName;
+        Integer nextSuffix;
+        Set<String> usedNames;
+        List<String> returnValue;
+        Map<String, Integer> nextSuffixes;
+
+        returnValue = new ArrayList<String>(artifacts.size());
+        usedNames = new HashSet<String>();
+        nextSuffixes = new HashMap<String, Integer>();
+        for (File artifact : artifacts) {
+            name = artifact.getName();
+            if (BatchAnalyzer.isWarFile(artifact)) {
+                name = name.substring(0, name.length() - ".war".length());
+            }
+
+            uniqueName = name;
+            if (usedNames.contains(name.toLowerCase())) {
+                nextSuffix = nextSuffixes.get(name.toLowerCase());
+                suffix = (nextSuffix != null) ? nextSuffix : 2;
+                do {
+                    uniqueName = name + "-" + suffix++;
+                } while (usedNames.contains(uniqueName.toLowerCase()));
+                nextSuffixes.put(name.toLowerCase(), suffix);
+            }
+
+            usedNames.add(uniqueName.toLowerCase());
+            returnValue.add(uniqueName);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Determine if the specified file is a WAR file, by its extension.
+     * 
+     * @param file
+     *            File.
+     * @return true if the file has the .war extension.
+     */
+    private static boolean isWarFile(final File file) {
+        return file.getName().toLowerCase().endsWith(".war");
+    }
+
+    /**
+     * Analyze the specified artifacts with each of the configured analyzers.
+     * A failed analysis doesn't stop the rest, its error is reported in its
+     * result.
+     * 
+     * @param artifacts
+     *            WAR files and classes directories.
+     * @return Results of each analysis, in the same order as the artifacts
+     *         and analyzers.
+     * @throws InterruptedException
+     *             If the current thread is interrupted while waiting for the
+     *             analyses. The pending analyses are canceled.
+     */
+    public List<BatchResult> analyze(final List<File> artifacts) throws InterruptedException {
+        File artifact;
+        SymbolTable names;
+        String outputName;
+        Semaphore permits;
+        AtomicInteger finished;
+        AnalysisTask task;
+        List<String> outputNames;
+        ExecutorService executor;
+        List<BatchResult> returnValue;
+        List<AnalysisTask> tasks;
+        List<Future<BatchResult>> futures;
+
+        tasks = new ArrayList<AnalysisTask>(artifacts.size() * this.analyzers.length);
+        outputNames = BatchAnalyzer.getArtifactNames(artifacts);
+        names = new SymbolTable();
+        permits = new Semaphore(this.threads);
+        finished = new AtomicInteger();
+        for (int i = 0; i < artifacts.size(); i++) {
+            artifact = artifacts.get(i);
+            outputName = outputNames.get(i);
+            for (String analyzer : this.analyzers) {
+                tasks.add(new AnalysisTask(artifact, analyzer, new File(this.outputDirectory, outputName
+                        + File.separator + analyzer), outputName, names, permits, finished, artifacts.size()
+                        * this.analyzers.length));
+            }
+        }
+
+        executor = this.createExecutor();
+        futures = new ArrayList<Future<BatchResult>>(tasks.size());
+        returnValue = new ArrayList<BatchResult>(tasks.size());
+        try {
+            for (AnalysisTask analysisTask : tasks) {
+                futures.add(executor.submit(analysisTask));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                task = tasks.get(i);
+                try {
+                    returnValue.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    returnValue.add(new BatchResult(task.artifact, task.analyzer, task.outputDirectory, 0, 0, 0, e
+                            .getCause()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Create the executor of the analysis tasks. Virtual threads are looked up
+     * by reflection, since they're only available since Java 21; if they're
+     * not available, a pool of platform threads is used.
+     * 
+     * @return Executor service.
+     */
+    private ExecutorService createExecutor() {
+        ExecutorService returnValue;
+
+        returnValue = null;
+        if (this.virtualThreads) {
+            try {
+                returnValue = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(
+                        null);
+            } catch (Exception e) {
+                BatchAnalyzer.logger.log(Level.WARNING, "Virtual threads aren't available, using " + this.threads
+                        + " platform threads");
+            }
+        }
+
+        if (returnValue == null) {
+            returnValue = Executors.newFixedThreadPool(this.threads);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Print a table with the results of the specified analyses, identifying
+     * each artifact by the name of its output directory, followed by the
+     * errors of the failed ones.
+     * 
+     * @param results
+     *            Analyses results.
+     * @param output
+     *            Stream where to print the table.
+     */
+    public static void printSummary(final List<BatchResult> results, final PrintStream output) {
+        String format;
+        int failedCount;
+        long totalMillis;
+        int artifactWidth;
+
+        artifactWidth = "Artifact".length();
+        for (BatchResult result : results) {
+            artifactWidth = Math.max(artifactWidth, result.getOutputDirectory().getParentFile().getName().length());
+        }
+
+        format = "%-" + artifactWidth + "s  %-8s  %-6s  %8s  %6s  %10s%n";
+        output.printf(format, "Artifact", "Analyzer", "Status", "Classes", "Groups", "Time (ms)");
+        failedCount = 0;
+        totalMillis = 0;
+        for (BatchResult result : results) {
+            output.printf(format, result.getOutputDirectory().getParentFile().getName(), result.getAnalyzer(),
+                    result.isSuccessful() ? "OK" : "FAILED", result.getClassesCount(), result.getGroupsCount(),
+                    result.getMillis());
+            totalMillis += result.getMillis();
+            if (!result.isSuccessful()) {
+                failedCount++;
+            }
+        }
+
+        output.printf("%d analyses, %d failed, %d ms of analysis time%n", results.size(), failedCount, totalMillis);
+        for (BatchResult result : results) {
+            if (!result.isSuccessful()) {
+                output.println(result.getArtifact() + " (" + result.getAnalyzer() + "): " + result.getError());
+            }
+        }
+    }
+
+    /**
+     * Analysis of a single artifact with a single analyzer.
+     */
+    private class AnalysisTask implements Callable<BatchResult> {
+
+        /**
+         * WAR file or classes directory.
+         */
+        private File artifact;
+
+        /**
+         * Name of the analyzer.
+         */
+        private String analyzer;
+
+        /**
+         * Directory where the results are generated.
+         */
+        private File outputDirectory;
+
+        /**
+         * Name of the generated SVG file, without extension.
+         */
+        private String outputName;
+
+        /**
+         * Table where the names found by the analyses of the batch are
+         * interned.
+         */
+        private SymbolTable names;
+
+        /**
+         * Permits that bound the number of concurrent analyses.
+         */
+        private Semaphore permits;
+
+        /**
+         * Number of finished analyses of the batch.
+         */
+        private AtomicInteger finished;
+
+        /**
+         * Number of analyses of the batch.
+         */
+        private int tasksCount;
+
+        /**
+         * Full constructor.
+         * 
+         * @param artifact
+         *            WAR file or classes directory.
+         * @param analyzer
+         *            Name of the analyzer.
+         * @param outputDirectory
+         *            Directory where the results are generated.
+         * @param outputName
+         *            Name of the generated SVG file, without extension.
+         * @param names
+         *            Table where the names found by the analyses of the batch
+         *            are interned.
+         * @param permits
+         *            Permits that bound the number of concurrent analyses.
+         * @param finished
+         *            Number of finished analyses of the batch.
+         * @param tasksCount
+         *            Number of analyses of the batch.
+         */
+        public AnalysisTask(final File artifact, final String analyzer, final File outputDirectory,
+                final String outputName, final SymbolTable names, final Semaphore permits,
+                final AtomicInteger finished, final int tasksCount) {
+            this.artifact = artifact;
+            this.analyzer = analyzer;
+            this.outputDirectory = outputDirectory;
+            this.outputName = outputName;
+            this.names = names;
+            this.permits = permits;
+            this.finished = finished;
+            this.tasksCount = tasksCount;
+        }
+
+        @Override
+        public BatchResult call() throws Exception {
+            File imageFile;
+            long startTime;
+            long phaseStart;
+            Throwable error;
+            int groupsCount;
+            int classesCount;
+            Map<String, Layer> layers;
+            Map<String, Cluster> clusters;
+            Map<String, ?> classifications;
+            BatchResult returnValue;
+            List<ClassDependencies> dependencies;
+            Map<String, Set<String>> internalPackages;
+
+            this.permits.acquire();
+            try {
+                error = null;
+                groupsCount = 0;
+                classesCount = 0;
+                startTime = System.nanoTime();
+                try {
+                    FileUtils.forceMkdir(this.outputDirectory);
+                    imageFile = new File(this.outputDirectory, this.outputName + ".svg");
+                    if (this.analyzer.equals(BatchAnalyzer.MVC_ANALYZER)) {
+                        BatchAnalyzer.this.mvcAnalyzer.warmUp();
+                    }
+
+                    AnalysisMetrics.startAnalysis(this.analyzer.equals(BatchAnalyzer.MVC_ANALYZER) ? "MVC"
+                            : "Cluster");
+                    try {
+                        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+                        if (this.artifact.isDirectory()) {
+                            dependencies = DependencyAnalyzer.getDirectoryDependencies(
+                                    this.artifact.getAbsolutePath(), this.names, new MvcDependencyCommand());
+                        } else {
+                            dependencies = DependencyAnalyzer.getWarDependencies(this.artifact.getAbsolutePath(),
+                                    BatchAnalyzer.this.jarCache, this.names, new MvcDependencyCommand());
+                        }
+                        AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+                        // Remove the WEB-INF.classes prefix
+                        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Grouping);
+                        internalPackages = DependenciesUtil.groupWebDependencies(dependencies,
+                                Util.getPropertyValues(Util.Variable.Type.getVariableName()));
+                        AnalysisMetrics.endPhase(AnalysisPhase.Grouping, phaseStart);
+
+                        if (this.analyzer.equals(BatchAnalyzer.MVC_ANALYZER)) {
+                            layers = BatchAnalyzer.this.mvcAnalyzer.analyzeGroupedDependencies(dependencies, null,
+                                    internalPackages, BatchAnalyzer.this.includeExternal, imageFile);
+                            classesCount = layers.size();
+                            groupsCount = new HashSet<Layer>(layers.values()).size();
+                            classifications = layers;
+                        } else {
+                            clusters = ClusterAnalyzer.classifyGroupedDependencies(dependencies, internalPackages,
+                                    BatchAnalyzer.this.includeExternal, BatchAnalyzer.this.simplifyGraph, imageFile);
+                            classesCount = clusters.size();
+                            groupsCount = new HashSet<Cluster>(clusters.values()).size();
+                            classifications = clusters;
+                        }
+
+                        // Graphs for external tools, along with the SVG file
+                        if (BatchAnalyzer.this.exportGraphML) {
+                            GraphExporter.exportDependenciesToGraphML(dependencies,
+                                    BatchAnalyzer.this.includeExternal, classifications, new File(
+                                            this.outputDirectory, BatchAnalyzer.GRAPHML_FILE));
+                        }
+                        if (BatchAnalyzer.this.exportJson) {
+                            GraphExporter.exportDependenciesToJson(dependencies, BatchAnalyzer.this.includeExternal,
+                                    classifications, new File(this.outputDirectory, BatchAnalyzer.JSON_FILE));
+                        }
+                    } finally {
+                        AnalysisMetrics.endAnalysis();
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+
+                returnValue = new BatchResult(this.artifact, this.analyzer, this.outputDirectory, classesCount,
+                        groupsCount, (System.nanoTime() - startTime) / 1000000, error);
+            } finally {
+                this.permits.release();
+            }
+
+            if (BatchAnalyzer.this.progress != null) {
+                BatchAnalyzer.this.progress.println("[" + this.finished.incrementAndGet() + "/" + this.tasksCount
+                        + "] " + this.artifact.getName() + " (" + this.analyzer + "): "
+                        + (returnValue.isSuccessful() ? "OK" : "FAILED") + " in " + returnValue.getMillis() + " ms");
+            }
+
+            return returnValue;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.batch;
+
+import java.io.File;
+
+/**
+ * Result of a single analysis executed by the {@link BatchAnalyzer}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class BatchResult {
+
+    /**
+     * Analyzed WAR file or classes directory.
+     */
+    private File artifact;
+
+    /**
+     * Name of the analyzer, mvc or cluster.
+     */
+    private String analyzer;
+
+    /**
+     * Directory where the results were generated.
+     */
+    private File outputDirectory;
+
+    /**
+     * Number of classified classes.
+     */
+    private int classesCount;
+
+    /**
+     * Number of layers or clusters the classes were grouped into.
+     */
+    private int groupsCount;
+
+    /**
+     * Duration of the analysis, in milliseconds.
+     */
+    private long millis;
+
+    /**
+     * Error that stopped the analysis, null if it was successful.
+     */
+    private Throwable error;
+
+    /**
+     * Full constructor.
+     * 
+     * @param artifact
+     *            Analyzed WAR file or classes directory.
+     * @param analyzer
+     *            Name of the analyzer, mvc or cluster.
+     * @param outputDirectory
+     *            Directory where the results were generated.
+     * @param classesCount
+     *            Number of classified classes.
+     * @param groupsCount
+     *            Number of layers or clusters the classes were grouped into.
+     * @param millis
+     *            Duration of the analysis, in milliseconds.
+     * @param error
+     *            Error that stopped the analysis, null if it was successful.
+     */
+    public BatchResult(final File artifact, final String analyzer, final File outputDirectory,
+            final int classesCount, final int groupsCount, final long millis, final Throwable error) {
+        this.artifact = artifact;
+        this.analyzer = analyzer;
+        this.outputDirectory = outputDirectory;
+        this.classesCount = classesCount;
+        this.groupsCount = groupsCount;
+        this.millis = millis;
+        this.error = error;
+    }
+
+    /**
+     * Get the analyzed artifact.
+     * 
+     * @return WAR file or classes directory.
+     */
+    public File getArtifact() {
+        return this.artifact;
+    }
+
+    /**
+     * Get the analyzer name.
+     * 
+     * @return mvc or cluster.
+     */
+    public String getAnalyzer() {
+        return this.analyzer;
+    }
+
+    /**
+     * Get the directory where the results were generated.
+     * 
+     * @return Output directory.
+     */
+    public File getOutputDirectory() {
+        return this.outputDirectory;
+    }
+
+    /**
+     * Get the number of classified classes.
+     * 
+     * @return Classes count.
+     */
+    public int getClassesCount() {
+        return this.classesCount;
+    }
+
+    /**
+     * Get the number of layers or clusters the classes were grouped into.
+     * 
+     * @return Groups count.
+     */
+    public int getGroupsCount() {
+        return this.groupsCount;
+    }
+
+    /**
+     * Get the duration of the analysis.
+     * 
+     * @return Milliseconds.
+     */
+    public long getMillis() {
+        return this.millis;
+    }
+
+    /**
+     * Get the error that stopped the analysis.
+     * 
+     * @return Error, null if the analysis was successful.
+     */
+    public Throwable getError() {
+        return this.error;
+    }
+
+    /**
+     * Was the analysis successful.
+     * 
+     * @return true if the analysis didn't fail.
+     */
+    public boolean isSuccessful() {
+        return this.error == null;
+    }
+}
@@ -18,19 +18,27 @@
  */
 package mx.itesm.web2mexadl.cluster;
 
-import java.awt.Color;
-
 /**
- * This class represents a Cluster in a software architecture.
+ * This class represents a Cluster in a software architecture. Its color is an
+ * int packed as <em>0xRRGGBB</em> instead of a <em>java.awt.Color</em>, so the
+ * constructors and accessors that took or returned a <em>Color</em> were
+ * replaced by their int versions.
  * 
  * @author jccastrejon
  * 
  */
 public class Cluster {
     /**
-     * RGB color associated to the cluster, used in the graphic export.
+     * Cluster name, as used in the MexADL architecture document.
      */
-    private Color color;
+    private String name;
+
+    /**
+     * RGB color associated to the cluster, used in the graphic export. The
+     * color is packed as <em>0xRRGGBB</em>, so the graphic export doesn't
+     * need AWT.
+     */
+    private int rgb;
 
     /**
      * Style associated to the cluster, used in the graphic export.
@@ -39,25 +47,55 @@ public class Cluster {
 
     /**
      * 
-     * @param color
+     * @param rgb
+     *            RGB color, packed as <em>0xRRGGBB</em>.
      */
-    public Cluster(final Color color) {
-        this.color = color;
+    public Cluster(final int rgb) {
+        this.rgb = rgb & 0x00ffffff;
         this.style = "filled";
     }
 
+    /**
+     * 
+     * @param name
+     *            Cluster name, as used in the MexADL architecture document.
+     * @param rgb
+     *            RGB color, packed as <em>0xRRGGBB</em>.
+     */
+    public Cluster(final String name, final int rgb) {
+        this(rgb);
+        this.name = name;
+    }
+
+    /**
+     * The cluster name, or its color if it has no name, so unnamed clusters
+     * can still be told apart in the exported graphs.
+     */
+    @Override
+    public String toString() {
+        return (this.name != null) ? this.name : this.getHexColor();
+    }
+
     // Getters - Setters
 
-    public Color getColor() {
-        return color;
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getRgb() {
+        return rgb;
     }
 
     public String getHexColor() {
-        return "#" + Integer.toHexString(this.color.getRGB() & 0x00ffffff).toUpperCase();
+        return String.format("#%06X", this.rgb);
     }
 
-    public void setColor(Color color) {
-        this.color = color;
+    public void setRgb(int rgb) {
+        this.rgb = rgb & 0x00ffffff;
     }
 
     public String getStyle() {
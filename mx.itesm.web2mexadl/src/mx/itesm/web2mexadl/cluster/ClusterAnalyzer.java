@@ -18,7 +18,6 @@
  */
 package mx.itesm.web2mexadl.cluster;
 
-import java.awt.Color;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -29,14 +28,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.CancellationException;
 
 import mx.itesm.web2mexadl.dependencies.ClassDependencies;
 import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
 import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.DependencySnapshot;
+import mx.itesm.web2mexadl.dependencies.DependencyStore;
+import mx.itesm.web2mexadl.dependencies.JarDependencyCache;
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
 import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
 import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+import mx.itesm.web2mexadl.util.FeatureExtractor;
 import mx.itesm.web2mexadl.util.Util;
 import net.sf.javaml.clustering.Clusterer;
 import net.sf.javaml.core.Dataset;
@@ -61,17 +66,15 @@ import weka.clusterers.EM;
  * Clusters in which a web application is composed, and the generation of both a
  * MexADL document and a SVG file representing the software architecture
  * associated to the application.
+ * <p>
+ * This class keeps no shared mutable state, so several analyses can run at the
+ * same time from different threads.
  * 
  * @author jccastrejon
  * 
  */
 public class ClusterAnalyzer {
 
-    /**
-     * Class logger.
-     */
-    private static Logger logger = Logger.getLogger(ClusterAnalyzer.class.getName());
-
     /**
      * xADL Types namespace.
      */
@@ -79,48 +82,162 @@ public class ClusterAnalyzer {
             "http://www.ics.uci.edu/pub/arch/xArch/types.xsd");
 
     /**
-     * Path to the links elements in a XADL document.
+     * Classify each class within the specified path into one of the identified
+     * Clusters of the application.
+     * 
+     * @param path
+     *            Path to the directory containing the classes.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
      */
-    private static XPath linksPath;
+    public static Map<String, Cluster> classifyClassesInDirectory(final File path, final boolean includeExternal,
+            final File outputFile) throws Exception {
+        return ClusterAnalyzer.classifyClassesInDirectory(path, includeExternal, outputFile, null);
+    }
 
     /**
-     * Path to the components elements in a XADL document.
+     * Classify each class within the specified path into one of the identified
+     * Clusters of the application.
+     * 
+     * @param path
+     *            Path to the directory containing the classes.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
      */
-    private static XPath componentsPath;
+    public static Map<String, Cluster> classifyClassesInDirectory(final File path, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
+        Map<String, Cluster> returnValue;
+        List<ClassDependencies> dependencies;
+
+        // Classify each class in the specified path
+        AnalysisMetrics.startAnalysis("Cluster", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencyAnalyzer.getDirectoryDependencies(path.getAbsolutePath(),
+                    new MvcDependencyCommand());
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            returnValue = ClusterAnalyzer.classifyDependencies(dependencies, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return returnValue;
+    }
 
     /**
-     * Path to the connectors elements in a XADL document.
+     * Classify each class within the specified WAR file into one of the
+     * identified Clusters of the application.
+     * 
+     * @param file
+     *            Path to the WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
      */
-    private static XPath connectorsPath;
+    public static Map<String, Cluster> classifyClassesInWar(final File file, final boolean includeExternal,
+            final File outputFile) throws Exception {
+        return ClusterAnalyzer.classifyClassesInWar(file, includeExternal, outputFile, null);
+    }
 
     /**
-     * Path to the componentTypes elements in a XADL document.
+     * Classify each class within the specified WAR file into one of the
+     * identified Clusters of the application.
+     * 
+     * @param file
+     *            Path to the WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
      */
-    private static XPath componentTypesPath;
+    public static Map<String, Cluster> classifyClassesInWar(final File file, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        return ClusterAnalyzer.classifyClassesInWar(file, includeExternal, outputFile, monitor, null);
+    }
 
     /**
-     * SAX builder.
+     * Classify each class within the specified WAR file into one of the
+     * identified Clusters of the application. The dependencies of the embedded
+     * JAR files are taken from the specified cache, if they were already
+     * recovered.
+     * 
+     * @param file
+     *            Path to the WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @param jarCache
+     *            Cache of the dependencies of the JAR files embedded in the
+     *            WAR file, shared with the analyses of other WAR files, may be
+     *            null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
      */
-    private static SAXBuilder saxBuilder = new SAXBuilder();
+    public static Map<String, Cluster> classifyClassesInWar(final File file, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor, final JarDependencyCache jarCache)
+            throws Exception {
+        long phaseStart;
+        Map<String, Cluster> returnValue;
+        List<ClassDependencies> dependencies;
 
-    static {
+        // Classify each class in the specified war
+        AnalysisMetrics.startAnalysis("Cluster", monitor);
         try {
-            ClusterAnalyzer.componentsPath = XPath.newInstance("/instance:xArch/types:archStructure/types:component");
-            ClusterAnalyzer.connectorsPath = XPath.newInstance("/instance:xArch/types:archStructure/types:connector");
-            ClusterAnalyzer.linksPath = XPath.newInstance("/instance:xArch/types:archStructure/types:link");
-            ClusterAnalyzer.componentTypesPath = XPath
-                    .newInstance("/instance:xArch/types:archTypes/types:componentType");
-        } catch (Exception e) {
-            ClusterAnalyzer.logger.log(Level.WARNING, "Error while xpath instances: ", e);
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencyAnalyzer.getWarDependencies(file.getAbsolutePath(), jarCache,
+                    new MvcDependencyCommand());
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            returnValue = ClusterAnalyzer.classifyDependencies(dependencies, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
         }
+
+        return returnValue;
     }
 
     /**
-     * Classify each class within the specified path into one of the identified
-     * Clusters of the application.
+     * Classify each class within the specified dependencies snapshot into one
+     * of the identified Clusters of the application.
      * 
-     * @param path
-     *            Path to the directory containing the classes.
+     * @param snapshotFile
+     *            Path to the snapshot file, see {@link DependencySnapshot}.
      * @param includeExternal
      *            Should the external dependencies be exported.
      * @param outputFile
@@ -129,35 +246,58 @@ public class ClusterAnalyzer {
      * @throws Exception
      *             If an Exception occurs during classification.
      */
-    public static Map<String, Cluster> classifyClassesInDirectory(final File path, final boolean includeExternal,
+    public static Map<String, Cluster> classifyClassesInSnapshot(final File snapshotFile, final boolean includeExternal,
             final File outputFile) throws Exception {
-        Dataset[] clusters;
+        return ClusterAnalyzer.classifyClassesInSnapshot(snapshotFile, includeExternal, outputFile, null);
+    }
+
+    /**
+     * Classify each class within the specified dependencies snapshot into one
+     * of the identified Clusters of the application.
+     * 
+     * @param snapshotFile
+     *            Path to the snapshot file, see {@link DependencySnapshot}.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public static Map<String, Cluster> classifyClassesInSnapshot(final File snapshotFile, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
         Map<String, Cluster> returnValue;
         List<ClassDependencies> dependencies;
-        Map<String, Set<String>> internalPackages;
 
-        // Classify each class in the specified path
-        dependencies = DependencyAnalyzer.getDirectoryDependencies(path.getAbsolutePath(), new MvcDependencyCommand());
-        internalPackages = DependenciesUtil.getInternalPackages(dependencies,
-                Util.getPropertyValues(Util.Variable.Type.getVariableName()));
-
-        clusters = ClusterAnalyzer.generateClusters(dependencies);
-        returnValue = ClusterAnalyzer.generateArchitecture(clusters, internalPackages, outputFile.getParentFile());
+        AnalysisMetrics.startAnalysis("Cluster", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencySnapshot.read(snapshotFile);
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
 
-        if (outputFile != null) {
-            DependenciesUtil.exportDependenciesToSVG(dependencies, includeExternal, outputFile, internalPackages,
-                    new ClusterExportCommand(returnValue));
+            returnValue = ClusterAnalyzer.classifyDependencies(dependencies, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
         }
 
         return returnValue;
     }
 
     /**
-     * Classify each class within the specified WAR file into one of the
-     * identified Clusters of the application.
+     * Classify each class within the specified off-heap dependencies store
+     * into one of the identified Clusters of the application.
      * 
-     * @param file
-     *            Path to the WAR file.
+     * @param store
+     *            Dependencies store, see
+     *            {@link DependencyAnalyzer#getDirectoryDependencies(String, DependencyStore, mx.itesm.web2mexadl.dependencies.DependencyCommand...)}
+     *            .
      * @param includeExternal
      *            Should the external dependencies be exported.
      * @param outputFile
@@ -166,139 +306,201 @@ public class ClusterAnalyzer {
      * @throws Exception
      *             If an Exception occurs during classification.
      */
-    public static Map<String, Cluster> classifyClassesInWar(final File file, final boolean includeExternal,
-            final File outputFile) throws Exception {
-        Dataset[] clusters;
+    public static Map<String, Cluster> classifyClassesInStore(final DependencyStore store,
+            final boolean includeExternal, final File outputFile) throws Exception {
+        return ClusterAnalyzer.classifyClassesInStore(store, includeExternal, outputFile, null);
+    }
+
+    /**
+     * Classify each class within the specified off-heap dependencies store
+     * into one of the identified Clusters of the application.
+     * 
+     * @param store
+     *            Dependencies store, see
+     *            {@link DependencyAnalyzer#getDirectoryDependencies(String, DependencyStore, mx.itesm.web2mexadl.dependencies.DependencyCommand...)}
+     *            .
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public static Map<String, Cluster> classifyClassesInStore(final DependencyStore store,
+            final boolean includeExternal, final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
         Map<String, Cluster> returnValue;
         List<ClassDependencies> dependencies;
-        Map<String, Set<String>> internalPackages;
 
-        // Classify each class in the specified war
-        dependencies = DependencyAnalyzer.getWarDependencies(file.getAbsolutePath(), new MvcDependencyCommand());
+        AnalysisMetrics.startAnalysis("Cluster", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = store.asList();
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
 
-        // Remove the WEB-INF.classes prefix
-        for (ClassDependencies dependency : dependencies) {
-            dependency.setClassName(dependency.getClassName().replace("WEB-INF.classes.", ""));
-            dependency.setPackageName(dependency.getPackageName().replace("WEB-INF.classes.", ""));
+            returnValue = ClusterAnalyzer.classifyDependencies(dependencies, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
         }
 
-        internalPackages = DependenciesUtil.getInternalPackages(dependencies,
+        return returnValue;
+    }
+
+    /**
+     * Classify each class within the specified dependencies.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     */
+    private static Map<String, Cluster> classifyDependencies(final List<ClassDependencies> dependencies,
+            final boolean includeExternal, final File outputFile) throws Exception {
+        long phaseStart;
+        Map<String, Set<String>> internalPackages;
+
+        // Remove the WEB-INF.classes prefix
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Grouping);
+        internalPackages = DependenciesUtil.groupWebDependencies(dependencies,
                 Util.getPropertyValues(Util.Variable.Type.getVariableName()));
+        AnalysisMetrics.endPhase(AnalysisPhase.Grouping, phaseStart);
+
+        return ClusterAnalyzer.classifyGroupedDependencies(dependencies, internalPackages, includeExternal,
+                outputFile);
+    }
 
+    /**
+     * Classify each class within the specified dependencies, already grouped
+     * by their internal packages, see
+     * {@link DependenciesUtil#groupWebDependencies(List, String[])}. The
+     * dependencies are only read, so they can be classified at the same time
+     * by other analyses.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @param internalPackages
+     *            Project's internal packages.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
+     */
+    public static Map<String, Cluster> classifyGroupedDependencies(final List<ClassDependencies> dependencies,
+            final Map<String, Set<String>> internalPackages, final boolean includeExternal, final File outputFile)
+            throws Exception {
+        return ClusterAnalyzer.classifyGroupedDependencies(dependencies, internalPackages, includeExternal, false,
+                outputFile);
+    }
+
+    /**
+     * Classify each class within the specified dependencies, already grouped
+     * by their internal packages, see
+     * {@link DependenciesUtil#groupWebDependencies(List, String[])}. The
+     * dependencies are only read, so they can be classified at the same time
+     * by other analyses.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @param internalPackages
+     *            Project's internal packages.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out of the
+     *            SVG file.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
+     */
+    public static Map<String, Cluster> classifyGroupedDependencies(final List<ClassDependencies> dependencies,
+            final Map<String, Set<String>> internalPackages, final boolean includeExternal,
+            final boolean simplifyGraph, final File outputFile) throws Exception {
+        long phaseStart;
+        Dataset[] clusters;
+        Map<String, Cluster> returnValue;
+
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Clustering);
         clusters = ClusterAnalyzer.generateClusters(dependencies);
+        AnalysisMetrics.endPhase(AnalysisPhase.Clustering, phaseStart);
         returnValue = ClusterAnalyzer.generateArchitecture(clusters, internalPackages, outputFile.getParentFile());
 
         if (outputFile != null) {
-            DependenciesUtil.exportDependenciesToSVG(dependencies, includeExternal, outputFile, internalPackages,
-                    new ClusterExportCommand(returnValue));
+            DependenciesUtil.exportDependenciesToSVG(dependencies, includeExternal, simplifyGraph, outputFile,
+                    internalPackages, new ClusterExportCommand(returnValue));
         }
 
         return returnValue;
     }
 
     /**
-     * Generate a set of Clusters from the specified dependencies data.
+     * Generate a set of Clusters from the specified dependencies data, using
+     * the values of the Uncertainty model variables of each class.
      * 
      * @param dependencies
-     * @return
+     *            List containing the dependencies for each class to cluster.
+     * @return Classes contained in each one of the generated clusters.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
      */
-    private static Dataset[] generateClusters(final List<ClassDependencies> dependencies) {
+    public static Dataset[] generateClusters(final List<ClassDependencies> dependencies) {
         Dataset dataset;
+        byte[] features;
         double[] values;
-        boolean valueFound;
+        Object[] contexts;
         Clusterer clusterer;
-        String[] typeValues;
-        int instanceTypeIndex;
-        String[] suffixValues;
         Dataset[] returnValue;
-        String[] externalApiValues;
-        Map<String, String[]> externalApiPackages;
-
-        // Valid suffixes to look for in the class names
-        suffixValues = Util.getPropertyValues(Util.Variable.Suffix.getVariableName());
-
-        // Valid file types to look for in the component names
-        typeValues = Util.getPropertyValues(Util.Variable.Type.getVariableName());
-
-        // Valid external api packages to look for in the classes dependencies
-        externalApiValues = Util.getPropertyValues(Util.Variable.ExternalAPI.getVariableName());
-        externalApiPackages = new HashMap<String, String[]>(externalApiValues.length);
-        for (int i = 0; i < externalApiValues.length; i++) {
-            if (!externalApiValues[i].equals("none")) {
-                externalApiPackages.put(externalApiValues[i],
-                        Util.getPropertyValues("externalApi." + externalApiValues[i] + ".packages"));
-            }
-        }
+        FeatureExtractor featureExtractor;
 
         // Get instances data
+        contexts = AnalysisMetrics.startClustering();
         returnValue = null;
         dataset = new DefaultDataset();
+        featureExtractor = new FeatureExtractor();
         values = new double[Util.Variable.values().length];
         for (ClassDependencies classDependencies : dependencies) {
-
-            // Type
-            instanceTypeIndex = 0;
-            for (int i = 0; i < typeValues.length; i++) {
-                String validType = typeValues[i];
-                if (classDependencies.getClassName().endsWith("." + validType)) {
-                    instanceTypeIndex = i;
-                    break;
+            AnalysisMetrics.checkCanceled();
+
+            // Type, ExternalAPI, Suffix. Missing values are placed after the
+            // variable's valid values
+            features = featureExtractor.getFeatures(classDependencies);
+            for (Util.Variable variable : Util.Variable.values()) {
+                if (features[variable.ordinal()] == FeatureExtractor.NO_VALUE) {
+                    values[variable.ordinal()] = featureExtractor.getValuesCount(variable);
+                } else {
+                    values[variable.ordinal()] = features[variable.ordinal()];
                 }
             }
-            values[Util.Variable.Type.ordinal()] = instanceTypeIndex;
-
-            // ExternalAPI
-            valueFound = false;
-            externalApi: for (int i = 0; i < externalApiValues.length; i++) {
-                String externalApi = externalApiValues[i];
-
-                if (externalApi.equals("none")) {
-                    continue;
-                }
-
-                // Check if any of the class' external dependencies match with
-                // one of the key external dependencies
-                if (classDependencies.getExternalDependencies() != null) {
-                    for (String externalDependency : classDependencies.getExternalDependencies()) {
-                        for (String externalPackage : externalApiPackages.get(externalApi)) {
-                            if (externalDependency.toLowerCase().startsWith(externalPackage)) {
-                                valueFound = true;
-                                values[Util.Variable.ExternalAPI.ordinal()] = i;
-                                break externalApi;
-                            }
-                        }
-                    }
-                }
-            }
-
-            // No key external dependency found
-            if (!valueFound) {
-                values[Util.Variable.ExternalAPI.ordinal()] = externalApiValues.length;
-            }
-
-            // Suffix
-            valueFound = false;
-            for (int i = 0; i < suffixValues.length; i++) {
-                String suffix = suffixValues[i];
-                if (classDependencies.getClassName().toLowerCase().endsWith(suffix)) {
-                    valueFound = true;
-                    values[Util.Variable.Suffix.ordinal()] = i;
-                    break;
-                }
-            }
-
-            // No key suffix found
-            if (!valueFound) {
-                values[Util.Variable.Suffix.ordinal()] = suffixValues.length;
-            }
 
             // Save instance data
             dataset.add(new DenseInstance(values, classDependencies.getClassName()));
         }
 
-        // Generate clusters
+        // Generate clusters. The EM iterations can't be stopped, so a
+        // cancellation is only noticed once they finish
         clusterer = new WekaClusterer(new EM());
         returnValue = clusterer.cluster(dataset);
+        AnalysisMetrics.checkCanceled();
+        AnalysisMetrics.endClustering(contexts, dataset.size(), returnValue.length);
 
         return returnValue;
     }
@@ -316,6 +518,41 @@ public class ClusterAnalyzer {
      */
     private static Map<String, Cluster> generateArchitecture(final Dataset[] clustersData,
             final Map<String, Set<String>> internalPackages, final File outputDir) throws IOException, JDOMException {
+        long phaseStart;
+        Map<String, Cluster> returnValue;
+        StringBuilder[] implementationPackages;
+
+        // Initialize implementation packages
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Clustering);
+        implementationPackages = new StringBuilder[clustersData.length];
+        for (int i = 0; i < implementationPackages.length; i++) {
+            implementationPackages[i] = new StringBuilder();
+        }
+
+        returnValue = ClusterAnalyzer.classifyPackages(clustersData, internalPackages, implementationPackages);
+        AnalysisMetrics.endPhase(AnalysisPhase.Clustering, phaseStart);
+
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Export);
+        ClusterAnalyzer.exportToMexADL(outputDir, implementationPackages);
+        AnalysisMetrics.endPhase(AnalysisPhase.Export, phaseStart);
+
+        return returnValue;
+    }
+
+    /**
+     * Assign each class to the cluster it was placed in, and each package to
+     * the most common cluster between the package contents.
+     * 
+     * @param clustersData
+     *            Classes contained in each cluster.
+     * @param internalPackages
+     *            Project's internal packages.
+     * @param implementationPackages
+     *            Builders where to add the packages assigned to each cluster.
+     * @return Map containing the cluster assigned to each class.
+     */
+    public static Map<String, Cluster> classifyPackages(final Dataset[] clustersData,
+            final Map<String, Set<String>> internalPackages, final StringBuilder[] implementationPackages) {
         int maxCount;
         int clusterIndex;
         int[] clustersCounts;
@@ -323,7 +560,6 @@ public class ClusterAnalyzer {
         List<Integer> clusterCountsList;
         Map<String, Cluster> returnValue;
         Set<String> currentPackageContent;
-        StringBuilder[] implementationPackages;
         HashMap<String, Integer> clusterClasses;
         Map<String, Integer> packagesClassification;
 
@@ -340,13 +576,7 @@ public class ClusterAnalyzer {
         // Initialize clusters
         clusters = new Cluster[clustersData.length];
         for (int i = 0; i < clustersData.length; i++) {
-            clusters[i] = new Cluster(ClusterAnalyzer.getRandomColor());
-        }
-
-        // Initialize implementation packages
-        implementationPackages = new StringBuilder[clustersData.length];
-        for (int i = 0; i < implementationPackages.length; i++) {
-            implementationPackages[i] = new StringBuilder();
+            clusters[i] = new Cluster("Cluster_" + i, ClusterAnalyzer.getRandomColor());
         }
 
         // Classify packages
@@ -379,13 +609,13 @@ public class ClusterAnalyzer {
             }
         }
 
-        ClusterAnalyzer.exportToMexADL(outputDir, implementationPackages);
-
         return returnValue;
     }
 
     /**
-     * Export the given data into a MexADL architecture document.
+     * Export the given data into a MexADL architecture document. Each export
+     * uses its own template parser and XPath expressions, since they aren't
+     * thread safe, so concurrent exports don't block each other.
      * 
      * @param outputDir
      * @param implementationPackages
@@ -393,8 +623,8 @@ public class ClusterAnalyzer {
      * @throws JDOMException
      */
     @SuppressWarnings("unchecked")
-    public static void exportToMexADL(final File outputDir, final StringBuilder... implementationPackages)
-            throws IOException, JDOMException {
+    public static void exportToMexADL(final File outputDir,
+            final StringBuilder... implementationPackages) throws IOException, JDOMException {
         File outputFile;
         Document document;
         String identifier;
@@ -407,12 +637,15 @@ public class ClusterAnalyzer {
         List<Element> validComponents;
         StringBuilder implementationPackage;
 
-        document = ClusterAnalyzer.saxBuilder.build(MvcAnalyzer.class
+        document = new SAXBuilder().build(MvcAnalyzer.class
                 .getResourceAsStream("/mx/itesm/web2mexadl/templates/ClusterTemplate.xml"));
-        components = (List<Element>) ClusterAnalyzer.componentsPath.selectNodes(document);
-        connectors = (List<Element>) ClusterAnalyzer.connectorsPath.selectNodes(document);
-        links = (List<Element>) ClusterAnalyzer.linksPath.selectNodes(document);
-        componentTypes = (List<Element>) ClusterAnalyzer.componentTypesPath.selectNodes(document);
+        components = (List<Element>) XPath.selectNodes(document,
+                "/instance:xArch/types:archStructure/types:component");
+        connectors = (List<Element>) XPath.selectNodes(document,
+                "/instance:xArch/types:archStructure/types:connector");
+        links = (List<Element>) XPath.selectNodes(document, "/instance:xArch/types:archStructure/types:link");
+        componentTypes = (List<Element>) XPath.selectNodes(document,
+                "/instance:xArch/types:archTypes/types:componentType");
 
         // Identify the clusters specified in the implementationPackages
         validComponents = new ArrayList<Element>(implementationPackages.length);
@@ -502,29 +735,29 @@ public class ClusterAnalyzer {
      * http://stackoverflow.com/questions/43044/algorithm-to-randomly-generate
      * -an-aesthetically-pleasing-color-palette
      * 
-     * @return
+     * @return RGB color, packed as <em>0xRRGGBB</em>.
      */
-    private static Color getRandomColor() {
+    private static int getRandomColor() {
         int red;
         int blue;
         int green;
+        int mixColor;
         Random random;
-        Color mixColor;
-        Color returnValue;
+        int returnValue;
 
         // Base color (white)
-        mixColor = new Color(255, 255, 255);
+        mixColor = 255;
         random = new Random();
         red = random.nextInt(256);
         green = random.nextInt(256);
         blue = random.nextInt(256);
 
         // Mix new color with base one
-        red = (red + mixColor.getRed()) / 2;
-        green = (green + mixColor.getGreen()) / 2;
-        blue = (blue + mixColor.getBlue()) / 2;
+        red = (red + mixColor) / 2;
+        green = (green + mixColor) / 2;
+        blue = (blue + mixColor) / 2;
 
-        returnValue = new Color(red, green, blue);
+        returnValue = (red << 16) | (green << 8) | blue;
         return returnValue;
     }
 }
\ No newline at end of file
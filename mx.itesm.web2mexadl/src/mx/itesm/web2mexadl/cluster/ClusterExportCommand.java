@@ -23,7 +23,6 @@ import java.util.Map;
 import java.util.Set;
 
 import mx.itesm.web2mexadl.dependencies.ClassDependencies;
-import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
 import mx.itesm.web2mexadl.dependencies.ExportCommand;
 
 /**
@@ -57,9 +56,7 @@ public class ClusterExportCommand implements ExportCommand {
             classCluster = classifications.get(classDependencies.getClassName());
 
             if (classCluster != null) {
-                returnValue = "\n\t" + DependenciesUtil.getDotValidName(classDependencies.getClassName())
-                        + " [color=\"" + classCluster.getHexColor() + "\",style=\"" + classCluster.getStyle()
-                        + "\"];\n";
+                returnValue = "color=\"" + classCluster.getHexColor() + "\",style=\"" + classCluster.getStyle() + "\"";
             }
         }
 
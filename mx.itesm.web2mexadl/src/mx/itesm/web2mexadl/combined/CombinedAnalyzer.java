@@ -0,0 +1,311 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.combined;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.JarDependencyCache;
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+import mx.itesm.web2mexadl.util.FeatureExtractor;
+import mx.itesm.web2mexadl.util.Util;
+
+/**
+ * Generates both the MVC and the Clustered architecture descriptions of a web
+ * application, scanning it only once. The classes dependencies are recovered,
+ * grouped by their internal packages and their features extracted a single
+ * time, and then the MVC classification and the clustering run at the same
+ * time over the shared dependencies: the MVC classification in the calling
+ * thread, and the clustering in a separate one.
+ * <p>
+ * The results are the same as running {@link MvcAnalyzer} and
+ * {@link ClusterAnalyzer} one after the other, including both MexADL documents
+ * and SVG files. Both SVG files are simplified if the MVC analyzer simplifies
+ * its graphs, see {@link MvcAnalyzer#isSimplifyGraph()}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class CombinedAnalyzer {
+
+    /**
+     * Analyzer used for the MVC classification.
+     */
+    private MvcAnalyzer mvcAnalyzer;
+
+    /**
+     * Default constructor, the MVC classification uses the default analyzer,
+     * see {@link MvcAnalyzer#getDefaultAnalyzer()}.
+     */
+    public CombinedAnalyzer() {
+        this(MvcAnalyzer.getDefaultAnalyzer());
+    }
+
+    /**
+     * Full constructor.
+     * 
+     * @param mvcAnalyzer
+     *            Analyzer used for the MVC classification. Its graph
+     *            simplification option also applies to the clustering.
+     */
+    public CombinedAnalyzer(final MvcAnalyzer mvcAnalyzer) {
+        this.mvcAnalyzer = mvcAnalyzer;
+    }
+
+    /**
+     * Classify each class within the specified path into one of the layers of
+     * the MVC pattern, and into one of the identified Clusters of the
+     * application.
+     * 
+     * @param path
+     *            Path to the directory containing the classes.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param mvcOutputFile
+     *            File where to export the MVC classification results.
+     * @param clusterOutputFile
+     *            File where to export the clustering results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public CombinedResult analyzeDirectory(final File path, final boolean includeExternal,
+            final File mvcOutputFile, final File clusterOutputFile, final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
+        CombinedResult returnValue;
+        List<ClassDependencies> dependencies;
+
+        this.mvcAnalyzer.warmUp();
+        AnalysisMetrics.startAnalysis("Combined", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencyAnalyzer.getDirectoryDependencies(path.getAbsolutePath(),
+                    new MvcDependencyCommand());
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            returnValue = this.analyzeDependencies(dependencies, includeExternal, mvcOutputFile, clusterOutputFile,
+                    monitor);
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Classify each class within the specified WAR file into one of the layers
+     * of the MVC pattern, and into one of the identified Clusters of the
+     * application. The dependencies of the embedded JAR files are taken from
+     * the specified cache, if they were already recovered.
+     * 
+     * @param file
+     *            Path to the WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param mvcOutputFile
+     *            File where to export the MVC classification results.
+     * @param clusterOutputFile
+     *            File where to export the clustering results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @param jarCache
+     *            Cache of the dependencies of the JAR files embedded in the
+     *            WAR file, shared with the analyses of other WAR files, may be
+     *            null.
+     * @return Classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public CombinedResult analyzeWar(final File file, final boolean includeExternal, final File mvcOutputFile,
+            final File clusterOutputFile, final AnalysisMonitor monitor, final JarDependencyCache jarCache)
+            throws Exception {
+        long phaseStart;
+        CombinedResult returnValue;
+        List<ClassDependencies> dependencies;
+
+        this.mvcAnalyzer.warmUp();
+        AnalysisMetrics.startAnalysis("Combined", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencyAnalyzer.getWarDependencies(file.getAbsolutePath(), jarCache,
+                    new MvcDependencyCommand());
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            returnValue = this.analyzeDependencies(dependencies, includeExternal, mvcOutputFile, clusterOutputFile,
+                    monitor);
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Classify each class within the specified dependencies into one of the
+     * layers of the MVC pattern, and into one of the identified Clusters of
+     * the application. The dependencies are grouped and their features
+     * extracted in the calling thread, then the clustering runs in a separate
+     * thread while the MVC classification runs in the calling one.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param mvcOutputFile
+     *            File where to export the MVC classification results.
+     * @param clusterOutputFile
+     *            File where to export the clustering results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null. Only its cancellation token is used by the
+     *            clustering thread.
+     * @return Classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public CombinedResult analyzeDependencies(final List<ClassDependencies> dependencies,
+            final boolean includeExternal, final File mvcOutputFile, final File clusterOutputFile,
+            final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
+        Map<String, Layer> layers;
+        ExecutorService executor;
+        CombinedResult returnValue;
+        FeatureExtractor featureExtractor;
+        Future<Map<String, Cluster>> clusters;
+        final Map<String, Set<String>> internalPackages;
+
+        AnalysisMetrics.startAnalysis("Combined", monitor);
+        try {
+            // Remove the WEB-INF.classes prefix, and extract the features
+            // before the classifications start, since both of them read them
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Grouping);
+            internalPackages = DependenciesUtil.groupWebDependencies(dependencies,
+                    Util.getPropertyValues(Util.Variable.Type.getVariableName()));
+            featureExtractor = new FeatureExtractor();
+            for (ClassDependencies classDependencies : dependencies) {
+                featureExtractor.getFeatures(classDependencies);
+            }
+            AnalysisMetrics.endPhase(AnalysisPhase.Grouping, phaseStart);
+
+            executor = Executors.newSingleThreadExecutor();
+            try {
+                clusters = executor.submit(new Callable<Map<String, Cluster>>() {
+                    @Override
+                    public Map<String, Cluster> call() throws Exception {
+                        AnalysisMetrics.startAnalysis("Cluster", (monitor != null) ? new CancellationMonitor(
+                                monitor) : null);
+                        try {
+                            return ClusterAnalyzer.classifyGroupedDependencies(dependencies, internalPackages,
+                                    includeExternal, CombinedAnalyzer.this.mvcAnalyzer.isSimplifyGraph(),
+                                    clusterOutputFile);
+                        } finally {
+                            AnalysisMetrics.endAnalysis();
+                        }
+                    }
+                });
+
+                layers = this.mvcAnalyzer.analyzeGroupedDependencies(dependencies, null, internalPackages,
+                        includeExternal, mvcOutputFile);
+                try {
+                    returnValue = new CombinedResult(layers, clusters.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw (Exception) e.getCause();
+                }
+            } finally {
+                // Interrupts the clustering if the MVC classification failed
+                executor.shutdownNow();
+            }
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Monitor of the clustering thread, that only shares the cancellation
+     * token of the combined analysis monitor. The progress is only notified
+     * by the thread that runs the combined analysis.
+     */
+    private static class CancellationMonitor implements AnalysisMonitor {
+
+        /**
+         * Monitor of the combined analysis.
+         */
+        private AnalysisMonitor monitor;
+
+        /**
+         * Full constructor.
+         * 
+         * @param monitor
+         *            Monitor of the combined analysis.
+         */
+        public CancellationMonitor(final AnalysisMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        @Override
+        public void phaseStarted(final AnalysisPhase phase) {
+        }
+
+        @Override
+        public void entriesDiscovered(final int entriesCount) {
+        }
+
+        @Override
+        public void entryAnalyzed(final String entryName) {
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return this.monitor.isCanceled();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.combined;
+
+import java.util.Map;
+
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.mvc.Layer;
+
+/**
+ * Result of a {@link CombinedAnalyzer} analysis: the MVC layer and the cluster
+ * assigned to each class of the application.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class CombinedResult {
+
+    /**
+     * MVC layer of each class.
+     */
+    private Map<String, Layer> layers;
+
+    /**
+     * Cluster of each class.
+     */
+    private Map<String, Cluster> clusters;
+
+    /**
+     * Full constructor.
+     * 
+     * @param layers
+     *            MVC layer of each class.
+     * @param clusters
+     *            Cluster of each class.
+     */
+    public CombinedResult(final Map<String, Layer> layers, final Map<String, Cluster> clusters) {
+        this.layers = layers;
+        this.clusters = clusters;
+    }
+
+    /**
+     * Get the MVC layer of each class.
+     * 
+     * @return Map containing the classification layer for each class.
+     */
+    public Map<String, Layer> getLayers() {
+        return this.layers;
+    }
+
+    /**
+     * Get the cluster of each class.
+     * 
+     * @return Map containing the cluster assigned to each class.
+     */
+    public Map<String, Cluster> getClusters() {
+        return this.clusters;
+    }
+}
@@ -51,6 +51,13 @@ public class ClassDependencies {
      */
     private List<String> externalDependencies;
 
+    /**
+     * Values of the classification variables, cached once extracted. The
+     * reference is volatile so the values extracted by one thread are safely
+     * published to the others.
+     */
+    private volatile Features features;
+
     /**
      * Full constructor.
      * 
@@ -143,4 +150,73 @@ public class ClassDependencies {
     public void setPackageName(String packageName) {
         this.packageName = packageName;
     }
+
+    /**
+     * @return the features, extracted with any variables properties, or
+     *         <em>null</em> if they haven't been extracted
+     */
+    public byte[] getFeatures() {
+        Features cachedFeatures;
+
+        cachedFeatures = this.features;
+        return (cachedFeatures != null) ? cachedFeatures.values : null;
+    }
+
+    /**
+     * Get the features extracted with the specified variables properties.
+     * 
+     * @param variablesHash
+     *            Hash of the variables properties, see
+     *            {@link mx.itesm.web2mexadl.util.FeatureExtractor#getVariablesHash()}.
+     * @return Features, or <em>null</em> if they haven't been extracted with
+     *         the specified variables properties.
+     */
+    public byte[] getFeatures(final int variablesHash) {
+        Features cachedFeatures;
+
+        cachedFeatures = this.features;
+        return ((cachedFeatures != null) && (cachedFeatures.variablesHash == variablesHash)) ? cachedFeatures.values
+                : null;
+    }
+
+    /**
+     * @param features
+     *            the features to set, <em>null</em> to clear them
+     * @param variablesHash
+     *            Hash of the variables properties the features were extracted
+     *            with.
+     */
+    public void setFeatures(final byte[] features, final int variablesHash) {
+        this.features = (features != null) ? new Features(features, variablesHash) : null;
+    }
+
+    /**
+     * Values of the classification variables, along with the variables
+     * properties they were extracted with.
+     */
+    private static class Features {
+
+        /**
+         * Variables values.
+         */
+        private final byte[] values;
+
+        /**
+         * Hash of the variables properties.
+         */
+        private final int variablesHash;
+
+        /**
+         * Full constructor.
+         * 
+         * @param values
+         *            Variables values.
+         * @param variablesHash
+         *            Hash of the variables properties.
+         */
+        public Features(final byte[] values, final int variablesHash) {
+            this.values = values;
+            this.variablesHash = variablesHash;
+        }
+    }
 }
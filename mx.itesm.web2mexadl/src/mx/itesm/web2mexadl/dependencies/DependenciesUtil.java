@@ -23,16 +23,23 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+
 /**
  * Dependencies Utility methods.
  * 
@@ -47,7 +54,13 @@ public class DependenciesUtil {
     private static Logger logger = Logger.getLogger(DependenciesUtil.class.getName());
 
     /**
-     * Export a graphic representation of the Classes dependencies list.
+     * Interval between the checks of the dot process, in milliseconds.
+     */
+    private static final long PROCESS_POLL_MILLIS = 50;
+
+    /**
+     * Export a graphic representation of the Classes dependencies list,
+     * without simplifying the internal dependencies.
      * 
      * @param dependencies
      *            Class dependencies.
@@ -65,32 +78,99 @@ public class DependenciesUtil {
     public static void exportDependenciesToSVG(final List<ClassDependencies> dependencies,
             final boolean includeExternal, final File imageFile, final Map<String, Set<String>> internalPackages,
             final ExportCommand... exportCommands) throws IOException {
+        DependenciesUtil.exportDependenciesToSVG(dependencies, includeExternal, false, imageFile, internalPackages,
+                exportCommands);
+    }
+
+    /**
+     * Export a graphic representation of the Classes dependencies list. If
+     * requested, the internal dependencies are simplified before rendering,
+     * see {@link #getSimplifiedInternalDependencies(List)}.
+     * 
+     * @param dependencies
+     *            Class dependencies.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out.
+     * @param imageFile
+     *            Image File.
+     * @param internalPackages
+     *            Project's internal packages.
+     * @param exportCommands
+     *            Commands to be executed during export process.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void exportDependenciesToSVG(final List<ClassDependencies> dependencies,
+            final boolean includeExternal, final boolean simplifyGraph, final File imageFile,
+            final Map<String, Set<String>> internalPackages, final ExportCommand... exportCommands) throws IOException {
         File dotFile;
-        int processCode;
-        Process process;
         String fileName;
-        String className;
-        String dotCommand;
+        long phaseStart;
+
+        // Validate arguments
+        if ((imageFile == null) || (!imageFile.getAbsolutePath().endsWith(".svg"))) {
+            throw new IllegalArgumentException("Not a svg file: " + imageFile.getAbsolutePath());
+        }
+
+        // Build dot file
+        fileName = imageFile.getName().substring(0, imageFile.getName().indexOf('.'));
+        dotFile = new File(imageFile.getParent() + "/" + fileName + ".dot");
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Dot);
+        DependenciesUtil.exportDependenciesToDot(dependencies, includeExternal, simplifyGraph, dotFile,
+                internalPackages, exportCommands);
+        AnalysisMetrics.endPhase(AnalysisPhase.Dot, phaseStart);
+
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Rendering);
+        DependenciesUtil.renderDotFile(dotFile, imageFile);
+        AnalysisMetrics.endPhase(AnalysisPhase.Rendering, phaseStart);
+    }
+
+    /**
+     * Export the Classes dependencies list to a dot file, that can then be
+     * rendered with {@link #renderDotFile(File, File)}. The graph is named
+     * after the dot file.
+     * 
+     * @param dependencies
+     *            Class dependencies.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out.
+     * @param dotFile
+     *            Dot File.
+     * @param internalPackages
+     *            Project's internal packages.
+     * @param exportCommands
+     *            Commands to be executed during export process.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void exportDependenciesToDot(final List<ClassDependencies> dependencies,
+            final boolean includeExternal, final boolean simplifyGraph, final File dotFile,
+            final Map<String, Set<String>> internalPackages, final ExportCommand... exportCommands) throws IOException {
+        String fileName;
+        String nodeId;
         String exportCommand;
         FileWriter fileWriter;
         String currentPackageName;
         Set<String> dotComponents;
         StringBuilder dotDescription;
         Set<String> internalComponents;
+        Map<String, String> dotNodeIds;
         Map<String, Set<String>> externalPackages;
+        Map<String, Map<String, Integer>> simplifiedDependencies;
         Map<String, Set<String>> internalDotPackages;
 
-        // Validate arguments
-        if ((imageFile == null) || (!imageFile.getAbsolutePath().endsWith(".svg"))) {
-            throw new IllegalArgumentException("Not a svg file: " + imageFile.getAbsolutePath());
+        fileName = dotFile.getName();
+        if (fileName.indexOf('.') > 0) {
+            fileName = fileName.substring(0, fileName.indexOf('.'));
         }
 
-        // Build dot file
-        fileName = imageFile.getName().substring(0, imageFile.getName().indexOf('.'));
-        dotFile = new File(imageFile.getParent() + "/" + fileName + ".dot");
-
         // Simple Dependencies
         externalPackages = new HashMap<String, Set<String>>();
+        dotNodeIds = new HashMap<String, String>(dependencies.size());
         dotDescription = new StringBuilder("digraph \"" + fileName
                 + "\" {\n\tcompound=\"true\";rankdir=\"TB\";\n\tnode[shape=box, fontsize=8, height=.1, width=.1];\n");
 
@@ -99,42 +179,76 @@ public class DependenciesUtil {
             dotDescription.append(command.getDescription());
         }
 
-        // Add internal and external dependencies
+        // Leave out redundant internal dependencies
+        simplifiedDependencies = null;
+        if (simplifyGraph) {
+            simplifiedDependencies = DependenciesUtil.getSimplifiedInternalDependencies(dependencies);
+        }
+
+        // Declare a node for each class, along with the attributes returned by
+        // the registered export commands
         for (ClassDependencies dependency : dependencies) {
-            className = DependenciesUtil.getDotValidName(dependency.getClassName());
+            if (dotNodeIds.containsKey(dependency.getClassName())) {
+                continue;
+            }
+
+            nodeId = Integer.toString(dotNodeIds.size());
+            dotNodeIds.put(dependency.getClassName(), nodeId);
+            dotDescription.append("\t" + nodeId + " [label="
+                    + DependenciesUtil.getDotValidName(dependency.getClassName()));
 
-            // Append each result of the registered export commands.
             if (exportCommands != null) {
                 for (ExportCommand command : exportCommands) {
                     exportCommand = command.execute(dependency);
 
                     // Append only if it's a valid result
                     if (exportCommand != null) {
-                        dotDescription.append(exportCommand);
+                        dotDescription.append("," + exportCommand);
                     }
                 }
             }
 
+            dotDescription.append("];\n");
+        }
+
+        // Add internal and external dependencies
+        for (ClassDependencies dependency : dependencies) {
+            nodeId = dotNodeIds.get(dependency.getClassName());
+
             // Add internal dependencies
-            if (dependency.getInternalDependencies() != null) {
+            if (simplifyGraph) {
+                for (Map.Entry<String, Integer> internalDependency : simplifiedDependencies.get(
+                        dependency.getClassName()).entrySet()) {
+                    dotDescription.append("\t" + nodeId + " -> "
+                            + DependenciesUtil.getDotNodeId(internalDependency.getKey(), dotNodeIds, dotDescription));
+
+                    // Collapsed edges are drawn thicker, according to their
+                    // weight
+                    if (internalDependency.getValue() > 1) {
+                        dotDescription.append(" [weight=" + internalDependency.getValue() + ",penwidth="
+                                + (1 + (31 - Integer.numberOfLeadingZeros(internalDependency.getValue()))) + "]");
+                    }
+                    dotDescription.append(";\n");
+                }
+            } else if (dependency.getInternalDependencies() != null) {
                 for (String internalDependency : dependency.getInternalDependencies()) {
-                    dotDescription.append("\t" + className + " -> "
-                            + DependenciesUtil.getDotValidName(internalDependency) + ";\n");
+                    dotDescription.append("\t" + nodeId + " -> "
+                            + DependenciesUtil.getDotNodeId(internalDependency, dotNodeIds, dotDescription) + ";\n");
                 }
             }
 
             // Add external dependencies, also group them by packages
-            if ((includeExternal) && (dependency.getInternalDependencies() != null)) {
+            if ((includeExternal) && (dependency.getExternalDependencies() != null)) {
                 for (String externalDependency : dependency.getExternalDependencies()) {
-                    dotDescription.append("\t" + className + " -> "
-                            + DependenciesUtil.getDotValidName(externalDependency) + ";\n");
+                    dotDescription.append("\t" + nodeId + " -> "
+                            + DependenciesUtil.getDotNodeId(externalDependency, dotNodeIds, dotDescription) + ";\n");
                     currentPackageName = externalDependency.substring(0, externalDependency.lastIndexOf('.'));
 
                     if (!externalPackages.containsKey(currentPackageName)) {
                         externalPackages.put(currentPackageName, new HashSet<String>());
                     }
 
-                    externalPackages.get(currentPackageName).add(DependenciesUtil.getDotValidName(externalDependency));
+                    externalPackages.get(currentPackageName).add(dotNodeIds.get(externalDependency));
                 }
             }
         }
@@ -145,7 +259,7 @@ public class DependenciesUtil {
             internalComponents = internalPackages.get(internalPackage);
             dotComponents = new HashSet<String>(internalComponents.size());
             for (String component : internalComponents) {
-                dotComponents.add(DependenciesUtil.getDotValidName(component));
+                dotComponents.add(DependenciesUtil.getDotNodeId(component, dotNodeIds, dotDescription));
             }
             internalDotPackages.put(internalPackage, dotComponents);
         }
@@ -165,23 +279,84 @@ public class DependenciesUtil {
         fileWriter = new FileWriter(dotFile, false);
         fileWriter.write(dotDescription.toString());
         fileWriter.close();
+    }
+
+    /**
+     * Render the specified dot file as a SVG image, using the Graphviz
+     * <em>dot</em> command. The dot file is deleted once the image is
+     * created. If the analysis run by the current thread is canceled, the dot
+     * process is destroyed.
+     * 
+     * @param dotFile
+     *            Dot File.
+     * @param imageFile
+     *            Image File.
+     * @throws CancellationException
+     *             If the analysis has been canceled.
+     */
+    public static void renderDotFile(final File dotFile, final File imageFile) {
+        int processCode;
+        Process process;
+        String dotCommand;
 
         // Execute dot command
         try {
             dotCommand = "dot -Tsvg " + dotFile.getAbsolutePath() + " -o " + imageFile.getAbsolutePath();
             process = Runtime.getRuntime().exec(dotCommand);
-            processCode = process.waitFor();
+            processCode = DependenciesUtil.waitForProcess(process);
             dotFile.delete();
 
             if (processCode != 0) {
                 throw new RuntimeException("An error ocurred while executing: " + dotCommand);
             }
 
+        } catch (CancellationException e) {
+            dotFile.delete();
+            throw e;
         } catch (Exception e) {
             logger.log(Level.WARNING, "Error creating image file: " + imageFile.getAbsolutePath(), e);
         }
     }
 
+    /**
+     * Wait for the specified process to finish, checking periodically whether
+     * the analysis run by the current thread has been canceled.
+     * 
+     * @param process
+     *            Running process.
+     * @return Process exit value.
+     * @throws CancellationException
+     *             If the analysis has been canceled, once the process has been
+     *             destroyed.
+     */
+    private static int waitForProcess(final Process process) {
+        int returnValue;
+        boolean finished;
+
+        returnValue = -1;
+        finished = false;
+        try {
+            while (!finished) {
+                try {
+                    returnValue = process.exitValue();
+                    finished = true;
+                } catch (IllegalThreadStateException e) {
+                    AnalysisMetrics.checkCanceled();
+                    Thread.sleep(DependenciesUtil.PROCESS_POLL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Rendering interrupted");
+        } finally {
+            if (!finished) {
+                process.destroy();
+            }
+        }
+
+        return returnValue;
+    }
+
     /**
      * Get a reference to a directory only if the specified path points to a
      * valid directory, that is, it exists, it's indeed a directory, and can be
@@ -430,6 +605,209 @@ public class DependenciesUtil {
         }
     }
 
+    /**
+     * Simplify the internal dependencies graph for its graphic export. The
+     * graph is condensed into its strongly connected components, the
+     * dependencies between components that are implied by other ones
+     * (transitive reduction) are left out, and the remaining dependencies
+     * between each pair of components are collapsed into a single weighted
+     * dependency between two of their classes. Dependencies between classes
+     * of the same component are kept as they are, so every class still
+     * reaches the same classes it originally did.
+     * 
+     * @param dependencies
+     *            Class dependencies.
+     * @return Map containing, for each class, its simplified internal
+     *         dependencies along with the number of dependencies they stand
+     *         for.
+     */
+    public static Map<String, Map<String, Integer>> getSimplifiedInternalDependencies(
+            final List<ClassDependencies> dependencies) {
+        int node;
+        int otherNode;
+        int depth;
+        int stackSize;
+        int nodeCount;
+        int[] lowLinks;
+        int[] indexes;
+        int[] component;
+        int[] componentEdge;
+        int[] callStack;
+        int[] edgeIndexes;
+        int indexCounter;
+        int[][] adjacency;
+        int componentCount;
+        boolean[] onStack;
+        Integer otherIndex;
+        int[] componentStack;
+        BitSet[] reachable;
+        List<String> nodeNames;
+        List<Integer> successors;
+        List<List<Integer>> edges;
+        Map<String, Integer> nodeIndexes;
+        Map<String, Map<String, Integer>> returnValue;
+        List<Map<Integer, int[]>> componentEdges;
+
+        // Index classes
+        nodeNames = new ArrayList<String>(dependencies.size());
+        nodeIndexes = new HashMap<String, Integer>(dependencies.size());
+        edges = new ArrayList<List<Integer>>(dependencies.size());
+        for (ClassDependencies dependency : dependencies) {
+            DependenciesUtil.getNodeIndex(dependency.getClassName(), nodeNames, nodeIndexes, edges);
+        }
+
+        for (ClassDependencies dependency : dependencies) {
+            if (dependency.getInternalDependencies() != null) {
+                node = nodeIndexes.get(dependency.getClassName());
+                for (String internalDependency : dependency.getInternalDependencies()) {
+                    otherIndex = DependenciesUtil.getNodeIndex(internalDependency, nodeNames, nodeIndexes, edges);
+                    if (!edges.get(node).contains(otherIndex)) {
+                        edges.get(node).add(otherIndex);
+                    }
+                }
+            }
+        }
+
+        nodeCount = nodeNames.size();
+        adjacency = new int[nodeCount][];
+        for (int i = 0; i < nodeCount; i++) {
+            adjacency[i] = new int[edges.get(i).size()];
+            for (int j = 0; j < adjacency[i].length; j++) {
+                adjacency[i][j] = edges.get(i).get(j);
+            }
+        }
+
+        // Strongly connected components (iterative Tarjan). Components are
+        // found in reverse topological order, so dependencies between
+        // components always go from a higher to a lower component number
+        indexCounter = 0;
+        componentCount = 0;
+        stackSize = 0;
+        indexes = new int[nodeCount];
+        lowLinks = new int[nodeCount];
+        component = new int[nodeCount];
+        onStack = new boolean[nodeCount];
+        componentStack = new int[nodeCount];
+        callStack = new int[nodeCount];
+        edgeIndexes = new int[nodeCount];
+        Arrays.fill(indexes, -1);
+        for (int start = 0; start < nodeCount; start++) {
+            if (indexes[start] != -1) {
+                continue;
+            }
+
+            depth = 0;
+            indexes[start] = lowLinks[start] = indexCounter++;
+            componentStack[stackSize++] = start;
+            onStack[start] = true;
+            callStack[depth] = start;
+            edgeIndexes[depth++] = 0;
+            while (depth > 0) {
+                node = callStack[depth - 1];
+                if (edgeIndexes[depth - 1] < adjacency[node].length) {
+                    otherNode = adjacency[node][edgeIndexes[depth - 1]++];
+                    if (indexes[otherNode] == -1) {
+                        indexes[otherNode] = lowLinks[otherNode] = indexCounter++;
+                        componentStack[stackSize++] = otherNode;
+                        onStack[otherNode] = true;
+                        callStack[depth] = otherNode;
+                        edgeIndexes[depth++] = 0;
+                    } else if (onStack[otherNode]) {
+                        lowLinks[node] = Math.min(lowLinks[node], indexes[otherNode]);
+                    }
+                } else {
+                    if (lowLinks[node] == indexes[node]) {
+                        do {
+                            otherNode = componentStack[--stackSize];
+                            onStack[otherNode] = false;
+                            component[otherNode] = componentCount;
+                        } while (otherNode != node);
+                        componentCount++;
+                    }
+
+                    depth--;
+                    if (depth > 0) {
+                        lowLinks[callStack[depth - 1]] = Math.min(lowLinks[callStack[depth - 1]], lowLinks[node]);
+                    }
+                }
+            }
+        }
+
+        // Condensed graph, keeping the first dependency found between each
+        // pair of components along with the number of dependencies between
+        // them: {count, from, to}
+        returnValue = new HashMap<String, Map<String, Integer>>(nodeCount);
+        componentEdges = new ArrayList<Map<Integer, int[]>>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            componentEdges.add(new HashMap<Integer, int[]>());
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            returnValue.put(nodeNames.get(i), new LinkedHashMap<String, Integer>());
+            for (int j : adjacency[i]) {
+                if (component[i] == component[j]) {
+                    // Dependencies within a component are kept
+                    returnValue.get(nodeNames.get(i)).put(nodeNames.get(j), 1);
+                } else if (componentEdges.get(component[i]).containsKey(component[j])) {
+                    componentEdges.get(component[i]).get(component[j])[0]++;
+                } else {
+                    componentEdges.get(component[i]).put(component[j], new int[] { 1, i, j });
+                }
+            }
+        }
+
+        // Transitive reduction, from the sink components upwards. A component
+        // dependency is redundant if the target was already reached through
+        // a closer dependency, in topological order. The reachable sets don't
+        // include the component itself, and grow as needed, so a component
+        // only takes as many bits as the highest component it reaches
+        reachable = new BitSet[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            reachable[i] = new BitSet();
+            successors = new ArrayList<Integer>(componentEdges.get(i).keySet());
+            Collections.sort(successors, Collections.reverseOrder());
+            for (int successor : successors) {
+                if (!reachable[i].get(successor)) {
+                    reachable[i].or(reachable[successor]);
+                    reachable[i].set(successor);
+                    componentEdge = componentEdges.get(i).get(successor);
+                    returnValue.get(nodeNames.get(componentEdge[1])).put(nodeNames.get(componentEdge[2]),
+                            componentEdge[0]);
+                }
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the index associated to a class in a dependencies graph, the class is
+     * added to the graph if it wasn't already part of it.
+     * 
+     * @param className
+     *            Class Name.
+     * @param nodeNames
+     *            Classes in the graph, by index.
+     * @param nodeIndexes
+     *            Classes indexes, by name.
+     * @param edges
+     *            Graph dependencies, by index.
+     * @return Class index.
+     */
+    private static Integer getNodeIndex(final String className, final List<String> nodeNames,
+            final Map<String, Integer> nodeIndexes, final List<List<Integer>> edges) {
+        Integer returnValue;
+
+        returnValue = nodeIndexes.get(className);
+        if (returnValue == null) {
+            returnValue = nodeNames.size();
+            nodeNames.add(className);
+            nodeIndexes.put(className, returnValue);
+            edges.add(new ArrayList<Integer>());
+        }
+
+        return returnValue;
+    }
+
     /**
      * Get a valid class name for a dot node.
      * 
@@ -442,7 +820,7 @@ public class DependenciesUtil {
         int classNameIndex;
 
         classNameIndex = -1;
-        if (className.indexOf('/') > 0) {
+        if (className.indexOf('/') >= 0) {
             classNameIndex = className.lastIndexOf("/");
         } else if (className.indexOf('.') > 0) {
             classNameIndex = className.lastIndexOf('.');
@@ -453,7 +831,43 @@ public class DependenciesUtil {
     }
 
     /**
-     * Get the project internal packages by analyzing the dependencies.
+     * Get the dot node identifier assigned to the specified class. Classes are
+     * given a short numeric identifier the first time they are referenced, at
+     * which point the node is declared in the dot description, labeled with
+     * its dot valid name.
+     * 
+     * @param className
+     *            Class Name.
+     * @param dotNodeIds
+     *            Identifiers assigned so far, by class name.
+     * @param dotDescription
+     *            dot Description.
+     * @return Node identifier.
+     */
+    private static String getDotNodeId(final String className, final Map<String, String> dotNodeIds,
+            final StringBuilder dotDescription) {
+        String returnValue;
+
+        returnValue = dotNodeIds.get(className);
+        if (returnValue == null) {
+            returnValue = Integer.toString(dotNodeIds.size());
+            dotNodeIds.put(className, returnValue);
+            dotDescription.append("\t" + returnValue + " [label=" + DependenciesUtil.getDotValidName(className)
+                    + "];\n");
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the project internal packages by analyzing the dependencies. Each
+     * package groups the components whose name starts with the package name.
+     * If one of them has a valid file type, the components found after it
+     * must also have a valid file type.
+     * <p>
+     * The names are read only once and sorted, so the components of each
+     * package are found in a single contiguous range instead of by comparing
+     * every package with every component.
      * 
      * @param dependencies
      *            Class Dependencies.
@@ -463,62 +877,148 @@ public class DependenciesUtil {
      */
     public static Map<String, Set<String>> getInternalPackages(final List<ClassDependencies> dependencies,
             final String[] validTypes) {
-        String otherPackageName;
-        boolean fileDependencies;
-        String currentPackageName;
+        int index;
+        int rangeEnd;
+        int rangeStart;
+        int memberCount;
+        int[] members;
+        int firstFile;
+        boolean[] fileTypes;
+        final String[] classNames;
+        Integer[] sortedClasses;
+        Set<String> packageNames;
         Set<String> currentPackage;
         Map<String, Set<String>> returnValue;
 
-        returnValue = new HashMap<String, Set<String>>();
-        for (ClassDependencies dependency : dependencies) {
-            fileDependencies = false;
-            currentPackageName = dependency.getPackageName();
-
-            if (!returnValue.containsKey(currentPackageName)) {
-                returnValue.put(currentPackageName, new HashSet<String>());
+        // Read the names only once, the dependencies may be backed by a store
+        classNames = new String[dependencies.size()];
+        fileTypes = new boolean[classNames.length];
+        packageNames = new LinkedHashSet<String>();
+        sortedClasses = new Integer[classNames.length];
+        for (int i = 0; i < classNames.length; i++) {
+            classNames[i] = dependencies.get(i).getClassName();
+            packageNames.add(dependencies.get(i).getPackageName());
+            sortedClasses[i] = i;
+            for (String validType : validTypes) {
+                if (classNames[i].endsWith(validType)) {
+                    fileTypes[i] = true;
+                    break;
+                }
             }
+        }
 
-            currentPackage = returnValue.get(currentPackageName);
-
-            for (ClassDependencies otherDependency : dependencies) {
-                if (otherDependency.getClassName().startsWith(currentPackageName)) {
-                    otherPackageName = otherDependency.getClassName().replace(currentPackageName, "");
-                    if (otherPackageName.lastIndexOf('/') <= 0) {
-                        // Check if the dependencies in this package contain
-                        // files with one of the valid file types
-                        for (String currentDependency : currentPackage) {
-                            for (String validType : validTypes) {
-                                if (currentDependency.endsWith(validType)) {
-                                    fileDependencies = true;
-                                    break;
-                                }
-                            }
-
-                            if (fileDependencies) {
-                                break;
-                            }
-                        }
+        // The names that start with a package name are contiguous once sorted
+        Arrays.sort(sortedClasses, new Comparator<Integer>() {
+            public int compare(final Integer first, final Integer second) {
+                return classNames[first].compareTo(classNames[second]);
+            }
+        });
 
-                        // If the dependencies contain valid file types, this
-                        // new dependency should also be a valid file type
-                        if (fileDependencies) {
-                            for (String validType : validTypes) {
-                                if (otherDependency.getClassName().endsWith(validType)) {
-                                    currentPackage.add(otherDependency.getClassName());
-                                    break;
-                                }
-                            }
-                        } else {
-                            currentPackage.add(otherDependency.getClassName());
-                        }
+        returnValue = new HashMap<String, Set<String>>();
+        members = new int[classNames.length];
+        for (String packageName : packageNames) {
+            rangeStart = DependenciesUtil.findFirstName(classNames, sortedClasses, packageName);
+            rangeEnd = rangeStart;
+            memberCount = 0;
+            firstFile = Integer.MAX_VALUE;
+            while ((rangeEnd < sortedClasses.length) && classNames[sortedClasses[rangeEnd]].startsWith(packageName)) {
+                index = sortedClasses[rangeEnd++];
+                if (DependenciesUtil.isPackageComponent(classNames[index], packageName)) {
+                    members[memberCount++] = index;
+                    if (fileTypes[index] && (index < firstFile)) {
+                        firstFile = index;
                     }
                 }
             }
+
+            // Components are added in the order they were found. Once a
+            // component with a valid file type is added, only components with
+            // a valid file type are added
+            Arrays.sort(members, 0, memberCount);
+            currentPackage = new HashSet<String>();
+            for (int i = 0; i < memberCount; i++) {
+                if ((members[i] <= firstFile) || fileTypes[members[i]]) {
+                    currentPackage.add(classNames[members[i]]);
+                }
+            }
+
+            returnValue.put(packageName, currentPackage);
         }
 
         return returnValue;
     }
 
+    /**
+     * Find the first position, in the sorted classes, of a name equal or
+     * greater than the specified prefix.
+     * 
+     * @param classNames
+     *            Class names.
+     * @param sortedClasses
+     *            Indexes of the class names, sorted by name.
+     * @param prefix
+     *            Name prefix.
+     * @return Position in the sorted classes, their length if all the names
+     *         are smaller than the prefix.
+     */
+    private static int findFirstName(final String[] classNames, final Integer[] sortedClasses, final String prefix) {
+        int low;
+        int high;
+        int middle;
+
+        low = 0;
+        high = sortedClasses.length;
+        while (low < high) {
+            middle = (low + high) >>> 1;
+            if (classNames[sortedClasses[middle]].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Check if a component whose name starts with the specified package name
+     * belongs to that package. Components without a path always do, paths
+     * only if there's no other directory left once the package name is
+     * removed.
+     * 
+     * @param className
+     *            Component name.
+     * @param packageName
+     *            Package name.
+     * @return <em>true</em> if the component belongs to the package,
+     *         <em>false</em> otherwise.
+     */
+    private static boolean isPackageComponent(final String className, final String packageName) {
+        return (className.indexOf('/') < 0) || (className.replace(packageName, "").lastIndexOf('/') <= 0);
+    }
+
+    /**
+     * Prepare the dependencies of a web application to be classified. The
+     * <em>WEB-INF.classes</em> prefix is removed from the class and package
+     * names, and the project internal packages are then identified, see
+     * {@link #getInternalPackages(List, String[])}.
+     * 
+     * @param dependencies
+     *            Class Dependencies, modified in place.
+     * @param validTypes
+     *            Valid file types.
+     * @return Project packages with components that belong to that package.
+     */
+    public static Map<String, Set<String>> groupWebDependencies(final List<ClassDependencies> dependencies,
+            final String[] validTypes) {
+        for (ClassDependencies dependency : dependencies) {
+            dependency.setClassName(dependency.getClassName().replace("WEB-INF.classes.", ""));
+            dependency.setPackageName(dependency.getPackageName().replace("WEB-INF.classes.", ""));
+        }
+
+        return DependenciesUtil.getInternalPackages(dependencies, validTypes);
+    }
+
     /**
      * Sort cluster keys by their packages size.
      * 
@@ -23,6 +23,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Set;
@@ -32,10 +33,17 @@ import java.util.jar.JarInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+
 import org.objectweb.asm.ClassReader;
 
 /**
- * Recover Classes dependencies.
+ * Recover Classes dependencies. The names found by the scans are interned in a
+ * {@link SymbolTable}, so the dependencies of their classes share a single
+ * copy of each name. A WAR file scan shares its table with the scans of its
+ * embedded JAR files, and callers that run several scans, possibly from many
+ * threads, can pass the same table to all of them. Scans that don't get a
+ * table create their own, that's garbage collected along with their results.
  * 
  * @author jccastrejon
  * 
@@ -56,6 +64,26 @@ public class DependencyAnalyzer {
      */
     public static List<ClassDependencies> getDirectoryDependencies(final String path,
             final DependencyCommand... dependencyCommands) throws IOException {
+        return DependencyAnalyzer.getDirectoryDependencies(path, new SymbolTable(), dependencyCommands);
+    }
+
+    /**
+     * Recover the dependencies from each Java class within the specified
+     * directory, interning the names found in the specified table.
+     * 
+     * @param path
+     *            Directory path.
+     * @param names
+     *            Table where the names found in the directory are interned,
+     *            may be shared with other scans.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the directory.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static List<ClassDependencies> getDirectoryDependencies(final String path, final SymbolTable names,
+            final DependencyCommand... dependencyCommands) throws IOException {
         File directory;
         String[] validTypes;
         boolean extraFileType;
@@ -67,6 +95,7 @@ public class DependencyAnalyzer {
         returnValue = new ArrayList<ClassDependencies>();
         directory = DependenciesUtil.getDirectory(path);
         internalClasses = DependenciesUtil.getClassesInDirectory(directory, directory, dependencyCommands);
+        AnalysisMetrics.addEntriesDiscovered(internalClasses.size());
 
         // Get classes dependencies
         for (String className : internalClasses) {
@@ -93,16 +122,127 @@ public class DependencyAnalyzer {
             if (!extraFileType) {
                 classInputStream = new FileInputStream(DependenciesUtil.getPathFromClassName(className,
                         directory.getAbsolutePath()));
-                returnValue.add(DependencyAnalyzer.getClassSortedDependencies(className, classInputStream,
-                        internalClasses, path));
+                try {
+                    returnValue.add(DependencyAnalyzer.getClassSortedDependencies(className, classInputStream,
+                            internalClasses, path, names));
+                } finally {
+                    classInputStream.close();
+                }
             } else {
                 returnValue.add(new ClassDependencies(className, null, null));
             }
+            AnalysisMetrics.addEntryAnalyzed(className);
         }
 
         return returnValue;
     }
 
+    /**
+     * Recover the dependencies from each Java class within the specified
+     * directory, writing them into the specified off-heap store instead of
+     * keeping them in memory. The directory is walked twice: first to
+     * register the project classes, and then to analyze each one of them.
+     * 
+     * @param path
+     *            Directory path.
+     * @param store
+     *            Store where to write the dependencies.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void getDirectoryDependencies(final String path, final DependencyStore store,
+            final DependencyCommand... dependencyCommands) throws IOException {
+        File directory;
+        List<String> extraFileTypes;
+        DependencyFileFilter fileFilter;
+
+        // Add the valid file types for the specified dependency commands.
+        extraFileTypes = new ArrayList<String>();
+        if (dependencyCommands != null) {
+            for (DependencyCommand dependencyCommand : dependencyCommands) {
+                extraFileTypes.addAll(Arrays.asList(dependencyCommand.getValidFileTypes()));
+            }
+        }
+
+        directory = DependenciesUtil.getDirectory(path);
+        fileFilter = new DependencyFileFilter(extraFileTypes);
+        DependencyAnalyzer.storeDirectoryDependencies(directory, directory, fileFilter, store, false);
+        DependencyAnalyzer.storeDirectoryDependencies(directory, directory, fileFilter, store, true);
+    }
+
+    /**
+     * Walk the specified directory, either registering its classes as
+     * internal to the project, or storing their dependencies.
+     * 
+     * @param directory
+     *            Current directory.
+     * @param rootDirectory
+     *            Root directory where the analysis started.
+     * @param fileFilter
+     *            Filter of the files to analyze.
+     * @param store
+     *            Store where to write the dependencies.
+     * @param analyze
+     *            Should the dependencies be stored (true) or the classes only
+     *            registered (false).
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private static void storeDirectoryDependencies(final File directory, final File rootDirectory,
+            final DependencyFileFilter fileFilter, final DependencyStore store, final boolean analyze)
+            throws IOException {
+        String className;
+        Set<String> dependencies;
+        InputStream classInputStream;
+        List<String> internalDependencies;
+        List<String> externalDependencies;
+
+        for (File currentFile : directory.listFiles(fileFilter)) {
+            if (currentFile.isDirectory()) {
+                DependencyAnalyzer.storeDirectoryDependencies(currentFile, rootDirectory, fileFilter, store, analyze);
+                continue;
+            }
+
+            className = DependenciesUtil.getClassNameFromPath(currentFile.getAbsolutePath(),
+                    rootDirectory.getAbsolutePath());
+            if (!analyze) {
+                store.markInternal(className);
+                AnalysisMetrics.addEntriesDiscovered(1);
+                continue;
+            }
+
+            if (!currentFile.getName().endsWith(".class")) {
+                store.addClass(className, null, null);
+            } else {
+                classInputStream = new FileInputStream(currentFile);
+                try {
+                    dependencies = DependencyAnalyzer.getClassUnsortedDependencies(classInputStream);
+                } finally {
+                    classInputStream.close();
+                }
+
+                // Separate internal - external dependencies
+                internalDependencies = new ArrayList<String>();
+                externalDependencies = new ArrayList<String>();
+                for (String dependency : dependencies) {
+                    if (DependenciesUtil.isValidDependency(className, dependency)) {
+                        if (store.isInternal(dependency)) {
+                            internalDependencies.add(dependency);
+                        } else {
+                            externalDependencies.add(dependency);
+                        }
+                    }
+                }
+
+                AnalysisMetrics.addEdgesFound(internalDependencies.size() + externalDependencies.size());
+                store.addClass(className, internalDependencies, externalDependencies);
+            }
+            AnalysisMetrics.addEntryAnalyzed(className);
+        }
+    }
+
     /**
      * Recover the dependencies from each Java class within the specified WAR
      * file, along with the classes in JAR files that belong to the same
@@ -118,7 +258,56 @@ public class DependencyAnalyzer {
      */
     public static List<ClassDependencies> getWarDependencies(final String file,
             final DependencyCommand... dependencyCommands) throws IOException {
+        return DependencyAnalyzer.getWarDependencies(file, null, dependencyCommands);
+    }
+
+    /**
+     * Recover the dependencies from each Java class within the specified WAR
+     * file, along with the classes in JAR files that belong to the same
+     * project. The dependencies of the JAR files are taken from the specified
+     * cache if they were already recovered, from this or another WAR file.
+     * 
+     * @param file
+     *            Path to the JAR file.
+     * @param jarCache
+     *            Cache of the dependencies of the embedded JAR files, may be
+     *            null.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the JAR file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static List<ClassDependencies> getWarDependencies(final String file, final JarDependencyCache jarCache,
+            final DependencyCommand... dependencyCommands) throws IOException {
+        return DependencyAnalyzer.getWarDependencies(file, jarCache, new SymbolTable(), dependencyCommands);
+    }
+
+    /**
+     * Recover the dependencies from each Java class within the specified WAR
+     * file, along with the classes in JAR files that belong to the same
+     * project, interning the names found in the specified table. The
+     * dependencies of the JAR files are taken from the specified cache if they
+     * were already recovered, from this or another WAR file.
+     * 
+     * @param file
+     *            Path to the JAR file.
+     * @param jarCache
+     *            Cache of the dependencies of the embedded JAR files, may be
+     *            null.
+     * @param names
+     *            Table where the names found in the WAR file and its JAR files
+     *            are interned, may be shared with other scans.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the JAR file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static List<ClassDependencies> getWarDependencies(final String file, final JarDependencyCache jarCache,
+            final SymbolTable names, final DependencyCommand... dependencyCommands) throws IOException {
         File warFile;
+        String jarPath;
         String warName;
         ZipFile zipFile;
         ZipEntry zipEntry;
@@ -126,25 +315,34 @@ public class DependencyAnalyzer {
         Enumeration<? extends ZipEntry> zipEntries;
 
         // .class files in the WAR file
-        returnValue = DependencyAnalyzer.getJarDependencies(file, dependencyCommands);
+        returnValue = DependencyAnalyzer.getJarDependencies(file, names, dependencyCommands);
 
         // JAR files that belong to the same project
         warFile = new File(file);
         zipFile = new ZipFile(file);
-        zipEntries = zipFile.entries();
-        warName = DependenciesUtil.getWarFamilyNameFromPath(file);
-        while (zipEntries.hasMoreElements()) {
-            zipEntry = zipEntries.nextElement();
-
-            if ((!zipEntry.isDirectory()) && zipEntry.getName().endsWith(".jar")) {
-                // Consider only JAR files that have a similar name than that of
-                // the WAR file
-                if (zipEntry.getName().toLowerCase().contains(warName)) {
-                    returnValue.addAll(DependencyAnalyzer.getJarDependencies(
-                            warFile.getAbsolutePath() + "/" + zipEntry.getName(), zipFile.getInputStream(zipEntry),
-                            dependencyCommands));
+        try {
+            zipEntries = zipFile.entries();
+            warName = DependenciesUtil.getWarFamilyNameFromPath(file);
+            while (zipEntries.hasMoreElements()) {
+                zipEntry = zipEntries.nextElement();
+
+                if ((!zipEntry.isDirectory()) && zipEntry.getName().endsWith(".jar")) {
+                    // Consider only JAR files that have a similar name than that
+                    // of the WAR file
+                    if (zipEntry.getName().toLowerCase().contains(warName)) {
+                        jarPath = warFile.getAbsolutePath() + "/" + zipEntry.getName();
+                        if (jarCache != null) {
+                            returnValue.addAll(jarCache.getJarDependencies(jarPath, zipFile.getInputStream(zipEntry),
+                                    names, dependencyCommands));
+                        } else {
+                            returnValue.addAll(DependencyAnalyzer.getJarDependencies(jarPath,
+                                    zipFile.getInputStream(zipEntry), names, dependencyCommands));
+                        }
+                    }
                 }
             }
+        } finally {
+            zipFile.close();
         }
 
         return returnValue;
@@ -164,25 +362,54 @@ public class DependencyAnalyzer {
      */
     public static List<ClassDependencies> getJarDependencies(final String file,
             final DependencyCommand... dependencyCommands) throws IOException {
+        return DependencyAnalyzer.getJarDependencies(file, new SymbolTable(), dependencyCommands);
+    }
+
+    /**
+     * Recover the dependencies from each Java class within the specified JAR
+     * file, interning the names found in the specified table.
+     * 
+     * @param file
+     *            Path to the JAR file.
+     * @param names
+     *            Table where the names found in the JAR file are interned,
+     *            may be shared with other scans.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the JAR file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static List<ClassDependencies> getJarDependencies(final String file, final SymbolTable names,
+            final DependencyCommand... dependencyCommands) throws IOException {
         File fileRef;
         JarFile jarFile;
         JarEntry jarEntry;
+        Object[] contexts;
         List<String> internalClasses;
         List<ClassDependencies> returnValue;
         Enumeration<? extends JarEntry> jarEntries;
 
+        contexts = AnalysisMetrics.startArchive(file);
         fileRef = new File(file);
         jarFile = new JarFile(fileRef);
         internalClasses = new ArrayList<String>();
         returnValue = new ArrayList<ClassDependencies>();
 
         // Dependencies for each class file
-        jarEntries = jarFile.entries();
-        while (jarEntries.hasMoreElements()) {
-            jarEntry = jarEntries.nextElement();
-            DependencyAnalyzer.analyzeJarEntry(jarEntry, internalClasses, fileRef, jarFile.getInputStream(jarEntry),
-                    returnValue, dependencyCommands);
+        try {
+            AnalysisMetrics.addEntriesDiscovered(jarFile.size());
+            jarEntries = jarFile.entries();
+            while (jarEntries.hasMoreElements()) {
+                jarEntry = jarEntries.nextElement();
+                DependencyAnalyzer.analyzeJarEntry(jarEntry, internalClasses, fileRef,
+                        jarFile.getInputStream(jarEntry), returnValue, names, dependencyCommands);
+                AnalysisMetrics.addEntryAnalyzed(jarEntry.getName());
+            }
+        } finally {
+            jarFile.close();
         }
+        AnalysisMetrics.endArchive(contexts, returnValue.size());
 
         return returnValue;
     }
@@ -203,12 +430,37 @@ public class DependencyAnalyzer {
      */
     public static List<ClassDependencies> getJarDependencies(final String file, final InputStream inputStream,
             final DependencyCommand... dependencyCommands) throws IOException {
+        return DependencyAnalyzer.getJarDependencies(file, inputStream, new SymbolTable(), dependencyCommands);
+    }
+
+    /**
+     * Recover the dependencies from each Java class within the specified JAR
+     * file, interning the names found in the specified table. The specified
+     * Input Stream is used to read the file contents.
+     * 
+     * @param file
+     *            Path to the JAR file.
+     * @param inputStream
+     *            Input Stream to the JAR file.
+     * @param names
+     *            Table where the names found in the JAR file are interned,
+     *            may be shared with other scans.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the JAR file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static List<ClassDependencies> getJarDependencies(final String file, final InputStream inputStream,
+            final SymbolTable names, final DependencyCommand... dependencyCommands) throws IOException {
         File fileRef;
         JarEntry jarEntry;
+        Object[] contexts;
         List<String> internalClasses;
         JarInputStream jarInputStream;
         List<ClassDependencies> returnValue;
 
+        contexts = AnalysisMetrics.startArchive(file);
         fileRef = new File(file);
         internalClasses = new ArrayList<String>();
         returnValue = new ArrayList<ClassDependencies>();
@@ -217,10 +469,14 @@ public class DependencyAnalyzer {
         jarInputStream = new JarInputStream(inputStream);
         jarEntry = jarInputStream.getNextJarEntry();
         while (jarEntry != null) {
+            // The number of entries isn't known in advance
+            AnalysisMetrics.addEntriesDiscovered(1);
             DependencyAnalyzer.analyzeJarEntry(jarEntry, internalClasses, fileRef, jarInputStream, returnValue,
-                    dependencyCommands);
+                    names, dependencyCommands);
+            AnalysisMetrics.addEntryAnalyzed(jarEntry.getName());
             jarEntry = jarInputStream.getNextJarEntry();
         }
+        AnalysisMetrics.endArchive(contexts, returnValue.size());
 
         return returnValue;
     }
@@ -240,6 +496,8 @@ public class DependencyAnalyzer {
      *            Input Stream to the JAR file.
      * @param classesDependencies
      *            List of the classes dependencies found so far in the JAR file.
+     * @param names
+     *            Table where the names found in the JAR file are interned.
      * @param dependencyCommands
      *            DependencyCommands to be executed during the analysis.
      * @throws IOException
@@ -247,7 +505,7 @@ public class DependencyAnalyzer {
      */
     private static void analyzeJarEntry(final JarEntry jarEntry, final List<String> internalClasses,
             final File fileRef, final InputStream inputStream, final List<ClassDependencies> classesDependencies,
-            final DependencyCommand... dependencyCommands) throws IOException {
+            final SymbolTable names, final DependencyCommand... dependencyCommands) throws IOException {
         String className;
         ClassDependencies dependencies;
 
@@ -262,7 +520,7 @@ public class DependencyAnalyzer {
                 className = DependenciesUtil.getClassNameFromPath(fileRef.getParent() + "/" + jarEntry.getName(),
                         fileRef.getParent());
                 dependencies = DependencyAnalyzer.getClassSortedDependencies(className, inputStream, internalClasses,
-                        fileRef.getParent());
+                        fileRef.getParent(), names);
                 classesDependencies.add(dependencies);
             }
 
@@ -302,13 +560,35 @@ public class DependencyAnalyzer {
      *             If an I/O error has occurred.
      */
     public static Set<String> getClassUnsortedDependencies(final InputStream fileStream) throws IOException {
+        return DependencyAnalyzer.getClassUnsortedDependencies(fileStream, null);
+    }
+
+    /**
+     * Recover the dependencies for the specified Class with no special grouping
+     * criteria, interning their names in the specified table.
+     * 
+     * @param fileStream
+     *            IputStream to the required class file.
+     * @param names
+     *            Table where the dependencies names are interned, may be null.
+     * @return Unsorted Class' dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static Set<String> getClassUnsortedDependencies(final InputStream fileStream, final SymbolTable names)
+            throws IOException {
+        Object[] contexts;
         Set<String> returnValue;
+        ClassReader classReader;
         DependencyVisitor dependencyVisitor;
 
         // Recover all dependencies
-        dependencyVisitor = new DependencyVisitor();
-        new ClassReader(fileStream).accept(dependencyVisitor, ClassReader.SKIP_DEBUG);
+        contexts = AnalysisMetrics.startClass();
+        dependencyVisitor = new DependencyVisitor(names);
+        classReader = new ClassReader(fileStream);
+        classReader.accept(dependencyVisitor, ClassReader.SKIP_DEBUG);
         returnValue = dependencyVisitor.getDependencies();
+        AnalysisMetrics.endClass(contexts, classReader.getClassName(), classReader.b.length);
 
         return returnValue;
     }
@@ -360,13 +640,39 @@ public class DependencyAnalyzer {
      */
     public static ClassDependencies getClassSortedDependencies(final String className, final InputStream fileStream,
             final List<String> internalClasses, final String rootPath) throws IOException {
+        return DependencyAnalyzer.getClassSortedDependencies(className, fileStream, internalClasses, rootPath, null);
+    }
+
+    /**
+     * Recover the dependencies for the specified Class, grouped by
+     * <em>internal</em> (Same Project) and <em>external</em> (Libraries)
+     * dependencies, interning the class and dependencies names in the
+     * specified table.
+     * 
+     * @param className
+     *            Class name.
+     * @param fileStream
+     *            IputStream to the required class file.
+     * @param internalClasses
+     *            List of classes that belong to the same project as the class
+     *            being analyzed.
+     * @param rootPath
+     *            Root Path that contains the project classes.
+     * @param names
+     *            Table where the names are interned, may be null.
+     * @return Class' dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static ClassDependencies getClassSortedDependencies(final String className, final InputStream fileStream,
+            final List<String> internalClasses, final String rootPath, final SymbolTable names) throws IOException {
         Set<String> dependencies;
         boolean isInternalDependency;
         List<String> internalDependencies;
         List<String> externalDependencies;
 
         // Recover all dependencies
-        dependencies = DependencyAnalyzer.getClassUnsortedDependencies(fileStream);
+        dependencies = DependencyAnalyzer.getClassUnsortedDependencies(fileStream, names);
 
         // Separate internal - external dependencies
         internalDependencies = new ArrayList<String>();
@@ -393,6 +699,8 @@ public class DependencyAnalyzer {
             }
         }
 
-        return new ClassDependencies(className, internalDependencies, externalDependencies);
+        AnalysisMetrics.addEdgesFound(internalDependencies.size() + externalDependencies.size());
+        return new ClassDependencies((names != null) ? names.intern(className) : className, internalDependencies,
+                externalDependencies);
     }
 }
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mx.itesm.web2mexadl.util.FeatureExtractor;
+import mx.itesm.web2mexadl.util.Util;
+
+/**
+ * Binary snapshot of the dependencies recovered from a project, so they can be
+ * classified several times without analyzing the project again. The snapshot
+ * is made of a string table, holding every class and package name once, and
+ * int arrays referencing it:
+ * 
+ * <pre>
+ * int    MAGIC, VERSION
+ * int    stringCount, classCount, featureCount, variablesHash, internalCount, externalCount
+ * String table:  stringCount x {int length, UTF-8 bytes}
+ * int[classCount]             class names
+ * int[classCount]             package names
+ * byte[classCount]            flags (internal/external dependencies present)
+ * byte[classCount * features] classification variables values
+ * int[classCount + 1]         internal dependencies offsets
+ * int[internalCount]          internal dependencies
+ * int[classCount + 1]         external dependencies offsets
+ * int[externalCount]          external dependencies
+ * </pre>
+ * 
+ * The classification variables values are only read back if they were
+ * extracted with the same variables properties of the reader, see
+ * {@link FeatureExtractor#getVariablesHash()}; otherwise they're extracted
+ * again when needed.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class DependencySnapshot {
+
+    /**
+     * Snapshot file signature: 'W2MS'.
+     */
+    public static final int MAGIC = 0x57324D53;
+
+    /**
+     * Current snapshot format version.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Flag set when the class has an internal dependencies list.
+     */
+    private static final byte INTERNAL_FLAG = 0x01;
+
+    /**
+     * Flag set when the class has an external dependencies list.
+     */
+    private static final byte EXTERNAL_FLAG = 0x02;
+
+    /**
+     * Write the specified dependencies to a snapshot file. The classification
+     * variables values of each class are extracted if they weren't already.
+     * 
+     * @param dependencies
+     *            Class dependencies.
+     * @param snapshotFile
+     *            Snapshot File.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void write(final List<ClassDependencies> dependencies, final File snapshotFile)
+            throws IOException {
+        byte flags;
+        int featureCount;
+        int internalCount;
+        int externalCount;
+        byte[] stringBytes;
+        List<String> strings;
+        DataOutputStream output;
+        Map<String, Integer> stringIds;
+        FeatureExtractor featureExtractor;
+
+        // String table
+        strings = new ArrayList<String>(dependencies.size() * 2);
+        stringIds = new HashMap<String, Integer>(dependencies.size() * 2);
+        internalCount = externalCount = 0;
+        for (ClassDependencies dependency : dependencies) {
+            DependencySnapshot.getStringId(dependency.getClassName(), strings, stringIds);
+            DependencySnapshot.getStringId(dependency.getPackageName(), strings, stringIds);
+
+            if (dependency.getInternalDependencies() != null) {
+                internalCount += dependency.getInternalDependencies().size();
+                for (String internalDependency : dependency.getInternalDependencies()) {
+                    DependencySnapshot.getStringId(internalDependency, strings, stringIds);
+                }
+            }
+
+            if (dependency.getExternalDependencies() != null) {
+                externalCount += dependency.getExternalDependencies().size();
+                for (String externalDependency : dependency.getExternalDependencies()) {
+                    DependencySnapshot.getStringId(externalDependency, strings, stringIds);
+                }
+            }
+        }
+
+        featureCount = Util.Variable.values().length;
+        featureExtractor = new FeatureExtractor();
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotFile, false), 65536));
+        try {
+            output.writeInt(DependencySnapshot.MAGIC);
+            output.writeInt(DependencySnapshot.VERSION);
+            output.writeInt(strings.size());
+            output.writeInt(dependencies.size());
+            output.writeInt(featureCount);
+            output.writeInt(featureExtractor.getVariablesHash());
+            output.writeInt(internalCount);
+            output.writeInt(externalCount);
+
+            for (String string : strings) {
+                stringBytes = string.getBytes("UTF-8");
+                output.writeInt(stringBytes.length);
+                output.write(stringBytes);
+            }
+
+            for (ClassDependencies dependency : dependencies) {
+                output.writeInt(stringIds.get(dependency.getClassName()));
+            }
+
+            for (ClassDependencies dependency : dependencies) {
+                output.writeInt(stringIds.get(dependency.getPackageName()));
+            }
+
+            for (ClassDependencies dependency : dependencies) {
+                flags = 0;
+                if (dependency.getInternalDependencies() != null) {
+                    flags |= DependencySnapshot.INTERNAL_FLAG;
+                }
+                if (dependency.getExternalDependencies() != null) {
+                    flags |= DependencySnapshot.EXTERNAL_FLAG;
+                }
+                output.writeByte(flags);
+            }
+
+            for (ClassDependencies dependency : dependencies) {
+                output.write(featureExtractor.getFeatures(dependency));
+            }
+
+            DependencySnapshot.writeAdjacency(dependencies, true, stringIds, output);
+            DependencySnapshot.writeAdjacency(dependencies, false, stringIds, output);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Read the dependencies stored in a snapshot file, with the classification
+     * variables values extracted with the model's variables properties.
+     * 
+     * @param snapshotFile
+     *            Snapshot File.
+     * @return Class dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred, or the file is not a valid
+     *             snapshot.
+     * @see #read(File, FeatureExtractor)
+     */
+    public static List<ClassDependencies> read(final File snapshotFile) throws IOException {
+        return DependencySnapshot.read(snapshotFile, new FeatureExtractor());
+    }
+
+    /**
+     * Read the dependencies stored in a snapshot file. The file is memory
+     * mapped, and each name is decoded only once, so classes share the same
+     * String instances for their dependencies.
+     * 
+     * @param snapshotFile
+     *            Snapshot File.
+     * @param featureExtractor
+     *            Extractor that will classify the dependencies. The stored
+     *            classification variables values are only set if they were
+     *            extracted with the same variables of this extractor.
+     * @return Class dependencies.
+     * @throws IOException
+     *             If an I/O error has occurred, or the file is not a valid
+     *             snapshot.
+     */
+    public static List<ClassDependencies> read(final File snapshotFile, final FeatureExtractor featureExtractor)
+            throws IOException {
+        int length;
+        int variablesHash;
+        boolean validFeatures;
+        int classCount;
+        byte[] features;
+        String[] strings;
+        int[] classNames;
+        byte[] stringBytes;
+        int featureCount;
+        int[] packageNames;
+        IntBuffer intBuffer;
+        byte[] classesFlags;
+        FileChannel channel;
+        int[] internalOffsets;
+        int[] externalOffsets;
+        int[] internalTargets;
+        int[] externalTargets;
+        MappedByteBuffer buffer;
+        RandomAccessFile file;
+        ClassDependencies dependency;
+        List<ClassDependencies> returnValue;
+
+        file = new RandomAccessFile(snapshotFile, "r");
+        try {
+            channel = file.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if ((buffer.remaining() < 8) || (buffer.getInt() != DependencySnapshot.MAGIC)) {
+                throw new IOException("Not a dependencies snapshot: " + snapshotFile.getAbsolutePath());
+            }
+            if (buffer.getInt() != DependencySnapshot.VERSION) {
+                throw new IOException("Unsupported snapshot version: " + snapshotFile.getAbsolutePath());
+            }
+
+            strings = new String[buffer.getInt()];
+            classCount = buffer.getInt();
+            featureCount = buffer.getInt();
+            variablesHash = buffer.getInt();
+            internalTargets = new int[buffer.getInt()];
+            externalTargets = new int[buffer.getInt()];
+            validFeatures = (featureCount == Util.Variable.values().length)
+                    && (variablesHash == featureExtractor.getVariablesHash());
+
+            // String table
+            stringBytes = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                length = buffer.getInt();
+                if (stringBytes.length < length) {
+                    stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+                }
+                buffer.get(stringBytes, 0, length);
+                strings[i] = new String(stringBytes, 0, length, "UTF-8");
+            }
+
+            // Classes
+            classNames = new int[classCount];
+            packageNames = new int[classCount];
+            classesFlags = new byte[classCount];
+            internalOffsets = new int[classCount + 1];
+            externalOffsets = new int[classCount + 1];
+
+            intBuffer = DependencySnapshot.getIntBuffer(buffer, classCount);
+            intBuffer.get(classNames);
+            intBuffer = DependencySnapshot.getIntBuffer(buffer, classCount);
+            intBuffer.get(packageNames);
+            buffer.get(classesFlags);
+            features = new byte[classCount * featureCount];
+            buffer.get(features);
+            DependencySnapshot.getIntBuffer(buffer, classCount + 1).get(internalOffsets);
+            DependencySnapshot.getIntBuffer(buffer, internalTargets.length).get(internalTargets);
+            DependencySnapshot.getIntBuffer(buffer, classCount + 1).get(externalOffsets);
+            DependencySnapshot.getIntBuffer(buffer, externalTargets.length).get(externalTargets);
+
+            returnValue = new ArrayList<ClassDependencies>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                dependency = new ClassDependencies(strings[classNames[i]], DependencySnapshot.getNames(
+                        (classesFlags[i] & DependencySnapshot.INTERNAL_FLAG) != 0, internalOffsets[i],
+                        internalOffsets[i + 1], internalTargets, strings), DependencySnapshot.getNames(
+                        (classesFlags[i] & DependencySnapshot.EXTERNAL_FLAG) != 0, externalOffsets[i],
+                        externalOffsets[i + 1], externalTargets, strings));
+                dependency.setPackageName(strings[packageNames[i]]);
+                if (validFeatures) {
+                    dependency.setFeatures(Arrays.copyOfRange(features, i * featureCount, (i + 1) * featureCount),
+                            variablesHash);
+                }
+                returnValue.add(dependency);
+            }
+        } finally {
+            file.close();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Write either the internal or external dependencies of the specified
+     * classes as an offsets array followed by the referenced names.
+     * 
+     * @param dependencies
+     *            Class dependencies.
+     * @param internal
+     *            Write the internal (true) or external (false) dependencies.
+     * @param stringIds
+     *            String table identifiers.
+     * @param output
+     *            Snapshot output.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private static void writeAdjacency(final List<ClassDependencies> dependencies, final boolean internal,
+            final Map<String, Integer> stringIds, final DataOutputStream output) throws IOException {
+        int offset;
+        List<String> names;
+
+        offset = 0;
+        output.writeInt(offset);
+        for (ClassDependencies dependency : dependencies) {
+            names = internal ? dependency.getInternalDependencies() : dependency.getExternalDependencies();
+            if (names != null) {
+                offset += names.size();
+            }
+            output.writeInt(offset);
+        }
+
+        for (ClassDependencies dependency : dependencies) {
+            names = internal ? dependency.getInternalDependencies() : dependency.getExternalDependencies();
+            if (names != null) {
+                for (String name : names) {
+                    output.writeInt(stringIds.get(name));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a view of the next ints in the buffer, advancing its position.
+     * 
+     * @param buffer
+     *            Snapshot buffer.
+     * @param count
+     *            Number of ints.
+     * @return Int buffer.
+     */
+    private static IntBuffer getIntBuffer(final ByteBuffer buffer, final int count) {
+        IntBuffer returnValue;
+
+        returnValue = buffer.asIntBuffer();
+        returnValue.limit(count);
+        buffer.position(buffer.position() + (count * 4));
+
+        return returnValue;
+    }
+
+    /**
+     * Get the names referenced by an adjacency range.
+     * 
+     * @param present
+     *            Is the list present in the snapshot.
+     * @param start
+     *            First index in targets.
+     * @param end
+     *            Last index in targets (exclusive).
+     * @param targets
+     *            Adjacency targets.
+     * @param strings
+     *            String table.
+     * @return Names list, or <em>null</em> if the list wasn't present.
+     */
+    private static List<String> getNames(final boolean present, final int start, final int end, final int[] targets,
+            final String[] strings) {
+        List<String> returnValue;
+
+        returnValue = null;
+        if (present) {
+            returnValue = new ArrayList<String>(end - start);
+            for (int i = start; i < end; i++) {
+                returnValue.add(strings[targets[i]]);
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the string table identifier for the specified string, adding it to
+     * the table if it wasn't already part of it.
+     * 
+     * @param string
+     *            String.
+     * @param strings
+     *            String table.
+     * @param stringIds
+     *            String table identifiers.
+     * @return Identifier.
+     */
+    private static int getStringId(final String string, final List<String> strings,
+            final Map<String, Integer> stringIds) {
+        Integer returnValue;
+
+        returnValue = stringIds.get(string);
+        if (returnValue == null) {
+            returnValue = strings.size();
+            strings.add(string);
+            stringIds.put(string, returnValue);
+        }
+
+        return returnValue;
+    }
+}
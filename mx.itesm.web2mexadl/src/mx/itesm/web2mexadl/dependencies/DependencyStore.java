@@ -0,0 +1,835 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dependencies graph kept outside of the Java heap, for projects whose
+ * ClassDependencies would not fit in memory. The store is backed either by
+ * direct buffers or by a memory-mapped temporary file, and holds:
+ * <ul>
+ * <li>A dictionary with every class name, front coded in blocks of
+ * <em>BLOCK_SIZE</em> names, along with an open addressing hash table to find
+ * the identifier of a name.</li>
+ * <li>The adjacency list of each class: its internal and external dependencies
+ * as name identifiers.</li>
+ * </ul>
+ * The scanner writes into the store through
+ * {@link DependencyAnalyzer#getDirectoryDependencies(String, DependencyStore, DependencyCommand...)}
+ * and the analyzers read from it through {@link #asList()}, which creates
+ * each ClassDependencies only when it's requested. The store is not thread
+ * safe.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class DependencyStore implements Closeable {
+
+    /**
+     * Number of names in each front coded block.
+     */
+    private static final int BLOCK_SIZE = 16;
+
+    /**
+     * Size of each buffer chunk (4MB).
+     */
+    private static final int CHUNK_BITS = 22;
+
+    /**
+     * Initial capacity of the names hash table.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * Flag set for the names that belong to the project being analyzed.
+     */
+    private static final byte INTERNAL_FLAG = 0x01;
+
+    /**
+     * Backing file, <em>null</em> when using direct buffers.
+     */
+    private File file;
+
+    /**
+     * Backing file access.
+     */
+    private RandomAccessFile randomAccessFile;
+
+    /**
+     * Backing file channel.
+     */
+    private FileChannel channel;
+
+    /**
+     * Size mapped so far from the backing file.
+     */
+    private long mappedSize;
+
+    /**
+     * Front coded names.
+     */
+    private Area names;
+
+    /**
+     * Position of each names block in the names area (long per block).
+     */
+    private Area blockOffsets;
+
+    /**
+     * Hash code of each name (int per name).
+     */
+    private Area hashes;
+
+    /**
+     * Flags of each name (byte per name).
+     */
+    private Area flags;
+
+    /**
+     * Names hash table, holding name identifier + 1 (int per slot).
+     */
+    private Area table;
+
+    /**
+     * Adjacency lists, as consecutive ints: class name, internal dependencies
+     * count and identifiers, external dependencies count and identifiers. A
+     * count of -1 stands for a <em>null</em> list.
+     */
+    private Area records;
+
+    /**
+     * Position of each class record in the records area (long per class).
+     */
+    private Area recordOffsets;
+
+    /**
+     * Number of names in the dictionary.
+     */
+    private int nameCount;
+
+    /**
+     * Number of classes in the store.
+     */
+    private int classCount;
+
+    /**
+     * Current capacity of the names hash table.
+     */
+    private int tableCapacity;
+
+    /**
+     * Current size of the names area.
+     */
+    private long namesSize;
+
+    /**
+     * Current size of the records area.
+     */
+    private long recordsSize;
+
+    /**
+     * Last name added to the dictionary, used for front coding.
+     */
+    private byte[] lastName;
+
+    /**
+     * Reusable buffer to decode names.
+     */
+    private byte[] nameBuffer;
+
+    /**
+     * Current position while decoding names.
+     */
+    private long namesPosition;
+
+    /**
+     * Chunks released by the replaced hash tables, reused before allocating
+     * or mapping new ones.
+     */
+    private List<ByteBuffer> freeChunks;
+
+    /**
+     * Create a store backed by direct buffers.
+     */
+    public DependencyStore() {
+        this.initialize();
+    }
+
+    /**
+     * Create a store backed by a memory-mapped temporary file in the specified
+     * directory. The file is deleted when the store is closed.
+     * 
+     * @param directory
+     *            Directory for the temporary file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public DependencyStore(final File directory) throws IOException {
+        this.file = File.createTempFile("dependencies", ".store", directory);
+        this.file.deleteOnExit();
+        this.randomAccessFile = new RandomAccessFile(this.file, "rw");
+        this.channel = this.randomAccessFile.getChannel();
+        this.initialize();
+    }
+
+    /**
+     * Initialize the store areas.
+     */
+    private void initialize() {
+        this.names = new Area();
+        this.blockOffsets = new Area();
+        this.hashes = new Area();
+        this.flags = new Area();
+        this.records = new Area();
+        this.recordOffsets = new Area();
+        this.tableCapacity = DependencyStore.INITIAL_CAPACITY;
+        this.table = new Area();
+        this.lastName = new byte[0];
+        this.nameBuffer = new byte[256];
+        this.freeChunks = new ArrayList<ByteBuffer>();
+    }
+
+    /**
+     * Add a class and its dependencies to the store.
+     * 
+     * @param className
+     *            Class name.
+     * @param internalDependencies
+     *            Dependencies with internal classes, may be <em>null</em>.
+     * @param externalDependencies
+     *            Dependencies with external classes, may be <em>null</em>.
+     */
+    public void addClass(final String className, final List<String> internalDependencies,
+            final List<String> externalDependencies) {
+        this.recordOffsets.putLong(this.classCount * 8L, this.recordsSize);
+        this.classCount++;
+
+        this.appendRecord(this.getNameId(className));
+        this.appendNames(internalDependencies);
+        this.appendNames(externalDependencies);
+    }
+
+    /**
+     * Get the number of classes in the store.
+     * 
+     * @return Number of classes.
+     */
+    public int size() {
+        return this.classCount;
+    }
+
+    /**
+     * Get the dependencies of the class at the specified position. A new
+     * ClassDependencies instance is created on each call.
+     * 
+     * @param index
+     *            Class position, in the order the classes were added.
+     * @return Class dependencies.
+     */
+    public ClassDependencies getClassDependencies(final int index) {
+        long position;
+        String className;
+        List<String> internalDependencies;
+        List<String> externalDependencies;
+
+        if ((index < 0) || (index >= this.classCount)) {
+            throw new IndexOutOfBoundsException("Invalid class index: " + index);
+        }
+
+        position = this.recordOffsets.getLong(index * 8L);
+        className = this.getName(this.records.getInt(position));
+        position += 4;
+
+        internalDependencies = this.readNames(position);
+        position += 4 + (internalDependencies != null ? internalDependencies.size() * 4 : 0);
+        externalDependencies = this.readNames(position);
+
+        return new ClassDependencies(className, internalDependencies, externalDependencies);
+    }
+
+    /**
+     * Get a read-only list view of the classes in the store.
+     * 
+     * @return Classes dependencies.
+     */
+    public List<ClassDependencies> asList() {
+        return new AbstractList<ClassDependencies>() {
+            @Override
+            public ClassDependencies get(final int index) {
+                return DependencyStore.this.getClassDependencies(index);
+            }
+
+            @Override
+            public int size() {
+                return DependencyStore.this.classCount;
+            }
+        };
+    }
+
+    /**
+     * Mark the specified name as part of the project being analyzed.
+     * 
+     * @param name
+     *            Class name.
+     */
+    public void markInternal(final String name) {
+        int id;
+
+        id = this.getNameId(name);
+        this.flags.putByte(id, (byte) (this.flags.getByte(id) | DependencyStore.INTERNAL_FLAG));
+    }
+
+    /**
+     * Determine if the specified name was marked as part of the project being
+     * analyzed.
+     * 
+     * @param name
+     *            Class name.
+     * @return <em>true</em> if the name is internal, <em>false</em>
+     *         otherwise.
+     */
+    public boolean isInternal(final String name) {
+        int id;
+
+        id = this.findNameId(name);
+        return (id >= 0) && ((this.flags.getByte(id) & DependencyStore.INTERNAL_FLAG) != 0);
+    }
+
+    /**
+     * Get the identifier of the specified name, adding it to the dictionary if
+     * it wasn't already part of it.
+     * 
+     * @param name
+     *            Name.
+     * @return Name identifier.
+     */
+    public int getNameId(final String name) {
+        int slot;
+        int hash;
+        int returnValue;
+        byte[] nameBytes;
+
+        nameBytes = DependencyStore.getBytes(name);
+        hash = name.hashCode();
+        slot = this.findSlot(hash, nameBytes);
+        returnValue = this.table.getInt(slot * 4L) - 1;
+
+        if (returnValue < 0) {
+            returnValue = this.nameCount++;
+            this.appendName(returnValue, nameBytes);
+            this.hashes.putInt(returnValue * 4L, hash);
+            this.table.putInt(slot * 4L, returnValue + 1);
+
+            if (this.nameCount > (this.tableCapacity >> 1)) {
+                this.resizeTable();
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Find the identifier of the specified name.
+     * 
+     * @param name
+     *            Name.
+     * @return Name identifier, or -1 if the name is not part of the
+     *         dictionary.
+     */
+    public int findNameId(final String name) {
+        return this.table.getInt(this.findSlot(name.hashCode(), DependencyStore.getBytes(name)) * 4L) - 1;
+    }
+
+    /**
+     * Get the name associated to the specified identifier.
+     * 
+     * @param id
+     *            Name identifier.
+     * @return Name.
+     */
+    public String getName(final int id) {
+        int length;
+
+        length = this.decodeName(id);
+        try {
+            return new String(this.nameBuffer, 0, length, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Release the store buffers, and delete its backing file if any.
+     * 
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public void close() throws IOException {
+        this.names = this.blockOffsets = this.hashes = this.flags = this.table = null;
+        this.records = this.recordOffsets = null;
+        this.freeChunks = null;
+        this.classCount = this.nameCount = 0;
+
+        if (this.channel != null) {
+            this.channel.close();
+            this.randomAccessFile.close();
+            this.channel = null;
+
+            // Mapped buffers are released once they're garbage collected, so
+            // the file may still be in use here
+            if (!this.file.delete()) {
+                this.file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Find the hash table slot for a name, that is, the slot holding its
+     * identifier or the empty slot where it should be added.
+     * 
+     * @param hash
+     *            Name hash code.
+     * @param nameBytes
+     *            UTF-8 name.
+     * @return Slot index.
+     */
+    private int findSlot(final int hash, final byte[] nameBytes) {
+        int id;
+        int mask;
+        int returnValue;
+
+        mask = this.tableCapacity - 1;
+        returnValue = DependencyStore.mix(hash) & mask;
+        while (true) {
+            id = this.table.getInt(returnValue * 4L) - 1;
+            if ((id < 0) || ((this.hashes.getInt(id * 4L) == hash) && this.nameEquals(id, nameBytes))) {
+                break;
+            }
+            returnValue = (returnValue + 1) & mask;
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Double the capacity of the names hash table. The chunks of the previous
+     * table are released once the names are added to the new one, so the
+     * store doesn't keep growing with abandoned tables.
+     */
+    private void resizeTable() {
+        int slot;
+        int mask;
+        Area previousTable;
+
+        previousTable = this.table;
+        this.tableCapacity <<= 1;
+        this.table = new Area();
+        mask = this.tableCapacity - 1;
+        for (int id = 0; id < this.nameCount; id++) {
+            slot = DependencyStore.mix(this.hashes.getInt(id * 4L)) & mask;
+            while (this.table.getInt(slot * 4L) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table.putInt(slot * 4L, id + 1);
+        }
+
+        previousTable.release();
+    }
+
+    /**
+     * Append a name to the front coded dictionary. The first name of each
+     * block is stored in full, the remaining ones as the length of the prefix
+     * they share with the previous name plus their own suffix.
+     * 
+     * @param id
+     *            Name identifier.
+     * @param nameBytes
+     *            UTF-8 name.
+     */
+    private void appendName(final int id, final byte[] nameBytes) {
+        int prefix;
+
+        prefix = 0;
+        if ((id % DependencyStore.BLOCK_SIZE) == 0) {
+            this.blockOffsets.putLong((id / DependencyStore.BLOCK_SIZE) * 8L, this.namesSize);
+        } else {
+            while ((prefix < nameBytes.length) && (prefix < this.lastName.length)
+                    && (nameBytes[prefix] == this.lastName[prefix])) {
+                prefix++;
+            }
+            this.appendVarInt(prefix);
+        }
+
+        this.appendVarInt(nameBytes.length - prefix);
+        for (int i = prefix; i < nameBytes.length; i++) {
+            this.names.putByte(this.namesSize++, nameBytes[i]);
+        }
+
+        this.lastName = nameBytes;
+    }
+
+    /**
+     * Decode the specified name into the name buffer.
+     * 
+     * @param id
+     *            Name identifier.
+     * @return Length of the decoded name.
+     */
+    private int decodeName(final int id) {
+        int prefix;
+        int suffix;
+        int length;
+        byte[] buffer;
+
+        if ((id < 0) || (id >= this.nameCount)) {
+            throw new IndexOutOfBoundsException("Invalid name identifier: " + id);
+        }
+
+        length = 0;
+        this.namesPosition = this.blockOffsets.getLong((id / DependencyStore.BLOCK_SIZE) * 8L);
+        for (int i = 0; i <= (id % DependencyStore.BLOCK_SIZE); i++) {
+            prefix = (i == 0) ? 0 : this.readVarInt();
+            suffix = this.readVarInt();
+            length = prefix + suffix;
+
+            if (this.nameBuffer.length < length) {
+                buffer = new byte[Math.max(length, this.nameBuffer.length * 2)];
+                System.arraycopy(this.nameBuffer, 0, buffer, 0, prefix);
+                this.nameBuffer = buffer;
+            }
+
+            for (int j = prefix; j < length; j++) {
+                this.nameBuffer[j] = this.names.getByte(this.namesPosition++);
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Compare a stored name with the specified one.
+     * 
+     * @param id
+     *            Name identifier.
+     * @param nameBytes
+     *            UTF-8 name.
+     * @return <em>true</em> if both names are equal, <em>false</em>
+     *         otherwise.
+     */
+    private boolean nameEquals(final int id, final byte[] nameBytes) {
+        int length;
+
+        length = this.decodeName(id);
+        if (length != nameBytes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (this.nameBuffer[i] != nameBytes[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Append a names list to the records area.
+     * 
+     * @param namesList
+     *            Names, may be <em>null</em>.
+     */
+    private void appendNames(final List<String> namesList) {
+        if (namesList == null) {
+            this.appendRecord(-1);
+        } else {
+            this.appendRecord(namesList.size());
+            for (String name : namesList) {
+                this.appendRecord(this.getNameId(name));
+            }
+        }
+    }
+
+    /**
+     * Read a names list from the records area.
+     * 
+     * @param position
+     *            Position of the list count.
+     * @return Names, or <em>null</em> if the list wasn't present.
+     */
+    private List<String> readNames(final long position) {
+        int count;
+        List<String> returnValue;
+
+        returnValue = null;
+        count = this.records.getInt(position);
+        if (count >= 0) {
+            returnValue = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                returnValue.add(this.getName(this.records.getInt(position + 4 + (i * 4L))));
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Append an int to the records area.
+     * 
+     * @param value
+     *            Value.
+     */
+    private void appendRecord(final int value) {
+        this.records.putInt(this.recordsSize, value);
+        this.recordsSize += 4;
+    }
+
+    /**
+     * Append a variable length int to the names area.
+     * 
+     * @param value
+     *            Non negative value.
+     */
+    private void appendVarInt(final int value) {
+        int remaining;
+
+        remaining = value;
+        while (remaining > 0x7F) {
+            this.names.putByte(this.namesSize++, (byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        this.names.putByte(this.namesSize++, (byte) remaining);
+    }
+
+    /**
+     * Read a variable length int from the current position in the names area.
+     * 
+     * @return Value.
+     */
+    private int readVarInt() {
+        int shift;
+        byte current;
+        int returnValue;
+
+        shift = 0;
+        returnValue = 0;
+        do {
+            current = this.names.getByte(this.namesPosition++);
+            returnValue |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+
+        return returnValue;
+    }
+
+    /**
+     * Allocate a new buffer chunk. A released chunk is reused, cleared to
+     * zeros, if there's any; otherwise the chunk is either direct or mapped
+     * from the backing file.
+     * 
+     * @return Buffer chunk.
+     */
+    private ByteBuffer allocateChunk() {
+        ByteBuffer returnValue;
+
+        if (!this.freeChunks.isEmpty()) {
+            returnValue = this.freeChunks.remove(this.freeChunks.size() - 1);
+            for (int i = 0; i < returnValue.capacity(); i += 8) {
+                returnValue.putLong(i, 0L);
+            }
+        } else if (this.channel == null) {
+            returnValue = ByteBuffer.allocateDirect(1 << DependencyStore.CHUNK_BITS);
+        } else {
+            try {
+                returnValue = this.channel.map(FileChannel.MapMode.READ_WRITE, this.mappedSize,
+                        1 << DependencyStore.CHUNK_BITS);
+                this.mappedSize += 1 << DependencyStore.CHUNK_BITS;
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to map dependency store: " + this.file, e);
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the UTF-8 bytes of a name.
+     * 
+     * @param name
+     *            Name.
+     * @return UTF-8 bytes.
+     */
+    private static byte[] getBytes(final String name) {
+        try {
+            return name.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Spread the bits of a hash code, so consecutive codes don't end up in
+     * consecutive slots.
+     * 
+     * @param hash
+     *            Hash code.
+     * @return Mixed hash code.
+     */
+    private static int mix(final int hash) {
+        int returnValue;
+
+        returnValue = hash * 0x9E3779B9;
+        return returnValue ^ (returnValue >>> 16);
+    }
+
+    /**
+     * Growable off-heap memory area, addressed with long positions and made of
+     * fixed size chunks. Chunks are allocated when a position beyond the
+     * current size is first written, and read as zeros before that.
+     */
+    private class Area {
+
+        /**
+         * Area chunks.
+         */
+        private List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+        /**
+         * Release the chunks of this area, so they can be reused by other
+         * areas. The area must not be used afterwards.
+         */
+        private void release() {
+            DependencyStore.this.freeChunks.addAll(this.chunks);
+            this.chunks.clear();
+        }
+
+        /**
+         * Get the chunk holding the specified position.
+         * 
+         * @param position
+         *            Position.
+         * @param create
+         *            Should missing chunks be allocated.
+         * @return Chunk, or <em>null</em> if not allocated.
+         */
+        private ByteBuffer getChunk(final long position, final boolean create) {
+            int index;
+
+            index = (int) (position >>> DependencyStore.CHUNK_BITS);
+            if (index >= this.chunks.size()) {
+                if (!create) {
+                    return null;
+                }
+
+                while (index >= this.chunks.size()) {
+                    this.chunks.add(DependencyStore.this.allocateChunk());
+                }
+            }
+
+            return this.chunks.get(index);
+        }
+
+        /**
+         * Offset of a position in its chunk.
+         * 
+         * @param position
+         *            Position.
+         * @return Offset.
+         */
+        private int getOffset(final long position) {
+            return (int) (position & ((1 << DependencyStore.CHUNK_BITS) - 1));
+        }
+
+        /**
+         * @param position
+         *            Position.
+         * @return Byte at the position.
+         */
+        byte getByte(final long position) {
+            ByteBuffer chunk;
+
+            chunk = this.getChunk(position, false);
+            return (chunk == null) ? 0 : chunk.get(this.getOffset(position));
+        }
+
+        /**
+         * @param position
+         *            Position.
+         * @param value
+         *            Byte to write.
+         */
+        void putByte(final long position, final byte value) {
+            this.getChunk(position, true).put(this.getOffset(position), value);
+        }
+
+        /**
+         * @param position
+         *            Position, multiple of 4.
+         * @return Int at the position.
+         */
+        int getInt(final long position) {
+            ByteBuffer chunk;
+
+            chunk = this.getChunk(position, false);
+            return (chunk == null) ? 0 : chunk.getInt(this.getOffset(position));
+        }
+
+        /**
+         * @param position
+         *            Position, multiple of 4.
+         * @param value
+         *            Int to write.
+         */
+        void putInt(final long position, final int value) {
+            this.getChunk(position, true).putInt(this.getOffset(position), value);
+        }
+
+        /**
+         * @param position
+         *            Position, multiple of 8.
+         * @return Long at the position.
+         */
+        long getLong(final long position) {
+            ByteBuffer chunk;
+
+            chunk = this.getChunk(position, false);
+            return (chunk == null) ? 0 : chunk.getLong(this.getOffset(position));
+        }
+
+        /**
+         * @param position
+         *            Position, multiple of 8.
+         * @param value
+         *            Long to write.
+         */
+        void putLong(final long position, final long value) {
+            this.getChunk(position, true).putLong(this.getOffset(position), value);
+        }
+    }
+}
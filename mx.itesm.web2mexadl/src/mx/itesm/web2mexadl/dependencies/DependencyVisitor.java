@@ -30,6 +30,9 @@ import org.objectweb.asm.commons.EmptyVisitor;
 
 /**
  * A visitor to obtain the class' dependencies while visiting it's components.
+ * The dependencies names may be interned in the {@link SymbolTable} of the
+ * analysis, so the dependencies of all the analyzed classes share a single
+ * copy of each name.
  * 
  * @author jccastrejon
  * 
@@ -42,10 +45,28 @@ public class DependencyVisitor extends EmptyVisitor {
     private Set<String> dependencies;
 
     /**
-     * Default constructor.
+     * Table where the dependencies names are interned, null if they aren't
+     * interned.
+     */
+    private SymbolTable names;
+
+    /**
+     * Default constructor, the names aren't interned.
      */
     public DependencyVisitor() {
+        this(null);
+    }
+
+    /**
+     * Full constructor.
+     * 
+     * @param names
+     *            Table where the dependencies names are interned, may be
+     *            null.
+     */
+    public DependencyVisitor(final SymbolTable names) {
         this.dependencies = new HashSet<String>();
+        this.names = names;
     }
 
     /**
@@ -58,7 +79,11 @@ public class DependencyVisitor extends EmptyVisitor {
         // Don't add null or array dependencies
         if ((dependency != null) && (!dependency.startsWith("["))) {
             // Convert to standard package name
-            dependencies.add(dependency.replace('/', '.'));
+            if (this.names != null) {
+                dependencies.add(this.names.intern(dependency.replace('/', '.')));
+            } else {
+                dependencies.add(dependency.replace('/', '.'));
+            }
         }
     }
 
@@ -32,6 +32,8 @@ public interface ExportCommand {
      * 
      * @param classDependencies
      *            Class' Dependencies.
+     * @return Comma separated dot attributes to add to the class' node, or
+     *         <em>null</em> if the class is not valid for this command.
      */
     public String execute(final ClassDependencies classDependencies);
 
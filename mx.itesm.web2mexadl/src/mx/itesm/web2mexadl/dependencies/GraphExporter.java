@@ -0,0 +1,276 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+
+/**
+ * Exports the recovered dependencies graph, along with the classification of
+ * each class, to formats that can be loaded by external tools: GraphML and
+ * newline-delimited JSON. The documents are written incrementally while
+ * walking the dependencies, without building them in memory first.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class GraphExporter {
+
+    /**
+     * Export the Classes dependencies list to a GraphML document.
+     * 
+     * @param dependencies
+     *            Class dependencies.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param classifications
+     *            Classification of each class (Layer or Cluster), may be
+     *            <em>null</em>.
+     * @param outputFile
+     *            GraphML File.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void exportDependenciesToGraphML(final List<ClassDependencies> dependencies,
+            final boolean includeExternal, final Map<String, ?> classifications, final File outputFile)
+            throws IOException {
+        Writer writer;
+        Integer nodeId;
+        Map<String, Integer> nodeIds;
+
+        writer = GraphExporter.getWriter(outputFile);
+        nodeIds = new HashMap<String, Integer>(dependencies.size());
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+            writer.write("\t<key id=\"name\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>\n");
+            writer.write("\t<key id=\"package\" for=\"node\" attr.name=\"package\" attr.type=\"string\"/>\n");
+            writer.write("\t<key id=\"classification\" for=\"node\" attr.name=\"classification\" "
+                    + "attr.type=\"string\"/>\n");
+            writer.write("\t<key id=\"external\" for=\"node\" attr.name=\"external\" attr.type=\"boolean\">"
+                    + "<default>false</default></key>\n");
+            writer.write("\t<graph id=\"" + StringEscapeUtils.escapeXml(outputFile.getName())
+                    + "\" edgedefault=\"directed\">\n");
+
+            // Internal classes
+            for (ClassDependencies dependency : dependencies) {
+                if (!nodeIds.containsKey(dependency.getClassName())) {
+                    nodeId = nodeIds.size();
+                    nodeIds.put(dependency.getClassName(), nodeId);
+                    writer.write("\t\t<node id=\"n" + nodeId + "\"><data key=\"name\">"
+                            + StringEscapeUtils.escapeXml(dependency.getClassName())
+                            + "</data><data key=\"package\">"
+                            + StringEscapeUtils.escapeXml(dependency.getPackageName()) + "</data>");
+                    if ((classifications != null) && (classifications.get(dependency.getClassName()) != null)) {
+                        writer.write("<data key=\"classification\">"
+                                + StringEscapeUtils.escapeXml(classifications.get(dependency.getClassName())
+                                        .toString()) + "</data>");
+                    }
+                    writer.write("</node>\n");
+                }
+            }
+
+            // Dependencies, external classes are declared as they're found
+            for (ClassDependencies dependency : dependencies) {
+                nodeId = nodeIds.get(dependency.getClassName());
+
+                if (dependency.getInternalDependencies() != null) {
+                    for (String internalDependency : dependency.getInternalDependencies()) {
+                        writer.write("\t\t<edge source=\"n" + nodeId + "\" target=\"n"
+                                + GraphExporter.getGraphMLNodeId(internalDependency, false, nodeIds, writer)
+                                + "\"/>\n");
+                    }
+                }
+
+                if ((includeExternal) && (dependency.getExternalDependencies() != null)) {
+                    for (String externalDependency : dependency.getExternalDependencies()) {
+                        writer.write("\t\t<edge source=\"n" + nodeId + "\" target=\"n"
+                                + GraphExporter.getGraphMLNodeId(externalDependency, true, nodeIds, writer)
+                                + "\"/>\n");
+                    }
+                }
+            }
+
+            writer.write("\t</graph>\n");
+            writer.write("</graphml>\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Export the Classes dependencies list to a newline-delimited JSON
+     * document. Each line holds either a node:
+     * <code>{"type":"node","id":0,"name":"...","package":"...","classification":"..."}</code>
+     * or an edge: <code>{"type":"edge","source":0,"target":1,"external":false}</code>.
+     * Nodes are always written before the edges that reference them.
+     * 
+     * @param dependencies
+     *            Class dependencies.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param classifications
+     *            Classification of each class (Layer or Cluster), may be
+     *            <em>null</em>.
+     * @param outputFile
+     *            JSON File.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void exportDependenciesToJson(final List<ClassDependencies> dependencies,
+            final boolean includeExternal, final Map<String, ?> classifications, final File outputFile)
+            throws IOException {
+        Writer writer;
+        Integer nodeId;
+        Map<String, Integer> nodeIds;
+
+        writer = GraphExporter.getWriter(outputFile);
+        nodeIds = new HashMap<String, Integer>(dependencies.size());
+        try {
+            // Internal classes
+            for (ClassDependencies dependency : dependencies) {
+                if (!nodeIds.containsKey(dependency.getClassName())) {
+                    nodeId = nodeIds.size();
+                    nodeIds.put(dependency.getClassName(), nodeId);
+                    writer.write("{\"type\":\"node\",\"id\":" + nodeId + ",\"name\":\""
+                            + StringEscapeUtils.escapeJava(dependency.getClassName()) + "\",\"package\":\""
+                            + StringEscapeUtils.escapeJava(dependency.getPackageName()) + "\"");
+                    if ((classifications != null) && (classifications.get(dependency.getClassName()) != null)) {
+                        writer.write(",\"classification\":\""
+                                + StringEscapeUtils.escapeJava(classifications.get(dependency.getClassName())
+                                        .toString()) + "\"");
+                    }
+                    writer.write("}\n");
+                }
+            }
+
+            // Dependencies, external classes are declared as they're found
+            for (ClassDependencies dependency : dependencies) {
+                nodeId = nodeIds.get(dependency.getClassName());
+
+                if (dependency.getInternalDependencies() != null) {
+                    for (String internalDependency : dependency.getInternalDependencies()) {
+                        writer.write("{\"type\":\"edge\",\"source\":" + nodeId + ",\"target\":"
+                                + GraphExporter.getJsonNodeId(internalDependency, false, nodeIds, writer)
+                                + ",\"external\":false}\n");
+                    }
+                }
+
+                if ((includeExternal) && (dependency.getExternalDependencies() != null)) {
+                    for (String externalDependency : dependency.getExternalDependencies()) {
+                        writer.write("{\"type\":\"edge\",\"source\":" + nodeId + ",\"target\":"
+                                + GraphExporter.getJsonNodeId(externalDependency, true, nodeIds, writer)
+                                + ",\"external\":true}\n");
+                    }
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Get the GraphML node identifier assigned to the specified class, the
+     * node is written to the document the first time the class is found.
+     * 
+     * @param className
+     *            Class Name.
+     * @param external
+     *            Is this an external class.
+     * @param nodeIds
+     *            Identifiers assigned so far, by class name.
+     * @param writer
+     *            Document writer.
+     * @return Node identifier.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private static Integer getGraphMLNodeId(final String className, final boolean external,
+            final Map<String, Integer> nodeIds, final Writer writer) throws IOException {
+        Integer returnValue;
+
+        returnValue = nodeIds.get(className);
+        if (returnValue == null) {
+            returnValue = nodeIds.size();
+            nodeIds.put(className, returnValue);
+            writer.write("\t\t<node id=\"n" + returnValue + "\"><data key=\"name\">"
+                    + StringEscapeUtils.escapeXml(className) + "</data>"
+                    + (external ? "<data key=\"external\">true</data>" : "") + "</node>\n");
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the JSON node identifier assigned to the specified class, the node
+     * is written to the document the first time the class is found.
+     * 
+     * @param className
+     *            Class Name.
+     * @param external
+     *            Is this an external class.
+     * @param nodeIds
+     *            Identifiers assigned so far, by class name.
+     * @param writer
+     *            Document writer.
+     * @return Node identifier.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private static Integer getJsonNodeId(final String className, final boolean external,
+            final Map<String, Integer> nodeIds, final Writer writer) throws IOException {
+        Integer returnValue;
+
+        returnValue = nodeIds.get(className);
+        if (returnValue == null) {
+            returnValue = nodeIds.size();
+            nodeIds.put(className, returnValue);
+            writer.write("{\"type\":\"node\",\"id\":" + returnValue + ",\"name\":\""
+                    + StringEscapeUtils.escapeJava(className) + "\",\"external\":" + external + "}\n");
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get a buffered UTF-8 writer to the specified file.
+     * 
+     * @param outputFile
+     *            Output File.
+     * @return File writer.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private static Writer getWriter(final File outputFile) throws IOException {
+        if (outputFile == null) {
+            throw new IllegalArgumentException("Invalid output file: " + outputFile);
+        }
+
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile, false), "UTF-8"), 65536);
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Cache of the dependencies recovered from the JAR files embedded in WAR
+ * files, indexed by the SHA-1 hash of the JAR contents. When several WAR files
+ * of a portfolio embed the same JAR file, it's only analyzed once, even if the
+ * WAR files are analyzed concurrently, and the rest of the analyses get a copy
+ * of its dependencies.
+ * <p>
+ * If a cache directory is specified, the dependencies of each JAR file are
+ * also written there as a {@link DependencySnapshot}, so they can be reused
+ * across runs, and they're only kept in memory while they're being recovered;
+ * the next analyses read them from the snapshot, so the memory used by the
+ * cache doesn't grow with the number of JAR files. The classification
+ * variables values are never reused, since they depend on the current
+ * configuration.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class JarDependencyCache {
+
+    /**
+     * Class logger.
+     */
+    private static Logger logger = Logger.getLogger(JarDependencyCache.class.getName());
+
+    /**
+     * Extension of the snapshot files in the cache directory.
+     */
+    private static final String SNAPSHOT_EXTENSION = ".w2ms";
+
+    /**
+     * Version of the recovered dependencies, part of the key of each JAR file.
+     * It must be increased whenever the dependencies recovered from the same
+     * classes change, so the snapshots of previous versions aren't reused.
+     */
+    private static final int DEPENDENCIES_VERSION = 1;
+
+    /**
+     * Directory where the snapshot of each JAR file is written, null if the
+     * cache is only kept in memory.
+     */
+    private File cacheDirectory;
+
+    /**
+     * Dependencies of each JAR file, indexed by its key. The dependencies are
+     * recovered by the first analysis that requests them, the rest wait for
+     * the result. With a cache directory, the entries are removed once their
+     * snapshot is written.
+     */
+    private ConcurrentMap<String, FutureTask<List<ClassDependencies>>> entries;
+
+    /**
+     * Number of JAR files whose dependencies were taken from the cache.
+     */
+    private AtomicLong hits;
+
+    /**
+     * Number of JAR files that had to be analyzed.
+     */
+    private AtomicLong misses;
+
+    /**
+     * Constructor of a cache kept only in memory.
+     */
+    public JarDependencyCache() {
+        this(null);
+    }
+
+    /**
+     * Full constructor.
+     * 
+     * @param cacheDirectory
+     *            Directory where the snapshot of each JAR file is written, may
+     *            be null if the cache is only kept in memory.
+     */
+    public JarDependencyCache(final File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        this.entries = new ConcurrentHashMap<String, FutureTask<List<ClassDependencies>>>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Recover the dependencies from each Java class within the specified JAR
+     * file, analyzing it only if its contents aren't already cached. See
+     * {@link DependencyAnalyzer#getJarDependencies(String, InputStream, DependencyCommand...)}
+     * .
+     * 
+     * @param file
+     *            Path to the JAR file.
+     * @param inputStream
+     *            Input Stream to the JAR file.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the JAR file, owned by the
+     *         caller.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public List<ClassDependencies> getJarDependencies(final String file, final InputStream inputStream,
+            final DependencyCommand... dependencyCommands) throws IOException {
+        return this.getJarDependencies(file, inputStream, new SymbolTable(), dependencyCommands);
+    }
+
+    /**
+     * Recover the dependencies from each Java class within the specified JAR
+     * file, analyzing it only if its contents aren't already cached, and
+     * interning the names of the returned dependencies in the specified
+     * table. See
+     * {@link DependencyAnalyzer#getJarDependencies(String, InputStream, SymbolTable, DependencyCommand...)}
+     * .
+     * 
+     * @param file
+     *            Path to the JAR file.
+     * @param inputStream
+     *            Input Stream to the JAR file.
+     * @param names
+     *            Table where the names of the dependencies are interned, may
+     *            be shared with other scans.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the JAR file, owned by the
+     *         caller.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public List<ClassDependencies> getJarDependencies(final String file, final InputStream inputStream,
+            final SymbolTable names, final DependencyCommand... dependencyCommands) throws IOException {
+        final String key;
+        final byte[] contents;
+        FutureTask<List<ClassDependencies>> task;
+        FutureTask<List<ClassDependencies>> cachedTask;
+        List<ClassDependencies> returnValue;
+
+        contents = IOUtils.toByteArray(inputStream);
+        key = JarDependencyCache.getKey(contents, dependencyCommands);
+
+        returnValue = null;
+        while (returnValue == null) {
+            task = new FutureTask<List<ClassDependencies>>(new Callable<List<ClassDependencies>>() {
+                @Override
+                public List<ClassDependencies> call() throws Exception {
+                    return JarDependencyCache.this.loadJarDependencies(key, file, contents, names,
+                            dependencyCommands);
+                }
+            });
+
+            cachedTask = this.entries.putIfAbsent(key, task);
+            if (cachedTask == null) {
+                cachedTask = task;
+                task.run();
+            } else {
+                this.hits.incrementAndGet();
+            }
+
+            try {
+                returnValue = JarDependencyCache.copyDependencies(cachedTask.get(), names);
+
+                // The analyses waiting for the task already hold it, the next
+                // ones read the snapshot
+                if ((cachedTask == task) && (this.cacheDirectory != null)
+                        && new File(this.cacheDirectory, key + JarDependencyCache.SNAPSHOT_EXTENSION).isFile()) {
+                    this.entries.remove(key, task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the analysis of " + file);
+            } catch (ExecutionException e) {
+                this.entries.remove(key, cachedTask);
+
+                // Another analysis was canceled while analyzing this file
+                if ((cachedTask != task) && (e.getCause() instanceof CancellationException)) {
+                    continue;
+                }
+
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the number of JAR files whose dependencies were taken from the
+     * cache, either from memory or from the cache directory.
+     * 
+     * @return Cache hits.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Get the number of JAR files that had to be analyzed.
+     * 
+     * @return Cache misses.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Remove the dependencies kept in memory. The snapshots in the cache
+     * directory are kept.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Load the dependencies of the specified JAR file from the cache
+     * directory, or analyze it if there's no valid snapshot.
+     * 
+     * @param key
+     *            JAR file key.
+     * @param file
+     *            Path to the JAR file.
+     * @param contents
+     *            JAR file contents.
+     * @param names
+     *            Table where the names found in the JAR file are interned.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Dependencies for each class within the JAR file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private List<ClassDependencies> loadJarDependencies(final String key, final String file, final byte[] contents,
+            final SymbolTable names, final DependencyCommand... dependencyCommands) throws IOException {
+        File snapshotFile;
+        List<ClassDependencies> returnValue;
+
+        returnValue = null;
+        snapshotFile = null;
+        if (this.cacheDirectory != null) {
+            snapshotFile = new File(this.cacheDirectory, key + JarDependencyCache.SNAPSHOT_EXTENSION);
+            if (snapshotFile.isFile()) {
+                try {
+                    returnValue = DependencySnapshot.read(snapshotFile);
+                    this.hits.incrementAndGet();
+                } catch (IOException e) {
+                    JarDependencyCache.logger.log(Level.WARNING, "Ignoring invalid cache file: " + snapshotFile, e);
+                }
+            }
+        }
+
+        if (returnValue == null) {
+            this.misses.incrementAndGet();
+            returnValue = DependencyAnalyzer.getJarDependencies(file, new ByteArrayInputStream(contents), names,
+                    dependencyCommands);
+            if (snapshotFile != null) {
+                this.writeSnapshot(returnValue, snapshotFile);
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Write the dependencies of a JAR file to the cache directory. The
+     * snapshot is written to a temporary file first, so other processes
+     * sharing the directory never read an incomplete snapshot. Errors are only
+     * logged, since the cache directory is optional.
+     * 
+     * @param dependencies
+     *            Dependencies for each class within the JAR file.
+     * @param snapshotFile
+     *            Snapshot file.
+     */
+    private void writeSnapshot(final List<ClassDependencies> dependencies, final File snapshotFile) {
+        File temporaryFile;
+
+        temporaryFile = null;
+        try {
+            FileUtils.forceMkdir(this.cacheDirectory);
+            temporaryFile = File.createTempFile(snapshotFile.getName(), ".tmp", this.cacheDirectory);
+            DependencySnapshot.write(dependencies, temporaryFile);
+            if (!temporaryFile.renameTo(snapshotFile)) {
+                FileUtils.deleteQuietly(temporaryFile);
+            }
+        } catch (IOException e) {
+            JarDependencyCache.logger.log(Level.WARNING, "Error writing cache file: " + snapshotFile, e);
+            FileUtils.deleteQuietly(temporaryFile);
+        }
+    }
+
+    /**
+     * Get the key of the specified JAR file contents, made of the SHA-1 hash of
+     * the dependencies version and snapshot format, the contents and the
+     * dependency commands, since they also determine the recovered
+     * dependencies.
+     * 
+     * @param contents
+     *            JAR file contents.
+     * @param dependencyCommands
+     *            DependencyCommands to be executed during the analysis.
+     * @return Hexadecimal key.
+     */
+    private static String getKey(final byte[] contents, final DependencyCommand... dependencyCommands) {
+        byte[] hash;
+        MessageDigest digest;
+        StringBuilder returnValue;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform must support SHA-1
+            throw new IllegalStateException(e);
+        }
+
+        try {
+            digest.update(("web2mexadl-" + JarDependencyCache.DEPENDENCIES_VERSION + "-"
+                    + DependencySnapshot.VERSION).getBytes("UTF-8"));
+            digest.update(contents);
+            for (DependencyCommand dependencyCommand : dependencyCommands) {
+                digest.update(dependencyCommand.getClass().getName().getBytes("UTF-8"));
+            }
+        } catch (UnsupportedEncodingException e) {
+            // Every Java platform must support UTF-8
+            throw new IllegalStateException(e);
+        }
+
+        hash = digest.digest();
+        returnValue = new StringBuilder(hash.length * 2);
+        for (byte value : hash) {
+            returnValue.append(Character.forDigit((value >> 4) & 0x0f, 16));
+            returnValue.append(Character.forDigit(value & 0x0f, 16));
+        }
+
+        return returnValue.toString();
+    }
+
+    /**
+     * Copy the specified cached dependencies, so the analyses can modify them.
+     * The names of the copy are interned in the specified table, since the
+     * cached dependencies may have been recovered by another analysis, or
+     * read from a snapshot.
+     * 
+     * @param dependencies
+     *            Cached dependencies.
+     * @param names
+     *            Table where the names of the copy are interned.
+     * @return Dependencies copy, without classification variables values.
+     */
+    private static List<ClassDependencies> copyDependencies(final List<ClassDependencies> dependencies,
+            final SymbolTable names) {
+        ClassDependencies copy;
+        List<ClassDependencies> returnValue;
+
+        returnValue = new ArrayList<ClassDependencies>(dependencies.size());
+        for (ClassDependencies dependency : dependencies) {
+            copy = new ClassDependencies(names.intern(dependency.getClassName()), JarDependencyCache.copyNames(
+                    dependency.getInternalDependencies(), names), JarDependencyCache.copyNames(
+                    dependency.getExternalDependencies(), names));
+            copy.setPackageName(names.intern(dependency.getPackageName()));
+            returnValue.add(copy);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Copy the specified dependencies names, interning them in the specified
+     * table.
+     * 
+     * @param dependencyNames
+     *            Dependencies names, may be null.
+     * @param names
+     *            Table where the names are interned.
+     * @return Names copy, null if the names are null.
+     */
+    private static List<String> copyNames(final List<String> dependencyNames, final SymbolTable names) {
+        List<String> returnValue;
+
+        returnValue = null;
+        if (dependencyNames != null) {
+            returnValue = new ArrayList<String>(dependencyNames.size());
+            for (String dependencyName : dependencyNames) {
+                returnValue.add(names.intern(dependencyName));
+            }
+        }
+
+        return returnValue;
+    }
+}
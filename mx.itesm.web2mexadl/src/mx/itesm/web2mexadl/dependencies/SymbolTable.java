@@ -0,0 +1,245 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table of names shared by the threads of an analysis, that maps each name to
+ * a compact int identifier. Identifiers are assigned consecutively, starting
+ * at 0, in the order the names are first requested. Each name is stored only
+ * once, so the analysis can keep int identifiers, or the canonical instance
+ * returned by <em>intern</em>, instead of their own copies of the names.
+ * <p>
+ * The table is thread safe and meant to be shared by many parser threads.
+ * Looking up a name that's already in the table doesn't lock. Adding a name
+ * locks only one of several stripes, chosen by the name's hash code, so
+ * threads adding different names rarely wait for each other. Names are never
+ * removed, so each analysis creates its own table, that's garbage collected
+ * along with the analysis.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class SymbolTable {
+
+    /**
+     * Number of locks used to add names.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Log2 of the number of names in each chunk of the names storage.
+     */
+    private static final int CHUNK_BITS = 12;
+
+    /**
+     * Number of names in each chunk of the names storage.
+     */
+    private static final int CHUNK_SIZE = 1 << SymbolTable.CHUNK_BITS;
+
+    /**
+     * Identifier of each name.
+     */
+    private ConcurrentMap<String, Integer> ids;
+
+    /**
+     * Names, stored in fixed size chunks indexed by their identifier. The
+     * chunks are never moved, only the array that references them is replaced
+     * when it's full.
+     */
+    private volatile AtomicReferenceArray<String>[] chunks;
+
+    /**
+     * Next identifier to assign.
+     */
+    private AtomicInteger nextId;
+
+    /**
+     * Locks used to add names, a name is added while holding the lock of its
+     * stripe.
+     */
+    private Object[] locks;
+
+    /**
+     * Default constructor.
+     */
+    public SymbolTable() {
+        this.ids = new ConcurrentHashMap<String, Integer>(SymbolTable.CHUNK_SIZE, 0.75f, SymbolTable.STRIPES);
+        this.chunks = SymbolTable.createChunks(16);
+        this.nextId = new AtomicInteger();
+        this.locks = new Object[SymbolTable.STRIPES];
+        for (int i = 0; i < this.locks.length; i++) {
+            this.locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Get the identifier of the specified name, adding it to the table if
+     * it's not already there.
+     * 
+     * @param name
+     *            Name.
+     * @return Name identifier.
+     */
+    public int getNameId(final String name) {
+        int hash;
+        Integer returnValue;
+
+        returnValue = this.ids.get(name);
+        if (returnValue == null) {
+            hash = name.hashCode();
+            synchronized (this.locks[(hash ^ (hash >>> 16)) & (SymbolTable.STRIPES - 1)]) {
+                // Another thread may have added it while waiting for the lock
+                returnValue = this.ids.get(name);
+                if (returnValue == null) {
+                    returnValue = this.nextId.getAndIncrement();
+                    this.getChunk(returnValue, true).set(returnValue & (SymbolTable.CHUNK_SIZE - 1), name);
+
+                    // Publish the identifier only once the name is stored
+                    this.ids.put(name, returnValue);
+                }
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Find the identifier of the specified name, without adding it to the
+     * table.
+     * 
+     * @param name
+     *            Name.
+     * @return Name identifier, -1 if the name isn't in the table.
+     */
+    public int findNameId(final String name) {
+        Integer returnValue;
+
+        returnValue = this.ids.get(name);
+        return (returnValue != null) ? returnValue : -1;
+    }
+
+    /**
+     * Get the canonical instance of the specified name, adding it to the
+     * table if it's not already there. Equal names always get the same
+     * instance, so keeping the canonical instance instead of the specified
+     * one lets the duplicated copies be garbage collected.
+     * 
+     * @param name
+     *            Name, may be null.
+     * @return Canonical instance of the name, null if the name is null.
+     */
+    public String intern(final String name) {
+        if (name == null) {
+            return null;
+        }
+
+        return this.getName(this.getNameId(name));
+    }
+
+    /**
+     * Get the name with the specified identifier.
+     * 
+     * @param id
+     *            Name identifier, as returned by this table.
+     * @return Name.
+     */
+    public String getName(final int id) {
+        return this.getChunk(id, false).get(id & (SymbolTable.CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Get the number of names in the table. Names that are being added by
+     * other threads are already counted.
+     * 
+     * @return Names count.
+     */
+    public int size() {
+        return this.nextId.get();
+    }
+
+    /**
+     * Get the chunk where the name with the specified identifier is stored.
+     * 
+     * @param id
+     *            Name identifier.
+     * @param create
+     *            Should the chunk be created if it doesn't exist yet.
+     * @return Names chunk.
+     */
+    private AtomicReferenceArray<String> getChunk(final int id, final boolean create) {
+        int chunkIndex;
+        AtomicReferenceArray<String>[] currentChunks;
+        AtomicReferenceArray<String> returnValue;
+
+        chunkIndex = id >>> SymbolTable.CHUNK_BITS;
+        currentChunks = this.chunks;
+        returnValue = (chunkIndex < currentChunks.length) ? currentChunks[chunkIndex] : null;
+        if ((returnValue == null) && create) {
+            returnValue = this.addChunk(chunkIndex);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Add the chunk with the specified index, growing the chunks array if
+     * needed. The chunks array is only replaced, never modified in place once
+     * readers can see it, except to set chunks that didn't exist.
+     * 
+     * @param chunkIndex
+     *            Chunk index.
+     * @return Names chunk.
+     */
+    private synchronized AtomicReferenceArray<String> addChunk(final int chunkIndex) {
+        AtomicReferenceArray<String>[] newChunks;
+
+        if (chunkIndex >= this.chunks.length) {
+            newChunks = SymbolTable.createChunks(Math.max(this.chunks.length * 2, chunkIndex + 1));
+            System.arraycopy(this.chunks, 0, newChunks, 0, this.chunks.length);
+        } else {
+            newChunks = this.chunks;
+        }
+
+        if (newChunks[chunkIndex] == null) {
+            newChunks[chunkIndex] = new AtomicReferenceArray<String>(SymbolTable.CHUNK_SIZE);
+        }
+
+        // Volatile write, publishes the new chunk
+        this.chunks = newChunks;
+        return newChunks[chunkIndex];
+    }
+
+    /**
+     * Create an empty chunks array. Generic arrays can't be created directly,
+     * so this is the only place where the raw type is used.
+     * 
+     * @param length
+     *            Array length.
+     * @return Chunks array.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static AtomicReferenceArray<String>[] createChunks(final int length) {
+        return new AtomicReferenceArray[length];
+    }
+}
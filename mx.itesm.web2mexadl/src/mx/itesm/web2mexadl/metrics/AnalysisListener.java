@@ -0,0 +1,125 @@
+/*
+ * Copyright 2011 jccastrejon
+ *
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.metrics;
+
+/**
+ * Listener of the analysis hot paths, notified when each step starts and
+ * finishes, in the thread that runs it. The listeners are found with
+ * {@link java.util.ServiceLoader} when {@link AnalysisMetrics} is loaded, or
+ * registered with {@link AnalysisMetrics#addListener(AnalysisListener)}.
+ * <p>
+ * The object returned when a step starts is handed back to the listener when
+ * the step finishes, so that the listener can keep its own timing state. The
+ * phases of an analysis aren't nested, so they're notified without context.
+ *
+ * @author jccastrejon
+ *
+ */
+public interface AnalysisListener {
+
+    /**
+     * An analysis phase has started.
+     *
+     * @param phase
+     *            Analysis phase.
+     */
+    void phaseStarted(AnalysisPhase phase);
+
+    /**
+     * An analysis phase has finished.
+     *
+     * @param phase
+     *            Analysis phase.
+     */
+    void phaseFinished(AnalysisPhase phase);
+
+    /**
+     * The analysis of a JAR or WAR file has started.
+     *
+     * @param path
+     *            Path to the archive.
+     * @return Archive context.
+     */
+    Object archiveStarted(String path);
+
+    /**
+     * The analysis of a JAR or WAR file has finished.
+     *
+     * @param context
+     *            Archive context.
+     * @param entriesCount
+     *            Number of classes and resources found in the archive.
+     */
+    void archiveFinished(Object context, int entriesCount);
+
+    /**
+     * The parsing of a class file has started.
+     *
+     * @return Class context.
+     */
+    Object classStarted();
+
+    /**
+     * The parsing of a class file has finished.
+     *
+     * @param context
+     *            Class context.
+     * @param className
+     *            Internal name of the parsed class.
+     * @param bytes
+     *            Size of the class file.
+     */
+    void classFinished(Object context, String className, int bytes);
+
+    /**
+     * The MVC classification of a group of classes has started.
+     *
+     * @return Classification context.
+     */
+    Object classificationStarted();
+
+    /**
+     * The MVC classification of a group of classes has finished.
+     *
+     * @param context
+     *            Classification context.
+     * @param classesCount
+     *            Number of classified classes.
+     */
+    void classificationFinished(Object context, int classesCount);
+
+    /**
+     * The clustering of a group of classes has started.
+     *
+     * @return Clustering context.
+     */
+    Object clusteringStarted();
+
+    /**
+     * The clustering of a group of classes has finished.
+     *
+     * @param context
+     *            Clustering context.
+     * @param classesCount
+     *            Number of clustered classes.
+     * @param clustersCount
+     *            Number of generated clusters.
+     */
+    void clusteringFinished(Object context, int classesCount, int clustersCount);
+}
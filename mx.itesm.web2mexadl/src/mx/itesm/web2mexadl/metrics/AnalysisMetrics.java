@@ -0,0 +1,716 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and phase timers of the architecture analyses. The values of all
+ * the analyses run in the JVM are published as an MBean, under
+ * {@link #OBJECT_NAME}, and the values of each analysis are kept in an
+ * {@link AnalysisSummary}, available to the thread that ran it once the
+ * analysis finishes. The start and end of each step are also notified to the
+ * registered {@link AnalysisListener}s, and the progress of each analysis to
+ * its own {@link AnalysisMonitor}, if any.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class AnalysisMetrics implements AnalysisMetricsMBean {
+
+    /**
+     * Class logger.
+     */
+    private static Logger logger = Logger.getLogger(AnalysisMetrics.class.getName());
+
+    /**
+     * Name under which the metrics are registered in the platform MBean
+     * server.
+     */
+    public static final String OBJECT_NAME = "mx.itesm.web2mexadl:type=AnalysisMetrics";
+
+    /**
+     * Metrics of all the analyses.
+     */
+    private static AnalysisMetrics instance = new AnalysisMetrics();
+
+    /**
+     * Summary of the analysis currently run by each thread.
+     */
+    private static ThreadLocal<AnalysisSummary> currentSummary = new ThreadLocal<AnalysisSummary>();
+
+    /**
+     * Summary of the last analysis finished by each thread.
+     */
+    private static ThreadLocal<AnalysisSummary> lastSummary = new ThreadLocal<AnalysisSummary>();
+
+    /**
+     * Registered listeners, replaced as a whole when a listener is added or
+     * removed.
+     */
+    private static volatile AnalysisListener[] listeners = new AnalysisListener[0];
+
+    /**
+     * Number of finished analyses.
+     */
+    private AtomicLong analysesCount;
+
+    /**
+     * Number of analyses currently running.
+     */
+    private AtomicLong activeAnalyses;
+
+    /**
+     * Number of class files scanned.
+     */
+    private AtomicLong classesScanned;
+
+    /**
+     * Number of bytes read from the class files.
+     */
+    private AtomicLong bytesRead;
+
+    /**
+     * Number of valid dependencies found.
+     */
+    private AtomicLong edgesFound;
+
+    /**
+     * Number of classes with a relation not allowed by the architecture.
+     */
+    private AtomicLong violations;
+
+    /**
+     * Time spent in each phase, in nanoseconds, indexed by the phase ordinal.
+     */
+    private AtomicLongArray phaseTimes;
+
+    /**
+     * Duration of the last finished analysis, in milliseconds.
+     */
+    private AtomicLong lastAnalysisMillis;
+
+    /**
+     * Duration of the slowest finished analysis, in milliseconds.
+     */
+    private AtomicLong slowestAnalysisMillis;
+
+    static {
+        MBeanServer mBeanServer;
+        Iterator<AnalysisListener> serviceListeners;
+
+        // Listeners available in the class path
+        try {
+            serviceListeners = ServiceLoader.load(AnalysisListener.class, AnalysisMetrics.class.getClassLoader())
+                    .iterator();
+            while (serviceListeners.hasNext()) {
+                AnalysisMetrics.addListener(serviceListeners.next());
+            }
+        } catch (Throwable e) {
+            AnalysisMetrics.logger.log(Level.WARNING, "Error while loading the analysis listeners: ", e);
+        }
+
+        try {
+            mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mBeanServer.isRegistered(new ObjectName(AnalysisMetrics.OBJECT_NAME))) {
+                mBeanServer.registerMBean(AnalysisMetrics.instance, new ObjectName(AnalysisMetrics.OBJECT_NAME));
+            }
+        } catch (Exception e) {
+            AnalysisMetrics.logger.log(Level.WARNING, "Error while registering the analysis metrics MBean: ", e);
+        }
+    }
+
+    /**
+     * Default constructor.
+     */
+    private AnalysisMetrics() {
+        this.analysesCount = new AtomicLong();
+        this.activeAnalyses = new AtomicLong();
+        this.classesScanned = new AtomicLong();
+        this.bytesRead = new AtomicLong();
+        this.edgesFound = new AtomicLong();
+        this.violations = new AtomicLong();
+        this.phaseTimes = new AtomicLongArray(AnalysisPhase.values().length);
+        this.lastAnalysisMillis = new AtomicLong();
+        this.slowestAnalysisMillis = new AtomicLong();
+    }
+
+    /**
+     * Get the metrics of all the analyses.
+     * 
+     * @return Metrics instance, as registered in the platform MBean server.
+     */
+    public static AnalysisMetrics getInstance() {
+        return AnalysisMetrics.instance;
+    }
+
+    /**
+     * Start an analysis in the current thread. If the thread is already
+     * running an analysis, the new one is considered part of it.
+     * 
+     * @param analyzer
+     *            Name of the analyzer.
+     */
+    public static void startAnalysis(final String analyzer) {
+        AnalysisMetrics.startAnalysis(analyzer, null);
+    }
+
+    /**
+     * Start a monitored analysis in the current thread. If the thread is
+     * already running an analysis, the new one is considered part of it, and
+     * the specified monitor is only used if the outer analysis has none.
+     * 
+     * @param analyzer
+     *            Name of the analyzer.
+     * @param monitor
+     *            Progress monitor of the analysis, may be null.
+     */
+    public static void startAnalysis(final String analyzer, final AnalysisMonitor monitor) {
+        AnalysisSummary summary;
+
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary == null) {
+            summary = new AnalysisSummary(analyzer);
+            AnalysisMetrics.currentSummary.set(summary);
+            AnalysisMetrics.instance.activeAnalyses.incrementAndGet();
+        }
+
+        if (summary.monitor == null) {
+            summary.monitor = monitor;
+        }
+        summary.depth++;
+    }
+
+    /**
+     * Finish the analysis run by the current thread.
+     * 
+     * @return Summary of the analysis, or null if the finished analysis was
+     *         part of an outer one.
+     */
+    public static AnalysisSummary endAnalysis() {
+        long totalMillis;
+        long slowestMillis;
+        AnalysisSummary returnValue;
+
+        returnValue = AnalysisMetrics.currentSummary.get();
+        if ((returnValue != null) && (--returnValue.depth == 0)) {
+            returnValue.finish();
+            AnalysisMetrics.currentSummary.remove();
+            AnalysisMetrics.lastSummary.set(returnValue);
+
+            totalMillis = returnValue.getTotalMillis();
+            AnalysisMetrics.instance.activeAnalyses.decrementAndGet();
+            AnalysisMetrics.instance.analysesCount.incrementAndGet();
+            AnalysisMetrics.instance.lastAnalysisMillis.set(totalMillis);
+            slowestMillis = AnalysisMetrics.instance.slowestAnalysisMillis.get();
+            while ((totalMillis > slowestMillis)
+                    && (!AnalysisMetrics.instance.slowestAnalysisMillis.compareAndSet(slowestMillis, totalMillis))) {
+                slowestMillis = AnalysisMetrics.instance.slowestAnalysisMillis.get();
+            }
+
+            AnalysisMetrics.logger.info(returnValue.toString());
+        } else {
+            returnValue = null;
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the summary of the last analysis finished by the current thread.
+     * 
+     * @return Analysis summary, or null if the current thread hasn't finished
+     *         any analysis.
+     */
+    public static AnalysisSummary getLastSummary() {
+        return AnalysisMetrics.lastSummary.get();
+    }
+
+    /**
+     * Register the start of an analysis phase in the current thread, stopping
+     * the analysis if it has been canceled.
+     * 
+     * @param phase
+     *            Started phase.
+     * @return Time when the phase started.
+     * @throws CancellationException
+     *             If the analysis has been canceled.
+     */
+    public static long startPhase(final AnalysisPhase phase) {
+        AnalysisSummary summary;
+
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary != null) {
+            AnalysisMetrics.checkCanceled(summary);
+            if (summary.monitor != null) {
+                summary.monitor.phaseStarted(phase);
+            }
+        }
+
+        for (AnalysisListener listener : AnalysisMetrics.listeners) {
+            listener.phaseStarted(phase);
+        }
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Register the end of an analysis phase in the current thread.
+     * 
+     * @param phase
+     *            Finished phase.
+     * @param startTime
+     *            Time when the phase started, as returned by
+     *            {@link #startPhase(AnalysisPhase)}.
+     */
+    public static void endPhase(final AnalysisPhase phase, final long startTime) {
+        long phaseTime;
+        AnalysisSummary summary;
+
+        phaseTime = System.nanoTime() - startTime;
+        AnalysisMetrics.instance.phaseTimes.addAndGet(phase.ordinal(), phaseTime);
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary != null) {
+            summary.phaseTimes[phase.ordinal()] += phaseTime;
+        }
+
+        for (AnalysisListener listener : AnalysisMetrics.listeners) {
+            listener.phaseFinished(phase);
+        }
+    }
+
+    /**
+     * Register the entries to analyze found by the current thread.
+     * 
+     * @param entriesCount
+     *            Number of discovered entries.
+     */
+    public static void addEntriesDiscovered(final int entriesCount) {
+        AnalysisSummary summary;
+
+        summary = AnalysisMetrics.currentSummary.get();
+        if ((summary != null) && (summary.monitor != null)) {
+            summary.monitor.entriesDiscovered(entriesCount);
+        }
+    }
+
+    /**
+     * Register an entry analyzed by the current thread, stopping the analysis
+     * if it has been canceled.
+     * 
+     * @param entryName
+     *            Class name or path of the analyzed entry.
+     * @throws CancellationException
+     *             If the analysis has been canceled.
+     */
+    public static void addEntryAnalyzed(final String entryName) {
+        AnalysisSummary summary;
+
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary != null) {
+            if (summary.monitor != null) {
+                summary.monitor.entryAnalyzed(entryName);
+            }
+            AnalysisMetrics.checkCanceled(summary);
+        }
+    }
+
+    /**
+     * Stop the analysis run by the current thread if it has been canceled,
+     * either through its monitor or by interrupting the thread.
+     * 
+     * @throws CancellationException
+     *             If the analysis has been canceled.
+     */
+    public static void checkCanceled() {
+        AnalysisSummary summary;
+
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary != null) {
+            AnalysisMetrics.checkCanceled(summary);
+        }
+    }
+
+    /**
+     * Stop the specified analysis if it has been canceled.
+     * 
+     * @param summary
+     *            Summary of the analysis run by the current thread.
+     * @throws CancellationException
+     *             If the analysis has been canceled.
+     */
+    private static void checkCanceled(final AnalysisSummary summary) {
+        if (((summary.monitor != null) && (summary.monitor.isCanceled())) || (Thread.currentThread().isInterrupted())) {
+            throw new CancellationException(summary.getAnalyzer() + " analysis canceled");
+        }
+    }
+
+    /**
+     * Register the start of the analysis of a JAR or WAR file.
+     * 
+     * @param path
+     *            Path to the archive.
+     * @return Listeners contexts, or null if there are no listeners.
+     */
+    public static Object[] startArchive(final String path) {
+        Object[] returnValue;
+        AnalysisListener[] currentListeners;
+
+        returnValue = null;
+        currentListeners = AnalysisMetrics.listeners;
+        if (currentListeners.length > 0) {
+            returnValue = new Object[currentListeners.length + 1];
+            returnValue[currentListeners.length] = currentListeners;
+            for (int i = 0; i < currentListeners.length; i++) {
+                returnValue[i] = currentListeners[i].archiveStarted(path);
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Register the end of the analysis of a JAR or WAR file.
+     * 
+     * @param contexts
+     *            Listeners contexts, as returned by
+     *            {@link #startArchive(String)}.
+     * @param entriesCount
+     *            Number of classes and resources found in the archive.
+     */
+    public static void endArchive(final Object[] contexts, final int entriesCount) {
+        AnalysisListener[] startListeners;
+
+        if (contexts != null) {
+            startListeners = (AnalysisListener[]) contexts[contexts.length - 1];
+            for (int i = 0; i < startListeners.length; i++) {
+                startListeners[i].archiveFinished(contexts[i], entriesCount);
+            }
+        }
+    }
+
+    /**
+     * Register the start of the parsing of a class file.
+     * 
+     * @return Listeners contexts, or null if there are no listeners.
+     */
+    public static Object[] startClass() {
+        Object[] returnValue;
+        AnalysisListener[] currentListeners;
+
+        returnValue = null;
+        currentListeners = AnalysisMetrics.listeners;
+        if (currentListeners.length > 0) {
+            returnValue = new Object[currentListeners.length + 1];
+            returnValue[currentListeners.length] = currentListeners;
+            for (int i = 0; i < currentListeners.length; i++) {
+                returnValue[i] = currentListeners[i].classStarted();
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Register the end of the parsing of a class file, counting it as a
+     * scanned class.
+     * 
+     * @param contexts
+     *            Listeners contexts, as returned by {@link #startClass()}.
+     * @param className
+     *            Internal name of the parsed class.
+     * @param bytes
+     *            Size of the class file.
+     */
+    public static void endClass(final Object[] contexts, final String className, final int bytes) {
+        AnalysisSummary summary;
+        AnalysisListener[] startListeners;
+
+        AnalysisMetrics.instance.classesScanned.incrementAndGet();
+        AnalysisMetrics.instance.bytesRead.addAndGet(bytes);
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary != null) {
+            summary.classesScanned++;
+            summary.bytesRead += bytes;
+        }
+
+        if (contexts != null) {
+            startListeners = (AnalysisListener[]) contexts[contexts.length - 1];
+            for (int i = 0; i < startListeners.length; i++) {
+                startListeners[i].classFinished(contexts[i], className, bytes);
+            }
+        }
+    }
+
+    /**
+     * Register the start of the MVC classification of a group of classes.
+     * 
+     * @return Listeners contexts, or null if there are no listeners.
+     */
+    public static Object[] startClassification() {
+        Object[] returnValue;
+        AnalysisListener[] currentListeners;
+
+        returnValue = null;
+        currentListeners = AnalysisMetrics.listeners;
+        if (currentListeners.length > 0) {
+            returnValue = new Object[currentListeners.length + 1];
+            returnValue[currentListeners.length] = currentListeners;
+            for (int i = 0; i < currentListeners.length; i++) {
+                returnValue[i] = currentListeners[i].classificationStarted();
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Register the end of the MVC classification of a group of classes.
+     * 
+     * @param contexts
+     *            Listeners contexts, as returned by
+     *            {@link #startClassification()}.
+     * @param classesCount
+     *            Number of classified classes.
+     */
+    public static void endClassification(final Object[] contexts, final int classesCount) {
+        AnalysisListener[] startListeners;
+
+        if (contexts != null) {
+            startListeners = (AnalysisListener[]) contexts[contexts.length - 1];
+            for (int i = 0; i < startListeners.length; i++) {
+                startListeners[i].classificationFinished(contexts[i], classesCount);
+            }
+        }
+    }
+
+    /**
+     * Register the start of the clustering of a group of classes.
+     * 
+     * @return Listeners contexts, or null if there are no listeners.
+     */
+    public static Object[] startClustering() {
+        Object[] returnValue;
+        AnalysisListener[] currentListeners;
+
+        returnValue = null;
+        currentListeners = AnalysisMetrics.listeners;
+        if (currentListeners.length > 0) {
+            returnValue = new Object[currentListeners.length + 1];
+            returnValue[currentListeners.length] = currentListeners;
+            for (int i = 0; i < currentListeners.length; i++) {
+                returnValue[i] = currentListeners[i].clusteringStarted();
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Register the end of the clustering of a group of classes.
+     * 
+     * @param contexts
+     *            Listeners contexts, as returned by {@link #startClustering()}
+     *            .
+     * @param classesCount
+     *            Number of clustered classes.
+     * @param clustersCount
+     *            Number of generated clusters.
+     */
+    public static void endClustering(final Object[] contexts, final int classesCount, final int clustersCount) {
+        AnalysisListener[] startListeners;
+
+        if (contexts != null) {
+            startListeners = (AnalysisListener[]) contexts[contexts.length - 1];
+            for (int i = 0; i < startListeners.length; i++) {
+                startListeners[i].clusteringFinished(contexts[i], classesCount, clustersCount);
+            }
+        }
+    }
+
+    /**
+     * Register a listener of the analysis steps.
+     * 
+     * @param listener
+     *            Analysis listener.
+     */
+    public static synchronized void addListener(final AnalysisListener listener) {
+        AnalysisListener[] newListeners;
+
+        newListeners = Arrays.copyOf(AnalysisMetrics.listeners, AnalysisMetrics.listeners.length + 1);
+        newListeners[newListeners.length - 1] = listener;
+        AnalysisMetrics.listeners = newListeners;
+    }
+
+    /**
+     * Unregister a listener of the analysis steps.
+     * 
+     * @param listener
+     *            Analysis listener.
+     */
+    public static synchronized void removeListener(final AnalysisListener listener) {
+        List<AnalysisListener> newListeners;
+
+        newListeners = new ArrayList<AnalysisListener>(Arrays.asList(AnalysisMetrics.listeners));
+        newListeners.remove(listener);
+        AnalysisMetrics.listeners = newListeners.toArray(new AnalysisListener[newListeners.size()]);
+    }
+
+    /**
+     * Register the valid dependencies found in a class.
+     * 
+     * @param edges
+     *            Number of dependencies.
+     */
+    public static void addEdgesFound(final long edges) {
+        AnalysisSummary summary;
+
+        AnalysisMetrics.instance.edgesFound.addAndGet(edges);
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary != null) {
+            summary.edgesFound += edges;
+        }
+    }
+
+    /**
+     * Register a class with a relation not allowed by the architecture.
+     */
+    public static void addViolation() {
+        AnalysisSummary summary;
+
+        AnalysisMetrics.instance.violations.incrementAndGet();
+        summary = AnalysisMetrics.currentSummary.get();
+        if (summary != null) {
+            summary.violations++;
+        }
+    }
+
+    /**
+     * Get the time spent in the specified phase.
+     * 
+     * @param phase
+     *            Analysis phase.
+     * @return Time in milliseconds.
+     */
+    public long getPhaseMillis(final AnalysisPhase phase) {
+        return this.phaseTimes.get(phase.ordinal()) / 1000000;
+    }
+
+    @Override
+    public long getAnalysesCount() {
+        return this.analysesCount.get();
+    }
+
+    @Override
+    public long getActiveAnalyses() {
+        return this.activeAnalyses.get();
+    }
+
+    @Override
+    public long getClassesScanned() {
+        return this.classesScanned.get();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return this.bytesRead.get();
+    }
+
+    @Override
+    public long getEdgesFound() {
+        return this.edgesFound.get();
+    }
+
+    @Override
+    public long getViolations() {
+        return this.violations.get();
+    }
+
+    @Override
+    public long getScanningMillis() {
+        return this.getPhaseMillis(AnalysisPhase.Scanning);
+    }
+
+    @Override
+    public long getGroupingMillis() {
+        return this.getPhaseMillis(AnalysisPhase.Grouping);
+    }
+
+    @Override
+    public long getClassificationMillis() {
+        return this.getPhaseMillis(AnalysisPhase.Classification);
+    }
+
+    @Override
+    public long getClusteringMillis() {
+        return this.getPhaseMillis(AnalysisPhase.Clustering);
+    }
+
+    @Override
+    public long getExportMillis() {
+        return this.getPhaseMillis(AnalysisPhase.Export);
+    }
+
+    @Override
+    public long getDotMillis() {
+        return this.getPhaseMillis(AnalysisPhase.Dot);
+    }
+
+    @Override
+    public long getRenderingMillis() {
+        return this.getPhaseMillis(AnalysisPhase.Rendering);
+    }
+
+    @Override
+    public long getLastAnalysisMillis() {
+        return this.lastAnalysisMillis.get();
+    }
+
+    @Override
+    public long getSlowestAnalysisMillis() {
+        return this.slowestAnalysisMillis.get();
+    }
+
+    @Override
+    public void reset() {
+        this.analysesCount.set(0);
+        this.classesScanned.set(0);
+        this.bytesRead.set(0);
+        this.edgesFound.set(0);
+        this.violations.set(0);
+        for (int i = 0; i < this.phaseTimes.length(); i++) {
+            this.phaseTimes.set(i, 0);
+        }
+        this.lastAnalysisMillis.set(0);
+        this.slowestAnalysisMillis.set(0);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.metrics;
+
+/**
+ * Management interface of the analysis counters and timers, accumulated since
+ * the JVM started or since the last reset.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public interface AnalysisMetricsMBean {
+
+    /**
+     * Get the number of finished analyses.
+     * 
+     * @return Analyses count.
+     */
+    long getAnalysesCount();
+
+    /**
+     * Get the number of analyses currently running.
+     * 
+     * @return Active analyses.
+     */
+    long getActiveAnalyses();
+
+    /**
+     * Get the number of class files scanned.
+     * 
+     * @return Classes scanned.
+     */
+    long getClassesScanned();
+
+    /**
+     * Get the number of bytes read from the class files.
+     * 
+     * @return Bytes read.
+     */
+    long getBytesRead();
+
+    /**
+     * Get the number of valid dependencies found.
+     * 
+     * @return Edges found.
+     */
+    long getEdgesFound();
+
+    /**
+     * Get the number of classes with a relation not allowed by the
+     * architecture.
+     * 
+     * @return Violations found.
+     */
+    long getViolations();
+
+    /**
+     * Get the time spent scanning class files.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getScanningMillis();
+
+    /**
+     * Get the time spent grouping classes by package.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getGroupingMillis();
+
+    /**
+     * Get the time spent in the MVC classification.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getClassificationMillis();
+
+    /**
+     * Get the time spent in the clustering.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getClusteringMillis();
+
+    /**
+     * Get the time spent exporting MexADL documents.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getExportMillis();
+
+    /**
+     * Get the time spent generating dot descriptions.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getDotMillis();
+
+    /**
+     * Get the time spent rendering dot descriptions.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getRenderingMillis();
+
+    /**
+     * Get the duration of the last finished analysis.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getLastAnalysisMillis();
+
+    /**
+     * Get the duration of the slowest finished analysis.
+     * 
+     * @return Time in milliseconds.
+     */
+    long getSlowestAnalysisMillis();
+
+    /**
+     * Reset all the counters and timers.
+     */
+    void reset();
+}
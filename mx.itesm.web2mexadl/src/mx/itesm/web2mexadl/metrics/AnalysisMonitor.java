@@ -0,0 +1,70 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.metrics;
+
+/**
+ * Progress monitor and cancellation token of a single analysis. Unlike the
+ * {@link AnalysisListener}s, that observe every analysis in the JVM, a monitor
+ * is handed to one of the analyzers and is only notified by the thread that
+ * runs that analysis.
+ * <p>
+ * The analysis checks {@link #isCanceled()} after each analyzed entry, between
+ * the classified classes and at the start of each phase, and stops with a
+ * {@link java.util.concurrent.CancellationException} once it returns true,
+ * after closing the files it had open. Interrupting the analysis thread has the
+ * same effect.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public interface AnalysisMonitor {
+
+    /**
+     * An analysis phase has started.
+     * 
+     * @param phase
+     *            Analysis phase.
+     */
+    void phaseStarted(AnalysisPhase phase);
+
+    /**
+     * New entries to analyze were found. The entries are the class files and
+     * resources in a directory, or the entries of a JAR or WAR file, so the
+     * total may grow while the nested JAR files of a WAR file are read.
+     * 
+     * @param entriesCount
+     *            Number of discovered entries.
+     */
+    void entriesDiscovered(int entriesCount);
+
+    /**
+     * An entry has been analyzed.
+     * 
+     * @param entryName
+     *            Class name or path of the analyzed entry.
+     */
+    void entryAnalyzed(String entryName);
+
+    /**
+     * Should the analysis be stopped.
+     * 
+     * @return true if the analysis has been canceled.
+     */
+    boolean isCanceled();
+}
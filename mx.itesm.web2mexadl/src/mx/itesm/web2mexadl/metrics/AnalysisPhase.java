@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.metrics;
+
+/**
+ * Phases of an architecture analysis, timed by {@link AnalysisMetrics}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public enum AnalysisPhase {
+    /**
+     * Recovery of the classes dependencies, from a directory, WAR file,
+     * snapshot or store.
+     */
+    Scanning,
+
+    /**
+     * Grouping of the classes by package.
+     */
+    Grouping,
+
+    /**
+     * Classification of the classes and packages into MVC layers, including
+     * the search of invalid relations.
+     */
+    Classification,
+
+    /**
+     * Clustering of the classes, and assignment of the packages to the
+     * clusters.
+     */
+    Clustering,
+
+    /**
+     * Export of the MexADL architecture document.
+     */
+    Export,
+
+    /**
+     * Generation of the dot description of the dependencies.
+     */
+    Dot,
+
+    /**
+     * Rendering of the dot description by Graphviz.
+     */
+    Rendering
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.metrics;
+
+/**
+ * Counters and phase timers of a single architecture analysis. A summary is
+ * only updated by the thread that runs its analysis, see
+ * {@link AnalysisMetrics#getLastSummary()}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class AnalysisSummary {
+
+    /**
+     * Name of the analyzer that produced this summary.
+     */
+    private String analyzer;
+
+    /**
+     * Number of nested analyses currently running, only the outermost one
+     * finishes the summary.
+     */
+    int depth;
+
+    /**
+     * Time when the analysis started, in nanoseconds.
+     */
+    private long startTime;
+
+    /**
+     * Duration of the whole analysis, in nanoseconds.
+     */
+    private long totalTime;
+
+    /**
+     * Number of class files scanned.
+     */
+    long classesScanned;
+
+    /**
+     * Number of bytes read from the class files.
+     */
+    long bytesRead;
+
+    /**
+     * Number of valid dependencies found between the classes and other
+     * classes.
+     */
+    long edgesFound;
+
+    /**
+     * Number of classes with a relation not allowed by the architecture.
+     */
+    long violations;
+
+    /**
+     * Duration of each phase, in nanoseconds, indexed by the phase ordinal.
+     */
+    long[] phaseTimes;
+
+    /**
+     * Progress monitor of the analysis, null if it isn't monitored.
+     */
+    AnalysisMonitor monitor;
+
+    /**
+     * Full constructor.
+     * 
+     * @param analyzer
+     *            Name of the analyzer that produces this summary.
+     */
+    AnalysisSummary(final String analyzer) {
+        this.analyzer = analyzer;
+        this.startTime = System.nanoTime();
+        this.phaseTimes = new long[AnalysisPhase.values().length];
+    }
+
+    /**
+     * Mark the end of the analysis.
+     */
+    void finish() {
+        this.totalTime = System.nanoTime() - this.startTime;
+        this.monitor = null;
+    }
+
+    /**
+     * Get the name of the analyzer that produced this summary.
+     * 
+     * @return Analyzer name.
+     */
+    public String getAnalyzer() {
+        return this.analyzer;
+    }
+
+    /**
+     * Get the number of class files scanned.
+     * 
+     * @return Classes scanned.
+     */
+    public long getClassesScanned() {
+        return this.classesScanned;
+    }
+
+    /**
+     * Get the number of bytes read from the class files.
+     * 
+     * @return Bytes read.
+     */
+    public long getBytesRead() {
+        return this.bytesRead;
+    }
+
+    /**
+     * Get the number of valid dependencies found.
+     * 
+     * @return Edges found.
+     */
+    public long getEdgesFound() {
+        return this.edgesFound;
+    }
+
+    /**
+     * Get the number of classes with a relation not allowed by the
+     * architecture.
+     * 
+     * @return Violations found.
+     */
+    public long getViolations() {
+        return this.violations;
+    }
+
+    /**
+     * Get the time spent in the specified phase.
+     * 
+     * @param phase
+     *            Analysis phase.
+     * @return Phase duration, in milliseconds.
+     */
+    public long getPhaseMillis(final AnalysisPhase phase) {
+        return this.phaseTimes[phase.ordinal()] / 1000000;
+    }
+
+    /**
+     * Get the duration of the whole analysis.
+     * 
+     * @return Analysis duration, in milliseconds.
+     */
+    public long getTotalMillis() {
+        return this.totalTime / 1000000;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder returnValue;
+
+        returnValue = new StringBuilder(this.analyzer + " analysis: " + this.getTotalMillis() + " ms, "
+                + this.classesScanned + " classes, " + this.bytesRead + " bytes, " + this.edgesFound + " edges, "
+                + this.violations + " violations");
+        for (AnalysisPhase phase : AnalysisPhase.values()) {
+            if (this.phaseTimes[phase.ordinal()] > 0) {
+                returnValue.append(", " + phase + ": " + this.getPhaseMillis(phase) + " ms");
+            }
+        }
+
+        return returnValue.toString();
+    }
+}
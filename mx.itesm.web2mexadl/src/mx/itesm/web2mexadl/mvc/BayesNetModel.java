@@ -0,0 +1,463 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.mvc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Bayesian network over discrete variables, stored as plain conditional
+ * probability tables so it can be read and evaluated without Weka. Each table
+ * keeps the counts it was estimated from, and each probability is computed as
+ * the count of the value divided by the sum of the counts of its parents
+ * configuration, the same way Weka's <em>DiscreteEstimatorBayes</em> does, so
+ * the classification results are exactly those of the original
+ * <em>BayesNet</em>. Models are written by {@link BayesNetModelConverter}.
+ * <p>
+ * Model files have the following layout:
+ * 
+ * <pre>
+ * int    MAGIC, VERSION
+ * int    nodeCount, classIndex
+ * Nodes: nodeCount x {UTF name, int valueCount, UTF[valueCount] values,
+ *                     int parentCount, int[parentCount] parents}
+ * Tables: nodeCount x {double[configurations] sums,
+ *                      double[configurations * valueCount] counts}
+ * </pre>
+ * 
+ * The configurations of a node are the combinations of its parents values,
+ * indexed in the order of the parents, the last parent varying fastest.
+ * Models are never modified once read, so they can be shared by concurrent
+ * analyses; new counts are added to a copy of the model, see
+ * {@link #update(List)}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class BayesNetModel {
+
+    /**
+     * Model file signature: 'W2MB'.
+     */
+    public static final int MAGIC = 0x57324D42;
+
+    /**
+     * Current model format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Nodes names.
+     */
+    private String[] names;
+
+    /**
+     * Values of each node.
+     */
+    private String[][] values;
+
+    /**
+     * Parents of each node.
+     */
+    private int[][] parents;
+
+    /**
+     * Sum of the counts of each configuration of the parents of each node.
+     */
+    private double[][] sums;
+
+    /**
+     * Counts of each value of each node, indexed by configuration and then by
+     * value.
+     */
+    private double[][] counts;
+
+    /**
+     * Index of the class node.
+     */
+    private int classIndex;
+
+    /**
+     * Full constructor.
+     * 
+     * @param names
+     *            Nodes names.
+     * @param values
+     *            Values of each node.
+     * @param parents
+     *            Parents of each node.
+     * @param sums
+     *            Sum of the counts of each configuration of the parents of each
+     *            node.
+     * @param counts
+     *            Counts of each value of each node, indexed by configuration
+     *            and then by value.
+     * @param classIndex
+     *            Index of the class node.
+     */
+    BayesNetModel(final String[] names, final String[][] values, final int[][] parents, final double[][] sums,
+            final double[][] counts, final int classIndex) {
+        this.names = names;
+        this.values = values;
+        this.parents = parents;
+        this.sums = sums;
+        this.counts = counts;
+        this.classIndex = classIndex;
+    }
+
+    /**
+     * Read a model.
+     * 
+     * @param input
+     *            Model contents, closed once read.
+     * @return Model.
+     * @throws IOException
+     *             If an I/O error has occurred, or the contents aren't a valid
+     *             model.
+     */
+    public static BayesNetModel read(final InputStream input) throws IOException {
+        int classIndex;
+        int nodeCount;
+        String[] names;
+        int[][] parents;
+        double[][] sums;
+        double[][] counts;
+        String[][] values;
+        int configurations;
+        DataInputStream dataInput;
+
+        dataInput = new DataInputStream(new BufferedInputStream(input));
+        try {
+            if (dataInput.readInt() != BayesNetModel.MAGIC) {
+                throw new IOException("Not a Bayesian network model");
+            }
+            if (dataInput.readInt() != BayesNetModel.VERSION) {
+                throw new IOException("Unsupported model version");
+            }
+
+            nodeCount = dataInput.readInt();
+            classIndex = dataInput.readInt();
+            if ((nodeCount < 1) || (classIndex < 0) || (classIndex >= nodeCount)) {
+                throw new IOException("Invalid model nodes");
+            }
+
+            names = new String[nodeCount];
+            values = new String[nodeCount][];
+            parents = new int[nodeCount][];
+            for (int i = 0; i < nodeCount; i++) {
+                names[i] = dataInput.readUTF();
+                values[i] = new String[dataInput.readInt()];
+                for (int j = 0; j < values[i].length; j++) {
+                    values[i][j] = dataInput.readUTF();
+                }
+
+                parents[i] = new int[dataInput.readInt()];
+                for (int j = 0; j < parents[i].length; j++) {
+                    parents[i][j] = dataInput.readInt();
+                    if ((parents[i][j] < 0) || (parents[i][j] >= nodeCount)) {
+                        throw new IOException("Invalid parent of node: " + names[i]);
+                    }
+                }
+            }
+
+            // The tables size depends on the parents, that may be read after
+            // their children
+            sums = new double[nodeCount][];
+            counts = new double[nodeCount][];
+            for (int i = 0; i < nodeCount; i++) {
+                configurations = BayesNetModel.getConfigurations(values, parents[i]);
+                sums[i] = new double[configurations];
+                for (int j = 0; j < sums[i].length; j++) {
+                    sums[i][j] = dataInput.readDouble();
+                }
+
+                counts[i] = new double[configurations * values[i].length];
+                for (int j = 0; j < counts[i].length; j++) {
+                    counts[i][j] = dataInput.readDouble();
+                }
+            }
+        } finally {
+            dataInput.close();
+        }
+
+        return new BayesNetModel(names, values, parents, sums, counts, classIndex);
+    }
+
+    /**
+     * Write this model to the specified file.
+     * 
+     * @param modelFile
+     *            Model file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public void write(final File modelFile) throws IOException {
+        DataOutputStream output;
+
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(modelFile, false)));
+        try {
+            output.writeInt(BayesNetModel.MAGIC);
+            output.writeInt(BayesNetModel.VERSION);
+            output.writeInt(this.names.length);
+            output.writeInt(this.classIndex);
+
+            for (int i = 0; i < this.names.length; i++) {
+                output.writeUTF(this.names[i]);
+                output.writeInt(this.values[i].length);
+                for (String value : this.values[i]) {
+                    output.writeUTF(value);
+                }
+
+                output.writeInt(this.parents[i].length);
+                for (int parent : this.parents[i]) {
+                    output.writeInt(parent);
+                }
+            }
+
+            for (int i = 0; i < this.names.length; i++) {
+                for (double sum : this.sums[i]) {
+                    output.writeDouble(sum);
+                }
+
+                for (double count : this.counts[i]) {
+                    output.writeDouble(count);
+                }
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Get the number of nodes of this model.
+     * 
+     * @return Nodes count.
+     */
+    public int getNodeCount() {
+        return this.names.length;
+    }
+
+    /**
+     * Get the index of the class node.
+     * 
+     * @return Class node index.
+     */
+    public int getClassIndex() {
+        return this.classIndex;
+    }
+
+    /**
+     * Get the index of the node with the specified name.
+     * 
+     * @param name
+     *            Node name.
+     * @return Node index, -1 if there's no node with that name.
+     */
+    public int getNodeIndex(final String name) {
+        int returnValue;
+
+        returnValue = -1;
+        for (int i = 0; (returnValue < 0) && (i < this.names.length); i++) {
+            if (this.names[i].equals(name)) {
+                returnValue = i;
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the index of the specified value of a node.
+     * 
+     * @param node
+     *            Node index.
+     * @param value
+     *            Value.
+     * @return Value index, -1 if the node doesn't have that value.
+     */
+    public int getValueIndex(final int node, final String value) {
+        int returnValue;
+
+        returnValue = -1;
+        for (int i = 0; (returnValue < 0) && (i < this.values[node].length); i++) {
+            if (this.values[node][i].equals(value)) {
+                returnValue = i;
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the probability of a node value given a configuration of the node's
+     * parents.
+     * 
+     * @param node
+     *            Node index.
+     * @param configuration
+     *            Parents configuration index.
+     * @param value
+     *            Value index.
+     * @return Probability, 0 if no counts were recorded for the
+     *         configuration.
+     */
+    public double getProbability(final int node, final int configuration, final int value) {
+        double sum;
+
+        sum = this.sums[node][configuration];
+        if (sum == 0) {
+            return 0;
+        }
+
+        return this.counts[node][(configuration * this.values[node].length) + value] / sum;
+    }
+
+    /**
+     * Classify an instance, getting the most probable value of the class node
+     * given the values of the rest of the nodes. The probabilities are
+     * computed in the same order and with the same operations as Weka's
+     * <em>BayesNet</em>, so ties are resolved the same way.
+     * 
+     * @param instance
+     *            Value index of each node, the value of the class node is
+     *            ignored.
+     * @return Index of the most probable class value, -1 if no class value
+     *         has a positive probability.
+     */
+    public int classify(final int[] instance) {
+        double max;
+        double sum;
+        int configuration;
+        int returnValue;
+        double logProbability;
+        double[] probabilities;
+
+        probabilities = new double[this.values[this.classIndex].length];
+        for (int classValue = 0; classValue < probabilities.length; classValue++) {
+            logProbability = 0;
+            for (int node = 0; node < this.names.length; node++) {
+                configuration = 0;
+                for (int parent : this.parents[node]) {
+                    configuration = (configuration * this.values[parent].length)
+                            + ((parent == this.classIndex) ? classValue : instance[parent]);
+                }
+
+                logProbability += Math.log(this.getProbability(node, configuration,
+                        (node == this.classIndex) ? classValue : instance[node]));
+            }
+
+            // Weka starts every class at 1 before adding the log probability
+            probabilities[classValue] = 1.0 + logProbability;
+        }
+
+        // Back from log space
+        max = probabilities[0];
+        for (int i = 1; i < probabilities.length; i++) {
+            if (probabilities[i] > max) {
+                max = probabilities[i];
+            }
+        }
+
+        sum = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = Math.exp(probabilities[i] - max);
+            sum += probabilities[i];
+        }
+
+        returnValue = -1;
+        if (!Double.isNaN(sum) && (sum != 0)) {
+            max = 0;
+            for (int i = 0; i < probabilities.length; i++) {
+                probabilities[i] /= sum;
+                if (probabilities[i] > max) {
+                    max = probabilities[i];
+                    returnValue = i;
+                }
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get a copy of this model with the specified instances added to its
+     * tables: the count of the value of each node, and the sum of the counts
+     * of its parents configuration, are increased by one, the same way Weka's
+     * <em>BayesNet.updateClassifier</em> does. The structure of the network
+     * isn't changed. This model isn't modified, so it may keep being shared.
+     * 
+     * @param instances
+     *            Value index of each node, including the class node, of each
+     *            instance.
+     * @return Updated model.
+     */
+    public BayesNetModel update(final List<int[]> instances) {
+        int configuration;
+        double[][] newSums;
+        double[][] newCounts;
+
+        newSums = new double[this.sums.length][];
+        newCounts = new double[this.counts.length][];
+        for (int i = 0; i < this.names.length; i++) {
+            newSums[i] = this.sums[i].clone();
+            newCounts[i] = this.counts[i].clone();
+        }
+
+        for (int[] instance : instances) {
+            for (int node = 0; node < this.names.length; node++) {
+                configuration = 0;
+                for (int parent : this.parents[node]) {
+                    configuration = (configuration * this.values[parent].length) + instance[parent];
+                }
+
+                newCounts[node][(configuration * this.values[node].length) + instance[node]] += 1;
+                newSums[node][configuration] += 1;
+            }
+        }
+
+        return new BayesNetModel(this.names, this.values, this.parents, newSums, newCounts, this.classIndex);
+    }
+
+    /**
+     * Get the number of configurations of the specified parents.
+     * 
+     * @param values
+     *            Values of each node.
+     * @param parents
+     *            Parents indexes.
+     * @return Configurations count.
+     */
+    private static int getConfigurations(final String[][] values, final int[] parents) {
+        int returnValue;
+
+        returnValue = 1;
+        for (int parent : parents) {
+            returnValue *= values[parent].length;
+        }
+
+        return returnValue;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.mvc;
+
+import java.io.File;
+import java.lang.reflect.Field;
+
+import weka.classifiers.bayes.BayesNet;
+import weka.classifiers.bayes.net.estimate.DiscreteEstimatorBayes;
+import weka.core.SerializationHelper;
+import weka.estimators.Estimator;
+
+/**
+ * Converter of Weka <em>BayesNet</em> classifiers into {@link BayesNetModel}
+ * models, so they can be evaluated without Weka. Only networks estimated from
+ * nominal attributes, whose tables were estimated by counting, as the
+ * <em>SimpleEstimator</em> does, can be converted.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class BayesNetModelConverter {
+
+    /**
+     * Convert a serialized <em>BayesNet</em> classifier into a model file.
+     * 
+     * @param args
+     *            Serialized classifier file and model file.
+     * @throws Exception
+     *             If the classifier can't be read or converted, or the model
+     *             can't be written.
+     */
+    public static void main(final String[] args) throws Exception {
+        Object classifier;
+
+        if (args.length != 2) {
+            System.err.println("Usage: BayesNetModelConverter classifier.model model.cpt");
+            System.exit(1);
+        }
+
+        classifier = SerializationHelper.read(args[0]);
+        if (!(classifier instanceof BayesNet)) {
+            System.err.println("Not a BayesNet classifier: " + args[0]);
+            System.exit(1);
+        }
+
+        BayesNetModelConverter.convert((BayesNet) classifier).write(new File(args[1]));
+    }
+
+    /**
+     * Convert a <em>BayesNet</em> classifier into a model. The counts of the
+     * classifier are copied, so the classifier may keep being used or
+     * updated.
+     * 
+     * @param bayesNet
+     *            Trained classifier.
+     * @return Model.
+     * @throws IllegalArgumentException
+     *             If the classifier was trained with numeric attributes, or
+     *             its tables weren't estimated by counting.
+     */
+    public static BayesNetModel convert(final BayesNet bayesNet) {
+        int nodeCount;
+        Field sumField;
+        int cardinality;
+        String[] names;
+        int[][] parents;
+        double[][] sums;
+        double[][] counts;
+        String[][] values;
+        Estimator[] estimators;
+        DiscreteEstimatorBayes estimator;
+
+        nodeCount = bayesNet.getNrOfNodes();
+        for (int i = 0; i < nodeCount; i++) {
+            if (!bayesNet.m_Instances.attribute(i).isNominal()) {
+                throw new IllegalArgumentException("Numeric attributes aren't supported: "
+                        + bayesNet.getNodeName(i));
+            }
+        }
+
+        // The sum of each table is kept as Weka computed it, so the
+        // probabilities are exactly the same
+        try {
+            sumField = DiscreteEstimatorBayes.class.getDeclaredField("m_SumOfCounts");
+            sumField.setAccessible(true);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unsupported Weka version", e);
+        }
+
+        names = new String[nodeCount];
+        values = new String[nodeCount][];
+        parents = new int[nodeCount][];
+        sums = new double[nodeCount][];
+        counts = new double[nodeCount][];
+        for (int i = 0; i < nodeCount; i++) {
+            names[i] = bayesNet.getNodeName(i);
+            cardinality = bayesNet.getCardinality(i);
+            values[i] = new String[cardinality];
+            for (int j = 0; j < cardinality; j++) {
+                values[i][j] = bayesNet.getNodeValue(i, j);
+            }
+
+            parents[i] = new int[bayesNet.getNrOfParents(i)];
+            for (int j = 0; j < parents[i].length; j++) {
+                parents[i][j] = bayesNet.getParent(i, j);
+            }
+
+            estimators = bayesNet.getDistributions()[i];
+            sums[i] = new double[bayesNet.getParentCardinality(i)];
+            counts[i] = new double[sums[i].length * cardinality];
+            for (int j = 0; j < sums[i].length; j++) {
+                if (estimators[j].getClass() != DiscreteEstimatorBayes.class) {
+                    throw new IllegalArgumentException("Unsupported estimator of node " + names[i] + ": "
+                            + estimators[j].getClass().getName());
+                }
+
+                estimator = (DiscreteEstimatorBayes) estimators[j];
+                try {
+                    sums[i][j] = sumField.getDouble(estimator);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unsupported Weka version", e);
+                }
+
+                for (int k = 0; k < cardinality; k++) {
+                    counts[i][(j * cardinality) + k] = estimator.getCount(k);
+                }
+            }
+        }
+
+        return new BayesNetModel(names, values, parents, sums, counts, bayesNet.m_Instances.classIndex());
+    }
+}
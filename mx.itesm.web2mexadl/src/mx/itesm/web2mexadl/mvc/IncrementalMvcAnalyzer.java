@@ -0,0 +1,422 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.mvc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.DependencyFileFilter;
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+
+/**
+ * MVC architecture model of a classes directory that's kept current as the
+ * class files change, so that only the changed classes have to be parsed and
+ * classified again. The classes that depend on added or removed classes are
+ * also classified again, since their internal and external dependencies
+ * change.
+ * <p>
+ * The model may be updated and exported from different threads, each
+ * operation holds the lock of the model. If a build or an update doesn't
+ * finish, because it's canceled or fails, the model is discarded, so it's
+ * empty until it's built again.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class IncrementalMvcAnalyzer {
+
+    /**
+     * Directory containing the classes.
+     */
+    private File classesDirectory;
+
+    /**
+     * Filter of the files that are part of the model.
+     */
+    private DependencyFileFilter fileFilter;
+
+    /**
+     * Dependencies of each class, in the order they were found.
+     */
+    private Map<String, ClassDependencies> dependencies;
+
+    /**
+     * Classification layer of each class.
+     */
+    private Map<String, Layer> classification;
+
+    /**
+     * Analyzer that classifies the classes of the model.
+     */
+    private MvcAnalyzer mvcAnalyzer;
+
+    /**
+     * Constructor of a model classified by the default analyzer, see
+     * {@link MvcAnalyzer#getDefaultAnalyzer()}.
+     * 
+     * @param classesDirectory
+     *            Directory containing the classes.
+     */
+    public IncrementalMvcAnalyzer(final File classesDirectory) {
+        this(classesDirectory, MvcAnalyzer.getDefaultAnalyzer());
+    }
+
+    /**
+     * Full constructor.
+     * 
+     * @param classesDirectory
+     *            Directory containing the classes.
+     * @param mvcAnalyzer
+     *            Analyzer that classifies the classes of the model.
+     */
+    public IncrementalMvcAnalyzer(final File classesDirectory, final MvcAnalyzer mvcAnalyzer) {
+        this.classesDirectory = classesDirectory;
+        this.mvcAnalyzer = mvcAnalyzer;
+        this.fileFilter = new DependencyFileFilter(new ArrayList<String>(Arrays.asList(new MvcDependencyCommand()
+                .getValidFileTypes())));
+        this.dependencies = new LinkedHashMap<String, ClassDependencies>();
+        this.classification = new HashMap<String, Layer>();
+    }
+
+    /**
+     * Build the model from all the classes in the directory, discarding the
+     * previous one.
+     * 
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Classification layer of each class.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public synchronized Map<String, Layer> analyze(final AnalysisMonitor monitor) throws IOException {
+        long phaseStart;
+        boolean completed;
+        List<ClassDependencies> classesDependencies;
+
+        this.mvcAnalyzer.warmUp();
+        AnalysisMetrics.startAnalysis("MVC", monitor);
+        completed = false;
+        try {
+            this.dependencies.clear();
+            this.classification.clear();
+
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            classesDependencies = DependencyAnalyzer.getDirectoryDependencies(
+                    this.classesDirectory.getAbsolutePath(), new MvcDependencyCommand());
+            for (ClassDependencies classDependencies : classesDependencies) {
+                this.dependencies.put(classDependencies.getClassName(), classDependencies);
+            }
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Classification);
+            this.classification.putAll(this.mvcAnalyzer.classify(classesDependencies));
+            AnalysisMetrics.endPhase(AnalysisPhase.Classification, phaseStart);
+            completed = true;
+        } finally {
+            // Don't keep a partial model
+            if (!completed) {
+                this.dependencies.clear();
+                this.classification.clear();
+            }
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return new HashMap<String, Layer>(this.classification);
+    }
+
+    /**
+     * Update the model with the specified changed and removed files. Only the
+     * changed classes, and the classes whose dependencies include an added or
+     * removed class, are classified again.
+     * 
+     * @param changedFiles
+     *            Added or modified files within the classes directory.
+     * @param removedFiles
+     *            Removed files within the classes directory.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return New classification layer of each class classified again.
+     * @throws IOException
+     *             If an I/O error has occurred, in which case the model must
+     *             be built again.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor, in which
+     *             case the model must be built again.
+     */
+    public synchronized Map<String, Layer> update(final Collection<File> changedFiles,
+            final Collection<File> removedFiles, final AnalysisMonitor monitor) throws IOException {
+        long phaseStart;
+        String className;
+        boolean completed;
+        Set<String> addedClasses;
+        Set<String> removedClasses;
+        Map<String, Layer> returnValue;
+        InputStream classInputStream;
+        Map<String, File> changedClasses;
+        List<ClassDependencies> neighborClasses;
+        List<ClassDependencies> affectedClasses;
+        ClassDependencies currentDependencies;
+
+        AnalysisMetrics.startAnalysis("MVC", monitor);
+        completed = false;
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            AnalysisMetrics.addEntriesDiscovered(changedFiles.size() + removedFiles.size());
+
+            // Register the project classes before sorting any dependency
+            removedClasses = new HashSet<String>();
+            for (File file : removedFiles) {
+                className = this.getClassName(file);
+                if (this.dependencies.remove(className) != null) {
+                    this.classification.remove(className);
+                    removedClasses.add(className);
+                }
+                AnalysisMetrics.addEntryAnalyzed(className);
+            }
+
+            addedClasses = new HashSet<String>();
+            changedClasses = new LinkedHashMap<String, File>();
+            for (File file : changedFiles) {
+                if (this.fileFilter.accept(file.getParentFile(), file.getName())) {
+                    className = this.getClassName(file);
+                    changedClasses.put(className, file);
+                    if (!this.dependencies.containsKey(className)) {
+                        addedClasses.add(className);
+                        this.dependencies.put(className, null);
+                    }
+                }
+            }
+
+            // Changed classes
+            affectedClasses = new ArrayList<ClassDependencies>();
+            for (Map.Entry<String, File> changedClass : changedClasses.entrySet()) {
+                className = changedClass.getKey();
+                if (changedClass.getValue().getName().endsWith(".class")) {
+                    classInputStream = new FileInputStream(changedClass.getValue());
+                    try {
+                        currentDependencies = this.sortDependencies(className,
+                                DependencyAnalyzer.getClassUnsortedDependencies(classInputStream));
+                    } finally {
+                        classInputStream.close();
+                    }
+                    AnalysisMetrics.addEdgesFound(currentDependencies.getInternalDependencies().size()
+                            + currentDependencies.getExternalDependencies().size());
+                } else {
+                    currentDependencies = new ClassDependencies(className, null, null);
+                }
+
+                this.dependencies.put(className, currentDependencies);
+                affectedClasses.add(currentDependencies);
+                AnalysisMetrics.addEntryAnalyzed(className);
+            }
+
+            // Classes that depend on an added or removed class
+            neighborClasses = new ArrayList<ClassDependencies>();
+            if ((!addedClasses.isEmpty()) || (!removedClasses.isEmpty())) {
+                for (ClassDependencies classDependencies : this.dependencies.values()) {
+                    if ((!changedClasses.containsKey(classDependencies.getClassName()))
+                            && ((IncrementalMvcAnalyzer.containsAny(classDependencies.getExternalDependencies(),
+                                    addedClasses)) || (IncrementalMvcAnalyzer.containsAny(
+                                    classDependencies.getInternalDependencies(), removedClasses)))) {
+                        neighborClasses.add(classDependencies);
+                    }
+                }
+            }
+
+            for (ClassDependencies classDependencies : neighborClasses) {
+                currentDependencies = this.sortDependencies(classDependencies.getClassName(),
+                        IncrementalMvcAnalyzer.getAllDependencies(classDependencies));
+                this.dependencies.put(classDependencies.getClassName(), currentDependencies);
+                affectedClasses.add(currentDependencies);
+            }
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Classification);
+            returnValue = this.mvcAnalyzer.classify(affectedClasses);
+            this.classification.putAll(returnValue);
+            AnalysisMetrics.endPhase(AnalysisPhase.Classification, phaseStart);
+            completed = true;
+        } finally {
+            // The model can't be trusted anymore, the added classes may still
+            // have no dependencies
+            if (!completed) {
+                this.dependencies.clear();
+                this.classification.clear();
+            }
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Export the current model into a MexADL architecture document and a SVG
+     * file. The architecture document is generated in the directory of the
+     * SVG file.
+     * 
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @throws Exception
+     *             If an Exception occurs during the export.
+     * @throws CancellationException
+     *             If the export is canceled through the monitor.
+     */
+    public synchronized void export(final boolean includeExternal, final File outputFile,
+            final AnalysisMonitor monitor) throws Exception {
+        AnalysisMetrics.startAnalysis("MVC", monitor);
+        try {
+            this.mvcAnalyzer.analyzeDependencies(new ArrayList<ClassDependencies>(this.dependencies.values()),
+                    this.classification, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+    }
+
+    /**
+     * Check whether the model has been built.
+     * 
+     * @return true if the model contains at least one class.
+     */
+    public synchronized boolean isEmpty() {
+        return this.dependencies.isEmpty();
+    }
+
+    /**
+     * Get the current classification of the classes.
+     * 
+     * @return Classification layer of each class.
+     */
+    public synchronized Map<String, Layer> getClassification() {
+        return new HashMap<String, Layer>(this.classification);
+    }
+
+    /**
+     * Get the class name associated to the specified file.
+     * 
+     * @param file
+     *            File within the classes directory.
+     * @return Class name, or path relative to the classes directory for
+     *         other files.
+     */
+    private String getClassName(final File file) {
+        return DependenciesUtil.getClassNameFromPath(file.getAbsolutePath(), this.classesDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Group the specified dependencies by <em>internal</em> (classes in the
+     * model) and <em>external</em> (Libraries) dependencies.
+     * 
+     * @param className
+     *            Class name.
+     * @param classDependencies
+     *            Class dependencies.
+     * @return Class' dependencies.
+     */
+    private ClassDependencies sortDependencies(final String className, final Collection<String> classDependencies) {
+        List<String> internalDependencies;
+        List<String> externalDependencies;
+
+        internalDependencies = new ArrayList<String>();
+        externalDependencies = new ArrayList<String>();
+        for (String dependency : classDependencies) {
+            if (DependenciesUtil.isValidDependency(className, dependency)) {
+                if (this.dependencies.containsKey(dependency)) {
+                    internalDependencies.add(dependency);
+                } else {
+                    externalDependencies.add(dependency);
+                }
+            }
+        }
+
+        return new ClassDependencies(className, internalDependencies, externalDependencies);
+    }
+
+    /**
+     * Get both the internal and external dependencies of a class.
+     * 
+     * @param classDependencies
+     *            Class dependencies.
+     * @return All the class' dependencies.
+     */
+    private static List<String> getAllDependencies(final ClassDependencies classDependencies) {
+        List<String> returnValue;
+
+        returnValue = new ArrayList<String>();
+        if (classDependencies.getInternalDependencies() != null) {
+            returnValue.addAll(classDependencies.getInternalDependencies());
+        }
+        if (classDependencies.getExternalDependencies() != null) {
+            returnValue.addAll(classDependencies.getExternalDependencies());
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Check whether any of the specified dependencies is in the specified set
+     * of classes.
+     * 
+     * @param dependencies
+     *            Class dependencies, may be null.
+     * @param classes
+     *            Set of classes.
+     * @return true if at least one of the dependencies is in the set.
+     */
+    private static boolean containsAny(final List<String> dependencies, final Set<String> classes) {
+        boolean returnValue;
+
+        returnValue = false;
+        if ((dependencies != null) && (!classes.isEmpty())) {
+            for (String dependency : dependencies) {
+                if (classes.contains(dependency)) {
+                    returnValue = true;
+                    break;
+                }
+            }
+        }
+
+        return returnValue;
+    }
+}
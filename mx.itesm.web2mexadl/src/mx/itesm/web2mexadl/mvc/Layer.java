@@ -80,20 +80,17 @@ public enum Layer {
     private String rgbColor;
 
     /**
-     * Variable attribute.
+     * Get the Layer variable attribute. The attribute is created the first
+     * time it's requested, so the analyses that don't use Weka instances
+     * don't need Weka. It replaces the former public <em>attribute</em> field,
+     * and its index is the number of Uncertainty model variables, the
+     * position of the layer right after them in the instances, instead of
+     * that number plus one.
+     * 
+     * @return Attribute.
      */
-    public static Attribute attribute;
-
-    static {
-        FastVector valuesVector;
-
-        // Initialize the attribute's data
-        valuesVector = new FastVector(Layer.values().length);
-        for (Layer layer : Layer.values()) {
-            valuesVector.addElement(layer.toString());
-        }
-
-        attribute = new Attribute("Layer", valuesVector, Util.Variable.values().length + 1);
+    public static Attribute getAttribute() {
+        return LayerAttribute.ATTRIBUTE;
     }
 
     /**
@@ -139,4 +136,29 @@ public enum Layer {
     public String getStyle() {
         return this.style;
     }
+
+    /**
+     * Layer variable attribute, placed after the Uncertainty model variables.
+     * It's never modified once created, so it can be shared by concurrent
+     * analyses.
+     */
+    private static class LayerAttribute {
+
+        /**
+         * Layer variable attribute.
+         */
+        private static final Attribute ATTRIBUTE;
+
+        static {
+            FastVector valuesVector;
+
+            // Initialize the attribute's data
+            valuesVector = new FastVector(Layer.values().length);
+            for (Layer layer : Layer.values()) {
+                valuesVector.addElement(layer.toString());
+            }
+
+            ATTRIBUTE = new Attribute("Layer", valuesVector, Util.Variable.values().length);
+        }
+    }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.mvc;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.util.FeatureExtractor;
+import mx.itesm.web2mexadl.util.Util.Variable;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Layer corrections of misclassified classes, stored in a local file and
+ * added to the counts of the {@link BayesNetModel} each time the file changes,
+ * so the corrections are taken into account without retraining the
+ * classifier.
+ * <p>
+ * Each correction is a line with the values of the MVC variables of the
+ * class, followed by its correct layer, in the same format of the data lines
+ * of the training ARFF files:
+ * 
+ * <pre>
+ * % mx.itesm.example.CustomerHelper
+ * java,persistence,none,model
+ * </pre>
+ * 
+ * Empty lines, comments starting with <em>%</em> or <em>#</em>, and ARFF
+ * declarations starting with <em>@</em>, are ignored, so the corrections can
+ * also be appended to a training file for the next full retraining.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ModelCorrections {
+
+    /**
+     * Read the corrections stored in the specified file, as instances of the
+     * specified model.
+     * 
+     * @param correctionsFile
+     *            Corrections file.
+     * @param model
+     *            Model the corrections will be added to.
+     * @return Value index of each node of the model, for each correction.
+     * @throws IOException
+     *             If the file can't be read, or one of its corrections isn't
+     *             valid for the model.
+     */
+    public static List<int[]> read(final File correctionsFile, final BayesNetModel model) throws IOException {
+        int[] nodes;
+        int[] instance;
+        String[] values;
+        String trimmedLine;
+        List<int[]> returnValue;
+
+        if (!correctionsFile.isFile()) {
+            throw new FileNotFoundException("Corrections file not found: " + correctionsFile.getAbsolutePath());
+        }
+
+        // Type, ExternalAPI, Suffix, Layer
+        nodes = new int[Variable.values().length + 1];
+        for (Variable variable : Variable.values()) {
+            nodes[variable.ordinal()] = model.getNodeIndex(variable.toString());
+            if (nodes[variable.ordinal()] < 0) {
+                throw new IllegalArgumentException("Variable not defined in the MVC model: " + variable);
+            }
+        }
+        nodes[nodes.length - 1] = model.getClassIndex();
+
+        returnValue = new ArrayList<int[]>();
+        for (Object line : FileUtils.readLines(correctionsFile, "UTF-8")) {
+            trimmedLine = ((String) line).trim();
+            if ((trimmedLine.length() == 0) || trimmedLine.startsWith("%") || trimmedLine.startsWith("#")
+                    || trimmedLine.startsWith("@")) {
+                continue;
+            }
+
+            values = trimmedLine.split(",");
+            if (values.length != nodes.length) {
+                throw new IOException("Invalid correction in " + correctionsFile.getAbsolutePath() + ": "
+                        + trimmedLine);
+            }
+
+            instance = new int[model.getNodeCount()];
+            for (int i = 0; i < nodes.length; i++) {
+                instance[nodes[i]] = model.getValueIndex(nodes[i], ModelCorrections.unquote(values[i].trim()));
+                if (instance[nodes[i]] < 0) {
+                    throw new IOException("Value not defined in the MVC model: " + values[i].trim() + ", in "
+                            + correctionsFile.getAbsolutePath() + ": " + trimmedLine);
+                }
+            }
+
+            returnValue.add(instance);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Append a correction to the specified file, creating it if it doesn't
+     * exist. The file is written in UTF-8, the encoding it's read with. The
+     * correction is taken into account the next time the model is requested.
+     * 
+     * @param correctionsFile
+     *            Corrections file.
+     * @param classDependencies
+     *            Dependencies of the misclassified class.
+     * @param layer
+     *            Correct layer of the class, one of <em>Model</em>,
+     *            <em>View</em> or <em>Controller</em>.
+     * @throws IOException
+     *             If the correction can't be written.
+     */
+    public static void add(final File correctionsFile, final ClassDependencies classDependencies, final Layer layer)
+            throws IOException {
+        Writer writer;
+        byte[] features;
+        FeatureExtractor featureExtractor;
+
+        if ((layer != Layer.Model) && (layer != Layer.View) && (layer != Layer.Controller)) {
+            throw new IllegalArgumentException("Invalid correction layer: " + layer);
+        }
+
+        featureExtractor = new FeatureExtractor();
+        features = featureExtractor.getFeatures(classDependencies);
+        if ((correctionsFile.getParentFile() != null) && !correctionsFile.getParentFile().isDirectory()) {
+            FileUtils.forceMkdir(correctionsFile.getParentFile());
+        }
+
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(correctionsFile, true), "UTF-8"));
+        try {
+            writer.write("\n% " + classDependencies.getClassName() + "\n");
+            for (Variable variable : Variable.values()) {
+                writer.write(featureExtractor.getValue(variable, features[variable.ordinal()]) + ",");
+            }
+            writer.write(layer.toString().toLowerCase() + "\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Remove the ARFF quotes of the specified value, if any.
+     * 
+     * @param value
+     *            Value.
+     * @return Unquoted value.
+     */
+    private static String unquote(final String value) {
+        String returnValue;
+
+        returnValue = value;
+        if ((value.length() > 1)
+                && (((value.charAt(0) == '\'') && (value.charAt(value.length() - 1) == '\''))
+                || ((value.charAt(0) == '"') && (value.charAt(value.length() - 1) == '"')))) {
+            returnValue = value.substring(1, value.length() - 1);
+        }
+
+        return returnValue;
+    }
+}
@@ -23,18 +23,29 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 
 import mx.itesm.web2mexadl.dependencies.ClassDependencies;
 import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
 import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.DependencySnapshot;
+import mx.itesm.web2mexadl.dependencies.DependencyStore;
+import mx.itesm.web2mexadl.dependencies.JarDependencyCache;
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+import mx.itesm.web2mexadl.metrics.AnalysisMonitor;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+import mx.itesm.web2mexadl.util.FeatureExtractor;
 import mx.itesm.web2mexadl.util.Util;
 import mx.itesm.web2mexadl.util.Util.Variable;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import weka.classifiers.Classifier;
 import weka.core.FastVector;
 import weka.core.Instance;
 import weka.core.Instances;
@@ -44,6 +55,12 @@ import weka.core.Instances;
  * according to the MVC pattern, and the generation of both a MexADL document
  * and a SVG file representing the software architecture associated to the
  * application.
+ * <p>
+ * A single analyzer may be shared by concurrent analyses: the models are
+ * never modified, and Weka classifiers are only used through copies for the
+ * exclusive use of each classification. The static methods use the default
+ * analyzer, built from the model distributed with Web2MexADL, that doesn't
+ * need Weka.
  * 
  * @author jccastrejon
  * 
@@ -55,6 +72,165 @@ public class MvcAnalyzer {
      */
     private static Logger logger = Logger.getLogger(MvcAnalyzer.class.getName());
 
+    /**
+     * Analyzer used by the static methods, built from the default model.
+     */
+    private static final MvcAnalyzer DEFAULT_ANALYZER = new MvcAnalyzer();
+
+    /**
+     * Classifier of the model. It's only used to make copies of it, since
+     * Weka classifiers aren't thread safe. If null, the Bayesian network model
+     * is used instead.
+     */
+    private final Classifier model;
+
+    /**
+     * Bayesian network model. If null, and there's no classifier, the model
+     * distributed with Web2MexADL is used, see {@link Util#getModel()}.
+     */
+    private final BayesNetModel bayesNetModel;
+
+    /**
+     * Copies of the model's classifier that aren't being used by any
+     * classification.
+     */
+    private final Queue<Classifier> classifiers;
+
+    /**
+     * Should the redundant internal dependencies be left out of the SVG
+     * files, see {@link DependenciesUtil#getSimplifiedInternalDependencies(List)}.
+     */
+    private final boolean simplifyGraph;
+
+    /**
+     * Constructor of an analyzer that uses the model distributed with
+     * Web2MexADL. The model file isn't read until the first classification
+     * needs it.
+     */
+    public MvcAnalyzer() {
+        this(null, null, false);
+    }
+
+    /**
+     * Constructor of an analyzer that uses the model distributed with
+     * Web2MexADL, see {@link #MvcAnalyzer()}.
+     * 
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out of the
+     *            SVG files.
+     */
+    public MvcAnalyzer(final boolean simplifyGraph) {
+        this(null, null, simplifyGraph);
+    }
+
+    /**
+     * Constructor of an analyzer that uses a Weka classifier.
+     * 
+     * @param model
+     *            Classifier of the model. It's never used directly to classify,
+     *            so it may be shared with other analyzers. If null, the model
+     *            distributed with Web2MexADL is used.
+     */
+    public MvcAnalyzer(final Classifier model) {
+        this(model, null, false);
+    }
+
+    /**
+     * Constructor of an analyzer that uses a Weka classifier.
+     * 
+     * @param model
+     *            Classifier of the model. It's never used directly to classify,
+     *            so it may be shared with other analyzers. If null, the model
+     *            distributed with Web2MexADL is used.
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out of the
+     *            SVG files.
+     */
+    public MvcAnalyzer(final Classifier model, final boolean simplifyGraph) {
+        this(model, null, simplifyGraph);
+    }
+
+    /**
+     * Constructor of an analyzer that uses a Bayesian network model, without
+     * Weka.
+     * 
+     * @param bayesNetModel
+     *            Bayesian network model, it may be shared with other
+     *            analyzers. If null, the model distributed with Web2MexADL is
+     *            used.
+     */
+    public MvcAnalyzer(final BayesNetModel bayesNetModel) {
+        this(null, bayesNetModel, false);
+    }
+
+    /**
+     * Constructor of an analyzer that uses a Bayesian network model, without
+     * Weka.
+     * 
+     * @param bayesNetModel
+     *            Bayesian network model, it may be shared with other
+     *            analyzers. If null, the model distributed with Web2MexADL is
+     *            used.
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out of the
+     *            SVG files.
+     */
+    public MvcAnalyzer(final BayesNetModel bayesNetModel, final boolean simplifyGraph) {
+        this(null, bayesNetModel, simplifyGraph);
+    }
+
+    /**
+     * Full constructor.
+     * 
+     * @param model
+     *            Classifier of the model, null to use the Bayesian network
+     *            model.
+     * @param bayesNetModel
+     *            Bayesian network model, null to use the model distributed with
+     *            Web2MexADL.
+     * @param simplifyGraph
+     *            Should the redundant internal dependencies be left out of the
+     *            SVG files.
+     */
+    private MvcAnalyzer(final Classifier model, final BayesNetModel bayesNetModel, final boolean simplifyGraph) {
+        this.model = model;
+        this.bayesNetModel = bayesNetModel;
+        this.simplifyGraph = simplifyGraph;
+        this.classifiers = new ConcurrentLinkedQueue<Classifier>();
+    }
+
+    /**
+     * Get the analyzer used by the static methods, built from the model
+     * distributed with Web2MexADL. It may be shared by concurrent analyses.
+     * 
+     * @return Default analyzer.
+     */
+    public static MvcAnalyzer getDefaultAnalyzer() {
+        return MvcAnalyzer.DEFAULT_ANALYZER;
+    }
+
+    /**
+     * Check whether this analyzer leaves the redundant internal dependencies
+     * out of the SVG files.
+     * 
+     * @return true if the exported graphs are simplified.
+     */
+    public boolean isSimplifyGraph() {
+        return this.simplifyGraph;
+    }
+
+    /**
+     * Read the model distributed with Web2MexADL, if this analyzer uses it and
+     * it hasn't been read yet. The analyses of this analyzer call it before
+     * scanning the classes; the model is read in microseconds, so it's no
+     * longer read in the background.
+     */
+    public void warmUp() {
+        if ((this.model == null) && (this.bayesNetModel == null)) {
+            Util.getModel();
+        }
+    }
+
     /**
      * Classify each class within the specified path into one of the layers of
      * the MVC pattern.
@@ -71,19 +247,70 @@ public class MvcAnalyzer {
      */
     public static Map<String, Layer> classifyClassesInDirectory(final File path, final boolean includeExternal,
             final File outputFile) throws Exception {
+        return MvcAnalyzer.classifyClassesInDirectory(path, includeExternal, outputFile, null);
+    }
+
+    /**
+     * Classify each class within the specified path into one of the layers of
+     * the MVC pattern.
+     * 
+     * @param path
+     *            Path to the directory containing the classes.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public static Map<String, Layer> classifyClassesInDirectory(final File path, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        return MvcAnalyzer.DEFAULT_ANALYZER.analyzeDirectory(path, includeExternal, outputFile, monitor);
+    }
+
+    /**
+     * Classify each class within the specified path into one of the layers of
+     * the MVC pattern, using the classifier of this analyzer.
+     * 
+     * @param path
+     *            Path to the directory containing the classes.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public Map<String, Layer> analyzeDirectory(final File path, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
         Map<String, Layer> returnValue;
         List<ClassDependencies> dependencies;
-        Map<String, Set<String>> internalPackages;
 
         // Classify each class in the specified path
-        dependencies = DependencyAnalyzer.getDirectoryDependencies(path.getAbsolutePath(), new MvcDependencyCommand());
-        internalPackages = DependenciesUtil.getInternalPackages(dependencies,
-                Util.getPropertyValues(Util.Variable.Type.getVariableName()));
-        returnValue = MvcAnalyzer.generateArchitecture(dependencies, internalPackages, outputFile.getParentFile());
+        this.warmUp();
+        AnalysisMetrics.startAnalysis("MVC", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencyAnalyzer.getDirectoryDependencies(path.getAbsolutePath(),
+                    new MvcDependencyCommand());
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
 
-        if (outputFile != null) {
-            DependenciesUtil.exportDependenciesToSVG(dependencies, includeExternal, outputFile, internalPackages,
-                    new MvcExportCommand(returnValue));
+            returnValue = this.analyzeDependencies(dependencies, null, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
         }
 
         return returnValue;
@@ -105,26 +332,354 @@ public class MvcAnalyzer {
      */
     public static Map<String, Layer> classifyClassesinWar(final File file, final boolean includeExternal,
             final File outputFile) throws Exception {
+        return MvcAnalyzer.classifyClassesinWar(file, includeExternal, outputFile, null);
+    }
+
+    /**
+     * Classify each class within the specified WAR file into one of the layers
+     * of the MVC pattern.
+     * 
+     * @param file
+     *            Path to the WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public static Map<String, Layer> classifyClassesinWar(final File file, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        return MvcAnalyzer.classifyClassesinWar(file, includeExternal, outputFile, monitor, null);
+    }
+
+    /**
+     * Classify each class within the specified WAR file into one of the layers
+     * of the MVC pattern. The dependencies of the embedded JAR files are
+     * taken from the specified cache, if they were already recovered.
+     * 
+     * @param file
+     *            Path to the WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @param jarCache
+     *            Cache of the dependencies of the JAR files embedded in the
+     *            WAR file, shared with the analyses of other WAR files, may be
+     *            null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public static Map<String, Layer> classifyClassesinWar(final File file, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor, final JarDependencyCache jarCache)
+            throws Exception {
+        return MvcAnalyzer.DEFAULT_ANALYZER.analyzeWar(file, includeExternal, outputFile, monitor, jarCache);
+    }
+
+    /**
+     * Classify each class within the specified WAR file into one of the layers
+     * of the MVC pattern, using the classifier of this analyzer. The
+     * dependencies of the embedded JAR files are taken from the specified
+     * cache, if they were already recovered.
+     * 
+     * @param file
+     *            Path to the WAR file.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @param jarCache
+     *            Cache of the dependencies of the JAR files embedded in the
+     *            WAR file, shared with the analyses of other WAR files, may be
+     *            null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public Map<String, Layer> analyzeWar(final File file, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor, final JarDependencyCache jarCache)
+            throws Exception {
+        long phaseStart;
         Map<String, Layer> returnValue;
         List<ClassDependencies> dependencies;
-        Map<String, Set<String>> internalPackages;
 
         // Classify each class in the specified war
-        dependencies = DependencyAnalyzer.getWarDependencies(file.getAbsolutePath(), new MvcDependencyCommand());
+        this.warmUp();
+        AnalysisMetrics.startAnalysis("MVC", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencyAnalyzer.getWarDependencies(file.getAbsolutePath(), jarCache,
+                    new MvcDependencyCommand());
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
 
-        // Remove the WEB-INF.classes prefix
-        for (ClassDependencies dependency : dependencies) {
-            dependency.setClassName(dependency.getClassName().replace("WEB-INF.classes.", ""));
-            dependency.setPackageName(dependency.getPackageName().replace("WEB-INF.classes.", ""));
+            returnValue = this.analyzeDependencies(dependencies, null, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Classify each class within the specified dependencies snapshot into one
+     * of the layers of the MVC pattern.
+     * 
+     * @param snapshotFile
+     *            Path to the snapshot file, see {@link DependencySnapshot}.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     */
+    public static Map<String, Layer> classifyClassesInSnapshot(final File snapshotFile, final boolean includeExternal,
+            final File outputFile) throws Exception {
+        return MvcAnalyzer.classifyClassesInSnapshot(snapshotFile, includeExternal, outputFile, null);
+    }
+
+    /**
+     * Classify each class within the specified dependencies snapshot into one
+     * of the layers of the MVC pattern.
+     * 
+     * @param snapshotFile
+     *            Path to the snapshot file, see {@link DependencySnapshot}.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public static Map<String, Layer> classifyClassesInSnapshot(final File snapshotFile, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        return MvcAnalyzer.DEFAULT_ANALYZER.analyzeSnapshot(snapshotFile, includeExternal, outputFile, monitor);
+    }
+
+    /**
+     * Classify each class within the specified dependencies snapshot into one
+     * of the layers of the MVC pattern, using the classifier of this analyzer.
+     * 
+     * @param snapshotFile
+     *            Path to the snapshot file, see {@link DependencySnapshot}.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public Map<String, Layer> analyzeSnapshot(final File snapshotFile, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
+        Map<String, Layer> returnValue;
+        List<ClassDependencies> dependencies;
+
+        this.warmUp();
+        AnalysisMetrics.startAnalysis("MVC", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = DependencySnapshot.read(snapshotFile);
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            returnValue = this.analyzeDependencies(dependencies, null, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Classify each class within the specified off-heap dependencies store
+     * into one of the layers of the MVC pattern.
+     * 
+     * @param store
+     *            Dependencies store, see
+     *            {@link DependencyAnalyzer#getDirectoryDependencies(String, DependencyStore, mx.itesm.web2mexadl.dependencies.DependencyCommand...)}
+     *            .
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     */
+    public static Map<String, Layer> classifyClassesInStore(final DependencyStore store, final boolean includeExternal,
+            final File outputFile) throws Exception {
+        return MvcAnalyzer.classifyClassesInStore(store, includeExternal, outputFile, null);
+    }
+
+    /**
+     * Classify each class within the specified off-heap dependencies store
+     * into one of the layers of the MVC pattern.
+     * 
+     * @param store
+     *            Dependencies store, see
+     *            {@link DependencyAnalyzer#getDirectoryDependencies(String, DependencyStore, mx.itesm.web2mexadl.dependencies.DependencyCommand...)}
+     *            .
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public static Map<String, Layer> classifyClassesInStore(final DependencyStore store, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        return MvcAnalyzer.DEFAULT_ANALYZER.analyzeStore(store, includeExternal, outputFile, monitor);
+    }
+
+    /**
+     * Classify each class within the specified off-heap dependencies store
+     * into one of the layers of the MVC pattern, using the classifier of this
+     * analyzer.
+     * 
+     * @param store
+     *            Dependencies store, see
+     *            {@link DependencyAnalyzer#getDirectoryDependencies(String, DependencyStore, mx.itesm.web2mexadl.dependencies.DependencyCommand...)}
+     *            .
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @param monitor
+     *            Progress monitor and cancellation token of the analysis, may
+     *            be null.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis is canceled through the monitor.
+     */
+    public Map<String, Layer> analyzeStore(final DependencyStore store, final boolean includeExternal,
+            final File outputFile, final AnalysisMonitor monitor) throws Exception {
+        long phaseStart;
+        Map<String, Layer> returnValue;
+        List<ClassDependencies> dependencies;
+
+        this.warmUp();
+        AnalysisMetrics.startAnalysis("MVC", monitor);
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            dependencies = store.asList();
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            returnValue = this.analyzeDependencies(dependencies, null, includeExternal, outputFile);
+        } finally {
+            AnalysisMetrics.endAnalysis();
         }
 
-        internalPackages = DependenciesUtil.getInternalPackages(dependencies,
+        return returnValue;
+    }
+
+    /**
+     * Classify each class within the specified dependencies, using the
+     * classifier of this analyzer.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @param classification
+     *            Classification layer already known for each class, or null
+     *            if the classes must be classified.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     */
+    Map<String, Layer> analyzeDependencies(final List<ClassDependencies> dependencies,
+            final Map<String, Layer> classification, final boolean includeExternal, final File outputFile)
+            throws Exception {
+        long phaseStart;
+        Map<String, Set<String>> internalPackages;
+
+        // Remove the WEB-INF.classes prefix
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Grouping);
+        internalPackages = DependenciesUtil.groupWebDependencies(dependencies,
                 Util.getPropertyValues(Util.Variable.Type.getVariableName()));
-        returnValue = MvcAnalyzer.generateArchitecture(dependencies, internalPackages, outputFile.getParentFile());
+        AnalysisMetrics.endPhase(AnalysisPhase.Grouping, phaseStart);
+
+        return this.analyzeGroupedDependencies(dependencies, classification, internalPackages, includeExternal,
+                outputFile);
+    }
+
+    /**
+     * Classify each class within the specified dependencies, already grouped
+     * by their internal packages, see
+     * {@link DependenciesUtil#groupWebDependencies(List, String[])}, using the
+     * classifier of this analyzer. The dependencies and the known
+     * classification are only read, so they can be classified at the same
+     * time by other analyses.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @param classification
+     *            Classification layer already known for each class, or null
+     *            if the classes must be classified.
+     * @param internalPackages
+     *            Project's internal packages.
+     * @param includeExternal
+     *            Should the external dependencies be exported.
+     * @param outputFile
+     *            File where to export the classification results.
+     * @return Map containing the classification results for each class.
+     * @throws Exception
+     *             If an Exception occurs during classification.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
+     */
+    public Map<String, Layer> analyzeGroupedDependencies(final List<ClassDependencies> dependencies,
+            final Map<String, Layer> classification, final Map<String, Set<String>> internalPackages,
+            final boolean includeExternal, final File outputFile) throws Exception {
+        Map<String, Layer> returnValue;
+
+        returnValue = this.generateArchitecture(dependencies, classification, internalPackages,
+                outputFile.getParentFile());
 
         if (outputFile != null) {
-            DependenciesUtil.exportDependenciesToSVG(dependencies, includeExternal, outputFile, internalPackages,
-                    new MvcExportCommand(returnValue));
+            DependenciesUtil.exportDependenciesToSVG(dependencies, includeExternal, this.simplifyGraph, outputFile,
+                    internalPackages, new MvcExportCommand(returnValue));
         }
 
         return returnValue;
@@ -136,150 +691,298 @@ public class MvcAnalyzer {
      * 
      * @param dependencies
      *            List containing the dependencies for each class to classify.
+     * @param classification
+     *            Classification layer already known for each class, or null
+     *            if the classes must be classified. This map isn't modified.
      * @param internalPackages
      *            Project's internal packages.
      * @return Map containing the classification layer for each class.
      * @throws Exception
      *             If an Exception occurs during classification.
      */
-    private static Map<String, Layer> generateArchitecture(final List<ClassDependencies> dependencies,
-            final Map<String, Set<String>> internalPackages, final File outputDir) throws Exception {
-        int viewCount;
-        int modelCount;
-        int instanceLayer;
-        Instance instance;
-        boolean valueFound;
-        int controllerCount;
-        Instances instances;
-        String instanceType;
-        String[] typeValues;
-        Layer componentLayer;
-        String[] suffixValues;
-        Layer dependencyLayer;
-        FastVector attributes;
-        String[] externalApiValues;
+    private Map<String, Layer> generateArchitecture(final List<ClassDependencies> dependencies,
+            final Map<String, Layer> classification, final Map<String, Set<String>> internalPackages,
+            final File outputDir) throws Exception {
+        long phaseStart;
         Map<String, Layer> returnValue;
-        Set<String> currentPackageContent;
-        Map<String, Layer> packagesClassification;
-        Map<String, String[]> externalApiPackages;
         StringBuilder modelPackages;
         StringBuilder viewPackages;
         StringBuilder controllerPackages;
+        Map<String, Layer> packagesClassification;
 
-        // Model variables
-        attributes = new FastVector();
-        for (Variable variable : Variable.values()) {
-            attributes.addElement(variable.getAttribute());
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Classification);
+        if (classification != null) {
+            // The invalid relations are marked on a copy, the caller's map is
+            // only read
+            returnValue = new HashMap<String, Layer>(classification);
+        } else {
+            returnValue = this.classify(dependencies);
         }
 
-        // Layer variable
-        attributes.addElement(Layer.attribute);
+        // Check for any invalid relation
+        viewPackages = new StringBuilder();
+        modelPackages = new StringBuilder();
+        controllerPackages = new StringBuilder();
+        packagesClassification = MvcAnalyzer.classifyPackages(internalPackages, returnValue, modelPackages,
+                controllerPackages, viewPackages);
+        MvcAnalyzer.checkRelations(dependencies, returnValue, packagesClassification);
+        AnalysisMetrics.endPhase(AnalysisPhase.Classification, phaseStart);
 
-        // Set the test instances, the Layer variable is unknown
-        instances = new Instances("mvc", attributes, 0);
-        instances.setClassIndex(Variable.values().length);
-
-        // Valid suffixes to look for in the class names
-        suffixValues = Util.getPropertyValues(Util.Variable.Suffix.getVariableName());
-
-        // Valid file types to look for in the component names
-        typeValues = Util.getPropertyValues(Util.Variable.Type.getVariableName());
-
-        // Valid external api packages to look for in the classes dependencies
-        externalApiValues = Util.getPropertyValues(Util.Variable.ExternalAPI.getVariableName());
-        externalApiPackages = new HashMap<String, String[]>(externalApiValues.length);
-        for (int i = 0; i < externalApiValues.length; i++) {
-            if (!externalApiValues[i].equals("none")) {
-                externalApiPackages.put(externalApiValues[i],
-                        Util.getPropertyValues("externalApi." + externalApiValues[i] + ".packages"));
-            }
+        // Export MexADL architecture
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Export);
+        MvcAnalyzer.exportToMexADL(outputDir, modelPackages.toString(), controllerPackages.toString(),
+                viewPackages.toString());
+        AnalysisMetrics.endPhase(AnalysisPhase.Export, phaseStart);
+
+        return returnValue;
+    }
+
+    /**
+     * Classify each one of the specified classes into one of the layers of
+     * the MVC pattern, according to the values of the Uncertainty model
+     * variables.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @return Map containing the classification layer for each class.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
+     */
+    public static Map<String, Layer> classifyClasses(final List<ClassDependencies> dependencies) {
+        return MvcAnalyzer.DEFAULT_ANALYZER.classify(dependencies);
+    }
+
+    /**
+     * Classify each one of the specified classes into one of the layers of
+     * the MVC pattern, according to the values of the Uncertainty model
+     * variables. If this analyzer uses a Weka classifier, the classification
+     * uses a copy of it that's not used by any other classification at the
+     * same time.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @return Map containing the classification layer for each class.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
+     */
+    public Map<String, Layer> classify(final List<ClassDependencies> dependencies) {
+        Object[] contexts;
+        Map<String, Layer> returnValue;
+
+        contexts = AnalysisMetrics.startClassification();
+        if (this.model != null) {
+            returnValue = this.classifyWithClassifier(dependencies);
+        } else {
+            returnValue = this.classifyWithModel(dependencies,
+                    (this.bayesNetModel != null) ? this.bayesNetModel : Util.getModel());
         }
+        AnalysisMetrics.endClassification(contexts, returnValue.size());
+
+        return returnValue;
+    }
+
+    /**
+     * Classify each one of the specified classes with the Bayesian network
+     * model.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @param model
+     *            Bayesian network model, may be null if it couldn't be read.
+     * @return Map containing the classification layer for each class.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
+     */
+    private Map<String, Layer> classifyWithModel(final List<ClassDependencies> dependencies,
+            final BayesNetModel model) {
+        int node;
+        byte[] features;
+        int[] instance;
+        int instanceLayer;
+        int[] variableNodes;
+        Map<String, Layer> returnValue;
+        FeatureExtractor featureExtractor;
 
+        featureExtractor = new FeatureExtractor();
         returnValue = new HashMap<String, Layer>(dependencies.size());
-        for (ClassDependencies classDependencies : dependencies) {
-            // Variables + Layer
-            instance = new Instance(Variable.values().length + 1);
-
-            // Type
-            instanceType = "java";
-            for (String validType : typeValues) {
-                if (classDependencies.getClassName().endsWith("." + validType)) {
-                    instanceType = validType;
-                    break;
+        instance = null;
+        variableNodes = null;
+        if (model != null) {
+            instance = new int[model.getNodeCount()];
+            variableNodes = new int[Variable.values().length];
+            for (Variable variable : Variable.values()) {
+                variableNodes[variable.ordinal()] = model.getNodeIndex(variable.toString());
+                if (variableNodes[variable.ordinal()] < 0) {
+                    throw new IllegalStateException("Variable not defined in the MVC model: " + variable);
                 }
             }
-            instance.setValue(Variable.Type.getAttribute(), instanceType);
+        }
 
-            // ExternalAPI
-            valueFound = false;
-            externalApi: for (String externalApi : externalApiValues) {
-                if (externalApi.equals("none")) {
-                    continue;
-                }
+        for (ClassDependencies classDependencies : dependencies) {
+            AnalysisMetrics.checkCanceled();
 
-                // Check if any of the class' external dependencies match with
-                // one of the key external dependencies
-                if (classDependencies.getExternalDependencies() != null) {
-                    for (String externalDependency : classDependencies.getExternalDependencies()) {
-                        for (String externalPackage : externalApiPackages.get(externalApi)) {
-                            if (externalDependency.toLowerCase().startsWith(externalPackage)) {
-                                valueFound = true;
-                                instance.setValue(Variable.ExternalAPI.getAttribute(), externalApi);
-                                break externalApi;
-                            }
-                        }
+            instanceLayer = -1;
+            if (model != null) {
+                // Type, ExternalAPI, Suffix
+                features = featureExtractor.getFeatures(classDependencies);
+                for (Variable variable : Variable.values()) {
+                    node = variableNodes[variable.ordinal()];
+                    instance[node] = model.getValueIndex(node,
+                            featureExtractor.getValue(variable, features[variable.ordinal()]));
+                    if (instance[node] < 0) {
+                        throw new IllegalArgumentException("Value not defined in the MVC model: "
+                                + featureExtractor.getValue(variable, features[variable.ordinal()]));
                     }
                 }
+
+                instanceLayer = model.classify(instance);
             }
 
-            // No key external dependency found
-            if (!valueFound) {
-                instance.setValue(Variable.ExternalAPI.getAttribute(), "none");
+            if (instanceLayer < 0) {
+                // Default value
+                instanceLayer = 0;
+                logger.severe("Unable to classify: " + classDependencies.getClassName());
             }
 
-            // Suffix
-            valueFound = false;
-            for (String suffix : suffixValues) {
-                if (classDependencies.getClassName().toLowerCase().endsWith(suffix)) {
-                    valueFound = true;
-                    instance.setValue(Variable.Suffix.getAttribute(), suffix);
-                    break;
+            returnValue.put(classDependencies.getClassName(), Layer.values()[instanceLayer]);
+            logger.info(classDependencies.getClassName() + " : " + returnValue.get(classDependencies.getClassName()));
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Classify each one of the specified classes with a copy of the Weka
+     * classifier.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class to classify.
+     * @return Map containing the classification layer for each class.
+     * @throws CancellationException
+     *             If the analysis run by the current thread is canceled.
+     */
+    private Map<String, Layer> classifyWithClassifier(final List<ClassDependencies> dependencies) {
+        byte[] features;
+        int instanceLayer;
+        Instance instance;
+        Instances instances;
+        Classifier classifier;
+        Map<String, Layer> returnValue;
+        FeatureExtractor featureExtractor;
+
+        // Set the test instances, the Layer variable is unknown
+        instances = new Instances(InstancesHeader.HEADER, 0);
+
+        featureExtractor = new FeatureExtractor();
+        returnValue = new HashMap<String, Layer>(dependencies.size());
+        classifier = this.borrowClassifier();
+        try {
+            for (ClassDependencies classDependencies : dependencies) {
+                AnalysisMetrics.checkCanceled();
+
+                // Variables + Layer
+                instance = new Instance(Variable.values().length + 1);
+
+                // Type, ExternalAPI, Suffix
+                features = featureExtractor.getFeatures(classDependencies);
+                for (Variable variable : Variable.values()) {
+                    instance.setValue(variable.getAttribute(),
+                            featureExtractor.getValue(variable, features[variable.ordinal()]));
                 }
-            }
 
-            // No key suffix found
-            if (!valueFound) {
-                instance.setValue(Variable.Suffix.getAttribute(), "none");
+                // Layer, the unknown variable
+                instance.setMissing(Layer.getAttribute());
+                instances.add(instance);
+                instance.setDataset(instances);
+
+                try {
+                    instanceLayer = (int) classifier.classifyInstance(instance);
+                } catch (Exception e) {
+                    // Default value
+                    instanceLayer = 0;
+                    logger.severe("Unable to classify: " + instance);
+                }
+
+                returnValue.put(classDependencies.getClassName(), Layer.values()[instanceLayer]);
+                logger.info(classDependencies.getClassName() + " : "
+                        + returnValue.get(classDependencies.getClassName()));
             }
+        } finally {
+            this.releaseClassifier(classifier);
+        }
 
-            // Layer, the unknown variable
-            instance.setMissing(Layer.attribute);
-            instances.add(instance);
-            instance.setDataset(instances);
+        return returnValue;
+    }
 
+    /**
+     * Get a copy of the model's classifier for the exclusive use of a
+     * classification, reusing one of the copies released by previous
+     * classifications if possible.
+     * 
+     * @return Classifier copy.
+     */
+    private Classifier borrowClassifier() {
+        Classifier returnValue;
+
+        returnValue = this.classifiers.poll();
+        if (returnValue == null) {
             try {
-                instanceLayer = (int) Util.classifier.classifyInstance(instance);
+                returnValue = Classifier.makeCopy(this.model);
             } catch (Exception e) {
-                // Default value
-                instanceLayer = 0;
-                logger.severe("Unable to classify: " + instance);
+                throw new IllegalStateException("Unable to copy the MVC classifier", e);
             }
+        }
 
-            returnValue.put(classDependencies.getClassName(), Layer.values()[instanceLayer]);
-            logger.info(classDependencies.getClassName() + " : " + returnValue.get(classDependencies.getClassName()));
+        return returnValue;
+    }
+
+    /**
+     * Release a copy of the model's classifier once a classification has
+     * finished, so it can be reused by the next ones.
+     * 
+     * @param classifier
+     *            Classifier copy, may be null.
+     */
+    private void releaseClassifier(final Classifier classifier) {
+        if (classifier != null) {
+            this.classifiers.offer(classifier);
         }
+    }
 
-        // Check for any invalid relation
-        viewPackages = new StringBuilder();
-        modelPackages = new StringBuilder();
-        controllerPackages = new StringBuilder();
-        packagesClassification = new HashMap<String, Layer>(internalPackages.size());
+    /**
+     * Classify each one of the specified packages into the layer that is most
+     * common between its classes. A package is left unclassified (null) if
+     * there's no single most common layer.
+     * 
+     * @param internalPackages
+     *            Project's internal packages.
+     * @param classification
+     *            Classification layer for each class.
+     * @param modelPackages
+     *            Builder where to add the packages classified as Model.
+     * @param controllerPackages
+     *            Builder where to add the packages classified as Controller.
+     * @param viewPackages
+     *            Builder where to add the packages classified as View.
+     * @return Map containing the classification layer for each package.
+     */
+    public static Map<String, Layer> classifyPackages(final Map<String, Set<String>> internalPackages,
+            final Map<String, Layer> classification, final StringBuilder modelPackages,
+            final StringBuilder controllerPackages, final StringBuilder viewPackages) {
+        int viewCount;
+        int modelCount;
+        int controllerCount;
+        Layer componentLayer;
+        Map<String, Layer> returnValue;
+        Set<String> currentPackageContent;
+
+        returnValue = new HashMap<String, Layer>(internalPackages.size());
         for (String currentPackage : internalPackages.keySet()) {
             modelCount = viewCount = controllerCount = 0;
             currentPackageContent = internalPackages.get(currentPackage);
 
             for (String component : currentPackageContent) {
-                componentLayer = returnValue.get(component);
+                componentLayer = classification.get(component);
                 if (componentLayer == Layer.Model) {
                     modelCount++;
                 } else if (componentLayer == Layer.View) {
@@ -290,30 +993,56 @@ public class MvcAnalyzer {
             }
 
             if ((modelCount > viewCount) && (modelCount > controllerCount)) {
-                packagesClassification.put(currentPackage, Layer.Model);
+                returnValue.put(currentPackage, Layer.Model);
                 Util.addImplementationPackage(modelPackages, currentPackage);
             } else if ((viewCount > modelCount) && (viewCount > controllerCount)) {
-                packagesClassification.put(currentPackage, Layer.View);
+                returnValue.put(currentPackage, Layer.View);
                 Util.addImplementationPackage(viewPackages, currentPackage);
             } else if ((controllerCount > viewCount) && (controllerCount > modelCount)) {
-                packagesClassification.put(currentPackage, Layer.Controller);
+                returnValue.put(currentPackage, Layer.Controller);
                 Util.addImplementationPackage(controllerPackages, currentPackage);
             } else {
-                packagesClassification.put(currentPackage, null);
+                returnValue.put(currentPackage, null);
             }
         }
 
+        return returnValue;
+    }
+
+    /**
+     * Mark as invalid the classes that have a relation not allowed by the MVC
+     * pattern, either with one of their internal dependencies, or with the
+     * layer of their package.
+     * 
+     * @param dependencies
+     *            List containing the dependencies for each class.
+     * @param classification
+     *            Classification layer for each class, updated with the
+     *            invalid classes.
+     * @param packagesClassification
+     *            Classification layer for each package.
+     */
+    public static void checkRelations(final List<ClassDependencies> dependencies,
+            final Map<String, Layer> classification, final Map<String, Layer> packagesClassification) {
+        boolean valueFound;
+        Layer componentLayer;
+        Layer dependencyLayer;
+
         for (ClassDependencies classDependencies : dependencies) {
             // Code relations
             valueFound = false;
-            componentLayer = returnValue.get(classDependencies.getClassName());
+            componentLayer = classification.get(classDependencies.getClassName());
             if (classDependencies.getInternalDependencies() != null) {
                 for (String internalDependency : classDependencies.getInternalDependencies()) {
-                    dependencyLayer = returnValue.get(internalDependency);
+                    dependencyLayer = classification.get(internalDependency);
 
                     if (!componentLayer.isValidRelation(dependencyLayer)) {
+                        if (!valueFound) {
+                            AnalysisMetrics.addViolation();
+                        }
                         valueFound = true;
-                        returnValue.put(classDependencies.getClassName(), Layer.valueOf("Invalid" + componentLayer));
+                        classification.put(classDependencies.getClassName(),
+                                Layer.valueOf("Invalid" + componentLayer));
                         logger.info("Invalid relation detected between: " + classDependencies.getClassName() + " and "
                                 + internalDependency);
                     }
@@ -325,16 +1054,11 @@ public class MvcAnalyzer {
                 dependencyLayer = packagesClassification.get(classDependencies.getPackageName());
 
                 if ((dependencyLayer != null) && (componentLayer != dependencyLayer)) {
-                    returnValue.put(classDependencies.getClassName(), Layer.valueOf("Invalid" + componentLayer));
+                    AnalysisMetrics.addViolation();
+                    classification.put(classDependencies.getClassName(), Layer.valueOf("Invalid" + componentLayer));
                 }
             }
         }
-
-        // Export MexADL architecture
-        MvcAnalyzer.exportToMexADL(outputDir, modelPackages.toString(), controllerPackages.toString(),
-                viewPackages.toString());
-
-        return returnValue;
     }
 
     /**
@@ -365,4 +1089,33 @@ public class MvcAnalyzer {
         // Final architecture
         FileUtils.write(outputFile, outputContents);
     }
+
+    /**
+     * Header of the instances classified by Weka classifiers: the Uncertainty
+     * model variables followed by the Layer variable. It's never modified
+     * once created, each classification adds its instances to a copy of it.
+     * It's only created if a Weka classifier is used.
+     */
+    private static class InstancesHeader {
+
+        /**
+         * Instances header.
+         */
+        private static final Instances HEADER;
+
+        static {
+            FastVector attributes;
+
+            // Model variables
+            attributes = new FastVector(Variable.values().length + 1);
+            for (Variable variable : Variable.values()) {
+                attributes.addElement(variable.getAttribute());
+            }
+
+            // Layer variable
+            attributes.addElement(Layer.getAttribute());
+            HEADER = new Instances("mvc", attributes, 0);
+            InstancesHeader.HEADER.setClassIndex(Variable.values().length);
+        }
+    }
 }
@@ -21,7 +21,6 @@ package mx.itesm.web2mexadl.mvc;
 import java.util.Map;
 
 import mx.itesm.web2mexadl.dependencies.ClassDependencies;
-import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
 import mx.itesm.web2mexadl.dependencies.ExportCommand;
 
 /**
@@ -57,8 +56,7 @@ public class MvcExportCommand implements ExportCommand {
             classLayer = classifications.get(classDependencies.getClassName());
 
             if (classLayer != null) {
-                returnValue = "\n\t" + DependenciesUtil.getDotValidName(classDependencies.getClassName())
-                        + " [color=\"" + classLayer.getRgbColor() + "\",style=\"" + classLayer.getStyle() + "\"];\n";
+                returnValue = "color=\"" + classLayer.getRgbColor() + "\",style=\"" + classLayer.getStyle() + "\"";
             }
         }
 
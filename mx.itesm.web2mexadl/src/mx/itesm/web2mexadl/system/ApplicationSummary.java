@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.system;
+
+import java.io.File;
+import java.util.Arrays;
+
+import mx.itesm.web2mexadl.dependencies.SymbolTable;
+
+/**
+ * Summary of the dependencies of a single application, as needed to link it
+ * with the rest of the system. Packages and JAR files are referenced by their
+ * identifiers in the {@link SymbolTable} shared by the whole system, as sorted
+ * arrays, so the class dependencies of the application don't have to be kept
+ * in memory.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ApplicationSummary {
+
+    /**
+     * Application name.
+     */
+    private String name;
+
+    /**
+     * WAR file or classes directory.
+     */
+    private File artifact;
+
+    /**
+     * Number of classes in the application.
+     */
+    private int classesCount;
+
+    /**
+     * Packages that contain the application classes.
+     */
+    private int[] definedPackages;
+
+    /**
+     * Packages referenced by the application classes, other than the defined
+     * ones.
+     */
+    private int[] usedPackages;
+
+    /**
+     * JAR files embedded in the application.
+     */
+    private int[] libraries;
+
+    /**
+     * Full constructor.
+     * 
+     * @param name
+     *            Application name.
+     * @param artifact
+     *            WAR file or classes directory.
+     * @param classesCount
+     *            Number of classes in the application.
+     * @param definedPackages
+     *            Identifiers of the packages that contain the application
+     *            classes.
+     * @param usedPackages
+     *            Identifiers of the packages referenced by the application
+     *            classes, other than the defined ones.
+     * @param libraries
+     *            Identifiers of the JAR files embedded in the application.
+     */
+    public ApplicationSummary(final String name, final File artifact, final int classesCount,
+            final int[] definedPackages, final int[] usedPackages, final int[] libraries) {
+        this.name = name;
+        this.artifact = artifact;
+        this.classesCount = classesCount;
+        this.definedPackages = definedPackages;
+        this.usedPackages = usedPackages;
+        this.libraries = libraries;
+
+        Arrays.sort(this.definedPackages);
+        Arrays.sort(this.usedPackages);
+        Arrays.sort(this.libraries);
+    }
+
+    /**
+     * Get the application name.
+     * 
+     * @return Application name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the analyzed artifact.
+     * 
+     * @return WAR file or classes directory.
+     */
+    public File getArtifact() {
+        return this.artifact;
+    }
+
+    /**
+     * Get the number of classes in the application.
+     * 
+     * @return Classes count.
+     */
+    public int getClassesCount() {
+        return this.classesCount;
+    }
+
+    /**
+     * Get the packages that contain the application classes.
+     * 
+     * @return Sorted package identifiers.
+     */
+    public int[] getDefinedPackages() {
+        return this.definedPackages;
+    }
+
+    /**
+     * Get the packages referenced by the application classes, other than the
+     * defined ones.
+     * 
+     * @return Sorted package identifiers.
+     */
+    public int[] getUsedPackages() {
+        return this.usedPackages;
+    }
+
+    /**
+     * Get the JAR files embedded in the application.
+     * 
+     * @return Sorted JAR file name identifiers.
+     */
+    public int[] getLibraries() {
+        return this.libraries;
+    }
+
+    /**
+     * Determine if the application contains classes of the specified package.
+     * 
+     * @param packageId
+     *            Package identifier.
+     * @return true if the package is defined by the application.
+     */
+    public boolean definesPackage(final int packageId) {
+        return Arrays.binarySearch(this.definedPackages, packageId) >= 0;
+    }
+}
@@ -0,0 +1,795 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.system;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import mx.itesm.web2mexadl.batch.BatchAnalyzer;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.JarDependencyCache;
+import mx.itesm.web2mexadl.dependencies.SymbolTable;
+import mx.itesm.web2mexadl.metrics.AnalysisMetrics;
+import mx.itesm.web2mexadl.metrics.AnalysisPhase;
+import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+import mx.itesm.web2mexadl.util.Util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.jdom.Comment;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.Namespace;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.XMLOutputter;
+
+/**
+ * Analyzer of systems made of several web applications. The WAR files and
+ * classes directories of the system are scanned concurrently, and each one is
+ * reduced to an {@link ApplicationSummary}. The names found by the scans,
+ * including the package and JAR file names of the summaries, are kept in a
+ * {@link SymbolTable} shared by the whole system. The summaries are then
+ * combined into a {@link SystemGraph}, exported as a system-level MexADL
+ * architecture and as a summarized SVG image.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class SystemAnalyzer {
+
+    /**
+     * Class logger.
+     */
+    private static Logger logger = Logger.getLogger(SystemAnalyzer.class.getName());
+
+    /**
+     * xADL instance namespace.
+     */
+    private static final Namespace XADL_INSTANCE_NAMESPACE = Namespace.getNamespace("instance",
+            "http://www.ics.uci.edu/pub/arch/xArch/instance.xsd");
+
+    /**
+     * XML Schema instance namespace.
+     */
+    private static final Namespace XSI_NAMESPACE = Namespace.getNamespace("xsi",
+            "http://www.w3.org/2001/XMLSchema-instance");
+
+    /**
+     * XLink namespace.
+     */
+    private static final Namespace XLINK_NAMESPACE = Namespace.getNamespace("xlink", "http://www.w3.org/1999/xlink");
+
+    /**
+     * xADL implementation namespace.
+     */
+    private static final Namespace XADL_IMPLEMENTATION_NAMESPACE = Namespace.getNamespace("implementation",
+            "http://www.ics.uci.edu/pub/arch/xArch/implementation.xsd");
+
+    /**
+     * Prefix of the classes within the WEB-INF/classes directory of a WAR
+     * file.
+     */
+    private static final String CLASSES_PREFIX = "WEB-INF.classes.";
+
+    /**
+     * Directory of the JAR files embedded in a WAR file.
+     */
+    private static final String LIBRARIES_DIRECTORY = "WEB-INF/lib/";
+
+    /**
+     * Maximum number of applications scanned at the same time.
+     */
+    private int threads;
+
+    /**
+     * Cache of the dependencies of the JAR files embedded in the WAR files,
+     * may be null.
+     */
+    private JarDependencyCache jarCache;
+
+    /**
+     * Table of the names found by the scans of the applications, including
+     * the package and JAR file names referenced by them.
+     */
+    private SymbolTable symbols;
+
+    /**
+     * Full constructor.
+     * 
+     * @param threads
+     *            Maximum number of applications scanned at the same time.
+     * @param jarCache
+     *            Cache of the dependencies of the JAR files embedded in the
+     *            WAR files, may be null.
+     */
+    public SystemAnalyzer(final int threads, final JarDependencyCache jarCache) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+
+        this.threads = threads;
+        this.jarCache = jarCache;
+        this.symbols = new SymbolTable();
+    }
+
+    /**
+     * Analyze a system made of several applications.
+     * 
+     * @param args
+     *            Inputs and options, as described in the usage message.
+     * @throws Exception
+     *             If the inputs can't be read or analyzed.
+     */
+    public static void main(final String[] args) throws Exception {
+        int threads;
+        Logger logger;
+        String option;
+        SystemGraph graph;
+        List<File> inputs;
+        File outputDirectory;
+        File cacheDirectory;
+        List<File> artifacts;
+        SystemAnalyzer systemAnalyzer;
+
+        threads = Runtime.getRuntime().availableProcessors();
+        cacheDirectory = null;
+        outputDirectory = new File("web2mexadl-system");
+        inputs = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            option = args[i];
+            if (!option.startsWith("-")) {
+                inputs.add(new File(option));
+                continue;
+            }
+
+            if ((i + 1) >= args.length) {
+                SystemAnalyzer.exitWithUsage("Missing value for option: " + option);
+            }
+
+            if (option.equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (option.equals("-output")) {
+                outputDirectory = new File(args[++i]);
+            } else if (option.equals("-jarCache")) {
+                cacheDirectory = new File(args[++i]);
+            } else {
+                SystemAnalyzer.exitWithUsage("Unknown option: " + option);
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            SystemAnalyzer.exitWithUsage("No WAR files or classes directories specified");
+        }
+
+        // The dependency analyzer logs a line per class
+        logger = Logger.getLogger("mx.itesm.web2mexadl");
+        logger.setLevel(Level.WARNING);
+
+        systemAnalyzer = null;
+        try {
+            systemAnalyzer = new SystemAnalyzer(threads, new JarDependencyCache(cacheDirectory));
+        } catch (IllegalArgumentException e) {
+            SystemAnalyzer.exitWithUsage(e.getMessage());
+        }
+
+        artifacts = null;
+        try {
+            artifacts = BatchAnalyzer.getArtifacts(inputs);
+        } catch (FileNotFoundException e) {
+            SystemAnalyzer.exitWithUsage(e.getMessage());
+        }
+
+        FileUtils.forceMkdir(outputDirectory);
+        graph = systemAnalyzer.analyze(artifacts, new File(outputDirectory, "system.svg"));
+        for (ApplicationSummary application : graph.getApplications()) {
+            System.out.println(application.getName() + ": " + application.getClassesCount() + " classes, "
+                    + application.getDefinedPackages().length + " packages, " + application.getLibraries().length
+                    + " embedded JAR files");
+        }
+        System.out.println(graph.getSharedPackages().size() + " shared packages groups, "
+                + graph.getSharedLibraries().size() + " shared JAR files groups, "
+                + systemAnalyzer.symbols.size() + " distinct names");
+    }
+
+    /**
+     * Print the usage and exit.
+     * 
+     * @param message
+     *            Error message.
+     */
+    private static void exitWithUsage(final String message) {
+        System.err.println(message);
+        System.err.println("Usage: SystemAnalyzer [-threads n] [-output dir] [-jarCache dir] input...");
+        System.err.println("Each input is a WAR file, a classes directory, a directory containing WAR files, "
+                + "or a text file listing one input per line.");
+        System.exit(1);
+    }
+
+    /**
+     * Analyze the specified applications as a single system. The summarized
+     * graph is rendered to the specified SVG image, and the system
+     * architecture is written to <em>systemArchitecture.xml</em>, in the same
+     * directory.
+     * 
+     * @param artifacts
+     *            WAR files and classes directories of the system.
+     * @param outputFile
+     *            SVG image.
+     * @return System graph.
+     * @throws Exception
+     *             If an application can't be analyzed.
+     */
+    public SystemGraph analyze(final List<File> artifacts, final File outputFile) throws Exception {
+        File dotFile;
+        String fileName;
+        SystemGraph returnValue;
+
+        // Validate arguments
+        if ((outputFile == null) || (!outputFile.getAbsolutePath().endsWith(".svg"))) {
+            throw new IllegalArgumentException("Not a svg file: " + outputFile);
+        }
+
+        returnValue = new SystemGraph(this.scanApplications(artifacts), this.symbols);
+
+        fileName = outputFile.getName().substring(0, outputFile.getName().indexOf('.'));
+        dotFile = new File(outputFile.getParentFile(), fileName + ".dot");
+        SystemAnalyzer.exportToDot(returnValue, dotFile);
+        DependenciesUtil.renderDotFile(dotFile, outputFile);
+        SystemAnalyzer.exportToMexADL(outputFile.getParentFile(), returnValue);
+
+        return returnValue;
+    }
+
+    /**
+     * Scan the specified applications, at most {@link #threads} at the same
+     * time.
+     * 
+     * @param artifacts
+     *            WAR files and classes directories of the system.
+     * @return Summary of each application, in the same order as the
+     *         artifacts.
+     * @throws Exception
+     *             If an application can't be scanned. The pending scans are
+     *             canceled.
+     */
+    public List<ApplicationSummary> scanApplications(final List<File> artifacts) throws Exception {
+        final List<String> names;
+        ExecutorService executor;
+        List<ApplicationSummary> returnValue;
+        List<Future<ApplicationSummary>> futures;
+
+        names = BatchAnalyzer.getArtifactNames(artifacts);
+        executor = Executors.newFixedThreadPool(this.threads);
+        futures = new ArrayList<Future<ApplicationSummary>>(artifacts.size());
+        returnValue = new ArrayList<ApplicationSummary>(artifacts.size());
+        try {
+            for (int i = 0; i < artifacts.size(); i++) {
+                final int index = i;
+                futures.add(executor.submit(new Callable<ApplicationSummary>() {
+                    @Override
+                    public ApplicationSummary call() throws Exception {
+                        return SystemAnalyzer.this.scanApplication(names.get(index), artifacts.get(index));
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    returnValue.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    SystemAnalyzer.logger.log(Level.SEVERE, "Error scanning " + artifacts.get(i), e.getCause());
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Scan a single application, keeping only the packages it defines and
+     * uses, and the JAR files it embeds.
+     * 
+     * @param name
+     *            Application name.
+     * @param artifact
+     *            WAR file or classes directory.
+     * @return Application summary.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private ApplicationSummary scanApplication(final String name, final File artifact) throws IOException {
+        int classesCount;
+        long phaseStart;
+        String packageName;
+        int[] libraries;
+        Set<Integer> usedPackages;
+        Set<Integer> definedPackages;
+        List<ClassDependencies> dependencies;
+
+        AnalysisMetrics.startAnalysis("System");
+        try {
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+            if (artifact.isDirectory()) {
+                dependencies = DependencyAnalyzer.getDirectoryDependencies(artifact.getAbsolutePath(),
+                        this.symbols, new MvcDependencyCommand());
+                libraries = new int[0];
+            } else {
+                dependencies = DependencyAnalyzer.getWarDependencies(artifact.getAbsolutePath(), this.jarCache,
+                        this.symbols, new MvcDependencyCommand());
+                libraries = this.getLibraries(artifact);
+            }
+            AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+            // Only the packages are kept, the dependencies are discarded as
+            // soon as the application is summarized
+            phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Grouping);
+            classesCount = 0;
+            usedPackages = new HashSet<Integer>();
+            definedPackages = new HashSet<Integer>();
+            for (ClassDependencies dependency : dependencies) {
+                if (dependency.getInternalDependencies() == null) {
+                    continue;
+                }
+
+                classesCount++;
+                definedPackages.add(this.symbols.getNameId(dependency.getPackageName().replace(
+                        SystemAnalyzer.CLASSES_PREFIX, "")));
+                if (dependency.getExternalDependencies() != null) {
+                    for (String externalDependency : dependency.getExternalDependencies()) {
+                        if (externalDependency.indexOf('.') > 0) {
+                            packageName = externalDependency.substring(0, externalDependency.lastIndexOf('.'));
+                            usedPackages.add(this.symbols.getNameId(packageName));
+                        }
+                    }
+                }
+            }
+            usedPackages.removeAll(definedPackages);
+            AnalysisMetrics.endPhase(AnalysisPhase.Grouping, phaseStart);
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        return new ApplicationSummary(name, artifact, classesCount, SystemAnalyzer.toArray(definedPackages),
+                SystemAnalyzer.toArray(usedPackages), libraries);
+    }
+
+    /**
+     * Get the JAR files embedded in the specified WAR file.
+     * 
+     * @param warFile
+     *            WAR file.
+     * @return JAR file name identifiers.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private int[] getLibraries(final File warFile) throws IOException {
+        ZipFile zipFile;
+        ZipEntry entry;
+        String entryName;
+        Set<Integer> returnValue;
+        Enumeration<? extends ZipEntry> entries;
+
+        returnValue = new HashSet<Integer>();
+        zipFile = new ZipFile(warFile);
+        try {
+            entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                entry = entries.nextElement();
+                entryName = entry.getName();
+                if (!entry.isDirectory() && entryName.startsWith(SystemAnalyzer.LIBRARIES_DIRECTORY)
+                        && entryName.endsWith(".jar")) {
+                    returnValue.add(this.symbols.getNameId(entryName.substring(entryName.lastIndexOf('/') + 1)));
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+
+        return SystemAnalyzer.toArray(returnValue);
+    }
+
+    /**
+     * Export the specified system graph to a dot file, that can then be
+     * rendered with {@link DependenciesUtil#renderDotFile(File, File)}. Each
+     * application is a box, linked to the applications it depends on and to
+     * the shared packages groups it uses, while the groups it belongs to are
+     * linked with dashed lines.
+     * 
+     * @param graph
+     *            System graph.
+     * @param dotFile
+     *            Dot File.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    public static void exportToDot(final SystemGraph graph, final File dotFile) throws IOException {
+        FileWriter fileWriter;
+        StringBuilder dotDescription;
+        ApplicationSummary application;
+        SystemGraph.SharedGroup group;
+
+        dotDescription = new StringBuilder("digraph \"system\" {\n\tcompound=\"true\";rankdir=\"LR\";\n"
+                + "\tnode[shape=box, fontsize=8, height=.1, width=.1];\n");
+
+        // Applications
+        for (int i = 0; i < graph.getApplications().size(); i++) {
+            application = graph.getApplications().get(i);
+            dotDescription.append("\ta" + i + " [label=\"" + application.getName() + "\\n"
+                    + application.getClassesCount() + " classes\",style=bold];\n");
+        }
+
+        // Shared packages and JAR files
+        for (int i = 0; i < graph.getSharedPackages().size(); i++) {
+            group = graph.getSharedPackages().get(i);
+            dotDescription.append("\tp" + i + " [shape=folder,label=\"" + SystemAnalyzer.getGroupName(group)
+                    + "\\n" + group.getMembers().size() + " packages\"];\n");
+            for (int owner : group.getApplications()) {
+                dotDescription.append("\ta" + owner + " -> p" + i + " [style=dashed,arrowhead=none];\n");
+            }
+        }
+
+        for (int i = 0; i < graph.getSharedLibraries().size(); i++) {
+            group = graph.getSharedLibraries().get(i);
+            dotDescription.append("\tl" + i + " [shape=component,label=\"" + SystemAnalyzer.getGroupName(group)
+                    + "\\n" + group.getMembers().size() + " JAR files\"];\n");
+            for (int owner : group.getApplications()) {
+                dotDescription.append("\ta" + owner + " -> l" + i + " [style=dashed,arrowhead=none];\n");
+            }
+        }
+
+        // Dependencies, labeled with the number of referenced packages
+        for (int i = 0; i < graph.getApplications().size(); i++) {
+            for (Map.Entry<Integer, Integer> dependency : graph.getApplicationDependencies(i).entrySet()) {
+                dotDescription.append("\ta" + i + " -> a" + dependency.getKey() + " [label=\""
+                        + dependency.getValue() + "\"];\n");
+            }
+
+            for (Map.Entry<Integer, Integer> dependency : graph.getSharedPackagesDependencies(i).entrySet()) {
+                dotDescription.append("\ta" + i + " -> p" + dependency.getKey() + " [label=\""
+                        + dependency.getValue() + "\"];\n");
+            }
+        }
+
+        // End of dot description
+        dotDescription.append("}");
+
+        // Save dot file
+        fileWriter = new FileWriter(dotFile, false);
+        fileWriter.write(dotDescription.toString());
+        fileWriter.close();
+    }
+
+    /**
+     * Export the specified system graph into a MexADL architecture document,
+     * <em>systemArchitecture.xml</em>. Each application, shared packages group
+     * and shared JAR files group is a component, and the dependencies between
+     * them are links. The implementation of each application component is made
+     * of the packages only it defines.
+     * 
+     * @param outputDir
+     *            Output directory.
+     * @param graph
+     *            System graph.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     * @throws JDOMException
+     *             If the template can't be parsed.
+     */
+    public static void exportToMexADL(final File outputDir, final SystemGraph graph) throws IOException,
+            JDOMException {
+        int component;
+        File outputFile;
+        int librariesOffset;
+        Element archTypes;
+        Document document;
+        String outputContents;
+        XMLOutputter outputter;
+        Element archStructure;
+        Set<String> links;
+        List<StringBuilder> implementationPackages;
+        SystemGraph.SharedGroup group;
+
+        document = new SAXBuilder().build(SystemAnalyzer.class
+                .getResourceAsStream("/mx/itesm/web2mexadl/templates/SystemTemplate.xml"));
+        archStructure = document.getRootElement().getChild("archStructure", ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+        archTypes = document.getRootElement().getChild("archTypes", ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+        implementationPackages = new ArrayList<StringBuilder>();
+        links = new HashSet<String>();
+
+        // Components: applications, shared packages groups and shared JAR
+        // files groups, in that order
+        for (int i = 0; i < graph.getApplications().size(); i++) {
+            implementationPackages.add(new StringBuilder());
+            for (String packageName : graph.getPrivatePackages(i)) {
+                Util.addImplementationPackage(implementationPackages.get(i), packageName);
+            }
+            SystemAnalyzer.addComponent(archStructure, archTypes, i, graph.getApplications().get(i).getName());
+        }
+
+        for (int i = 0; i < graph.getSharedPackages().size(); i++) {
+            group = graph.getSharedPackages().get(i);
+            component = implementationPackages.size();
+            implementationPackages.add(new StringBuilder());
+            for (String packageName : group.getMembers()) {
+                Util.addImplementationPackage(implementationPackages.get(component), packageName);
+            }
+            SystemAnalyzer.addComponent(archStructure, archTypes, component, "SharedPackages_" + i);
+            for (int application : group.getApplications()) {
+                SystemAnalyzer.addLink(archStructure, links, application, component);
+            }
+        }
+
+        librariesOffset = implementationPackages.size();
+        for (int i = 0; i < graph.getSharedLibraries().size(); i++) {
+            group = graph.getSharedLibraries().get(i);
+            implementationPackages.add(new StringBuilder());
+            SystemAnalyzer.addComponent(archStructure, archTypes, librariesOffset + i, "SharedLibraries_" + i);
+            for (int application : group.getApplications()) {
+                SystemAnalyzer.addLink(archStructure, links, application, librariesOffset + i);
+            }
+        }
+
+        // Dependencies between applications, and with the shared packages
+        for (int i = 0; i < graph.getApplications().size(); i++) {
+            for (int application : graph.getApplicationDependencies(i).keySet()) {
+                SystemAnalyzer.addLink(archStructure, links, i, application);
+            }
+
+            for (int sharedGroup : graph.getSharedPackagesDependencies(i).keySet()) {
+                SystemAnalyzer.addLink(archStructure, links, i, graph.getApplications().size() + sharedGroup);
+            }
+        }
+
+        // Write base architecture document
+        outputter = new XMLOutputter();
+        outputFile = new File(outputDir, "systemArchitecture.xml");
+        FileUtils.deleteQuietly(outputFile);
+        outputContents = outputter.outputString(document);
+
+        // Update implementation packages
+        for (int i = 0; i < implementationPackages.size(); i++) {
+            outputContents = StringUtils.replace(outputContents, "<!-- Component_" + i + " implementation -->",
+                    implementationPackages.get(i).toString());
+        }
+
+        // Write final architecture document
+        FileUtils.write(outputFile, outputContents, "UTF-8");
+    }
+
+    /**
+     * Add a component, along with its type, to the architecture document.
+     * 
+     * @param archStructure
+     *            Architecture structure element.
+     * @param archTypes
+     *            Architecture types element.
+     * @param index
+     *            Component index.
+     * @param name
+     *            Component name.
+     */
+    private static void addComponent(final Element archStructure, final Element archTypes, final int index,
+            final String name) {
+        Element type;
+        Element component;
+        Element componentType;
+        Element implementation;
+        Element componentInterface;
+        Element interfaceDirection;
+
+        component = SystemAnalyzer.createElement("component", "component" + index, "types:Component");
+        component.addContent(SystemAnalyzer.createDescription(name));
+        for (String direction : new String[] { "in", "out" }) {
+            componentInterface = SystemAnalyzer.createElement("interface", SystemAnalyzer.getInterfaceId(index,
+                    direction), "types:Interface");
+            componentInterface.addContent(SystemAnalyzer.createDescription(direction));
+            interfaceDirection = new Element("direction", ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+            interfaceDirection.setAttribute("type", "instance:Direction", SystemAnalyzer.XSI_NAMESPACE);
+            interfaceDirection.setText(direction);
+            componentInterface.addContent(interfaceDirection);
+            component.addContent(componentInterface);
+        }
+        type = new Element("type", ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+        SystemAnalyzer.setXmlLink(type, "#componentType" + index);
+        component.addContent(type);
+        archStructure.addContent(component);
+
+        componentType = SystemAnalyzer.createElement("componentType", "componentType" + index,
+                "implementation:VariantComponentTypeImpl");
+        componentType.addContent(SystemAnalyzer.createDescription(name + "Type"));
+        implementation = new Element("implementation", SystemAnalyzer.XADL_IMPLEMENTATION_NAMESPACE);
+        implementation.setAttribute("type", "javaimplementation:JavaImplementation", SystemAnalyzer.XSI_NAMESPACE);
+        implementation.addContent(new Comment(" Component_" + index + " implementation "));
+        componentType.addContent(implementation);
+        archTypes.addContent(componentType);
+    }
+
+    /**
+     * Add a link from the output interface of a component to the input
+     * interface of another one, unless they're already linked.
+     * 
+     * @param archStructure
+     *            Architecture structure element.
+     * @param links
+     *            Identifiers of the links added so far.
+     * @param source
+     *            Source component index.
+     * @param target
+     *            Target component index.
+     */
+    private static void addLink(final Element archStructure, final Set<String> links, final int source,
+            final int target) {
+        Element link;
+        Element point;
+        Element anchor;
+
+        if (!links.add("link" + source + "-" + target)) {
+            return;
+        }
+
+        link = SystemAnalyzer.createElement("link", "link" + source + "-" + target, "types:Link");
+        link.addContent(SystemAnalyzer.createDescription("out" + source + "-" + target));
+        for (String interfaceId : new String[] { SystemAnalyzer.getInterfaceId(source, "out"),
+                SystemAnalyzer.getInterfaceId(target, "in") }) {
+            point = new Element("point", ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+            point.setAttribute("type", "instance:Point", SystemAnalyzer.XSI_NAMESPACE);
+            anchor = new Element("anchorOnInterface", SystemAnalyzer.XADL_INSTANCE_NAMESPACE);
+            SystemAnalyzer.setXmlLink(anchor, "#" + interfaceId);
+            point.addContent(anchor);
+            link.addContent(point);
+        }
+        archStructure.addContent(link);
+    }
+
+    /**
+     * Create an xADL types element.
+     * 
+     * @param name
+     *            Element name.
+     * @param id
+     *            Element identifier.
+     * @param type
+     *            Element xsi type.
+     * @return Element.
+     */
+    private static Element createElement(final String name, final String id, final String type) {
+        Element returnValue;
+
+        returnValue = new Element(name, ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+        returnValue.setAttribute("id", id, ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+        returnValue.setAttribute("type", type, SystemAnalyzer.XSI_NAMESPACE);
+
+        return returnValue;
+    }
+
+    /**
+     * Create an xADL description element.
+     * 
+     * @param description
+     *            Description.
+     * @return Description element.
+     */
+    private static Element createDescription(final String description) {
+        Element returnValue;
+
+        returnValue = new Element("description", ClusterAnalyzer.XADL_TYPES_NAMESPACE);
+        returnValue.setAttribute("type", "instance:Description", SystemAnalyzer.XSI_NAMESPACE);
+        returnValue.setText(description);
+
+        return returnValue;
+    }
+
+    /**
+     * Set the attributes of a simple XML link to the specified element.
+     * 
+     * @param element
+     *            Element.
+     * @param href
+     *            Link reference.
+     */
+    private static void setXmlLink(final Element element, final String href) {
+        element.setAttribute("href", href, SystemAnalyzer.XLINK_NAMESPACE);
+        element.setAttribute("type", "simple", SystemAnalyzer.XLINK_NAMESPACE);
+        element.setAttribute("type", "instance:XMLLink", SystemAnalyzer.XSI_NAMESPACE);
+    }
+
+    /**
+     * Get the identifier of an interface of the specified component.
+     * 
+     * @param component
+     *            Component index.
+     * @param direction
+     *            Interface direction, in or out.
+     * @return Interface identifier.
+     */
+    private static String getInterfaceId(final int component, final String direction) {
+        return "interface" + component + "-" + direction;
+    }
+
+    /**
+     * Get a short name for the specified group: the common prefix of its
+     * package names, or its first member if they don't have one.
+     * 
+     * @param group
+     *            Shared group.
+     * @return Group name.
+     */
+    private static String getGroupName(final SystemGraph.SharedGroup group) {
+        String returnValue;
+
+        returnValue = StringUtils.getCommonPrefix(group.getMembers().toArray(new String[0]));
+        if ((group.getMembers().size() > 1) && (returnValue.indexOf('.') > 0)) {
+            returnValue = returnValue.substring(0, returnValue.lastIndexOf('.')) + ".*";
+        } else {
+            returnValue = group.getMembers().get(0);
+            if (group.getMembers().size() > 1) {
+                returnValue += ", ...";
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Convert the specified identifiers to an array.
+     * 
+     * @param ids
+     *            Identifiers.
+     * @return Identifiers array.
+     */
+    private static int[] toArray(final Set<Integer> ids) {
+        int index;
+        int[] returnValue;
+
+        index = 0;
+        returnValue = new int[ids.size()];
+        for (int id : ids) {
+            returnValue[index++] = id;
+        }
+
+        return returnValue;
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import mx.itesm.web2mexadl.dependencies.SymbolTable;
+
+/**
+ * Combined dependencies graph of a system made of several applications. The
+ * applications are linked in two ways:
+ * <ul>
+ * <li>An application depends on another one when it references packages that
+ * are only defined by the other application.</li>
+ * <li>Packages defined by more than one application, and JAR files embedded in
+ * more than one application, are shared. Shared packages and JAR files are
+ * grouped by the applications that share them, so the graph stays small even
+ * if the applications share thousands of packages.</li>
+ * </ul>
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class SystemGraph {
+
+    /**
+     * Applications of the system.
+     */
+    private List<ApplicationSummary> applications;
+
+    /**
+     * Table of the package and JAR file names referenced by the applications.
+     */
+    private SymbolTable symbols;
+
+    /**
+     * Dependencies of each application with the other applications: number of
+     * referenced packages, indexed by application.
+     */
+    private List<Map<Integer, Integer>> applicationDependencies;
+
+    /**
+     * Dependencies of each application with the shared packages groups:
+     * number of referenced packages, indexed by group.
+     */
+    private List<Map<Integer, Integer>> sharedPackagesDependencies;
+
+    /**
+     * Groups of packages defined by more than one application.
+     */
+    private List<SharedGroup> sharedPackages;
+
+    /**
+     * Groups of JAR files embedded in more than one application.
+     */
+    private List<SharedGroup> sharedLibraries;
+
+    /**
+     * Group of each shared package, indexed by package identifier.
+     */
+    private Map<Integer, Integer> packageGroups;
+
+    /**
+     * Full constructor.
+     * 
+     * @param applications
+     *            Applications of the system.
+     * @param symbols
+     *            Table of the package and JAR file names referenced by the
+     *            applications.
+     */
+    public SystemGraph(final List<ApplicationSummary> applications, final SymbolTable symbols) {
+        Integer count;
+        List<Integer> owners;
+        ApplicationSummary application;
+        Map<Integer, Integer> dependencies;
+        Map<Integer, Integer> groupDependencies;
+        Map<Integer, List<Integer>> packageOwners;
+        Map<Integer, List<Integer>> libraryOwners;
+
+        this.applications = applications;
+        this.symbols = symbols;
+
+        // Applications that define each package and embed each JAR file
+        packageOwners = new HashMap<Integer, List<Integer>>();
+        libraryOwners = new HashMap<Integer, List<Integer>>();
+        for (int i = 0; i < applications.size(); i++) {
+            application = applications.get(i);
+            SystemGraph.addOwner(packageOwners, application.getDefinedPackages(), i);
+            SystemGraph.addOwner(libraryOwners, application.getLibraries(), i);
+        }
+
+        this.sharedPackages = this.groupByOwners(packageOwners);
+        this.sharedLibraries = this.groupByOwners(libraryOwners);
+        this.packageGroups = new HashMap<Integer, Integer>();
+        for (int i = 0; i < this.sharedPackages.size(); i++) {
+            for (int packageId : this.sharedPackages.get(i).memberIds) {
+                this.packageGroups.put(packageId, i);
+            }
+        }
+
+        // Packages used by each application, the packages defined by the
+        // application itself were already left out
+        this.applicationDependencies = new ArrayList<Map<Integer, Integer>>(applications.size());
+        this.sharedPackagesDependencies = new ArrayList<Map<Integer, Integer>>(applications.size());
+        for (ApplicationSummary currentApplication : applications) {
+            dependencies = new TreeMap<Integer, Integer>();
+            groupDependencies = new TreeMap<Integer, Integer>();
+            for (int packageId : currentApplication.getUsedPackages()) {
+                owners = packageOwners.get(packageId);
+                if (owners == null) {
+                    // Libraries and platform packages
+                    continue;
+                }
+
+                if (owners.size() == 1) {
+                    count = dependencies.get(owners.get(0));
+                    dependencies.put(owners.get(0), (count == null) ? 1 : count + 1);
+                } else {
+                    count = groupDependencies.get(this.packageGroups.get(packageId));
+                    groupDependencies.put(this.packageGroups.get(packageId), (count == null) ? 1 : count + 1);
+                }
+            }
+
+            this.applicationDependencies.add(dependencies);
+            this.sharedPackagesDependencies.add(groupDependencies);
+        }
+    }
+
+    /**
+     * Get the applications of the system.
+     * 
+     * @return Applications.
+     */
+    public List<ApplicationSummary> getApplications() {
+        return this.applications;
+    }
+
+    /**
+     * Get the dependencies of the specified application with the other
+     * applications.
+     * 
+     * @param application
+     *            Application index.
+     * @return Number of packages referenced by the application, indexed by
+     *         the index of the application that defines them.
+     */
+    public Map<Integer, Integer> getApplicationDependencies(final int application) {
+        return this.applicationDependencies.get(application);
+    }
+
+    /**
+     * Get the dependencies of the specified application with the shared
+     * packages groups.
+     * 
+     * @param application
+     *            Application index.
+     * @return Number of packages referenced by the application, indexed by
+     *         the index of the group that contains them.
+     */
+    public Map<Integer, Integer> getSharedPackagesDependencies(final int application) {
+        return this.sharedPackagesDependencies.get(application);
+    }
+
+    /**
+     * Get the groups of packages defined by more than one application.
+     * 
+     * @return Shared packages groups.
+     */
+    public List<SharedGroup> getSharedPackages() {
+        return this.sharedPackages;
+    }
+
+    /**
+     * Get the groups of JAR files embedded in more than one application.
+     * 
+     * @return Shared JAR files groups.
+     */
+    public List<SharedGroup> getSharedLibraries() {
+        return this.sharedLibraries;
+    }
+
+    /**
+     * Get the packages defined only by the specified application.
+     * 
+     * @param application
+     *            Application index.
+     * @return Sorted package names.
+     */
+    public List<String> getPrivatePackages(final int application) {
+        List<String> returnValue;
+
+        returnValue = new ArrayList<String>();
+        for (int packageId : this.applications.get(application).getDefinedPackages()) {
+            if (!this.packageGroups.containsKey(packageId)) {
+                returnValue.add(this.symbols.getName(packageId));
+            }
+        }
+        Collections.sort(returnValue);
+
+        return returnValue;
+    }
+
+    /**
+     * Register the specified application as an owner of each of the specified
+     * names.
+     * 
+     * @param owners
+     *            Applications that own each name, indexed by name identifier.
+     * @param nameIds
+     *            Name identifiers.
+     * @param application
+     *            Application index.
+     */
+    private static void addOwner(final Map<Integer, List<Integer>> owners, final int[] nameIds,
+            final int application) {
+        List<Integer> nameOwners;
+
+        for (int nameId : nameIds) {
+            nameOwners = owners.get(nameId);
+            if (nameOwners == null) {
+                nameOwners = new ArrayList<Integer>(1);
+                owners.put(nameId, nameOwners);
+            }
+            nameOwners.add(application);
+        }
+    }
+
+    /**
+     * Group the names owned by more than one application according to their
+     * owners. The groups are sorted by their owners, and then by their first
+     * member.
+     * 
+     * @param owners
+     *            Applications that own each name, indexed by name identifier.
+     *            The applications are in ascending order.
+     * @return Shared names groups.
+     */
+    private List<SharedGroup> groupByOwners(final Map<Integer, List<Integer>> owners) {
+        SharedGroup group;
+        List<SharedGroup> returnValue;
+        Map<List<Integer>, SharedGroup> groups;
+
+        groups = new HashMap<List<Integer>, SharedGroup>();
+        for (Map.Entry<Integer, List<Integer>> nameOwners : owners.entrySet()) {
+            if (nameOwners.getValue().size() > 1) {
+                group = groups.get(nameOwners.getValue());
+                if (group == null) {
+                    group = new SharedGroup(nameOwners.getValue());
+                    groups.put(nameOwners.getValue(), group);
+                }
+                group.memberIds.add(nameOwners.getKey());
+                group.members.add(this.symbols.getName(nameOwners.getKey()));
+            }
+        }
+
+        returnValue = new ArrayList<SharedGroup>(groups.values());
+        for (SharedGroup sharedGroup : returnValue) {
+            Collections.sort(sharedGroup.members);
+        }
+        Collections.sort(returnValue);
+
+        return returnValue;
+    }
+
+    /**
+     * Packages or JAR files shared by the same applications.
+     */
+    public static class SharedGroup implements Comparable<SharedGroup> {
+
+        /**
+         * Indexes of the applications that share the members of this group,
+         * in ascending order.
+         */
+        private List<Integer> applications;
+
+        /**
+         * Identifiers of the members of this group.
+         */
+        private List<Integer> memberIds;
+
+        /**
+         * Names of the members of this group, sorted once the group is
+         * complete.
+         */
+        private List<String> members;
+
+        /**
+         * Full constructor.
+         * 
+         * @param applications
+         *            Indexes of the applications that share the members of
+         *            this group, in ascending order.
+         */
+        private SharedGroup(final List<Integer> applications) {
+            this.applications = applications;
+            this.memberIds = new ArrayList<Integer>();
+            this.members = new ArrayList<String>();
+        }
+
+        /**
+         * Get the applications that share the members of this group.
+         * 
+         * @return Application indexes, in ascending order.
+         */
+        public List<Integer> getApplications() {
+            return this.applications;
+        }
+
+        /**
+         * Get the members of this group.
+         * 
+         * @return Sorted package or JAR file names.
+         */
+        public List<String> getMembers() {
+            return this.members;
+        }
+
+        @Override
+        public int compareTo(final SharedGroup other) {
+            int returnValue;
+
+            returnValue = 0;
+            for (int i = 0; (returnValue == 0) && (i < this.applications.size())
+                    && (i < other.applications.size()); i++) {
+                returnValue = this.applications.get(i).compareTo(other.applications.get(i));
+            }
+
+            if (returnValue == 0) {
+                returnValue = this.applications.size() - other.applications.size();
+            }
+
+            if (returnValue == 0) {
+                returnValue = this.members.get(0).compareTo(other.members.get(0));
+            }
+
+            return returnValue;
+        }
+    }
+}
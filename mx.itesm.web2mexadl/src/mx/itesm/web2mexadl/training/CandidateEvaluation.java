@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.training;
+
+/**
+ * Cross-validation result of a candidate classifier, evaluated by the
+ * {@link ModelTrainer}.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class CandidateEvaluation {
+
+    /**
+     * Options of the candidate <em>BayesNet</em> classifier.
+     */
+    private String options;
+
+    /**
+     * Number of instances correctly classified, over all the folds.
+     */
+    private int correctCount;
+
+    /**
+     * Number of evaluated instances, over all the folds.
+     */
+    private int instancesCount;
+
+    /**
+     * Full constructor.
+     * 
+     * @param options
+     *            Options of the candidate <em>BayesNet</em> classifier.
+     * @param correctCount
+     *            Number of instances correctly classified, over all the
+     *            folds.
+     * @param instancesCount
+     *            Number of evaluated instances, over all the folds.
+     */
+    public CandidateEvaluation(final String options, final int correctCount, final int instancesCount) {
+        this.options = options;
+        this.correctCount = correctCount;
+        this.instancesCount = instancesCount;
+    }
+
+    /**
+     * Get the options of the candidate classifier.
+     * 
+     * @return <em>BayesNet</em> options.
+     */
+    public String getOptions() {
+        return this.options;
+    }
+
+    /**
+     * Get the number of instances correctly classified.
+     * 
+     * @return Correctly classified instances count.
+     */
+    public int getCorrectCount() {
+        return this.correctCount;
+    }
+
+    /**
+     * Get the number of evaluated instances.
+     * 
+     * @return Evaluated instances count.
+     */
+    public int getInstancesCount() {
+        return this.instancesCount;
+    }
+
+    /**
+     * Get the fraction of the evaluated instances that were correctly
+     * classified.
+     * 
+     * @return Accuracy, between 0 and 1.
+     */
+    public double getAccuracy() {
+        return (this.instancesCount > 0) ? ((double) this.correctCount / this.instancesCount) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.2f%% (%d/%d) %s", this.getAccuracy() * 100, this.correctCount,
+                this.instancesCount, this.options);
+    }
+}
@@ -0,0 +1,871 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.training;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mx.itesm.web2mexadl.batch.BatchAnalyzer;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependenciesUtil;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.dependencies.JarDependencyCache;
+import mx.itesm.web2mexadl.mvc.BayesNetModelConverter;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+import mx.itesm.web2mexadl.util.FeatureExtractor;
+import mx.itesm.web2mexadl.util.Util;
+import mx.itesm.web2mexadl.util.Util.Variable;
+
+import org.apache.commons.io.FileUtils;
+
+import weka.classifiers.bayes.BayesNet;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+
+/**
+ * Trainer of the MVC classifier. The classes of a set of labeled WAR files or
+ * classes directories are scanned concurrently, their Uncertainty model
+ * variables are written to an ARFF file, and several candidate
+ * <em>BayesNet</em> classifiers are compared by k-fold cross-validation,
+ * evaluating every fold of every candidate concurrently. The best candidate is
+ * trained with all the labeled classes and written both as a serialized Weka
+ * classifier and as a {@link mx.itesm.web2mexadl.mvc.BayesNetModel}, together
+ * with the variables properties it was trained with.
+ * <p>
+ * The layer of the classes of each artifact is read from a labels file next
+ * to it, named after the artifact plus <em>.labels</em>. Each line of a
+ * labels file has the form <em>name=layer</em>, where the name is a class or
+ * package name, as reported by the MVC analysis, and the layer is
+ * <em>model</em>, <em>view</em> or <em>controller</em>. A class takes the
+ * layer of the longest name that contains it; classes without a layer aren't
+ * used for training. Empty lines and lines starting with # are ignored.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ModelTrainer {
+
+    /**
+     * Class logger.
+     */
+    private static Logger logger = Logger.getLogger(ModelTrainer.class.getName());
+
+    /**
+     * Options of the candidate classifiers evaluated by default. The first
+     * one is the configuration of the classifier distributed with
+     * Web2MexADL.
+     */
+    public static final String[] DEFAULT_CANDIDATES = {
+            "-D -Q weka.classifiers.bayes.net.search.local.TAN -- -S BAYES "
+                    + "-E weka.classifiers.bayes.net.estimate.SimpleEstimator -- -A 0.5",
+            "-D -Q weka.classifiers.bayes.net.search.local.TAN -- -S BAYES "
+                    + "-E weka.classifiers.bayes.net.estimate.SimpleEstimator -- -A 1.0",
+            "-D -Q weka.classifiers.bayes.net.search.local.K2 -- -P 1 -S BAYES "
+                    + "-E weka.classifiers.bayes.net.estimate.SimpleEstimator -- -A 0.5",
+            "-D -Q weka.classifiers.bayes.net.search.local.K2 -- -P 2 -S BAYES "
+                    + "-E weka.classifiers.bayes.net.estimate.SimpleEstimator -- -A 0.5",
+            "-D -Q weka.classifiers.bayes.net.search.local.K2 -- -P 3 -S BAYES "
+                    + "-E weka.classifiers.bayes.net.estimate.SimpleEstimator -- -A 0.5",
+            "-D -Q weka.classifiers.bayes.net.search.local.HillClimber -- -P 2 -S BAYES "
+                    + "-E weka.classifiers.bayes.net.estimate.SimpleEstimator -- -A 0.5" };
+
+    /**
+     * Extension of the labels files, appended to the artifact name.
+     */
+    public static final String LABELS_EXTENSION = ".labels";
+
+    /**
+     * Name of the training data file.
+     */
+    public static final String TRAINING_FILE = "mvc-training.arff";
+
+    /**
+     * Name of the serialized Weka classifier file.
+     */
+    public static final String CLASSIFIER_FILE = "mvc-classifier.model";
+
+    /**
+     * Name of the model file, see
+     * {@link mx.itesm.web2mexadl.mvc.BayesNetModel}.
+     */
+    public static final String MODEL_FILE = "mvc-classifier.cpt";
+
+    /**
+     * Name of the variables properties file.
+     */
+    public static final String VARIABLES_FILE = "mvc-variables.properties";
+
+    /**
+     * Seed used to split the instances into folds, so the evaluations can be
+     * repeated.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * Layers a class can be labeled with, in the order of the Layer
+     * variable values.
+     */
+    private static final Layer[] LAYERS = { Layer.Model, Layer.View, Layer.Controller };
+
+    /**
+     * Maximum number of concurrent scans and evaluations.
+     */
+    private int threads;
+
+    /**
+     * Number of cross-validation folds.
+     */
+    private int folds;
+
+    /**
+     * Options of the candidate classifiers.
+     */
+    private String[] candidates;
+
+    /**
+     * Variables properties the classifier is trained with.
+     */
+    private Properties variables;
+
+    /**
+     * Cache of the dependencies of the JAR files embedded in the WAR files,
+     * may be null.
+     */
+    private JarDependencyCache jarCache;
+
+    /**
+     * Stream where the progress is reported, may be null.
+     */
+    private PrintStream progress;
+
+    /**
+     * Full constructor.
+     * 
+     * @param threads
+     *            Maximum number of concurrent scans and evaluations.
+     * @param folds
+     *            Number of cross-validation folds.
+     * @param candidates
+     *            Options of the candidate <em>BayesNet</em> classifiers.
+     * @param variables
+     *            Variables properties the classifier is trained with, null to
+     *            use the variables of the model distributed with Web2MexADL.
+     * @param jarCache
+     *            Cache of the dependencies of the JAR files embedded in the
+     *            WAR files, may be null.
+     * @param progress
+     *            Stream where the progress is reported, may be null.
+     * @throws IllegalArgumentException
+     *             If the number of threads or folds, or the options of a
+     *             candidate, are invalid.
+     */
+    public ModelTrainer(final int threads, final int folds, final String[] candidates, final Properties variables,
+            final JarDependencyCache jarCache, final PrintStream progress) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+
+        if (folds < 2) {
+            throw new IllegalArgumentException("Invalid number of folds: " + folds);
+        }
+
+        if (candidates.length == 0) {
+            throw new IllegalArgumentException("No candidate classifiers specified");
+        }
+
+        for (String candidate : candidates) {
+            try {
+                ModelTrainer.createClassifier(candidate);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Invalid classifier options: " + candidate, e);
+            }
+        }
+
+        this.threads = threads;
+        this.folds = folds;
+        this.candidates = candidates;
+        this.variables = (variables != null) ? variables : Util.getVariables();
+        this.jarCache = jarCache;
+        this.progress = progress;
+    }
+
+    /**
+     * Train the MVC classifier.
+     * 
+     * @param args
+     *            Inputs and options, as described in the usage message.
+     * @throws Exception
+     *             If the inputs can't be read, or the classifier can't be
+     *             trained.
+     */
+    public static void main(final String[] args) throws Exception {
+        int folds;
+        int threads;
+        Logger logger;
+        String option;
+        File arffFile;
+        File variablesFile;
+        List<File> inputs;
+        File outputDirectory;
+        File cacheDirectory;
+        Properties variables;
+        InputStream variablesStream;
+        CandidateEvaluation best;
+        ModelTrainer modelTrainer;
+
+        threads = Runtime.getRuntime().availableProcessors();
+        folds = 10;
+        arffFile = null;
+        variablesFile = null;
+        cacheDirectory = null;
+        outputDirectory = new File("web2mexadl-model");
+        inputs = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            option = args[i];
+            if (!option.startsWith("-")) {
+                inputs.add(new File(option));
+                continue;
+            }
+
+            if ((i + 1) >= args.length) {
+                ModelTrainer.exitWithUsage("Missing value for option: " + option);
+            }
+
+            if (option.equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (option.equals("-folds")) {
+                folds = Integer.parseInt(args[++i]);
+            } else if (option.equals("-output")) {
+                outputDirectory = new File(args[++i]);
+            } else if (option.equals("-variables")) {
+                variablesFile = new File(args[++i]);
+            } else if (option.equals("-arff")) {
+                arffFile = new File(args[++i]);
+            } else if (option.equals("-jarCache")) {
+                cacheDirectory = new File(args[++i]);
+            } else {
+                ModelTrainer.exitWithUsage("Unknown option: " + option);
+            }
+        }
+
+        if (inputs.isEmpty() && (arffFile == null)) {
+            ModelTrainer.exitWithUsage("No labeled WAR files, classes directories or ARFF file specified");
+        }
+
+        // The analyzers log a line per class
+        logger = Logger.getLogger("mx.itesm.web2mexadl");
+        logger.setLevel(Level.WARNING);
+
+        variables = null;
+        if (variablesFile != null) {
+            variables = new Properties();
+            variablesStream = new FileInputStream(variablesFile);
+            try {
+                variables.load(variablesStream);
+            } finally {
+                variablesStream.close();
+            }
+        }
+
+        modelTrainer = null;
+        try {
+            modelTrainer = new ModelTrainer(threads, folds, ModelTrainer.DEFAULT_CANDIDATES, variables,
+                    (cacheDirectory != null) ? new JarDependencyCache(cacheDirectory) : null, System.err);
+        } catch (IllegalArgumentException e) {
+            ModelTrainer.exitWithUsage(e.getMessage());
+        }
+
+        if (arffFile != null) {
+            best = modelTrainer.train(ModelTrainer.readInstances(arffFile), outputDirectory);
+        } else {
+            try {
+                best = modelTrainer.train(BatchAnalyzer.getArtifacts(inputs), outputDirectory);
+            } catch (FileNotFoundException e) {
+                ModelTrainer.exitWithUsage(e.getMessage());
+                return;
+            }
+        }
+
+        System.out.println("Best classifier: " + best);
+    }
+
+    /**
+     * Print the usage and exit.
+     * 
+     * @param message
+     *            Error message.
+     */
+    private static void exitWithUsage(final String message) {
+        System.err.println(message);
+        System.err.println("Usage: ModelTrainer [-threads n] [-folds k] [-output dir] [-variables file] "
+                + "[-jarCache dir] [-arff file] input...");
+        System.err.println("Each input is a WAR file, a classes directory, a directory containing WAR files, "
+                + "or a text file listing one input per line. Each WAR file or classes directory must have a "
+                + "labels file next to it, named after it plus " + ModelTrainer.LABELS_EXTENSION + ".");
+        System.exit(1);
+    }
+
+    /**
+     * Train the MVC classifier with the classes of the specified labeled
+     * artifacts. The training data is written to {@link #TRAINING_FILE}, and
+     * the best classifier and its variables to {@link #CLASSIFIER_FILE},
+     * {@link #MODEL_FILE} and {@link #VARIABLES_FILE}, in the specified
+     * directory.
+     * 
+     * @param artifacts
+     *            Labeled WAR files and classes directories.
+     * @param outputDirectory
+     *            Directory where to write the training data and the
+     *            classifier.
+     * @return Evaluation of the best classifier.
+     * @throws Exception
+     *             If an artifact or its labels can't be read, or the
+     *             classifier can't be trained.
+     */
+    public CandidateEvaluation train(final List<File> artifacts, final File outputDirectory) throws Exception {
+        List<List<String[]>> labeledClasses;
+
+        labeledClasses = this.scanArtifacts(artifacts);
+        FileUtils.forceMkdir(outputDirectory);
+        this.writeTrainingFile(BatchAnalyzer.getArtifactNames(artifacts), labeledClasses, new File(
+                outputDirectory, ModelTrainer.TRAINING_FILE));
+
+        return this.train(this.getInstances(labeledClasses), outputDirectory);
+    }
+
+    /**
+     * Train the MVC classifier with the specified instances. The best
+     * classifier and its variables are written to {@link #CLASSIFIER_FILE},
+     * {@link #MODEL_FILE} and {@link #VARIABLES_FILE}, in the specified
+     * directory.
+     * 
+     * @param instances
+     *            Training instances: the Uncertainty model variables followed
+     *            by the Layer variable, with the same values as the variables
+     *            properties of this trainer.
+     * @param outputDirectory
+     *            Directory where to write the classifier.
+     * @return Evaluation of the best classifier.
+     * @throws Exception
+     *             If the classifier can't be trained.
+     */
+    public CandidateEvaluation train(final Instances instances, final File outputDirectory) throws Exception {
+        BayesNet classifier;
+        OutputStream variablesStream;
+        CandidateEvaluation returnValue;
+
+        this.checkInstances(instances);
+        returnValue = null;
+        for (CandidateEvaluation evaluation : this.crossValidate(instances)) {
+            if (this.progress != null) {
+                this.progress.println(evaluation);
+            }
+
+            // The first candidate wins the ties
+            if ((returnValue == null) || (evaluation.getCorrectCount() > returnValue.getCorrectCount())) {
+                returnValue = evaluation;
+            }
+        }
+
+        classifier = ModelTrainer.createClassifier(returnValue.getOptions());
+        classifier.buildClassifier(instances);
+
+        FileUtils.forceMkdir(outputDirectory);
+        SerializationHelper.write(new File(outputDirectory, ModelTrainer.CLASSIFIER_FILE).getAbsolutePath(),
+                classifier);
+        BayesNetModelConverter.convert(classifier).write(new File(outputDirectory, ModelTrainer.MODEL_FILE));
+        variablesStream = new FileOutputStream(new File(outputDirectory, ModelTrainer.VARIABLES_FILE));
+        try {
+            this.variables.store(variablesStream, "Classification variables");
+        } finally {
+            variablesStream.close();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Evaluate each candidate classifier by k-fold cross-validation. The
+     * instances are split into the same stratified folds for every
+     * candidate, and the folds of all the candidates are evaluated
+     * concurrently.
+     * 
+     * @param instances
+     *            Training instances, the last attribute is the class.
+     * @return Evaluation of each candidate, in the same order as the
+     *         candidates.
+     * @throws Exception
+     *             If a candidate can't be trained or evaluated. The pending
+     *             evaluations are canceled.
+     */
+    public List<CandidateEvaluation> crossValidate(final Instances instances) throws Exception {
+        int correctCount;
+        ExecutorService executor;
+        final Instances folded;
+        List<Future<Integer>> futures;
+        List<CandidateEvaluation> returnValue;
+
+        if (instances.numInstances() < this.folds) {
+            throw new IllegalArgumentException("Not enough instances for " + this.folds + " folds: "
+                    + instances.numInstances());
+        }
+
+        // The folds are never modified once split, so they can be shared by
+        // the evaluations
+        folded = new Instances(instances);
+        folded.setClassIndex(folded.numAttributes() - 1);
+        folded.randomize(new Random(ModelTrainer.SEED));
+        folded.stratify(this.folds);
+
+        executor = Executors.newFixedThreadPool(this.threads);
+        futures = new ArrayList<Future<Integer>>(this.candidates.length * this.folds);
+        returnValue = new ArrayList<CandidateEvaluation>(this.candidates.length);
+        try {
+            for (final String candidate : this.candidates) {
+                for (int i = 0; i < this.folds; i++) {
+                    final int fold = i;
+                    futures.add(executor.submit(new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return ModelTrainer.this.evaluateFold(candidate, folded, fold);
+                        }
+                    }));
+                }
+            }
+
+            for (int i = 0; i < this.candidates.length; i++) {
+                correctCount = 0;
+                for (int j = 0; j < this.folds; j++) {
+                    try {
+                        correctCount += futures.get((i * this.folds) + j).get();
+                    } catch (ExecutionException e) {
+                        ModelTrainer.logger.log(Level.SEVERE, "Error evaluating " + this.candidates[i],
+                                e.getCause());
+                        if (e.getCause() instanceof Exception) {
+                            throw (Exception) e.getCause();
+                        }
+                        throw e;
+                    }
+                }
+
+                returnValue.add(new CandidateEvaluation(this.candidates[i], correctCount, folded.numInstances()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Read the labels of the classes of an artifact.
+     * 
+     * @param labelsFile
+     *            Labels file.
+     * @return Layer of each class or package name.
+     * @throws IOException
+     *             If the file can't be read, or a label isn't valid.
+     */
+    public static Map<String, Layer> readLabels(final File labelsFile) throws IOException {
+        int separator;
+        Layer layer;
+        String trimmedLine;
+        Map<String, Layer> returnValue;
+
+        if (!labelsFile.isFile()) {
+            throw new FileNotFoundException("Labels file not found: " + labelsFile.getAbsolutePath());
+        }
+
+        returnValue = new HashMap<String, Layer>();
+        for (Object line : FileUtils.readLines(labelsFile, "UTF-8")) {
+            trimmedLine = ((String) line).trim();
+            if ((trimmedLine.length() == 0) || trimmedLine.startsWith("#")) {
+                continue;
+            }
+
+            separator = trimmedLine.lastIndexOf('=');
+            layer = null;
+            if (separator > 0) {
+                for (Layer candidateLayer : ModelTrainer.LAYERS) {
+                    if (candidateLayer.toString().equalsIgnoreCase(trimmedLine.substring(separator + 1).trim())) {
+                        layer = candidateLayer;
+                    }
+                }
+            }
+
+            if (layer == null) {
+                throw new IOException("Invalid label in " + labelsFile.getAbsolutePath() + ": " + trimmedLine);
+            }
+
+            returnValue.put(trimmedLine.substring(0, separator).trim(), layer);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the layer of a class, from the longest labeled name that contains
+     * it.
+     * 
+     * @param labels
+     *            Layer of each class or package name.
+     * @param className
+     *            Class name.
+     * @return Class layer, null if the class isn't labeled.
+     */
+    public static Layer getLabel(final Map<String, Layer> labels, final String className) {
+        int separator;
+        String name;
+        Layer returnValue;
+
+        returnValue = null;
+        name = className;
+        while ((returnValue == null) && (name != null)) {
+            returnValue = labels.get(name);
+            separator = Math.max(name.lastIndexOf('.'), name.lastIndexOf('/'));
+            name = (separator > 0) ? name.substring(0, separator) : null;
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Read the instances of an ARFF file, such as the ones written by this
+     * trainer.
+     * 
+     * @param arffFile
+     *            ARFF file.
+     * @return Instances, the last attribute is the class.
+     * @throws IOException
+     *             If the file can't be read.
+     */
+    public static Instances readInstances(final File arffFile) throws IOException {
+        BufferedReader reader;
+        Instances returnValue;
+
+        reader = new BufferedReader(new FileReader(arffFile));
+        try {
+            returnValue = new Instances(reader);
+            returnValue.setClassIndex(returnValue.numAttributes() - 1);
+        } finally {
+            reader.close();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Scan the specified artifacts, at most {@link #threads} at the same
+     * time, and extract the variables values of their labeled classes.
+     * 
+     * @param artifacts
+     *            Labeled WAR files and classes directories.
+     * @return Labeled classes of each artifact, in the same order as the
+     *         artifacts.
+     * @throws Exception
+     *             If an artifact or its labels can't be read. The pending
+     *             scans are canceled.
+     */
+    private List<List<String[]>> scanArtifacts(final List<File> artifacts) throws Exception {
+        ExecutorService executor;
+        List<List<String[]>> returnValue;
+        List<Future<List<String[]>>> futures;
+
+        executor = Executors.newFixedThreadPool(this.threads);
+        futures = new ArrayList<Future<List<String[]>>>(artifacts.size());
+        returnValue = new ArrayList<List<String[]>>(artifacts.size());
+        try {
+            for (final File artifact : artifacts) {
+                futures.add(executor.submit(new Callable<List<String[]>>() {
+                    @Override
+                    public List<String[]> call() throws Exception {
+                        return ModelTrainer.this.scanArtifact(artifact);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    returnValue.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    ModelTrainer.logger.log(Level.SEVERE, "Error scanning " + artifacts.get(i), e.getCause());
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+
+                if (this.progress != null) {
+                    this.progress.println(artifacts.get(i).getName() + ": " + returnValue.get(i).size()
+                            + " labeled classes");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Scan a single artifact, and extract the variables values of its
+     * labeled classes.
+     * 
+     * @param artifact
+     *            Labeled WAR file or classes directory.
+     * @return Class name, variables values and layer of each labeled class.
+     * @throws Exception
+     *             If the artifact or its labels can't be read.
+     */
+    private List<String[]> scanArtifact(final File artifact) throws Exception {
+        Layer layer;
+        byte[] features;
+        String[] labeledClass;
+        List<String[]> returnValue;
+        Map<String, Layer> labels;
+        FeatureExtractor featureExtractor;
+        List<ClassDependencies> dependencies;
+
+        labels = ModelTrainer.readLabels(new File(artifact.getPath() + ModelTrainer.LABELS_EXTENSION));
+        if (artifact.isDirectory()) {
+            dependencies = DependencyAnalyzer.getDirectoryDependencies(artifact.getAbsolutePath(),
+                    new MvcDependencyCommand());
+        } else {
+            dependencies = DependencyAnalyzer.getWarDependencies(artifact.getAbsolutePath(), this.jarCache,
+                    new MvcDependencyCommand());
+        }
+
+        // Same class names as the MVC analysis
+        DependenciesUtil.groupWebDependencies(dependencies,
+                Util.getPropertyValues(this.variables, Variable.Type.getVariableName()));
+
+        featureExtractor = new FeatureExtractor(this.variables);
+        returnValue = new ArrayList<String[]>();
+        for (ClassDependencies classDependencies : dependencies) {
+            layer = ModelTrainer.getLabel(labels, classDependencies.getClassName());
+            if (layer == null) {
+                continue;
+            }
+
+            // Class name, Type, ExternalAPI, Suffix, Layer
+            features = featureExtractor.getFeatures(classDependencies);
+            labeledClass = new String[Variable.values().length + 2];
+            labeledClass[0] = classDependencies.getClassName();
+            for (Variable variable : Variable.values()) {
+                labeledClass[variable.ordinal() + 1] = featureExtractor.getValue(variable,
+                        features[variable.ordinal()]);
+            }
+            labeledClass[labeledClass.length - 1] = layer.toString().toLowerCase();
+            returnValue.add(labeledClass);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Write the labeled classes to an ARFF file, with the name of each class
+     * as a comment.
+     * 
+     * @param artifactNames
+     *            Name of each artifact.
+     * @param labeledClasses
+     *            Labeled classes of each artifact.
+     * @param trainingFile
+     *            ARFF file.
+     * @throws IOException
+     *             If an I/O error has occurred.
+     */
+    private void writeTrainingFile(final List<String> artifactNames, final List<List<String[]>> labeledClasses,
+            final File trainingFile) throws IOException {
+        Writer writer;
+        Instances header;
+
+        header = this.getInstances(new ArrayList<List<String[]>>());
+        writer = new BufferedWriter(new FileWriter(trainingFile));
+        try {
+            writer.write("@relation " + Utils.quote(header.relationName()) + "\n\n");
+            for (int i = 0; i < header.numAttributes(); i++) {
+                writer.write(header.attribute(i).toString() + "\n");
+            }
+            writer.write("\n@data\n");
+
+            for (int i = 0; i < artifactNames.size(); i++) {
+                writer.write("\n% -------- begin " + artifactNames.get(i) + " -------- \n");
+                for (String[] labeledClass : labeledClasses.get(i)) {
+                    writer.write("\n% " + labeledClass[0] + "\n");
+                    for (int j = 1; j < labeledClass.length; j++) {
+                        writer.write(((j > 1) ? "," : "") + Utils.quote(labeledClass[j]));
+                    }
+                    writer.write("\n");
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Get the training instances of the specified labeled classes.
+     * 
+     * @param labeledClasses
+     *            Labeled classes of each artifact.
+     * @return Training instances, the last attribute is the class.
+     */
+    private Instances getInstances(final List<List<String[]>> labeledClasses) {
+        double[] values;
+        String[] propertyValues;
+        FastVector attributes;
+        FastVector valuesVector;
+        Instances returnValue;
+
+        // Model variables
+        attributes = new FastVector(Variable.values().length + 1);
+        for (Variable variable : Variable.values()) {
+            propertyValues = Util.getPropertyValues(this.variables, variable.getVariableName());
+            valuesVector = new FastVector(propertyValues.length);
+            for (String propertyValue : propertyValues) {
+                valuesVector.addElement(propertyValue);
+            }
+            attributes.addElement(new Attribute(variable.toString(), valuesVector));
+        }
+
+        // Layer variable
+        valuesVector = new FastVector(ModelTrainer.LAYERS.length);
+        for (Layer layer : ModelTrainer.LAYERS) {
+            valuesVector.addElement(layer.toString().toLowerCase());
+        }
+        attributes.addElement(new Attribute("Layer", valuesVector));
+
+        returnValue = new Instances("mvc-training", attributes, 0);
+        returnValue.setClassIndex(Variable.values().length);
+        for (List<String[]> artifactClasses : labeledClasses) {
+            for (String[] labeledClass : artifactClasses) {
+                values = new double[returnValue.numAttributes()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = returnValue.attribute(i).indexOfValue(labeledClass[i + 1]);
+                    if (values[i] < 0) {
+                        throw new IllegalArgumentException("Value not defined for " + returnValue.attribute(i).name()
+                                + ": " + labeledClass[i + 1]);
+                    }
+                }
+                returnValue.add(new Instance(1, values));
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Check that the specified instances have the variables of this trainer.
+     * 
+     * @param instances
+     *            Training instances.
+     * @throws IllegalArgumentException
+     *             If the attributes or their values don't match the variables.
+     */
+    private void checkInstances(final Instances instances) {
+        Instances header;
+
+        header = this.getInstances(new ArrayList<List<String[]>>());
+        if (!header.equalHeaders(instances)) {
+            throw new IllegalArgumentException("The training data doesn't match the variables: "
+                    + instances.relationName());
+        }
+    }
+
+    /**
+     * Train a candidate classifier with all the folds but one, and classify
+     * the instances of that fold.
+     * 
+     * @param candidate
+     *            Options of the candidate classifier.
+     * @param instances
+     *            Stratified instances.
+     * @param fold
+     *            Index of the fold to classify.
+     * @return Number of instances of the fold correctly classified.
+     * @throws Exception
+     *             If the candidate can't be trained or evaluated.
+     */
+    private int evaluateFold(final String candidate, final Instances instances, final int fold) throws Exception {
+        int returnValue;
+        Instances test;
+        BayesNet classifier;
+
+        classifier = ModelTrainer.createClassifier(candidate);
+        classifier.buildClassifier(instances.trainCV(this.folds, fold));
+
+        returnValue = 0;
+        test = instances.testCV(this.folds, fold);
+        for (int i = 0; i < test.numInstances(); i++) {
+            if (classifier.classifyInstance(test.instance(i)) == test.instance(i).classValue()) {
+                returnValue++;
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Create a candidate classifier.
+     * 
+     * @param candidate
+     *            Options of the candidate classifier.
+     * @return Untrained classifier.
+     * @throws Exception
+     *             If the options aren't valid.
+     */
+    private static BayesNet createClassifier(final String candidate) throws Exception {
+        BayesNet returnValue;
+
+        returnValue = new BayesNet();
+        returnValue.setOptions(Utils.splitOptions(candidate));
+
+        return returnValue;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.util.Util.Variable;
+
+/**
+ * Extracts the values of the Uncertainty model variables (Type, ExternalAPI,
+ * Suffix) from a class' dependencies. The values are represented by their
+ * index in the variable's property values, and are cached in the
+ * ClassDependencies instance once extracted, along with the hash of the
+ * variables properties, so they're only reused by the extractors of the same
+ * variables. The external API matched by each
+ * dependency is also cached, so dependencies shared by many classes, like the
+ * framework types, are only checked once per extractor. An extractor isn't
+ * thread safe.
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class FeatureExtractor {
+
+    /**
+     * Index used when none of the variable's key values was found.
+     */
+    public static final byte NO_VALUE = -1;
+
+    /**
+     * Valid file types to look for in the component names.
+     */
+    private String[] typeValues;
+
+    /**
+     * Valid suffixes to look for in the class names.
+     */
+    private String[] suffixValues;
+
+    /**
+     * Valid external api packages to look for in the classes dependencies.
+     */
+    private String[] externalApiValues;
+
+    /**
+     * Packages associated to each external api.
+     */
+    private Map<String, String[]> externalApiPackages;
+
+    /**
+     * External api matched by each dependency checked so far, indexed by
+     * dependency name.
+     */
+    private Map<String, Byte> externalApiMatches;
+
+    /**
+     * Hash of the variables values used by this extractor.
+     */
+    private int variablesHash;
+
+    /**
+     * Default constructor, the variables values are read from the model's
+     * variables properties, see {@link Util#getPropertyValues(String)}.
+     */
+    public FeatureExtractor() {
+        this(null);
+    }
+
+    /**
+     * Constructor that specifies the variables properties, used to extract
+     * the variables of a model that's being trained.
+     * 
+     * @param variables
+     *            Variables properties, null to use the model's variables
+     *            properties.
+     */
+    public FeatureExtractor(final Properties variables) {
+        this.suffixValues = FeatureExtractor.getPropertyValues(variables, Util.Variable.Suffix.getVariableName());
+        this.typeValues = FeatureExtractor.getPropertyValues(variables, Util.Variable.Type.getVariableName());
+        this.externalApiValues = FeatureExtractor.getPropertyValues(variables,
+                Util.Variable.ExternalAPI.getVariableName());
+        this.externalApiPackages = new HashMap<String, String[]>(externalApiValues.length);
+        this.externalApiMatches = new HashMap<String, Byte>();
+        for (int i = 0; i < externalApiValues.length; i++) {
+            if (!externalApiValues[i].equals("none")) {
+                this.externalApiPackages.put(externalApiValues[i], FeatureExtractor.getPropertyValues(variables,
+                        "externalApi." + externalApiValues[i] + ".packages"));
+            }
+        }
+
+        this.variablesHash = Arrays.hashCode(this.typeValues);
+        this.variablesHash = (31 * this.variablesHash) + Arrays.hashCode(this.suffixValues);
+        this.variablesHash = (31 * this.variablesHash) + Arrays.hashCode(this.externalApiValues);
+        for (String externalApiValue : this.externalApiValues) {
+            this.variablesHash = (31 * this.variablesHash)
+                    + Arrays.hashCode(this.externalApiPackages.get(externalApiValue));
+        }
+    }
+
+    /**
+     * Get the hash of the variables values used by this extractor. Extractors
+     * with the same hash extract the same features.
+     * 
+     * @return Variables hash.
+     */
+    public int getVariablesHash() {
+        return this.variablesHash;
+    }
+
+    /**
+     * Get the variables values for the specified class, indexed by the
+     * variables ordinal. Each value is the index of the variable's property
+     * value found for the class, or <em>NO_VALUE</em> if none was found. The
+     * values cached in the class are only used if they were extracted with the
+     * same variables of this extractor.
+     * 
+     * @param classDependencies
+     *            Class' dependencies.
+     * @return Variables values.
+     */
+    public byte[] getFeatures(final ClassDependencies classDependencies) {
+        byte externalApi;
+        byte[] returnValue;
+        String className;
+        List<String> classExternalDependencies;
+
+        returnValue = classDependencies.getFeatures(this.variablesHash);
+        if (returnValue != null) {
+            return returnValue;
+        }
+
+        returnValue = new byte[Variable.values().length];
+        className = classDependencies.getClassName();
+
+        // Type
+        returnValue[Variable.Type.ordinal()] = 0;
+        for (int i = 0; i < this.typeValues.length; i++) {
+            if (className.endsWith("." + this.typeValues[i])) {
+                returnValue[Variable.Type.ordinal()] = (byte) i;
+                break;
+            }
+        }
+
+        // ExternalAPI, check if any of the class' external dependencies match
+        // with one of the key external dependencies. The first external api
+        // matched by any dependency is used
+        returnValue[Variable.ExternalAPI.ordinal()] = FeatureExtractor.NO_VALUE;
+        classExternalDependencies = classDependencies.getExternalDependencies();
+        if (classExternalDependencies != null) {
+            for (String externalDependency : classExternalDependencies) {
+                externalApi = this.getExternalApi(externalDependency);
+                if ((externalApi != FeatureExtractor.NO_VALUE)
+                        && ((returnValue[Variable.ExternalAPI.ordinal()] == FeatureExtractor.NO_VALUE)
+                        || (externalApi < returnValue[Variable.ExternalAPI.ordinal()]))) {
+                    returnValue[Variable.ExternalAPI.ordinal()] = externalApi;
+                }
+            }
+        }
+
+        // Suffix
+        returnValue[Variable.Suffix.ordinal()] = FeatureExtractor.NO_VALUE;
+        className = className.toLowerCase();
+        for (int i = 0; i < this.suffixValues.length; i++) {
+            if (className.endsWith(this.suffixValues[i])) {
+                returnValue[Variable.Suffix.ordinal()] = (byte) i;
+                break;
+            }
+        }
+
+        classDependencies.setFeatures(returnValue, this.variablesHash);
+        return returnValue;
+    }
+
+    /**
+     * Get the first external api whose packages contain the specified
+     * dependency.
+     * 
+     * @param externalDependency
+     *            External dependency name.
+     * @return Index of the external api property value, <em>NO_VALUE</em> if
+     *         the dependency doesn't belong to any external api.
+     */
+    private byte getExternalApi(final String externalDependency) {
+        Byte returnValue;
+        String dependencyName;
+
+        returnValue = this.externalApiMatches.get(externalDependency);
+        if (returnValue == null) {
+            returnValue = FeatureExtractor.NO_VALUE;
+            dependencyName = externalDependency.toLowerCase();
+            externalApi: for (int i = 0; i < this.externalApiValues.length; i++) {
+                if (this.externalApiValues[i].equals("none")) {
+                    continue;
+                }
+
+                for (String externalPackage : this.externalApiPackages.get(this.externalApiValues[i])) {
+                    if (dependencyName.startsWith(externalPackage)) {
+                        returnValue = (byte) i;
+                        break externalApi;
+                    }
+                }
+            }
+
+            this.externalApiMatches.put(externalDependency, returnValue);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the property value associated to the specified variable value
+     * index.
+     * 
+     * @param variable
+     *            Variable.
+     * @param index
+     *            Value index, as returned by <em>getFeatures</em>.
+     * @return Property value, <em>none</em> if index is <em>NO_VALUE</em>.
+     */
+    public String getValue(final Variable variable, final byte index) {
+        String[] values;
+
+        if (index == FeatureExtractor.NO_VALUE) {
+            return "none";
+        }
+
+        if (variable == Variable.Type) {
+            values = this.typeValues;
+        } else if (variable == Variable.ExternalAPI) {
+            values = this.externalApiValues;
+        } else {
+            values = this.suffixValues;
+        }
+
+        return values[index];
+    }
+
+    /**
+     * Get the number of property values of the specified variable.
+     * 
+     * @param variable
+     *            Variable.
+     * @return Number of values.
+     */
+    public int getValuesCount(final Variable variable) {
+        int returnValue;
+
+        if (variable == Variable.Type) {
+            returnValue = this.typeValues.length;
+        } else if (variable == Variable.ExternalAPI) {
+            returnValue = this.externalApiValues.length;
+        } else {
+            returnValue = this.suffixValues.length;
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get a property's values from the specified variables properties.
+     * 
+     * @param variables
+     *            Variables properties, null to use the model's variables
+     *            properties.
+     * @param propertyName
+     *            Property name.
+     * @return Property's values.
+     */
+    private static String[] getPropertyValues(final Properties variables, final String propertyName) {
+        return (variables != null) ? Util.getPropertyValues(variables, propertyName) : Util
+                .getPropertyValues(propertyName);
+    }
+}
@@ -18,10 +18,19 @@
  */
 package mx.itesm.web2mexadl.util;
 
+import java.io.File;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import mx.itesm.web2mexadl.mvc.BayesNetModel;
+import mx.itesm.web2mexadl.mvc.ModelCorrections;
 import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
 
 import weka.classifiers.Classifier;
@@ -61,20 +70,62 @@ public class Util {
      */
     private final static String CLASSIFIER_FILE_PATH = "/mvc-classifier-grails-play-struts-roo.model";
 
+    /**
+     * Path to the file containing the model's classifier, converted into
+     * conditional probability tables, see {@link BayesNetModel}.
+     */
+    private final static String MODEL_FILE_PATH = "/mvc-classifier-grails-play-struts-roo.cpt";
+
+    /**
+     * System property with the path to the file containing the corrections
+     * of the MVC model, see {@link ModelCorrections}.
+     */
+    public static final String CORRECTIONS_FILE_PROPERTY = "web2mexadl.corrections";
+
+    /**
+     * Default path, relative to the user's home directory, to the file
+     * containing the corrections of the MVC model.
+     */
+    private final static String CORRECTIONS_FILE_PATH = ".web2mexadl/mvc-corrections.arff";
+
     /**
      * Class logger.
      */
     private static Logger logger = Logger.getLogger(MvcAnalyzer.class.getName());
 
     /**
-     * Properties file containing the variables data.
+     * Properties file containing the variables data. It's only read while
+     * initializing this class, so it can be shared by concurrent analyses.
      */
-    public static Properties classifierVariables;
+    private static final Properties CLASSIFIER_VARIABLES;
 
     /**
-     * MVC Classifier.
+     * Loader of the MVC Classifier, read from the model file only once, the
+     * first time it's needed or in the background, see
+     * {@link #loadClassifierInBackground()}. Weka classifiers aren't thread
+     * safe, so the analyses classify with copies of the loaded one.
      */
-    public static Classifier classifier;
+    private static final FutureTask<Classifier> CLASSIFIER = new FutureTask<Classifier>(new Callable<Classifier>() {
+        @Override
+        public Classifier call() {
+            Classifier returnValue;
+
+            returnValue = null;
+            try {
+                returnValue = (Classifier) SerializationHelper.read(MvcAnalyzer.class
+                        .getResourceAsStream(Util.CLASSIFIER_FILE_PATH));
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Classifier file: " + Util.CLASSIFIER_FILE_PATH + " could not be read", e);
+            }
+
+            return returnValue;
+        }
+    });
+
+    /**
+     * Has the background loading of the classifier been requested.
+     */
+    private static final AtomicBoolean CLASSIFIER_LOADER_STARTED = new AtomicBoolean();
 
     /**
      * Random Variables used in the Uncertainty model.
@@ -91,31 +142,13 @@ public class Util {
         private String variableName;
 
         /**
-         * Variable attribute.
-         */
-        private Attribute attribute;
-
-        /**
-         * Constructor that specifies the Variable's property name. The
-         * attribute's values are read from the
-         * <em>MvcAnalyzer.classifierVariables</em> properties.
+         * Constructor that specifies the Variable's property name.
          * 
          * @param variableName
          *            Variable Name.
          */
         private Variable(final String variableName) {
-            String[] propertyValues;
-            FastVector valuesVector;
-
-            // Load property values
-            propertyValues = Util.getPropertyValues(variableName);
-            valuesVector = new FastVector(propertyValues.length);
-            for (String propertyValue : propertyValues) {
-                valuesVector.addElement(propertyValue);
-            }
-
             this.variableName = variableName;
-            this.attribute = new Attribute(this.toString(), valuesVector, this.ordinal());
         }
 
         /**
@@ -128,48 +161,350 @@ public class Util {
         }
 
         /**
-         * Get the variable's attribute.
+         * Get the variable's attribute. The attributes' values are read from
+         * the model's variables properties the first time an attribute is
+         * requested, so the analyses that don't use Weka instances don't
+         * build them.
          * 
          * @return Attribute.
          */
         public Attribute getAttribute() {
-            return this.attribute;
+            return VariableAttributes.ATTRIBUTES[this.ordinal()];
         }
     };
 
     /**
-     * Initialize properties file.
+     * Attributes of the Uncertainty model variables, indexed by the variables
+     * ordinal. They're never modified once created, so they can be shared by
+     * concurrent analyses.
      */
-    static {
-        Util.classifierVariables = new Properties();
+    private static class VariableAttributes {
 
-        try {
-            Util.classifierVariables.load(MvcAnalyzer.class.getResourceAsStream(Util.PROPERTIES_FILE_PATH));
+        /**
+         * Variables attributes.
+         */
+        private static final Attribute[] ATTRIBUTES;
+
+        static {
+            String[] propertyValues;
+            FastVector valuesVector;
+
+            ATTRIBUTES = new Attribute[Variable.values().length];
+            for (Variable variable : Variable.values()) {
+                propertyValues = Util.getPropertyValues(variable.getVariableName());
+                valuesVector = new FastVector(propertyValues.length);
+                for (String propertyValue : propertyValues) {
+                    valuesVector.addElement(propertyValue);
+                }
+
+                VariableAttributes.ATTRIBUTES[variable.ordinal()] = new Attribute(variable.toString(), valuesVector,
+                        variable.ordinal());
+            }
+        }
+    }
 
-            Util.classifier = (Classifier) SerializationHelper.read(MvcAnalyzer.class
-                    .getResourceAsStream(Util.CLASSIFIER_FILE_PATH));
+    /**
+     * MVC model, read from the model file the first time it's requested, with
+     * the corrections file, if it exists, added to its counts. The corrections
+     * are read again whenever the corrections file changes.
+     */
+    private static class DefaultModel {
+
+        /**
+         * MVC model without corrections, null if the model file couldn't be
+         * read.
+         */
+        private static final BayesNetModel MODEL;
+
+        /**
+         * MVC model with the corrections last read.
+         */
+        private static volatile CorrectedModel correctedModel;
+
+        static {
+            BayesNetModel model;
+
+            model = null;
+            try {
+                model = BayesNetModel.read(MvcAnalyzer.class.getResourceAsStream(Util.MODEL_FILE_PATH));
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Model file: " + Util.MODEL_FILE_PATH + " could not be read", e);
+            }
+
+            MODEL = model;
+        }
+
+        /**
+         * Get the MVC model with the current corrections, reading them again
+         * if the corrections file was created, modified or deleted since the
+         * last call.
+         * 
+         * @return MVC model, null if the model file couldn't be read.
+         */
+        public static BayesNetModel getModel() {
+            long length;
+            long lastModified;
+            File correctionsFile;
+            CorrectedModel returnValue;
+
+            // A missing file has no modification time or length
+            correctionsFile = Util.getCorrectionsFile().getAbsoluteFile();
+            lastModified = correctionsFile.lastModified();
+            length = correctionsFile.length();
+            returnValue = DefaultModel.correctedModel;
+            if ((returnValue == null) || !returnValue.isCurrent(correctionsFile, lastModified, length)) {
+                synchronized (DefaultModel.class) {
+                    returnValue = DefaultModel.correctedModel;
+                    if ((returnValue == null) || !returnValue.isCurrent(correctionsFile, lastModified, length)) {
+                        returnValue = new CorrectedModel(correctionsFile, lastModified, length,
+                                DefaultModel.addCorrections(correctionsFile));
+                        DefaultModel.correctedModel = returnValue;
+                    }
+                }
+            }
+
+            return returnValue.model;
+        }
+
+        /**
+         * Add the corrections in the specified file to the MVC model.
+         * 
+         * @param correctionsFile
+         *            Corrections file.
+         * @return MVC model with the corrections, or without them if the file
+         *         doesn't exist or isn't valid.
+         */
+        private static BayesNetModel addCorrections(final File correctionsFile) {
+            List<int[]> corrections;
+            BayesNetModel returnValue;
+
+            // Without valid corrections, the distributed model is still used
+            returnValue = DefaultModel.MODEL;
+            if ((returnValue != null) && correctionsFile.isFile()) {
+                try {
+                    corrections = ModelCorrections.read(correctionsFile, returnValue);
+                    returnValue = returnValue.update(corrections);
+                    logger.info(corrections.size() + " corrections added to the MVC model from: "
+                            + correctionsFile.getAbsolutePath());
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, "Corrections file: " + correctionsFile.getAbsolutePath()
+                            + " could not be read", e);
+                }
+            }
+
+            return returnValue;
+        }
+    }
+
+    /**
+     * MVC model with the corrections of a given version of the corrections
+     * file.
+     */
+    private static class CorrectedModel {
+
+        /**
+         * Corrections file.
+         */
+        private final File correctionsFile;
+
+        /**
+         * Modification time of the corrections file when it was read.
+         */
+        private final long lastModified;
+
+        /**
+         * Length of the corrections file when it was read.
+         */
+        private final long length;
+
+        /**
+         * MVC model with the corrections.
+         */
+        private final BayesNetModel model;
+
+        /**
+         * Full constructor.
+         * 
+         * @param correctionsFile
+         *            Corrections file.
+         * @param lastModified
+         *            Modification time of the corrections file.
+         * @param length
+         *            Length of the corrections file.
+         * @param model
+         *            MVC model with the corrections.
+         */
+        public CorrectedModel(final File correctionsFile, final long lastModified, final long length,
+                final BayesNetModel model) {
+            this.correctionsFile = correctionsFile;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.model = model;
+        }
+
+        /**
+         * Determine if the model has the corrections of the specified version
+         * of the corrections file.
+         * 
+         * @param correctionsFile
+         *            Corrections file.
+         * @param lastModified
+         *            Modification time of the corrections file.
+         * @param length
+         *            Length of the corrections file.
+         * @return <em>true</em> if the model is current.
+         */
+        public boolean isCurrent(final File correctionsFile, final long lastModified, final long length) {
+            return this.correctionsFile.equals(correctionsFile) && (this.lastModified == lastModified)
+                    && (this.length == length);
+        }
+    }
+
+    /**
+     * Initialize properties file. The classifier is only read when needed.
+     */
+    static {
+        CLASSIFIER_VARIABLES = new Properties();
+        try {
+            Util.CLASSIFIER_VARIABLES.load(MvcAnalyzer.class.getResourceAsStream(Util.PROPERTIES_FILE_PATH));
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Properties file: " + Util.PROPERTIES_FILE_PATH + " could not be read", e);
         }
     }
 
     /**
-     * Get a property's values, specified in the MvcAnalyzer.classifierVariables
-     * properties file.
+     * Get the MVC classifier read from the model file, it replaces the former
+     * public <em>classifier</em> field. The classifier is shared, so it must
+     * not be used directly to classify instances; use
+     * <em>Classifier.makeCopy</em> to get a private copy.
+     * <p>
+     * The model file is read by the first call, or by the background loader
+     * if it was started, in which case the call waits for it to finish.
+     * 
+     * @return MVC classifier, null if the model file couldn't be read.
+     * @throws CancellationException
+     *             If the current thread is interrupted while waiting for the
+     *             classifier to be read.
+     */
+    public static Classifier getClassifier() {
+        Classifier returnValue;
+
+        // Does nothing if the classifier was already read, or is being read
+        // by another thread
+        Util.CLASSIFIER.run();
+        try {
+            returnValue = Util.CLASSIFIER.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while reading the classifier");
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Classifier file: " + Util.CLASSIFIER_FILE_PATH + " could not be read", e);
+            returnValue = null;
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Get the MVC model, read from the model file the first time it's
+     * requested. It's the same classifier returned by
+     * {@link #getClassifier()}, converted into conditional probability tables
+     * so it can be read in microseconds and evaluated without Weka, plus the
+     * corrections in {@link #getCorrectionsFile()}. The corrections are read
+     * again each time the corrections file changes. The returned model is
+     * never modified, so it can be shared by concurrent analyses.
+     * 
+     * @return MVC model, null if the model file couldn't be read.
+     */
+    public static BayesNetModel getModel() {
+        return DefaultModel.getModel();
+    }
+
+    /**
+     * Get the file containing the corrections of the MVC model, added to the
+     * model returned by {@link #getModel()} each time it changes. It's
+     * specified by the <em>web2mexadl.corrections</em> system property, or
+     * <em>.web2mexadl/mvc-corrections.arff</em> in the user's home directory
+     * by default. The file may not exist.
+     * 
+     * @return Corrections file.
+     */
+    public static File getCorrectionsFile() {
+        String path;
+        File returnValue;
+
+        path = System.getProperty(Util.CORRECTIONS_FILE_PROPERTY);
+        if (path != null) {
+            returnValue = new File(path);
+        } else {
+            returnValue = new File(System.getProperty("user.home"), Util.CORRECTIONS_FILE_PATH);
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Start reading the MVC classifier in a background thread, if it hasn't
+     * been read yet, so an analysis can scan the classes while the model file
+     * is read. Only the first call has any effect.
+     */
+    public static void loadClassifierInBackground() {
+        Thread loader;
+
+        if (!Util.CLASSIFIER_LOADER_STARTED.getAndSet(true) && !Util.CLASSIFIER.isDone()) {
+            loader = new Thread(Util.CLASSIFIER, "Web2MexADL classifier loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+
+    /**
+     * Get a copy of the model's variables properties, it replaces the former
+     * public <em>classifierVariables</em> field. Changes to the copy don't
+     * affect the analyses; use a {@link FeatureExtractor} built from them to
+     * extract the variables of a different model.
+     * 
+     * @return Variables properties.
+     */
+    public static Properties getVariables() {
+        Properties returnValue;
+
+        returnValue = new Properties();
+        returnValue.putAll(Util.CLASSIFIER_VARIABLES);
+
+        return returnValue;
+    }
+
+    /**
+     * Get a property's values, specified in the model's variables properties
+     * file.
      * 
      * @param propertyName
      *            Property name.
      * @return Property's values.
      */
     public static String[] getPropertyValues(final String propertyName) {
+        return Util.getPropertyValues(Util.CLASSIFIER_VARIABLES, propertyName);
+    }
+
+    /**
+     * Get a property's values, specified in a variables properties file.
+     * 
+     * @param variables
+     *            Variables properties.
+     * @param propertyName
+     *            Property name.
+     * @return Property's values.
+     */
+    public static String[] getPropertyValues(final Properties variables, final String propertyName) {
         String[] returnValue;
 
-        if ((propertyName == null) || (!Util.classifierVariables.containsKey(propertyName))) {
+        if ((propertyName == null) || (!variables.containsKey(propertyName))) {
             throw new IllegalArgumentException("Invalid property: " + propertyName);
         }
 
         // Make sure all the values are in lower case
-        returnValue = Util.classifierVariables.getProperty(propertyName).split(",");
+        returnValue = variables.getProperty(propertyName).split(",");
         for (int i = 0; i < returnValue.length; i++) {
             returnValue[i] = returnValue[i].toLowerCase();
         }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.batch;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class BatchAnalyzerTest extends TestCase {
+
+    public void testGetArtifacts() throws Exception {
+        File listFile;
+        File warsDirectory;
+        File classesDirectory;
+        File inputsDirectory;
+
+        inputsDirectory = new File(System.getProperty("java.io.tmpdir"), "batchAnalyzerTest");
+        warsDirectory = new File(inputsDirectory, "wars");
+        classesDirectory = new File(inputsDirectory, "classes");
+        listFile = new File(inputsDirectory, "inputs.txt");
+        FileUtils.deleteQuietly(inputsDirectory);
+        FileUtils.forceMkdir(warsDirectory);
+        FileUtils.forceMkdir(classesDirectory);
+        try {
+            FileUtils.touch(new File(warsDirectory, "b.war"));
+            FileUtils.touch(new File(warsDirectory, "a.WAR"));
+            FileUtils.touch(new File(warsDirectory, "readme.txt"));
+            FileUtils.touch(new File(classesDirectory, "Main.class"));
+            FileUtils.writeStringToFile(listFile, "# Relative to the list\n\nclasses\n  wars/b.war  \n", "UTF-8");
+
+            // WAR files of a directory are sorted, other directories are
+            // classes directories, and lists are expanded
+            assertEquals(Arrays.asList(new File(warsDirectory, "a.WAR"), new File(warsDirectory, "b.war"),
+                    classesDirectory, new File(inputsDirectory, "classes"), new File(inputsDirectory, "wars/b.war")),
+                    BatchAnalyzer.getArtifacts(Arrays.asList(warsDirectory, classesDirectory, listFile)));
+
+            try {
+                BatchAnalyzer.getArtifacts(Arrays.asList(new File(inputsDirectory, "missing.war")));
+                fail("Missing input accepted");
+            } catch (FileNotFoundException e) {
+                // Expected
+            }
+        } finally {
+            FileUtils.deleteQuietly(inputsDirectory);
+        }
+    }
+
+    public void testGetArtifactNames() throws Exception {
+        assertEquals(Arrays.asList("app", "app-2", "app-2-2", "App-3", "other"), BatchAnalyzer
+                .getArtifactNames(Arrays.asList(new File("/a/app.war"), new File("/b/app"), new File("/c/app-2.war"),
+                        new File("/d/App.WAR"), new File("/e/other"))));
+        assertEquals(Arrays.asList("app-2", "app", "app-3"), BatchAnalyzer.getArtifactNames(Arrays.asList(new File(
+                "/a/app-2.war"), new File("/b/app.war"), new File("/c/app"))));
+    }
+
+    public void testGraphExports() throws Exception {
+        String json;
+        String graphML;
+        File classesDirectory;
+        File inputsDirectory;
+        File outputDirectory;
+        List<BatchResult> results;
+
+        inputsDirectory = new File(System.getProperty("java.io.tmpdir"), "batchAnalyzerTest");
+        classesDirectory = new File(inputsDirectory, "app/WEB-INF/classes");
+        outputDirectory = new File(inputsDirectory, "output");
+        FileUtils.deleteQuietly(inputsDirectory);
+        try {
+            for (Class<?> clazz : new Class<?>[] { MvcAnalyzer.class, Layer.class, Cluster.class,
+                    ClassDependencies.class }) {
+                FileUtils.copyInputStreamToFile(clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/')
+                        + ".class"), new File(classesDirectory, clazz.getName().replace('.', '/') + ".class"));
+            }
+
+            results = new BatchAnalyzer(outputDirectory, new String[] { BatchAnalyzer.MVC_ANALYZER,
+                    BatchAnalyzer.CLUSTER_ANALYZER }, 2, false, false, false, true, true, null, null).analyze(Arrays
+                    .asList(new File(inputsDirectory, "app")));
+            for (BatchResult result : results) {
+                assertTrue(String.valueOf(result.getError()), result.isSuccessful());
+                assertEquals(4, result.getClassesCount());
+
+                // Grouped names, classified by the analysis
+                graphML = FileUtils.readFileToString(new File(result.getOutputDirectory(),
+                        BatchAnalyzer.GRAPHML_FILE), "UTF-8");
+                json = FileUtils.readFileToString(new File(result.getOutputDirectory(), BatchAnalyzer.JSON_FILE),
+                        "UTF-8");
+                assertTrue(graphML.contains("<data key=\"name\">" + MvcAnalyzer.class.getName() + "</data>"));
+                assertTrue(json.contains("\"name\":\"" + MvcAnalyzer.class.getName() + "\""));
+                assertFalse(json.contains("WEB-INF"));
+                if (result.getAnalyzer().equals(BatchAnalyzer.MVC_ANALYZER)) {
+                    assertTrue(json.contains("\"classification\":\"Model\""));
+                } else {
+                    assertTrue(json.contains("\"classification\":\"Cluster_"));
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(inputsDirectory);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.combined;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class CombinedAnalyzerTest extends TestCase {
+
+    public void testSameResultsAsSequentialAnalyses() throws Exception {
+        File mvcDirectory;
+        File clusterDirectory;
+        File classesDirectory;
+        File combinedDirectory;
+        File outputDirectory;
+        Map<String, Layer> layers;
+        CombinedResult combined;
+        Map<String, Cluster> clusters;
+
+        classesDirectory = new File(CombinedAnalyzer.class.getProtectionDomain().getCodeSource().getLocation()
+                .toURI());
+        outputDirectory = new File(System.getProperty("java.io.tmpdir"), "combinedAnalyzerTest");
+        mvcDirectory = new File(outputDirectory, "mvc");
+        clusterDirectory = new File(outputDirectory, "cluster");
+        combinedDirectory = new File(outputDirectory, "combined");
+        FileUtils.deleteQuietly(outputDirectory);
+        FileUtils.forceMkdir(mvcDirectory);
+        FileUtils.forceMkdir(clusterDirectory);
+        FileUtils.forceMkdir(combinedDirectory);
+        try {
+            // Sequential runs
+            layers = new MvcAnalyzer().analyzeDirectory(classesDirectory, false, new File(mvcDirectory,
+                    "mvc.svg"), null);
+            clusters = ClusterAnalyzer.classifyClassesInDirectory(classesDirectory, false, new File(
+                    clusterDirectory, "clustered.svg"));
+            assertFalse(layers.isEmpty());
+            assertFalse(clusters.isEmpty());
+
+            combined = new CombinedAnalyzer().analyzeDirectory(classesDirectory, false, new File(
+                    combinedDirectory, "mvc.svg"), new File(combinedDirectory, "clustered.svg"), null);
+
+            assertEquals(layers, combined.getLayers());
+            assertEquals(this.getClusterNames(clusters), this.getClusterNames(combined.getClusters()));
+            assertTrue(new File(combinedDirectory, "mvcArchitecture.xml").isFile());
+            assertTrue(new File(combinedDirectory, "clusteredArchitecture.xml").isFile());
+            assertTrue(FileUtils.contentEquals(new File(mvcDirectory, "mvcArchitecture.xml"), new File(
+                    combinedDirectory, "mvcArchitecture.xml")));
+            assertTrue(FileUtils.contentEquals(new File(clusterDirectory, "clusteredArchitecture.xml"), new File(
+                    combinedDirectory, "clusteredArchitecture.xml")));
+        } finally {
+            FileUtils.deleteQuietly(outputDirectory);
+        }
+    }
+
+    private Map<String, String> getClusterNames(final Map<String, Cluster> clusters) {
+        Map<String, String> returnValue;
+
+        returnValue = new HashMap<String, String>();
+        for (Map.Entry<String, Cluster> cluster : clusters.entrySet()) {
+            returnValue.put(cluster.getKey(), cluster.getValue().getName());
+        }
+
+        return returnValue;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class DependenciesUtilTest extends TestCase {
+
+    public void testSimplifiedInternalDependencies() throws Exception {
+        List<ClassDependencies> dependencies;
+        Map<String, Map<String, Integer>> expected;
+        Map<String, Map<String, Integer>> simplified;
+
+        // A and B form a cycle, both depend on C (twice from A), and A's
+        // dependency on D is implied by C's
+        dependencies = new ArrayList<ClassDependencies>();
+        dependencies.add(new ClassDependencies("org.example.A", Arrays.asList("org.example.B", "org.example.C",
+                "org.example.C", "org.example.D"), null));
+        dependencies.add(new ClassDependencies("org.example.B", Arrays.asList("org.example.A", "org.example.C"),
+                null));
+        dependencies.add(new ClassDependencies("org.example.C", Arrays.asList("org.example.D"), null));
+        dependencies.add(new ClassDependencies("org.example.D", null, null));
+
+        expected = new HashMap<String, Map<String, Integer>>();
+        expected.put("org.example.A", new HashMap<String, Integer>());
+        expected.put("org.example.B", new HashMap<String, Integer>());
+        expected.put("org.example.C", new HashMap<String, Integer>());
+        expected.put("org.example.D", new HashMap<String, Integer>());
+        expected.get("org.example.A").put("org.example.B", 1);
+        expected.get("org.example.B").put("org.example.A", 1);
+        // A -> C and B -> C collapsed into the first one
+        expected.get("org.example.A").put("org.example.C", 2);
+        expected.get("org.example.C").put("org.example.D", 1);
+
+        simplified = DependenciesUtil.getSimplifiedInternalDependencies(dependencies);
+        assertEquals(expected, simplified);
+    }
+}
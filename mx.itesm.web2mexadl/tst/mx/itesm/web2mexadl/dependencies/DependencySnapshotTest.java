@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.util.FeatureExtractor;
+import mx.itesm.web2mexadl.util.Util;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class DependencySnapshotTest extends TestCase {
+
+    public void testWriteRead() throws Exception {
+        File snapshotFile;
+        List<ClassDependencies> read;
+        List<ClassDependencies> dependencies;
+
+        dependencies = new ArrayList<ClassDependencies>();
+        dependencies.add(new ClassDependencies("org.petclinic.web.OwnerController", Arrays
+                .asList("org.petclinic.domain.Owner"), Arrays.asList("org.springframework.web.bind.WebDataBinder")));
+        dependencies.add(new ClassDependencies("org.petclinic.domain.Owner", new ArrayList<String>(), Arrays
+                .asList("javax.persistence.Entity")));
+        dependencies.add(new ClassDependencies("/WEB-INF/views/owners/show.jsp", null, null));
+
+        snapshotFile = File.createTempFile("dependencies", ".snapshot");
+        try {
+            DependencySnapshot.write(dependencies, snapshotFile);
+            read = DependencySnapshot.read(snapshotFile);
+        } finally {
+            snapshotFile.delete();
+        }
+
+        assertEquals(dependencies.size(), read.size());
+        for (int i = 0; i < dependencies.size(); i++) {
+            assertEquals(dependencies.get(i).getClassName(), read.get(i).getClassName());
+            assertEquals(dependencies.get(i).getPackageName(), read.get(i).getPackageName());
+            assertEquals(dependencies.get(i).getInternalDependencies(), read.get(i).getInternalDependencies());
+            assertEquals(dependencies.get(i).getExternalDependencies(), read.get(i).getExternalDependencies());
+            assertTrue(Arrays.equals(dependencies.get(i).getFeatures(), read.get(i).getFeatures()));
+        }
+    }
+
+    public void testOtherVariables() throws Exception {
+        File snapshotFile;
+        Properties variables;
+        List<ClassDependencies> read;
+        FeatureExtractor featureExtractor;
+        List<ClassDependencies> dependencies;
+
+        dependencies = new ArrayList<ClassDependencies>();
+        dependencies.add(new ClassDependencies("org.petclinic.web.OwnerController", Arrays
+                .asList("org.petclinic.domain.Owner"), Arrays.asList("org.springframework.web.bind.WebDataBinder")));
+
+        variables = Util.getVariables();
+        variables.setProperty(Util.Variable.Suffix.getVariableName(), "service,controller");
+        featureExtractor = new FeatureExtractor(variables);
+        assertTrue(featureExtractor.getVariablesHash() != new FeatureExtractor().getVariablesHash());
+
+        snapshotFile = File.createTempFile("dependencies", ".snapshot");
+        try {
+            DependencySnapshot.write(dependencies, snapshotFile);
+            read = DependencySnapshot.read(snapshotFile, featureExtractor);
+        } finally {
+            snapshotFile.delete();
+        }
+
+        // The stored values were extracted with the model's variables
+        assertNull(read.get(0).getFeatures());
+        assertEquals(1, featureExtractor.getFeatures(read.get(0))[Util.Variable.Suffix.ordinal()]);
+        assertEquals(dependencies.get(0).getFeatures()[Util.Variable.Suffix.ordinal()],
+                new FeatureExtractor().getFeatures(read.get(0))[Util.Variable.Suffix.ordinal()]);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class DependencyStoreTest extends TestCase {
+
+    public void testSameDependenciesAsHeapScan() throws Exception {
+        String path;
+        DependencyStore store;
+        ClassDependencies expected;
+        List<ClassDependencies> stored;
+        List<ClassDependencies> dependencies;
+        Map<String, ClassDependencies> storedClasses;
+
+        path = new File(DependencyStore.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getAbsolutePath();
+        dependencies = DependencyAnalyzer.getDirectoryDependencies(path);
+        store = new DependencyStore();
+        try {
+            DependencyAnalyzer.getDirectoryDependencies(path, store);
+            stored = store.asList();
+
+            storedClasses = new HashMap<String, ClassDependencies>();
+            for (ClassDependencies classDependencies : stored) {
+                storedClasses.put(classDependencies.getClassName(), classDependencies);
+            }
+            assertEquals(dependencies.size(), stored.size());
+            assertEquals(dependencies.size(), storedClasses.size());
+
+            for (ClassDependencies classDependencies : dependencies) {
+                expected = storedClasses.get(classDependencies.getClassName());
+                assertNotNull(classDependencies.getClassName(), expected);
+                assertEquals(expected.getPackageName(), classDependencies.getPackageName());
+                assertEquals(new HashSet<String>(expected.getInternalDependencies()), new HashSet<String>(
+                        classDependencies.getInternalDependencies()));
+                assertEquals(new HashSet<String>(expected.getExternalDependencies()), new HashSet<String>(
+                        classDependencies.getExternalDependencies()));
+            }
+
+            assertEquals(DependenciesUtil.getInternalPackages(dependencies, new String[0]),
+                    DependenciesUtil.getInternalPackages(stored, new String[0]));
+        } finally {
+            store.close();
+        }
+    }
+
+    public void testMappedNames() throws Exception {
+        File directory;
+        DependencyStore store;
+
+        directory = new File(System.getProperty("java.io.tmpdir"), "dependencyStoreTest");
+        FileUtils.deleteQuietly(directory);
+        FileUtils.forceMkdir(directory);
+        store = new DependencyStore(directory);
+        try {
+            // Enough names to grow the hash table three times
+            for (int i = 0; i < 100000; i++) {
+                assertEquals(i, store.getNameId("org.example.Class" + i));
+            }
+            store.markInternal("org.example.Class1");
+            store.addClass("org.example.Class0", null, null);
+
+            for (int i = 0; i < 100000; i++) {
+                assertEquals(i, store.findNameId("org.example.Class" + i));
+                assertEquals("org.example.Class" + i, store.getName(i));
+                assertEquals(i == 1, store.isInternal("org.example.Class" + i));
+            }
+            assertEquals(-1, store.findNameId("org.example.Missing"));
+            assertNull(store.getClassDependencies(0).getInternalDependencies());
+
+            // Names, block offsets, hashes, flags, records, record offsets and
+            // the hash table; the table and the flags reuse the chunks of the
+            // previous tables, that would otherwise take two more chunks
+            assertEquals(7L << 22, directory.listFiles()[0].length());
+        } finally {
+            store.close();
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+}
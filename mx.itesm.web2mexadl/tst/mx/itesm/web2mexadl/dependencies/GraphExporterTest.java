@@ -0,0 +1,259 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.mvc.Layer;
+
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.jdom.input.SAXBuilder;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class GraphExporterTest extends TestCase {
+
+    private static final String VIEW = "/WEB-INF/views/a&b<\"c\">.jsp";
+
+    private static final String SERVICE = "org.example.Caf\u00e9\tService\\";
+
+    private static final String EXTERNAL = "javax.servlet.Http'Servlet";
+
+    private List<ClassDependencies> dependencies;
+
+    private Map<String, Object> classifications;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.dependencies = new ArrayList<ClassDependencies>();
+        this.dependencies.add(new ClassDependencies(GraphExporterTest.VIEW, Arrays.asList(GraphExporterTest.SERVICE),
+                null));
+        this.dependencies.add(new ClassDependencies(GraphExporterTest.SERVICE, new ArrayList<String>(), Arrays
+                .asList(GraphExporterTest.EXTERNAL)));
+
+        this.classifications = new HashMap<String, Object>();
+        this.classifications.put(GraphExporterTest.VIEW, Layer.View);
+        this.classifications.put(GraphExporterTest.SERVICE, new Cluster("Cluster_<1>&", 0xff0000));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testGraphML() throws Exception {
+        File graphFile;
+        Document document;
+        Namespace namespace;
+        Set<String> externalNodes;
+        Set<List<String>> edges;
+        Map<String, String> nodeNames;
+        Map<String, String> nodeClassifications;
+
+        graphFile = File.createTempFile("dependencies", ".graphml");
+        try {
+            GraphExporter.exportDependenciesToGraphML(this.dependencies, true, this.classifications, graphFile);
+            document = new SAXBuilder().build(graphFile);
+        } finally {
+            graphFile.delete();
+        }
+
+        namespace = Namespace.getNamespace("http://graphml.graphdrawing.org/xmlns");
+        nodeNames = new HashMap<String, String>();
+        nodeClassifications = new HashMap<String, String>();
+        externalNodes = new HashSet<String>();
+        for (Element node : (List<Element>) document.getRootElement().getChild("graph", namespace).getChildren(
+                "node", namespace)) {
+            for (Element data : (List<Element>) node.getChildren("data", namespace)) {
+                if (data.getAttributeValue("key").equals("name")) {
+                    nodeNames.put(node.getAttributeValue("id"), data.getText());
+                } else if (data.getAttributeValue("key").equals("classification")) {
+                    nodeClassifications.put(data.getText(), node.getAttributeValue("id"));
+                } else if (data.getAttributeValue("key").equals("external")) {
+                    externalNodes.add(nodeNames.get(node.getAttributeValue("id")));
+                }
+            }
+        }
+
+        edges = new HashSet<List<String>>();
+        for (Element edge : (List<Element>) document.getRootElement().getChild("graph", namespace).getChildren(
+                "edge", namespace)) {
+            edges.add(Arrays.asList(nodeNames.get(edge.getAttributeValue("source")), nodeNames.get(edge
+                    .getAttributeValue("target"))));
+        }
+
+        assertEquals(new HashSet<String>(Arrays.asList(GraphExporterTest.VIEW, GraphExporterTest.SERVICE,
+                GraphExporterTest.EXTERNAL)), new HashSet<String>(nodeNames.values()));
+        assertEquals(new HashSet<String>(Arrays.asList(GraphExporterTest.EXTERNAL)), externalNodes);
+        assertEquals(GraphExporterTest.VIEW, nodeNames.get(nodeClassifications.get("View")));
+        assertEquals(GraphExporterTest.SERVICE, nodeNames.get(nodeClassifications.get("Cluster_<1>&")));
+        assertEquals(this.getExpectedEdges(), edges);
+    }
+
+    public void testJson() throws Exception {
+        File jsonFile;
+        List<String> lines;
+        Map<String, Object> line;
+        Set<List<String>> edges;
+        Set<String> externalNodes;
+        Map<Object, String> nodeNames;
+        Map<String, Object> nodeClassifications;
+
+        jsonFile = File.createTempFile("dependencies", ".json");
+        try {
+            GraphExporter.exportDependenciesToJson(this.dependencies, true, this.classifications, jsonFile);
+            lines = FileUtils.readLines(jsonFile, "UTF-8");
+        } finally {
+            jsonFile.delete();
+        }
+
+        nodeNames = new HashMap<Object, String>();
+        nodeClassifications = new HashMap<String, Object>();
+        externalNodes = new HashSet<String>();
+        edges = new HashSet<List<String>>();
+        for (String jsonLine : lines) {
+            line = GraphExporterTest.parseObject(jsonLine);
+            if (line.get("type").equals("node")) {
+                nodeNames.put(line.get("id"), (String) line.get("name"));
+                if (line.containsKey("classification")) {
+                    nodeClassifications.put((String) line.get("classification"), line.get("id"));
+                }
+                if (Boolean.TRUE.equals(line.get("external"))) {
+                    externalNodes.add((String) line.get("name"));
+                }
+            } else {
+                // Nodes are written before the edges that reference them
+                assertTrue(nodeNames.containsKey(line.get("source")));
+                assertTrue(nodeNames.containsKey(line.get("target")));
+                edges.add(Arrays.asList(nodeNames.get(line.get("source")), nodeNames.get(line.get("target"))));
+            }
+        }
+
+        assertEquals(new HashSet<String>(Arrays.asList(GraphExporterTest.VIEW, GraphExporterTest.SERVICE,
+                GraphExporterTest.EXTERNAL)), new HashSet<String>(nodeNames.values()));
+        assertEquals(new HashSet<String>(Arrays.asList(GraphExporterTest.EXTERNAL)), externalNodes);
+        assertEquals(GraphExporterTest.VIEW, nodeNames.get(nodeClassifications.get("View")));
+        assertEquals(GraphExporterTest.SERVICE, nodeNames.get(nodeClassifications.get("Cluster_<1>&")));
+        assertEquals(this.getExpectedEdges(), edges);
+    }
+
+    private Set<List<String>> getExpectedEdges() {
+        Set<List<String>> returnValue;
+
+        returnValue = new HashSet<List<String>>();
+        returnValue.add(Arrays.asList(GraphExporterTest.VIEW, GraphExporterTest.SERVICE));
+        returnValue.add(Arrays.asList(GraphExporterTest.SERVICE, GraphExporterTest.EXTERNAL));
+
+        return returnValue;
+    }
+
+    // Flat JSON objects, with string, integer or boolean values
+    private static Map<String, Object> parseObject(final String json) {
+        int index;
+        String key;
+        int[] position;
+        Map<String, Object> returnValue;
+
+        returnValue = new LinkedHashMap<String, Object>();
+        position = new int[] { 1 };
+        assertEquals('{', json.charAt(0));
+        while (json.charAt(position[0]) != '}') {
+            key = GraphExporterTest.parseString(json, position);
+            assertEquals(':', json.charAt(position[0]++));
+            if (json.charAt(position[0]) == '"') {
+                returnValue.put(key, GraphExporterTest.parseString(json, position));
+            } else {
+                index = position[0];
+                while ((json.charAt(position[0]) != ',') && (json.charAt(position[0]) != '}')) {
+                    position[0]++;
+                }
+                if (json.substring(index, position[0]).matches("true|false")) {
+                    returnValue.put(key, Boolean.valueOf(json.substring(index, position[0])));
+                } else {
+                    returnValue.put(key, Integer.valueOf(json.substring(index, position[0])));
+                }
+            }
+
+            if (json.charAt(position[0]) == ',') {
+                position[0]++;
+            }
+        }
+        assertEquals(json.length() - 1, position[0]);
+
+        return returnValue;
+    }
+
+    private static String parseString(final String json, final int[] position) {
+        char character;
+        StringBuilder returnValue;
+
+        returnValue = new StringBuilder();
+        assertEquals('"', json.charAt(position[0]++));
+        for (character = json.charAt(position[0]++); character != '"'; character = json.charAt(position[0]++)) {
+            assertTrue("Unescaped control character in: " + json, character >= 0x20);
+            if (character == '\\') {
+                character = json.charAt(position[0]++);
+                switch (character) {
+                case '"':
+                case '\\':
+                case '/':
+                    returnValue.append(character);
+                    break;
+                case 'b':
+                    returnValue.append('\b');
+                    break;
+                case 'f':
+                    returnValue.append('\f');
+                    break;
+                case 'n':
+                    returnValue.append('\n');
+                    break;
+                case 'r':
+                    returnValue.append('\r');
+                    break;
+                case 't':
+                    returnValue.append('\t');
+                    break;
+                case 'u':
+                    returnValue.append((char) Integer.parseInt(json.substring(position[0], position[0] + 4), 16));
+                    position[0] += 4;
+                    break;
+                default:
+                    fail("Invalid JSON escape \\" + character + " in: " + json);
+                }
+            } else {
+                returnValue.append(character);
+            }
+        }
+
+        return returnValue.toString();
+    }
+}
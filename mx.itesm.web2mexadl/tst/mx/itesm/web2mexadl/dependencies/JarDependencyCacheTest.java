@@ -0,0 +1,182 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.mvc.MvcDependencyCommand;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class JarDependencyCacheTest extends TestCase {
+
+    public void testReuse() throws Exception {
+        byte[] jarContents;
+        File cacheDirectory;
+        JarDependencyCache cache;
+        List<ClassDependencies> cached;
+        List<ClassDependencies> analyzed;
+
+        jarContents = this.createJar(ClassDependencies.class, DependencySnapshot.class);
+        analyzed = DependencyAnalyzer.getJarDependencies("/app.war/WEB-INF/lib/app.jar", new ByteArrayInputStream(
+                jarContents), new MvcDependencyCommand());
+
+        cacheDirectory = File.createTempFile("jarCache", "");
+        cacheDirectory.delete();
+        try {
+            // Same contents in different WAR files
+            cache = new JarDependencyCache(cacheDirectory);
+            this.assertDependencies(analyzed, cache.getJarDependencies("/first.war/WEB-INF/lib/app.jar",
+                    new ByteArrayInputStream(jarContents), new MvcDependencyCommand()));
+            cached = cache.getJarDependencies("/second.war/WEB-INF/lib/app-1.0.jar", new ByteArrayInputStream(
+                    jarContents), new MvcDependencyCommand());
+            this.assertDependencies(analyzed, cached);
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+
+            // Copies can be modified
+            cached.get(0).setClassName("modified");
+            this.assertDependencies(analyzed, cache.getJarDependencies("/third.war/WEB-INF/lib/app.jar",
+                    new ByteArrayInputStream(jarContents), new MvcDependencyCommand()));
+
+            // Next run
+            cache = new JarDependencyCache(cacheDirectory);
+            this.assertDependencies(analyzed, cache.getJarDependencies("/first.war/WEB-INF/lib/app.jar",
+                    new ByteArrayInputStream(jarContents), new MvcDependencyCommand()));
+            assertEquals(0, cache.getMisses());
+            assertEquals(1, cache.getHits());
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
+    public void testEviction() throws Exception {
+        byte[] jarContents;
+        File cacheDirectory;
+        JarDependencyCache cache;
+
+        jarContents = this.createJar(ClassDependencies.class);
+        cacheDirectory = File.createTempFile("jarCache", "");
+        cacheDirectory.delete();
+        try {
+            // Without a cache directory, the dependencies are kept in memory
+            cache = new JarDependencyCache();
+            cache.getJarDependencies("/first.war/WEB-INF/lib/app.jar", new ByteArrayInputStream(jarContents));
+            cache.getJarDependencies("/second.war/WEB-INF/lib/app.jar", new ByteArrayInputStream(jarContents));
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+
+            // With a cache directory, they're read from the snapshot
+            cache = new JarDependencyCache(cacheDirectory);
+            cache.getJarDependencies("/first.war/WEB-INF/lib/app.jar", new ByteArrayInputStream(jarContents));
+            assertEquals(1, cacheDirectory.listFiles().length);
+            FileUtils.cleanDirectory(cacheDirectory);
+            cache.getJarDependencies("/second.war/WEB-INF/lib/app.jar", new ByteArrayInputStream(jarContents));
+            assertEquals(2, cache.getMisses());
+            assertEquals(0, cache.getHits());
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
+    public void testSharedNames() throws Exception {
+        int sharedCount;
+        byte[] jarContents;
+        SymbolTable names;
+        File cacheDirectory;
+        JarDependencyCache cache;
+        List<ClassDependencies> first;
+        List<ClassDependencies> second;
+
+        jarContents = this.createJar(ClassDependencies.class, DependencySnapshot.class);
+        names = new SymbolTable();
+        cacheDirectory = File.createTempFile("jarCache", "");
+        cacheDirectory.delete();
+        try {
+            // The second copy is read from the snapshot, its names are
+            // interned in the same table
+            cache = new JarDependencyCache(cacheDirectory);
+            first = cache.getJarDependencies("/first.war/WEB-INF/lib/app.jar", new ByteArrayInputStream(
+                    jarContents), names);
+            second = cache.getJarDependencies("/second.war/WEB-INF/lib/app.jar", new ByteArrayInputStream(
+                    jarContents), names);
+            assertEquals(1, cache.getHits());
+            this.assertDependencies(first, second);
+
+            sharedCount = 0;
+            for (int i = 0; i < first.size(); i++) {
+                assertSame(first.get(i).getClassName(), second.get(i).getClassName());
+                for (int j = 0; j < first.get(i).getInternalDependencies().size(); j++) {
+                    assertSame(first.get(i).getInternalDependencies().get(j), second.get(i)
+                            .getInternalDependencies().get(j));
+                    sharedCount++;
+                }
+            }
+            assertTrue(sharedCount > 0);
+            assertTrue(names.findNameId(DependencySnapshot.class.getName()) >= 0);
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
+    private byte[] createJar(final Class<?>... classes) throws Exception {
+        InputStream classStream;
+        JarOutputStream jarStream;
+        ByteArrayOutputStream returnValue;
+
+        returnValue = new ByteArrayOutputStream();
+        jarStream = new JarOutputStream(returnValue);
+        for (Class<?> clazz : classes) {
+            jarStream.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+            classStream = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class");
+            try {
+                IOUtils.copy(classStream, jarStream);
+            } finally {
+                classStream.close();
+            }
+            jarStream.closeEntry();
+        }
+        jarStream.close();
+
+        return returnValue.toByteArray();
+    }
+
+    private void assertDependencies(final List<ClassDependencies> expected, final List<ClassDependencies> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getClassName(), actual.get(i).getClassName());
+            assertEquals(expected.get(i).getPackageName(), actual.get(i).getPackageName());
+            assertEquals(expected.get(i).getInternalDependencies(), actual.get(i).getInternalDependencies());
+            assertEquals(expected.get(i).getExternalDependencies(), actual.get(i).getExternalDependencies());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.dependencies;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class SymbolTableTest extends TestCase {
+
+    private static final int THREADS = 8;
+
+    private static final int NAMES = 20000;
+
+    public void testConcurrentInterning() throws Exception {
+        Set<Integer> ids;
+        final SymbolTable table;
+        ExecutorService executor;
+        List<Future<int[]>> results;
+
+        table = new SymbolTable();
+        executor = Executors.newFixedThreadPool(SymbolTableTest.THREADS);
+        try {
+            results = new ArrayList<Future<int[]>>(SymbolTableTest.THREADS);
+            for (int i = 0; i < SymbolTableTest.THREADS; i++) {
+                final int offset = i;
+                results.add(executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() throws Exception {
+                        int[] returnValue;
+                        String name;
+
+                        // Each thread requests all the names, in a different
+                        // order, with new String instances
+                        returnValue = new int[SymbolTableTest.NAMES];
+                        for (int j = 0; j < SymbolTableTest.NAMES; j++) {
+                            name = "org.example.Class" + ((j + offset * 997) % SymbolTableTest.NAMES);
+                            returnValue[(j + offset * 997) % SymbolTableTest.NAMES] = table.getNameId(name);
+                            assertSame(table.intern(name), table.intern(new String(name)));
+                        }
+
+                        return returnValue;
+                    }
+                }));
+            }
+
+            // Same identifiers in all threads
+            for (Future<int[]> result : results) {
+                assertTrue(Arrays.equals(results.get(0).get(), result.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Consecutive identifiers
+        assertEquals(SymbolTableTest.NAMES, table.size());
+        ids = new HashSet<Integer>();
+        for (int i = 0; i < SymbolTableTest.NAMES; i++) {
+            assertEquals(i, table.getNameId(table.getName(i)));
+            assertEquals("org.example.Class" + i, table.getName(results.get(0).get()[i]));
+            ids.add(results.get(0).get()[i]);
+        }
+        assertEquals(SymbolTableTest.NAMES, ids.size());
+        assertEquals(-1, table.findNameId("org.example.Missing"));
+        assertNull(table.intern(null));
+    }
+
+    public void testScanInternsNames() throws Exception {
+        String first;
+        File classesDirectory;
+
+        classesDirectory = new File(SymbolTable.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        first = null;
+        for (ClassDependencies classDependencies : DependencyAnalyzer.getDirectoryDependencies(classesDirectory
+                .getAbsolutePath())) {
+            for (String dependency : classDependencies.getInternalDependencies()) {
+                if (dependency.equals(ClassDependencies.class.getName())) {
+                    if (first == null) {
+                        first = dependency;
+                    }
+                    assertSame(first, dependency);
+                }
+            }
+        }
+        assertNotNull(first);
+    }
+}
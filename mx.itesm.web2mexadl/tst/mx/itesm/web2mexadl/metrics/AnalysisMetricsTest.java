@@ -0,0 +1,120 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CancellationException;
+
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class AnalysisMetricsTest extends TestCase {
+
+    public void testNestedAnalysis() throws Exception {
+        long phaseStart;
+        long classesScanned;
+        AnalysisSummary summary;
+
+        classesScanned = AnalysisMetrics.getInstance().getClassesScanned();
+        AnalysisMetrics.startAnalysis("MVC");
+        phaseStart = AnalysisMetrics.startPhase(AnalysisPhase.Scanning);
+        AnalysisMetrics.endClass(AnalysisMetrics.startClass(), "Model", 100);
+        AnalysisMetrics.addEdgesFound(3);
+        AnalysisMetrics.endPhase(AnalysisPhase.Scanning, phaseStart);
+
+        // The nested analysis is part of the outer one
+        AnalysisMetrics.startAnalysis("Cluster");
+        AnalysisMetrics.endClass(AnalysisMetrics.startClass(), "View", 50);
+        AnalysisMetrics.addViolation();
+        assertNull(AnalysisMetrics.endAnalysis());
+
+        summary = AnalysisMetrics.endAnalysis();
+        assertSame(summary, AnalysisMetrics.getLastSummary());
+        assertEquals("MVC", summary.getAnalyzer());
+        assertEquals(2, summary.getClassesScanned());
+        assertEquals(150, summary.getBytesRead());
+        assertEquals(3, summary.getEdgesFound());
+        assertEquals(1, summary.getViolations());
+        assertEquals(classesScanned + 2, AnalysisMetrics.getInstance().getClassesScanned());
+        assertNull(AnalysisMetrics.endAnalysis());
+    }
+
+    public void testCancellation() throws Exception {
+        final int[] progress;
+        final boolean[] canceled;
+
+        progress = new int[2];
+        canceled = new boolean[1];
+        AnalysisMetrics.startAnalysis("MVC", new AnalysisMonitor() {
+            public void phaseStarted(final AnalysisPhase phase) {
+            }
+
+            public void entriesDiscovered(final int entriesCount) {
+                progress[0] += entriesCount;
+            }
+
+            public void entryAnalyzed(final String entryName) {
+                progress[1]++;
+            }
+
+            public boolean isCanceled() {
+                return canceled[0];
+            }
+        });
+
+        try {
+            AnalysisMetrics.addEntriesDiscovered(2);
+            AnalysisMetrics.addEntryAnalyzed("Model");
+            canceled[0] = true;
+            try {
+                AnalysisMetrics.addEntryAnalyzed("View");
+                fail("The analysis should have been canceled");
+            } catch (CancellationException e) {
+                // Expected
+            }
+
+            try {
+                AnalysisMetrics.startPhase(AnalysisPhase.Classification);
+                fail("The analysis should have been canceled");
+            } catch (CancellationException e) {
+                // Expected
+            }
+        } finally {
+            AnalysisMetrics.endAnalysis();
+        }
+
+        assertEquals(2, progress[0]);
+        assertEquals(2, progress[1]);
+
+        // Outside of an analysis there's nothing to cancel
+        AnalysisMetrics.checkCanceled();
+    }
+
+    public void testMBeanRegistration() throws Exception {
+        AnalysisMetrics.getInstance();
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                new ObjectName(AnalysisMetrics.OBJECT_NAME)));
+    }
+}
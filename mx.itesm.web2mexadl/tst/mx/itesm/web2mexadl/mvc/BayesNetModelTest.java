@@ -0,0 +1,232 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.mvc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+import mx.itesm.web2mexadl.dependencies.DependencyAnalyzer;
+import mx.itesm.web2mexadl.util.Util;
+import mx.itesm.web2mexadl.util.Util.Variable;
+
+import org.apache.commons.io.FileUtils;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.bayes.BayesNet;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class BayesNetModelTest extends TestCase {
+
+    public void testSameClassificationAsWeka() throws Exception {
+        int[] values;
+        int expected;
+        int[] variableNodes;
+        Instance instance;
+        Instances instances;
+        BayesNetModel model;
+        FastVector attributes;
+        Classifier classifier;
+
+        classifier = Util.getClassifier();
+        model = Util.getModel();
+        assertNotNull(model);
+
+        attributes = new FastVector(Variable.values().length + 1);
+        for (Variable variable : Variable.values()) {
+            attributes.addElement(variable.getAttribute());
+        }
+        attributes.addElement(Layer.getAttribute());
+        instances = new Instances("mvc", attributes, 0);
+        instances.setClassIndex(Variable.values().length);
+
+        variableNodes = new int[Variable.values().length];
+        for (Variable variable : Variable.values()) {
+            variableNodes[variable.ordinal()] = model.getNodeIndex(variable.toString());
+        }
+
+        // Every combination of the variables values
+        values = new int[model.getNodeCount()];
+        for (int type = 0; type < Variable.Type.getAttribute().numValues(); type++) {
+            for (int api = 0; api < Variable.ExternalAPI.getAttribute().numValues(); api++) {
+                for (int suffix = 0; suffix < Variable.Suffix.getAttribute().numValues(); suffix++) {
+                    instance = new Instance(Variable.values().length + 1);
+                    instance.setValue(Variable.Type.getAttribute(), type);
+                    instance.setValue(Variable.ExternalAPI.getAttribute(), api);
+                    instance.setValue(Variable.Suffix.getAttribute(), suffix);
+                    instance.setMissing(Layer.getAttribute());
+                    instance.setDataset(instances);
+                    expected = (int) classifier.classifyInstance(instance);
+
+                    values[variableNodes[Variable.Type.ordinal()]] = type;
+                    values[variableNodes[Variable.ExternalAPI.ordinal()]] = api;
+                    values[variableNodes[Variable.Suffix.ordinal()]] = suffix;
+                    assertEquals(instance.toString(), expected, Math.max(model.classify(values), 0));
+                }
+            }
+        }
+    }
+
+    public void testConversion() throws Exception {
+        File modelFile;
+        BayesNetModel model;
+        BayesNetModel expected;
+
+        expected = Util.getModel();
+        modelFile = File.createTempFile("model", ".cpt");
+        try {
+            BayesNetModelConverter.convert((BayesNet) Util.getClassifier()).write(modelFile);
+            model = BayesNetModel.read(new FileInputStream(modelFile));
+        } finally {
+            modelFile.delete();
+        }
+
+        assertEquals(expected.getNodeCount(), model.getNodeCount());
+        assertEquals(expected.getClassIndex(), model.getClassIndex());
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 10; j++) {
+                for (int k = 0; k < 20; k++) {
+                    assertEquals(expected.classify(new int[] { i, j, k, 0 }), model.classify(new int[] { i, j, k,
+                            0 }));
+                }
+            }
+        }
+    }
+
+    public void testSameLayersAsWeka() throws Exception {
+        File classesDirectory;
+        List<ClassDependencies> dependencies;
+
+        classesDirectory = new File(MvcAnalyzer.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        dependencies = DependencyAnalyzer.getDirectoryDependencies(classesDirectory.getAbsolutePath(),
+                new MvcDependencyCommand());
+        assertEquals(new MvcAnalyzer(Util.getClassifier()).classify(dependencies),
+                new MvcAnalyzer().classify(dependencies));
+    }
+
+    public void testCorrections() throws Exception {
+        int[] values;
+        Instance instance;
+        Instances instances;
+        File correctionsFile;
+        BayesNetModel model;
+        BayesNet classifier;
+        FastVector attributes;
+        List<int[]> corrections;
+        ClassDependencies classDependencies;
+
+        classDependencies = new ClassDependencies("mx.example.CustomerService", null, null);
+        values = new int[] { 0, Variable.ExternalAPI.getAttribute().indexOfValue("none"),
+                Variable.Suffix.getAttribute().indexOfValue("service"), 0 };
+        assertEquals(Layer.Controller.ordinal(), Util.getModel().classify(values));
+
+        correctionsFile = File.createTempFile("mvc-corrections", ".arff");
+        try {
+            FileUtils.writeStringToFile(correctionsFile, "% Quoted values\n'jsp','none','form','view'\n");
+            for (int i = 0; i < 50; i++) {
+                ModelCorrections.add(correctionsFile, classDependencies, Layer.Model);
+            }
+            corrections = ModelCorrections.read(correctionsFile, Util.getModel());
+        } finally {
+            correctionsFile.delete();
+        }
+        assertEquals(51, corrections.size());
+        model = Util.getModel().update(corrections);
+        assertEquals(Layer.Controller.ordinal(), Util.getModel().classify(values));
+        assertEquals(Layer.Model.ordinal(), model.classify(values));
+
+        // Same counts as the updated Weka classifier
+        attributes = new FastVector(Variable.values().length + 1);
+        for (Variable variable : Variable.values()) {
+            attributes.addElement(variable.getAttribute());
+        }
+        attributes.addElement(Layer.getAttribute());
+        instances = new Instances("mvc", attributes, 0);
+        instances.setClassIndex(Variable.values().length);
+
+        classifier = (BayesNet) Classifier.makeCopy(Util.getClassifier());
+        for (int[] correction : corrections) {
+            instance = new Instance(Variable.values().length + 1);
+            for (int i = 0; i < correction.length; i++) {
+                instance.setValue(i, correction[i]);
+            }
+            instance.setDataset(instances);
+            classifier.updateClassifier(instance);
+        }
+        assertTrue(Arrays.equals(BayesNetModelTest.getBytes(BayesNetModelConverter.convert(classifier)),
+                BayesNetModelTest.getBytes(model)));
+    }
+
+    public void testCorrectionsFileChanges() throws Exception {
+        int[] values;
+        File correctionsFile;
+        String correctionsPath;
+        ClassDependencies classDependencies;
+
+        classDependencies = new ClassDependencies("mx.example.CustomerService", null, null);
+        values = new int[] { 0, Variable.ExternalAPI.getAttribute().indexOfValue("none"),
+                Variable.Suffix.getAttribute().indexOfValue("service"), 0 };
+
+        correctionsPath = System.getProperty(Util.CORRECTIONS_FILE_PROPERTY);
+        correctionsFile = File.createTempFile("mvc-corrections", ".arff");
+        correctionsFile.delete();
+        System.setProperty(Util.CORRECTIONS_FILE_PROPERTY, correctionsFile.getAbsolutePath());
+        try {
+            assertEquals(Layer.Controller.ordinal(), Util.getModel().classify(values));
+
+            for (int i = 0; i < 50; i++) {
+                ModelCorrections.add(correctionsFile, classDependencies, Layer.Model);
+            }
+            assertEquals(Layer.Model.ordinal(), Util.getModel().classify(values));
+            assertSame(Util.getModel(), Util.getModel());
+
+            correctionsFile.delete();
+            assertEquals(Layer.Controller.ordinal(), Util.getModel().classify(values));
+        } finally {
+            correctionsFile.delete();
+            if (correctionsPath != null) {
+                System.setProperty(Util.CORRECTIONS_FILE_PROPERTY, correctionsPath);
+            } else {
+                System.clearProperty(Util.CORRECTIONS_FILE_PROPERTY);
+            }
+        }
+    }
+
+    private static byte[] getBytes(final BayesNetModel model) throws Exception {
+        File modelFile;
+
+        modelFile = File.createTempFile("model", ".cpt");
+        try {
+            model.write(modelFile);
+            return FileUtils.readFileToByteArray(modelFile);
+        } finally {
+            modelFile.delete();
+        }
+    }
+}
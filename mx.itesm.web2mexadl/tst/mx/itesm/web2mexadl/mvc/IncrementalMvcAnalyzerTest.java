@@ -0,0 +1,143 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.mvc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import mx.itesm.web2mexadl.dependencies.ClassDependencies;
+
+import org.apache.commons.io.FileUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class IncrementalMvcAnalyzerTest extends TestCase {
+
+    public void testUpdate() throws Exception {
+        File addedFile;
+        File directory;
+        Map<String, Layer> updated;
+        IncrementalMvcAnalyzer analyzer;
+
+        directory = new File(System.getProperty("java.io.tmpdir"), "incrementalMvcAnalyzerTest");
+        FileUtils.deleteQuietly(directory);
+        this.copyClass(directory, MvcAnalyzer.class);
+        this.copyClass(directory, Layer.class);
+        analyzer = new IncrementalMvcAnalyzer(directory);
+        analyzer.analyze(null);
+        assertEquals(2, analyzer.getClassification().size());
+
+        // The new class is parsed, and MvcAnalyzer now depends on it
+        addedFile = this.copyClass(directory, ClassDependencies.class);
+        updated = analyzer.update(Arrays.asList(addedFile), Collections.<File> emptyList(), null);
+        assertEquals(2, updated.size());
+        assertTrue(updated.containsKey(ClassDependencies.class.getName()));
+        assertTrue(updated.containsKey(MvcAnalyzer.class.getName()));
+        assertEquals(new IncrementalMvcAnalyzer(directory).analyze(null), analyzer.getClassification());
+
+        updated = analyzer.update(Collections.<File> emptyList(), Arrays.asList(addedFile), null);
+        assertEquals(Collections.singleton(MvcAnalyzer.class.getName()), updated.keySet());
+        assertEquals(2, analyzer.getClassification().size());
+        FileUtils.deleteQuietly(directory);
+    }
+
+    public void testFailedUpdate() throws Exception {
+        File directory;
+        File missingFile;
+        IncrementalMvcAnalyzer analyzer;
+
+        directory = new File(System.getProperty("java.io.tmpdir"), "incrementalMvcAnalyzerTest");
+        FileUtils.deleteQuietly(directory);
+        this.copyClass(directory, MvcAnalyzer.class);
+        analyzer = new IncrementalMvcAnalyzer(directory);
+        analyzer.analyze(null);
+
+        // Deleted before it could be read
+        missingFile = new File(directory, "mx/itesm/web2mexadl/mvc/Missing.class");
+        try {
+            analyzer.update(Arrays.asList(this.copyClass(directory, Layer.class), missingFile),
+                    Collections.<File> emptyList(), null);
+            fail();
+        } catch (IOException e) {
+            assertTrue(analyzer.isEmpty());
+            assertTrue(analyzer.getClassification().isEmpty());
+        }
+
+        assertEquals(2, analyzer.analyze(null).size());
+        FileUtils.deleteQuietly(directory);
+    }
+
+    public void testExportWithInvalidRelations() throws Exception {
+        File directory;
+        File outputFile;
+        Map<String, Layer> classification;
+        IncrementalMvcAnalyzer analyzer;
+
+        // The model class depends on a controller
+        directory = new File(System.getProperty("java.io.tmpdir"), "incrementalMvcAnalyzerTest");
+        FileUtils.deleteQuietly(directory);
+        this.createClass(directory, "sample/web/SampleController", "sample/domain/Sample",
+                "javax/servlet/http/HttpServlet");
+        this.createClass(directory, "sample/domain/Sample", "sample/web/SampleController", "java/lang/Object");
+        analyzer = new IncrementalMvcAnalyzer(directory);
+        classification = analyzer.analyze(null);
+        assertEquals(Layer.Model, classification.get("sample.domain.Sample"));
+        assertEquals(Layer.Controller, classification.get("sample.web.SampleController"));
+
+        outputFile = new File(directory, "output/mvc.svg");
+        analyzer.export(false, outputFile, null);
+        assertEquals(classification, analyzer.getClassification());
+        analyzer.export(false, outputFile, null);
+        assertEquals(classification, analyzer.getClassification());
+        assertTrue(new File(outputFile.getParentFile(), "mvcArchitecture.xml").isFile());
+        FileUtils.deleteQuietly(directory);
+    }
+
+    private void createClass(final File directory, final String className, final String dependency,
+            final String superName) throws Exception {
+        ClassWriter classWriter;
+
+        classWriter = new ClassWriter(0);
+        classWriter.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, className, null, superName, null);
+        classWriter.visitField(Opcodes.ACC_PRIVATE, "dependency", "L" + dependency + ";", null, null).visitEnd();
+        classWriter.visitEnd();
+        FileUtils.writeByteArrayToFile(new File(directory, className + ".class"), classWriter.toByteArray());
+    }
+
+    private File copyClass(final File directory, final Class<?> clazz) throws Exception {
+        File returnValue;
+        String classPath;
+
+        classPath = clazz.getName().replace('.', '/') + ".class";
+        returnValue = new File(directory, classPath);
+        FileUtils.copyInputStreamToFile(clazz.getResourceAsStream("/" + classPath), returnValue);
+
+        return returnValue;
+    }
+}
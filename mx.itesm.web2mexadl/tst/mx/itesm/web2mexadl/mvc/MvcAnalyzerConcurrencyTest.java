@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.mvc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.cluster.Cluster;
+import mx.itesm.web2mexadl.cluster.ClusterAnalyzer;
+import mx.itesm.web2mexadl.util.Util;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class MvcAnalyzerConcurrencyTest extends TestCase {
+
+    private static final int TASKS = 36;
+
+    public void testParallelAnalyses() throws Exception {
+        ExecutorService executor;
+        List<Future<Object>> results;
+        List<Object> expectedResults;
+        List<File> expectedDocuments;
+        final File outputDirectory;
+        final File classesDirectory;
+        final MvcAnalyzer[] analyzers;
+
+        classesDirectory = new File(MvcAnalyzer.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        outputDirectory = new File(System.getProperty("java.io.tmpdir"), "mvcAnalyzerConcurrencyTest");
+        FileUtils.deleteQuietly(outputDirectory);
+
+        // Bayesian network models, shared or not, and a Weka classifier,
+        // whose copies are borrowed by each classification
+        analyzers = new MvcAnalyzer[] { MvcAnalyzer.getDefaultAnalyzer(), new MvcAnalyzer(),
+                new MvcAnalyzer(Util.getClassifier()) };
+        executor = Executors.newFixedThreadPool(8);
+        try {
+            // Sequential runs
+            expectedResults = new ArrayList<Object>();
+            expectedDocuments = new ArrayList<File>();
+            for (int i = 0; i <= analyzers.length; i++) {
+                expectedResults.add(this.analyze(classesDirectory, analyzers, i, new File(outputDirectory,
+                        "sequential-" + i)));
+                expectedDocuments.add(this.getDocument(new File(outputDirectory, "sequential-" + i), i,
+                        analyzers.length));
+                assertTrue(expectedDocuments.get(i).isFile());
+            }
+
+            // Parallel runs, each one in its own directory
+            results = new ArrayList<Future<Object>>(MvcAnalyzerConcurrencyTest.TASKS);
+            for (int i = 0; i < MvcAnalyzerConcurrencyTest.TASKS; i++) {
+                final int task = i;
+                results.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return MvcAnalyzerConcurrencyTest.this.analyze(classesDirectory, analyzers, task
+                                % (analyzers.length + 1), new File(outputDirectory, "parallel-" + task));
+                    }
+                }));
+            }
+
+            for (int i = 0; i < MvcAnalyzerConcurrencyTest.TASKS; i++) {
+                assertEquals(expectedResults.get(i % (analyzers.length + 1)), results.get(i).get());
+                assertTrue(FileUtils.contentEquals(expectedDocuments.get(i % (analyzers.length + 1)), this
+                        .getDocument(new File(outputDirectory, "parallel-" + i), i % (analyzers.length + 1),
+                                analyzers.length)));
+            }
+        } finally {
+            executor.shutdownNow();
+            FileUtils.deleteQuietly(outputDirectory);
+        }
+    }
+
+    private Object analyze(final File classesDirectory, final MvcAnalyzer[] analyzers, final int analyzer,
+            final File outputDirectory) throws Exception {
+        Object returnValue;
+        Map<String, String> clusterNames;
+
+        FileUtils.forceMkdir(outputDirectory);
+        if (analyzer < analyzers.length) {
+            returnValue = analyzers[analyzer].analyzeDirectory(classesDirectory, false, new File(outputDirectory,
+                    "mvc.svg"), null);
+        } else {
+            clusterNames = new HashMap<String, String>();
+            for (Map.Entry<String, Cluster> cluster : ClusterAnalyzer.classifyClassesInDirectory(classesDirectory,
+                    false, new File(outputDirectory, "clustered.svg")).entrySet()) {
+                clusterNames.put(cluster.getKey(), cluster.getValue().getName());
+            }
+            returnValue = clusterNames;
+        }
+
+        return returnValue;
+    }
+
+    private File getDocument(final File outputDirectory, final int analyzer, final int analyzersCount) {
+        return new File(outputDirectory, (analyzer < analyzersCount) ? "mvcArchitecture.xml"
+                : "clusteredArchitecture.xml");
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.system;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.dependencies.SymbolTable;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class SystemGraphTest extends TestCase {
+
+    public void testGraph() {
+        SystemGraph graph;
+        SymbolTable symbols;
+        List<ApplicationSummary> applications;
+
+        symbols = new SymbolTable();
+        applications = new ArrayList<ApplicationSummary>();
+        applications.add(this.createSummary(symbols, "store", new String[] { "com.store.web", "com.common.util" },
+                new String[] { "com.billing.api", "com.common.model", "java.util" }, new String[] { "commons.jar" }));
+        applications.add(this.createSummary(symbols, "billing", new String[] { "com.billing.api",
+                "com.common.model", "com.common.util" }, new String[] { "java.util" }, new String[] { "commons.jar",
+                "billing.jar" }));
+        applications.add(this.createSummary(symbols, "admin", new String[] { "com.common.model" }, new String[] {
+                "com.billing.api", "com.store.web" }, new String[] { "commons.jar" }));
+        graph = new SystemGraph(applications, symbols);
+
+        // Applications that depend on packages defined by a single application
+        assertEquals(Integer.valueOf(1), graph.getApplicationDependencies(0).get(1));
+        assertTrue(graph.getApplicationDependencies(1).isEmpty());
+        assertEquals(Integer.valueOf(1), graph.getApplicationDependencies(2).get(0));
+        assertEquals(Integer.valueOf(1), graph.getApplicationDependencies(2).get(1));
+
+        // Shared packages, grouped by owners
+        assertEquals(2, graph.getSharedPackages().size());
+        assertEquals(Arrays.asList(0, 1), graph.getSharedPackages().get(0).getApplications());
+        assertEquals(Arrays.asList("com.common.util"), graph.getSharedPackages().get(0).getMembers());
+        assertEquals(Arrays.asList(1, 2), graph.getSharedPackages().get(1).getApplications());
+        assertEquals(Arrays.asList("com.common.model"), graph.getSharedPackages().get(1).getMembers());
+        assertEquals(Integer.valueOf(1), graph.getSharedPackagesDependencies(0).get(1));
+
+        // Shared JAR files
+        assertEquals(1, graph.getSharedLibraries().size());
+        assertEquals(Arrays.asList(0, 1, 2), graph.getSharedLibraries().get(0).getApplications());
+        assertEquals(Arrays.asList("commons.jar"), graph.getSharedLibraries().get(0).getMembers());
+
+        assertEquals(Arrays.asList("com.store.web"), graph.getPrivatePackages(0));
+        assertEquals(Arrays.asList("com.billing.api"), graph.getPrivatePackages(1));
+        assertTrue(graph.getPrivatePackages(2).isEmpty());
+    }
+
+    private ApplicationSummary createSummary(final SymbolTable symbols, final String name,
+            final String[] definedPackages, final String[] usedPackages, final String[] libraries) {
+        return new ApplicationSummary(name, new File(name + ".war"), definedPackages.length, this.getIds(symbols,
+                definedPackages), this.getIds(symbols, usedPackages), this.getIds(symbols, libraries));
+    }
+
+    private int[] getIds(final SymbolTable symbols, final String[] names) {
+        int[] returnValue;
+
+        returnValue = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            returnValue[i] = symbols.getNameId(names[i]);
+        }
+
+        return returnValue;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2011 jccastrejon
+ *  
+ * This file is part of Web2MexADL.
+ *
+ * Web2MexADL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * Web2MexADL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with Web2MexADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mx.itesm.web2mexadl.training;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import mx.itesm.web2mexadl.mvc.BayesNetModel;
+import mx.itesm.web2mexadl.mvc.Layer;
+import mx.itesm.web2mexadl.mvc.MvcAnalyzer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import weka.core.Instances;
+
+/**
+ * 
+ * @author jccastrejon
+ * 
+ */
+public class ModelTrainerTest extends TestCase {
+
+    public void testRetrainDistributedModel() throws Exception {
+        File trainingFile;
+        File outputDirectory;
+        InputStream expected;
+        List<CandidateEvaluation> sequential;
+        List<CandidateEvaluation> concurrent;
+
+        trainingFile = new File(MvcAnalyzer.class.getResource("/training-grails-play-struts-roo.arff").toURI());
+        outputDirectory = File.createTempFile("trainer", "");
+        outputDirectory.delete();
+        expected = MvcAnalyzer.class.getResourceAsStream("/mvc-classifier-grails-play-struts-roo.cpt");
+        try {
+            new ModelTrainer(4, 10, new String[] { ModelTrainer.DEFAULT_CANDIDATES[0] }, null, null, null).train(
+                    ModelTrainer.readInstances(trainingFile), outputDirectory);
+            assertTrue(Arrays.equals(IOUtils.toByteArray(expected),
+                    FileUtils.readFileToByteArray(new File(outputDirectory, ModelTrainer.MODEL_FILE))));
+        } finally {
+            expected.close();
+            FileUtils.deleteDirectory(outputDirectory);
+        }
+
+        // Same folds regardless of the number of threads
+        sequential = new ModelTrainer(1, 5, ModelTrainer.DEFAULT_CANDIDATES, null, null, null)
+                .crossValidate(ModelTrainer.readInstances(trainingFile));
+        concurrent = new ModelTrainer(8, 5, ModelTrainer.DEFAULT_CANDIDATES, null, null, null)
+                .crossValidate(ModelTrainer.readInstances(trainingFile));
+        assertEquals(ModelTrainer.DEFAULT_CANDIDATES.length, concurrent.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getCorrectCount(), concurrent.get(i).getCorrectCount());
+            assertTrue(concurrent.get(i).getAccuracy() > 0.5);
+        }
+    }
+
+    public void testTrainLabeledClasses() throws Exception {
+        File classesDirectory;
+        File workDirectory;
+        File outputDirectory;
+        Instances instances;
+        InputStream modelStream;
+        BayesNetModel model;
+        Map<String, Layer> labels;
+
+        workDirectory = File.createTempFile("trainer", "");
+        workDirectory.delete();
+        try {
+            classesDirectory = new File(workDirectory, "classes");
+            FileUtils.copyDirectory(new File(new File(MvcAnalyzer.class.getProtectionDomain().getCodeSource()
+                    .getLocation().toURI()), "mx/itesm/web2mexadl/mvc"), new File(classesDirectory,
+                    "mx/itesm/web2mexadl/mvc"));
+            FileUtils.writeStringToFile(new File(workDirectory, "classes" + ModelTrainer.LABELS_EXTENSION),
+                    "# MVC package\nmx.itesm.web2mexadl.mvc=controller\nmx.itesm.web2mexadl.mvc.Layer=Model\n");
+
+            labels = ModelTrainer.readLabels(new File(workDirectory, "classes" + ModelTrainer.LABELS_EXTENSION));
+            assertEquals(Layer.Model, ModelTrainer.getLabel(labels, "mx.itesm.web2mexadl.mvc.Layer"));
+            assertEquals(Layer.Controller, ModelTrainer.getLabel(labels, "mx.itesm.web2mexadl.mvc.Layer$1"));
+            assertEquals(Layer.Controller, ModelTrainer.getLabel(labels, "mx.itesm.web2mexadl.mvc.MvcAnalyzer"));
+            assertNull(ModelTrainer.getLabel(labels, "mx.itesm.web2mexadl.util.Util"));
+
+            outputDirectory = new File(workDirectory, "model");
+            new ModelTrainer(2, 2, ModelTrainer.DEFAULT_CANDIDATES, null, null, null).train(
+                    Arrays.asList(classesDirectory), outputDirectory);
+
+            instances = ModelTrainer.readInstances(new File(outputDirectory, ModelTrainer.TRAINING_FILE));
+            assertEquals(new File(classesDirectory, "mx/itesm/web2mexadl/mvc").list().length,
+                    instances.numInstances());
+            assertTrue(new File(outputDirectory, ModelTrainer.CLASSIFIER_FILE).isFile());
+            assertTrue(new File(outputDirectory, ModelTrainer.VARIABLES_FILE).isFile());
+
+            modelStream = new FileInputStream(new File(outputDirectory, ModelTrainer.MODEL_FILE));
+            model = BayesNetModel.read(modelStream);
+            assertEquals(4, model.getNodeCount());
+        } finally {
+            FileUtils.deleteDirectory(workDirectory);
+        }
+    }
+}